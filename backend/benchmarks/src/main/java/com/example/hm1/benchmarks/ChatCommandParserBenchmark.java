@@ -0,0 +1,45 @@
+package com.example.hm1.benchmarks;
+
+import com.example.hm1.service.chat.ChatCommandParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Парсер викликається для кожного повідомлення в чаті, тому важливий і "промах"
+ * (звичайний текст), і команда $cash.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatCommandParserBenchmark {
+
+    @Param({"$cash 150.25 usd ->", "Привіт, як справи? Скинь, будь ласка, номер рахунку"})
+    private String message;
+
+    private ChatCommandParser parser;
+
+    @Setup
+    public void setUp() {
+        parser = new ChatCommandParser();
+    }
+
+    @Benchmark
+    public Optional<ChatCommandParser.CashCommand> parse() {
+        return parser.parse(message);
+    }
+}
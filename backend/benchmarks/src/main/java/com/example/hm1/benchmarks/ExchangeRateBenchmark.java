@@ -0,0 +1,101 @@
+package com.example.hm1.benchmarks;
+
+import com.example.hm1.dao.ExchangeRateRepository;
+import com.example.hm1.dto.ExchangeRateHistoryPoint;
+import com.example.hm1.entity.Currency;
+import com.example.hm1.entity.ExchangeRate;
+import com.example.hm1.service.ExchangeRateServiceImpl;
+import com.example.hm1.service.rates.ExchangeRateProperties;
+import com.example.hm1.service.rates.ExchangeRateHistoryStore;
+import com.example.hm1.service.rates.ExchangeRateProviderPipeline;
+import com.example.hm1.service.rates.RateSnapshotStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Курс і конвертація, що викликаються на кожному переказі між валютами,
+ * та історія курсів за 12 місяців (/api/exchange-rates/history?period=12m).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExchangeRateBenchmark {
+
+    @Param({"USD", "UAH"})
+    private Currency from;
+
+    @Param({"EUR", "GBP"})
+    private Currency to;
+
+    private static final List<Currency> HISTORY_CURRENCIES = List.of(Currency.USD, Currency.EUR, Currency.GBP);
+
+    private ExchangeRateServiceImpl service;
+    private BigDecimal amount;
+
+    @Setup
+    public void setUp() {
+        ExchangeRateProperties properties = new ExchangeRateProperties();
+        LocalDate today = LocalDate.now();
+        List<ExchangeRate> stored = new ArrayList<>();
+        for (int i = properties.getHistoryDays(); i >= 0; i--) {
+            for (Currency currency : HISTORY_CURRENCIES) {
+                stored.add(new ExchangeRate(currency, today.minusDays(i), BigDecimal.valueOf(40_000_000L + i * 1_000L, 6)));
+            }
+        }
+
+        ExchangeRateRepository repository = (ExchangeRateRepository) Proxy.newProxyInstance(
+                ExchangeRateRepository.class.getClassLoader(),
+                new Class<?>[]{ExchangeRateRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findHistorySince" -> stored;
+                    case "findLatestBefore" -> List.of();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        ExchangeRateHistoryStore historyStore = new ExchangeRateHistoryStore(repository, properties);
+        historyStore.load();
+
+        // Оновлення курсів тут не викликається, тому провайдерів і сховища знімків немає
+        properties.setProviders(List.of());
+        ExchangeRateProviderPipeline providerPipeline =
+                new ExchangeRateProviderPipeline(List.of(), properties, new SimpleMeterRegistry());
+
+        service = new ExchangeRateServiceImpl(historyStore, providerPipeline, new RateSnapshotStore(null));
+        amount = new BigDecimal("1234.56");
+    }
+
+    @Benchmark
+    public BigDecimal getExchangeRate() {
+        return service.getExchangeRate(from, to);
+    }
+
+    @Benchmark
+    public BigDecimal convertAmount() {
+        return service.convertAmount(amount, from, to);
+    }
+
+    @Benchmark
+    public Map<String, List<ExchangeRateHistoryPoint>> historicalRatesForYear() {
+        return service.getHistoricalRates(HISTORY_CURRENCIES, 365);
+    }
+}
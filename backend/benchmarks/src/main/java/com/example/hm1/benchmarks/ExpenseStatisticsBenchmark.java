@@ -0,0 +1,167 @@
+package com.example.hm1.benchmarks;
+
+import com.example.hm1.dao.ExpenseRollupRepository;
+import com.example.hm1.dao.TransactionRepository;
+import com.example.hm1.dto.ExpenseStatisticsDTO;
+import com.example.hm1.entity.Transaction;
+import com.example.hm1.service.TransactionServiceImpl;
+import com.example.hm1.service.stats.ExpenseStatisticsProperties;
+import com.example.hm1.service.stats.ExpenseStatisticsStreamer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.domain.Pageable;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цикли агрегації статистики витрат (суми, відсотки по категоріях) без БД:
+ * репозиторій expense_rollups повертає заздалегідь згенеровані рядки GROUP BY.
+ * Звіти по всіх клієнтах рахуються з @OperationsPerInvocation(CUSTOMERS), тож їх
+ * час і gc.alloc.rate.norm - на одного клієнта, порівнянні з expenseStatisticsByMonth.
+ * legacyAllUsers - попередня реалізація на HashMap і BigDecimal як база для порівняння.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpenseStatisticsBenchmark {
+
+    private static final int CUSTOMERS = 10_000;
+    private static final Transaction.ExpenseCategory[] CATEGORIES = Transaction.ExpenseCategory.values();
+
+    private TransactionServiceImpl service;
+    private ExpenseStatisticsStreamer streamer;
+    private List<Object[]> allUsers;
+
+    @Setup
+    public void setUp() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        List<Object[]> perCustomer = new ArrayList<>();
+        for (Transaction.ExpenseCategory category : CATEGORIES) {
+            perCustomer.add(new Object[]{category, randomAmount(random)});
+        }
+
+        // Клієнти 1..CUSTOMERS, по рядку на категорію, відсортовані за id як ORDER BY customer_id
+        allUsers = new ArrayList<>();
+        for (long customerId = 1; customerId <= CUSTOMERS; customerId++) {
+            for (Transaction.ExpenseCategory category : CATEGORIES) {
+                allUsers.add(new Object[]{customerId, category, randomAmount(random)});
+            }
+        }
+
+        ExpenseRollupRepository rollups = (ExpenseRollupRepository) Proxy.newProxyInstance(
+                ExpenseRollupRepository.class.getClassLoader(),
+                new Class<?>[]{ExpenseRollupRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "sumByCustomerAndMonth", "sumByAccountAndMonth" -> perCustomer;
+                    case "sumAllCustomersByMonth" -> allUsers;
+                    case "findCustomerIdsAfter" -> customerIdsAfter((Long) args[1], ((Pageable) args[2]).getPageSize());
+                    case "sumCustomerRangeByMonth" -> rowsOfCustomers((Long) args[1], (Long) args[2]);
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        TransactionRepository transactions = (TransactionRepository) Proxy.newProxyInstance(
+                TransactionRepository.class.getClassLoader(),
+                new Class<?>[]{TransactionRepository.class},
+                (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        service = new TransactionServiceImpl(transactions, rollups);
+        streamer = new ExpenseStatisticsStreamer(rollups, new ObjectMapper(), new ExpenseStatisticsProperties());
+    }
+
+    @TearDown
+    public void tearDown() {
+        streamer.shutdown();
+    }
+
+    @Benchmark
+    public ExpenseStatisticsDTO expenseStatisticsByMonth() {
+        return service.getExpenseStatisticsByMonth(1L, 2024, 5);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CUSTOMERS)
+    public Map<Long, ExpenseStatisticsDTO> legacyAllUsers() {
+        return legacyAggregate(allUsers);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CUSTOMERS)
+    public Map<Long, ExpenseStatisticsDTO> expenseStatisticsForAllUsers() {
+        return service.getExpenseStatisticsForAllUsersByMonth(2024, 5);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CUSTOMERS)
+    public long expenseStatisticsStreamed(Blackhole blackhole) {
+        return streamer.forEachCustomer(YearMonth.of(2024, 5), (customerId, statistics) -> blackhole.consume(statistics));
+    }
+
+    private static List<Long> customerIdsAfter(long afterId, int limit) {
+        List<Long> ids = new ArrayList<>(limit);
+        for (long id = afterId + 1; id <= CUSTOMERS && ids.size() < limit; id++) {
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    private List<Object[]> rowsOfCustomers(long fromId, long toId) {
+        return allUsers.subList((int) (fromId - 1) * CATEGORIES.length, (int) toId * CATEGORIES.length);
+    }
+
+    private static Map<Long, ExpenseStatisticsDTO> legacyAggregate(List<Object[]> results) {
+        Map<Long, Map<Transaction.ExpenseCategory, BigDecimal>> userExpensesMap = new HashMap<>();
+        for (Object[] result : results) {
+            Long customerId = ((Number) result[0]).longValue();
+            userExpensesMap.computeIfAbsent(customerId, k -> new HashMap<>())
+                    .put((Transaction.ExpenseCategory) result[1], (BigDecimal) result[2]);
+        }
+
+        Map<Long, ExpenseStatisticsDTO> statisticsByUser = new HashMap<>();
+        for (Map.Entry<Long, Map<Transaction.ExpenseCategory, BigDecimal>> entry : userExpensesMap.entrySet()) {
+            Map<Transaction.ExpenseCategory, BigDecimal> expensesByCategory = entry.getValue();
+            BigDecimal totalExpenses = expensesByCategory.values().stream()
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            Map<Transaction.ExpenseCategory, Double> percentagesByCategory = new HashMap<>();
+            if (totalExpenses.compareTo(BigDecimal.ZERO) > 0) {
+                for (Map.Entry<Transaction.ExpenseCategory, BigDecimal> catEntry : expensesByCategory.entrySet()) {
+                    BigDecimal percentage = catEntry.getValue()
+                            .divide(totalExpenses, 4, RoundingMode.HALF_UP)
+                            .multiply(BigDecimal.valueOf(100));
+                    percentagesByCategory.put(catEntry.getKey(), percentage.doubleValue());
+                }
+            }
+            statisticsByUser.put(entry.getKey(), new ExpenseStatisticsDTO(
+                    expensesByCategory, totalExpenses, percentagesByCategory));
+        }
+        return statisticsByUser;
+    }
+
+    private static BigDecimal randomAmount(ThreadLocalRandom random) {
+        return BigDecimal.valueOf(random.nextLong(1, 1_000_000), 2);
+    }
+}
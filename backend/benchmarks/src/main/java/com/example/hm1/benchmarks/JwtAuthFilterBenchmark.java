@@ -0,0 +1,109 @@
+package com.example.hm1.benchmarks;
+
+import com.example.hm1.dao.UserRepository;
+import com.example.hm1.security.JwtAuthFilter;
+import com.example.hm1.security.JwtService;
+import com.example.hm1.security.PrincipalSource;
+import com.example.hm1.security.SecurityProperties;
+import com.example.hm1.security.TokenRevocationRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.lang.reflect.Proxy;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Накладні витрати JwtAuthFilter на один запит з Bearer-токеном (без БД: UserDetailsService
+ * повертає готового користувача, тож для DATABASE це нижня межа). cacheSize=0 - кожен запит
+ * перевіряє підпис заново, інакше підпис перевіряється один раз і далі claims беруться з кешу JwtService.
+ * TOKEN - principal будується з claims без UserDetailsService.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthFilterBenchmark {
+
+    private static final String USERNAME = "benchmark@example.com";
+
+    @Param({"0", "10000"})
+    private int cacheSize;
+
+    @Param({"DATABASE", "TOKEN"})
+    private PrincipalSource principalSource;
+
+    private JwtAuthFilter filter;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+    private FilterChain chain;
+
+    @Setup
+    public void setUp() {
+        SecurityProperties properties = new SecurityProperties();
+        properties.setSecret(Base64.getEncoder().encodeToString("benchmark-secret-key-with-at-least-256-bits!".getBytes()));
+        properties.setExpirationMillis(TimeUnit.HOURS.toMillis(1));
+        properties.setVerifiedTokenCacheSize(cacheSize);
+        properties.setPrincipalSource(principalSource);
+        JwtService jwtService = new JwtService(properties);
+        String authorization = "Bearer " + jwtService.generateToken(1L, USERNAME, new String[]{"ROLE_USER"});
+
+        UserRepository users = (UserRepository) Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findRevocations" -> List.of();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        TokenRevocationRegistry revocations = new TokenRevocationRegistry(users, properties);
+        revocations.refresh();
+
+        UserDetails user = User.withUsername(USERNAME).password("{noop}x").roles("USER").build();
+        filter = new JwtAuthFilter(jwtService, username -> user, properties, revocations);
+
+        // Мінімальний запит: лише те, що читають OncePerRequestFilter і WebAuthenticationDetailsSource
+        request = (HttpServletRequest) Proxy.newProxyInstance(
+                HttpServletRequest.class.getClassLoader(),
+                new Class<?>[]{HttpServletRequest.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getHeader" -> "Authorization".equals(args[0]) ? authorization : null;
+                    case "getDispatcherType" -> DispatcherType.REQUEST;
+                    case "getRemoteAddr" -> "127.0.0.1";
+                    default -> method.getReturnType() == boolean.class ? Boolean.FALSE : null;
+                });
+        response = (HttpServletResponse) Proxy.newProxyInstance(
+                HttpServletResponse.class.getClassLoader(),
+                new Class<?>[]{HttpServletResponse.class},
+                (proxy, method, args) -> method.getReturnType() == boolean.class ? Boolean.FALSE : null);
+        chain = (req, res) -> { };
+    }
+
+    @Benchmark
+    public Object authenticateRequest() throws Exception {
+        try {
+            filter.doFilter(request, response, chain);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
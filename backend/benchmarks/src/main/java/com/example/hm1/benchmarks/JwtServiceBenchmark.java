@@ -0,0 +1,53 @@
+package com.example.hm1.benchmarks;
+
+import com.example.hm1.security.JwtService;
+import com.example.hm1.security.SecurityProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Розбір і перевірка JWT, які JwtAuthFilter виконує на кожен запит до API.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private static final String USERNAME = "benchmark@example.com";
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        SecurityProperties properties = new SecurityProperties();
+        properties.setSecret(Base64.getEncoder().encodeToString("benchmark-secret-key-with-at-least-256-bits!".getBytes()));
+        properties.setExpirationMillis(TimeUnit.HOURS.toMillis(1));
+        jwtService = new JwtService(properties);
+        token = jwtService.generateToken(USERNAME, new String[]{"ROLE_USER"});
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtService.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtService.isTokenValid(token, USERNAME);
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.hm1.benchmarks;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Навантажувальний тест проти запущеного бекенда (не JMH): вимірює хвіст латентності
+ * GET /api/accounts спершу без навантаження, потім під час шторму логінів.
+ * Запуск: java -cp benchmarks.jar com.example.hm1.benchmarks.LoginStormLoadTest
+ *   [baseUrl=http://localhost:9000] [loginThreads=64] [seconds=30]
+ * Без окремого пулу для BCrypt логіни займають потоки Tomcat і процесор, і p99 /api/accounts
+ * росте разом з ними; з пулом зайві логіни отримують 429, а /api/accounts лишається рівним.
+ */
+public final class LoginStormLoadTest {
+
+    private static final Pattern ACCESS_TOKEN = Pattern.compile("\"accessToken\"\\s*:\\s*\"([^\"]+)\"");
+    private static final int ACCOUNT_READERS = 4;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newCachedThreadPool())
+            .build();
+    private final String baseUrl;
+
+    private LoginStormLoadTest(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:9000";
+        int loginThreads = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+        LoginStormLoadTest test = new LoginStormLoadTest(baseUrl);
+        String username = "load-" + System.currentTimeMillis();
+        String password = "load-test-password";
+        test.post("/api/auth/register", "{\"username\":\"" + username + "\",\"email\":\"" + username
+                + "@example.com\",\"password\":\"" + password + "\"}");
+        String token = test.login(username, password);
+        if (token == null) {
+            throw new IllegalStateException("Could not log in as " + username);
+        }
+
+        System.out.println("Baseline (" + seconds + " s, no logins):");
+        test.measureAccounts(token, 0, username, password, seconds);
+        System.out.println("Login storm (" + seconds + " s, " + loginThreads + " login threads):");
+        test.measureAccounts(token, loginThreads, username, password, seconds);
+        System.exit(0);
+    }
+
+    private void measureAccounts(String token, int loginThreads, String username, String password, int seconds)
+            throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong logins = new AtomicLong();
+        AtomicLong rejectedLogins = new AtomicLong();
+        AtomicLong failedLogins = new AtomicLong();
+        List<Long> accountLatencies = Collections.synchronizedList(new ArrayList<>());
+
+        ExecutorService workers = Executors.newFixedThreadPool(loginThreads + ACCOUNT_READERS);
+        for (int i = 0; i < loginThreads; i++) {
+            workers.submit(() -> {
+                String body = "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}";
+                while (running.get()) {
+                    try {
+                        int status = post("/api/auth/login", body).statusCode();
+                        if (status == 200) {
+                            logins.incrementAndGet();
+                        } else if (status == 429) {
+                            rejectedLogins.incrementAndGet();
+                        } else {
+                            failedLogins.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        failedLogins.incrementAndGet();
+                    }
+                }
+            });
+        }
+        for (int i = 0; i < ACCOUNT_READERS; i++) {
+            workers.submit(() -> {
+                HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/accounts"))
+                        .header("Authorization", "Bearer " + token)
+                        .timeout(Duration.ofSeconds(30))
+                        .GET()
+                        .build();
+                while (running.get()) {
+                    long started = System.nanoTime();
+                    try {
+                        client.send(request, HttpResponse.BodyHandlers.discarding());
+                        accountLatencies.add(System.nanoTime() - started);
+                    } catch (Exception e) {
+                        accountLatencies.add(Long.MAX_VALUE);
+                    }
+                }
+            });
+        }
+
+        TimeUnit.SECONDS.sleep(seconds);
+        running.set(false);
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.MINUTES);
+
+        List<Long> sorted = new ArrayList<>(accountLatencies);
+        Collections.sort(sorted);
+        System.out.printf("  /api/accounts: %d requests, p50=%s p95=%s p99=%s p99.9=%s max=%s%n",
+                sorted.size(), percentile(sorted, 0.50), percentile(sorted, 0.95),
+                percentile(sorted, 0.99), percentile(sorted, 0.999), percentile(sorted, 1.0));
+        if (loginThreads > 0) {
+            System.out.printf("  logins: %d ok, %d rejected with 429, %d failed%n",
+                    logins.get(), rejectedLogins.get(), failedLogins.get());
+        }
+    }
+
+    private static String percentile(List<Long> sorted, double quantile) {
+        if (sorted.isEmpty()) {
+            return "-";
+        }
+        long nanos = sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(quantile * sorted.size()) - 1));
+        return nanos == Long.MAX_VALUE ? "error" : String.format("%.1fms", nanos / 1_000_000.0);
+    }
+
+    private String login(String username, String password) throws Exception {
+        HttpResponse<String> response = post("/api/auth/login",
+                "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}");
+        Matcher matcher = ACCESS_TOKEN.matcher(response.body());
+        return response.statusCode() == 200 && matcher.find() ? matcher.group(1) : null;
+    }
+
+    private HttpResponse<String> post(String path, String json) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.hm1.benchmarks;
+
+import com.example.hm1.entity.Account;
+import com.example.hm1.entity.Currency;
+import com.example.hm1.entity.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Арифметика балансу в одному переказі: колишній шлях через Double/BigDecimal
+ * проти Money на long. Головна метрика - gc.alloc.rate.norm (байт на операцію).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyTransferBenchmark {
+
+    private LegacyAccount legacyFrom;
+    private LegacyAccount legacyTo;
+    private Double legacyAmount;
+
+    private Account from;
+    private Account to;
+    private Money amount;
+
+    @Setup
+    public void setUp() {
+        legacyFrom = new LegacyAccount(1_000_000_000.0);
+        legacyTo = new LegacyAccount(0.0);
+        legacyAmount = 12.34;
+
+        from = Account.builder().number("ACC-1").currency(Currency.USD).balance(Money.of("1000000000.00", Currency.USD)).build();
+        to = Account.builder().number("ACC-2").currency(Currency.USD).balance(Money.zero(Currency.USD)).build();
+        amount = Money.of("12.34", Currency.USD);
+    }
+
+    /** Так рахував AccountServiceImpl.transfer до переходу на Money. */
+    @Benchmark
+    public void legacyDoubleTransfer(Blackhole blackhole) {
+        if (legacyFrom.balance < legacyAmount) {
+            return;
+        }
+        BigDecimal originalAmount = BigDecimal.valueOf(legacyAmount);
+        BigDecimal convertedAmount = originalAmount;
+        legacyFrom.balance = legacyFrom.balance - legacyAmount;
+        legacyTo.balance = legacyTo.balance + convertedAmount.doubleValue();
+
+        blackhole.consume(originalAmount);
+        blackhole.consume(Double.valueOf(legacyFrom.balance.doubleValue()));
+        blackhole.consume(Double.valueOf(convertedAmount.doubleValue()));
+        blackhole.consume(Double.valueOf(legacyTo.balance.doubleValue()));
+    }
+
+    @Benchmark
+    public void moneyTransfer(Blackhole blackhole) {
+        if (!from.hasFunds(amount)) {
+            return;
+        }
+        from.debit(amount);
+        to.credit(amount);
+
+        blackhole.consume(amount.toBigDecimal());
+        blackhole.consume(from.getBalance());
+        blackhole.consume(amount);
+        blackhole.consume(to.getBalance());
+    }
+
+    private static final class LegacyAccount {
+        private Double balance;
+
+        private LegacyAccount(Double balance) {
+            this.balance = balance;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.hm1.benchmarks;
+
+import com.example.hm1.entity.Currency;
+import com.example.hm1.entity.Money;
+import com.example.hm1.service.NotificationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Побудова payload повідомлень (HashMap + String.format) і відправка в канал,
+ * який нічого не робить, тобто вартість NotificationService без брокера.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotificationPayloadBenchmark {
+
+    private NotificationService notificationService;
+    private Money amount;
+    private Money balance;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        MessageChannel channel = (message, timeout) -> {
+            blackhole.consume(message);
+            return true;
+        };
+        notificationService = new NotificationService(new SimpMessagingTemplate(channel));
+        amount = Money.of("150.25", Currency.USD);
+        balance = Money.of("10480.70", Currency.USD);
+    }
+
+    @Benchmark
+    public void accountUpdateNotification() {
+        notificationService.sendAccountUpdateNotification("ACC-0000001", "DEPOSIT", amount, balance);
+    }
+
+    @Benchmark
+    public void transactionNotification() {
+        notificationService.sendTransactionNotification("ACC-0000001", "TRANSFER", amount, "COMPLETED");
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.hm1.benchmarks;
+
+import com.example.hm1.entity.Account;
+import com.example.hm1.entity.Currency;
+import com.example.hm1.entity.Customer;
+import com.example.hm1.entity.Employer;
+import com.example.hm1.entity.Role;
+import com.example.hm1.entity.Transaction;
+import com.example.hm1.entity.User;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускна здатність INSERT-ів транзакцій через Hibernate на H2 у режимі PostgreSQL
+ * (рядків на секунду). idOptimizer=none - один nextval на рядок, як було з IDENTITY;
+ * pooled-lo - один nextval на 50 id. jdbcBatchSize=1 вимикає JDBC batching.
+ * H2 працює в тому ж процесі, тому виграш від пакетів тут менший, ніж з мережею до PostgreSQL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionInsertBenchmark {
+
+    private static final int ROWS_PER_COMMIT = 1_000;
+
+    @Param({"none", "pooled-lo"})
+    private String idOptimizer;
+
+    @Param({"1", "50"})
+    private int jdbcBatchSize;
+
+    private SessionFactory sessionFactory;
+    private Customer customer;
+    private Account from;
+    private Account to;
+
+    @Setup
+    public void setUp() {
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(Transaction.class)
+                .addAnnotatedClass(Account.class)
+                .addAnnotatedClass(Customer.class)
+                .addAnnotatedClass(Employer.class)
+                .addAnnotatedClass(User.class)
+                .addAnnotatedClass(Role.class)
+                .setProperty(AvailableSettings.URL,
+                        "jdbc:h2:mem:insert-" + idOptimizer + "-" + jdbcBatchSize + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1")
+                .setProperty(AvailableSettings.USER, "sa")
+                .setProperty(AvailableSettings.PASS, "")
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .setProperty(AvailableSettings.PREFERRED_POOLED_OPTIMIZER, idOptimizer)
+                .setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, String.valueOf(jdbcBatchSize))
+                .setProperty(AvailableSettings.ORDER_INSERTS, "true")
+                .buildSessionFactory();
+
+        sessionFactory.inTransaction(session -> {
+            customer = Customer.builder().name("Bench").email("bench@example.com").age(30).build();
+            // AuditingEntityListener без Spring не заповнює created_date
+            customer.setCreatedDate(LocalDateTime.now());
+            session.persist(customer);
+            from = new Account(Currency.USD, customer);
+            to = new Account(Currency.USD, customer);
+            session.persist(from);
+            session.persist(to);
+        });
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearTransactions() {
+        sessionFactory.inTransaction(session ->
+                session.createMutationQuery("delete from Transaction").executeUpdate());
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    /** Пакет із ROWS_PER_COMMIT переказів в одній транзакції, як /api/accounts/transfers/batch. */
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_COMMIT)
+    public void insertTransactions() {
+        LocalDateTime now = LocalDateTime.now();
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            Account fromRef = session.getReference(Account.class, from.getId());
+            Account toRef = session.getReference(Account.class, to.getId());
+            Customer customerRef = session.getReference(Customer.class, customer.getId());
+            for (int i = 0; i < ROWS_PER_COMMIT; i++) {
+                Transaction transaction = new Transaction(Transaction.TransactionType.TRANSFER,
+                        BigDecimal.valueOf(1_000 + i, 2), "Benchmark transfer", fromRef, toRef, customerRef);
+                transaction.setCreatedDate(now);
+                session.persist(transaction);
+            }
+            session.getTransaction().commit();
+        }
+    }
+}
@@ -3,9 +3,11 @@ package com.example.hm1;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = "com.example.hm1")
 @EnableJpaAuditing
+@EnableScheduling
 public class Hm1Application {
 
     public static void main(String[] args) {
@@ -1,15 +1,25 @@
 package com.example.hm1.config;
 
+import com.example.hm1.security.BCryptCostCalibrator;
+import com.example.hm1.security.OffloadedPasswordEncoder;
+import com.example.hm1.security.PasswordHashingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
 @Configuration
 public class EncryptionConfig {
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    @Bean(destroyMethod = "shutdown")
+    public OffloadedPasswordEncoder passwordEncoder(PasswordHashingProperties properties, MeterRegistry meterRegistry) {
+        int strength = properties.getStrength() > 0
+                ? properties.getStrength()
+                : BCryptCostCalibrator.calibrate(properties.getTargetLatency(), properties.getMinStrength(), properties.getMaxStrength());
+        int threads = properties.getThreads() > 0
+                ? properties.getThreads()
+                : Runtime.getRuntime().availableProcessors();
+        return new OffloadedPasswordEncoder(new BCryptPasswordEncoder(strength), strength, threads,
+                properties.getQueueCapacity(), meterRegistry);
     }
-}
\ No newline at end of file
+}
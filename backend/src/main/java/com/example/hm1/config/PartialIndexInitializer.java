@@ -0,0 +1,78 @@
+package com.example.hm1.config;
+
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Створює часткові індекси, які не описуються через @Index (схему веде Hibernate ddl-auto).
+ * Індекси будуються CONCURRENTLY, тож старт на великій таблиці не блокує запис транзакцій.
+ * Невалідний індекс (перерваний попередній CREATE INDEX CONCURRENTLY) перестворюється.
+ */
+@Configuration
+public class PartialIndexInitializer {
+
+    /** Назва індексу -> визначення після CREATE INDEX <назва>. */
+    public static final Map<String, String> PARTIAL_INDEXES = new LinkedHashMap<>();
+
+    static {
+        // Витрати за діапазоном дат: перерахунок expense_rollups і пошук першої витрати
+        PARTIAL_INDEXES.put("idx_transactions_expense_ts",
+                "ON transactions (timestamp) WHERE type IN ('WITHDRAWAL', 'PAYMENT') AND category IS NOT NULL");
+    }
+
+    public static String createStatement(String name) {
+        return "CREATE INDEX CONCURRENTLY IF NOT EXISTS " + name + " " + PARTIAL_INDEXES.get(name);
+    }
+
+    @Bean
+    CommandLineRunner createPartialIndexes(JdbcTemplate jdbcTemplate) {
+        return args -> {
+            try {
+                String database = jdbcTemplate.execute(
+                        (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+                if (!"PostgreSQL".equalsIgnoreCase(database)) {
+                    System.out.println("PartialIndexInitializer: " + database + " - partial indexes are not supported, skipping");
+                    return;
+                }
+
+                Set<String> invalid = loadInvalidIndexes(jdbcTemplate);
+                for (String name : PARTIAL_INDEXES.keySet()) {
+                    try {
+                        if (invalid.contains(name)) {
+                            System.out.println("PartialIndexInitializer: " + name + " is invalid, rebuilding");
+                            jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + name);
+                        }
+                        jdbcTemplate.execute(createStatement(name));
+                    } catch (Exception e) {
+                        System.err.println("PartialIndexInitializer: Error creating " + name + ": " + e.getMessage());
+                    }
+                }
+                System.out.println("PartialIndexInitializer: Partial indexes checked: " + PARTIAL_INDEXES.keySet());
+            } catch (Exception e) {
+                System.err.println("PartialIndexInitializer: Failed to create partial indexes: " + e.getMessage());
+            }
+        };
+    }
+
+    private Set<String> loadInvalidIndexes(JdbcTemplate jdbcTemplate) {
+        Set<String> invalid = new HashSet<>();
+        new NamedParameterJdbcTemplate(jdbcTemplate).query(
+                "SELECT c.relname FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid " +
+                        "WHERE NOT i.indisvalid AND c.relname IN (:names)",
+                new MapSqlParameterSource("names", PARTIAL_INDEXES.keySet()),
+                rs -> {
+                    invalid.add(rs.getString("relname"));
+                });
+        return invalid;
+    }
+}
@@ -1,45 +1,149 @@
 package com.example.hm1.config;
 
+import com.example.hm1.entity.AbstractEntity;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Підтягує послідовності id після data-скрипта, який вставляє рядки з явними id.
+ * Стан усіх послідовностей читається двома запитами, а setval виконується лише для тих,
+ * що відстали від MAX(id). Назад послідовність не рухається: інші репліки можуть уже тримати
+ * виділені блоки id (pooled-lo).
+ *
+ * Кроки послідовностей змінює db/sequence-increments.sql ще до старту Hibernate; тут вони лише
+ * перевіряються. Розбіжність зупиняє запуск: pooled-lo на послідовності з іншим кроком видає
+ * блоки id, що перекриваються, тобто дублікати первинних ключів.
+ */
 @Configuration
 public class SequenceInitializer {
 
+    /** Таблиця -> крок послідовності. Сутності з pooled-lo беруть блок id одним nextval. */
+    static final Map<String, Integer> SEQUENCE_INCREMENTS = new LinkedHashMap<>();
+
+    static {
+        for (String table : new String[]{"transactions", "accounts", "customers", "employers", "chat_threads", "chat_messages"}) {
+            SEQUENCE_INCREMENTS.put(table, AbstractEntity.ID_ALLOCATION_SIZE);
+        }
+        // users і roles лишаються на IDENTITY
+        SEQUENCE_INCREMENTS.put("users", 1);
+        SEQUENCE_INCREMENTS.put("roles", 1);
+    }
+
     @Bean
     CommandLineRunner syncSequences(JdbcTemplate jdbcTemplate) {
         return args -> {
+            List<String> mismatched = new ArrayList<>();
             try {
-                System.out.println("SequenceInitializer: Synchronizing database sequences...");
-                String[] tables = {"transactions", "accounts", "customers", "users", "employers", "roles"};
+                String database = jdbcTemplate.execute(
+                        (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+                if (!"PostgreSQL".equalsIgnoreCase(database)) {
+                    System.out.println("SequenceInitializer: " + database + " - sequences are managed by Hibernate, skipping");
+                    return;
+                }
+
+                System.out.println("SequenceInitializer: Checking database sequences...");
+                Map<String, Long> maxIds = loadMaxIds(jdbcTemplate);
+                Map<String, SequenceState> sequences = loadSequences(jdbcTemplate);
 
-                for (String table : tables) {
+                int adjusted = 0;
+                for (Map.Entry<String, Integer> entry : SEQUENCE_INCREMENTS.entrySet()) {
+                    String table = entry.getKey();
                     String sequenceName = table + "_id_seq";
+                    SequenceState state = sequences.get(sequenceName);
+                    if (state == null) {
+                        System.err.println("SequenceInitializer: Sequence " + sequenceName + " not found");
+                        continue;
+                    }
+                    if (state.incrementBy != entry.getValue()) {
+                        mismatched.add(sequenceName + " increments by " + state.incrementBy + ", expected " + entry.getValue());
+                        continue;
+                    }
+
+                    long maxId = maxIds.getOrDefault(table, 0L);
+                    if (state.nextValue() > maxId) {
+                        continue;
+                    }
                     try {
-                        String sql = String.format(
-                            "SELECT setval('%s', (SELECT COALESCE(MAX(id), 1) FROM %s), true)",
-                            sequenceName, table
-                        );
-                        jdbcTemplate.execute(sql);
-                        
-                        Long currentValue = jdbcTemplate.queryForObject(
-                            "SELECT last_value FROM " + sequenceName, 
-                            Long.class
-                        );
-                        System.out.println("SequenceInitializer: " + sequenceName + " set to " + currentValue);
+                        // is_called = false: наступний nextval поверне саме maxId + 1
+                        jdbcTemplate.queryForObject("SELECT setval(?::regclass, ?, false)", Long.class, sequenceName, maxId + 1);
+                        adjusted++;
+                        System.out.println("SequenceInitializer: " + sequenceName + " moved to " + (maxId + 1));
                     } catch (Exception e) {
                         System.err.println("SequenceInitializer: Error syncing " + sequenceName + ": " + e.getMessage());
                     }
                 }
-                
-                System.out.println("SequenceInitializer: Database sequences synchronized successfully!");
+
+                System.out.println("SequenceInitializer: Database sequences checked, adjusted: " + adjusted);
             } catch (Exception e) {
                 System.err.println("SequenceInitializer: Failed to synchronize sequences: " + e.getMessage());
                 e.printStackTrace();
             }
+            if (!mismatched.isEmpty()) {
+                throw new IllegalStateException("SequenceInitializer: sequence increments do not match the entity "
+                        + "allocationSize, check db/sequence-increments.sql: " + mismatched);
+            }
         };
     }
-}
 
+    /** MAX(id) усіх таблиць одним запитом. */
+    private Map<String, Long> loadMaxIds(JdbcTemplate jdbcTemplate) {
+        List<String> selects = new ArrayList<>();
+        for (String table : SEQUENCE_INCREMENTS.keySet()) {
+            selects.add("SELECT '" + table + "' AS table_name, COALESCE(MAX(id), 0) AS max_id FROM " + table);
+        }
+        Map<String, Long> maxIds = new HashMap<>();
+        jdbcTemplate.query(String.join(" UNION ALL ", selects),
+                rs -> {
+                    maxIds.put(rs.getString("table_name"), rs.getLong("max_id"));
+                });
+        return maxIds;
+    }
+
+    private Map<String, SequenceState> loadSequences(JdbcTemplate jdbcTemplate) {
+        List<String> names = new ArrayList<>();
+        for (String table : SEQUENCE_INCREMENTS.keySet()) {
+            names.add(table + "_id_seq");
+        }
+        Map<String, SequenceState> sequences = new HashMap<>();
+        new NamedParameterJdbcTemplate(jdbcTemplate).query(
+                "SELECT sequencename, start_value, increment_by, last_value FROM pg_sequences " +
+                        "WHERE schemaname = current_schema() AND sequencename IN (:names)",
+                new MapSqlParameterSource("names", names),
+                rs -> {
+                    long lastValue = rs.getLong("last_value");
+                    Long last = rs.wasNull() ? null : lastValue;
+                    sequences.put(rs.getString("sequencename"),
+                            new SequenceState(rs.getLong("start_value"), rs.getLong("increment_by"), last));
+                });
+        return sequences;
+    }
+
+    private static final class SequenceState {
+        private final long startValue;
+        private final long incrementBy;
+        // null, якщо nextval ще не викликався
+        private final Long lastValue;
+
+        private SequenceState(long startValue, long incrementBy, Long lastValue) {
+            this.startValue = startValue;
+            this.incrementBy = incrementBy;
+            this.lastValue = lastValue;
+        }
+
+        /** Що поверне наступний nextval. */
+        long nextValue() {
+            return lastValue == null ? startValue : lastValue + incrementBy;
+        }
+    }
+}
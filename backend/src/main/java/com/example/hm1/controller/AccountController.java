@@ -4,8 +4,11 @@ package com.example.hm1.controller;
 import com.example.hm1.dao.AccountRepo;
 import com.example.hm1.dto.AccountOperationDTO;
 import com.example.hm1.dto.AccountResponseDTO;
+import com.example.hm1.dto.BatchTransferRequestDTO;
+import com.example.hm1.dto.BatchTransferResultDTO;
 import com.example.hm1.dto.TransferDTO;
 import com.example.hm1.entity.Account;
+import com.example.hm1.entity.Money;
 import com.example.hm1.service.AccountService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -74,16 +77,19 @@ public class AccountController {
             @Parameter(description = "Дані операції: amount (сума для поповнення)", required = true)
             @Valid @RequestBody AccountOperationDTO dto) {
         try {
-            Double amount = dto.getAmount().doubleValue();
-            System.out.println("AccountController.deposit: accountNumber=" + accountNumber + ", amount=" + amount);
+            System.out.println("AccountController.deposit: accountNumber=" + accountNumber + ", amount=" + dto.getAmount());
             
-            Account account = accountRepo.findByNumber(accountNumber);
-            if (account == null) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Account not found");
+            // Сума у валюті рахунку: один UPDATE ... RETURNING без попереднього SELECT рахунку
+            if (accountService.deposit(accountNumber, dto.getAmount())) {
+                return ResponseEntity.ok("Deposit successful");
             }
             
-            accountService.deposit(accountNumber, amount);
-            return ResponseEntity.ok("Deposit successful");
+            // Рахунок читається лише на гілці помилки, щоб відрізнити 404 від 400
+            if (accountRepo.findByNumber(accountNumber) == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Account not found");
+            }
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body("Помилка виконання операції поповнення.");
         } catch (Exception e) {
             System.err.println("AccountController.deposit: Error: " + e.getMessage());
             e.printStackTrace();
@@ -105,31 +111,30 @@ public class AccountController {
             @Parameter(description = "Дані операції: amount (сума для зняття)", required = true)
             @Valid @RequestBody AccountOperationDTO dto) {
         try {
-            Double amount = dto.getAmount().doubleValue();
-            System.out.println("AccountController.withdraw: accountNumber=" + accountNumber + ", amount=" + amount);
+            System.out.println("AccountController.withdraw: accountNumber=" + accountNumber + ", amount=" + dto.getAmount());
+            
+            // Перевірка залишку і списання в одному UPDATE, без попереднього SELECT рахунку
+            if (accountService.withdraw(accountNumber, dto.getAmount())) {
+                return ResponseEntity.ok("Withdrawal successful");
+            }
             
+            // Рахунок читається лише на гілці помилки, щоб пояснити причину
             Account account = accountRepo.findByNumber(accountNumber);
             if (account == null) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Account not found");
             }
             
-            // Перевірка балансу перед зняттям
-            if (account.getBalance() < amount) {
-                String balanceFormatted = String.format("%.2f", account.getBalance());
-                String amountFormatted = String.format("%.2f", amount);
+            Money amount = Money.of(dto.getAmount(), account.getCurrency());
+            if (!account.hasFunds(amount)) {
+                String balanceFormatted = String.format("%.2f", account.getBalance().toBigDecimal());
+                String amountFormatted = String.format("%.2f", amount.toBigDecimal());
                 String currency = account.getCurrency().name();
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body("Недостатньо коштів на рахунку. Доступний баланс: " + balanceFormatted + " " + currency + 
                           ", потрібно: " + amountFormatted + " " + currency);
             }
-            
-            boolean success = accountService.withdraw(accountNumber, amount);
-            if (!success) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body("Помилка виконання операції зняття коштів.");
-            }
-            
-            return ResponseEntity.ok("Withdrawal successful");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body("Помилка виконання операції зняття коштів.");
         } catch (Exception e) {
             System.err.println("AccountController.withdraw: Error: " + e.getMessage());
             e.printStackTrace();
@@ -137,6 +142,25 @@ public class AccountController {
         }
     }
 
+    @PostMapping("/transfers/batch")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Пакетний переказ", description = "Виконує пакет переказів (наприклад, зарплатний) в одній транзакції і повертає результат по кожному пункту")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Пакет оброблено; невдалі пункти позначені в items"),
+            @ApiResponse(responseCode = "400", description = "Невалідний пакет")
+    })
+    public ResponseEntity<?> transferBatch(@Valid @RequestBody BatchTransferRequestDTO dto) {
+        try {
+            System.out.println("AccountController.transferBatch: items=" + dto.getItems().size());
+            BatchTransferResultDTO result = accountService.transferBatch(dto.getItems());
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            System.err.println("AccountController.transferBatch: Error: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Error: " + e.getMessage());
+        }
+    }
+
     @PostMapping("/{fromAccountNumber}/transfer")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     @Operation(summary = "Переказ коштів між рахунками", description = "Переводить вказану суму з одного рахунку на інший з автоматичним конвертуванням валют при необхідності")
@@ -152,8 +176,7 @@ public class AccountController {
             @Valid @RequestBody TransferDTO dto) {
         try {
             String toAccountNumber = dto.getToAccountNumber();
-            Double amount = dto.getAmount().doubleValue();
-            System.out.println("AccountController.transfer: from=" + fromAccountNumber + ", to=" + toAccountNumber + ", amount=" + amount);
+            System.out.println("AccountController.transfer: from=" + fromAccountNumber + ", to=" + toAccountNumber + ", amount=" + dto.getAmount());
             
             Account fromAccount = accountRepo.findByNumber(fromAccountNumber);
             if (fromAccount == null) {
@@ -165,10 +188,13 @@ public class AccountController {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Destination account not found");
             }
             
+            // Сума переказу - у валюті рахунку відправника
+            Money amount = Money.of(dto.getAmount(), fromAccount.getCurrency());
+            
             // Перевірка балансу перед переказом
-            if (fromAccount.getBalance() < amount) {
-                String balanceFormatted = String.format("%.2f", fromAccount.getBalance());
-                String amountFormatted = String.format("%.2f", amount);
+            if (!fromAccount.hasFunds(amount)) {
+                String balanceFormatted = String.format("%.2f", fromAccount.getBalance().toBigDecimal());
+                String amountFormatted = String.format("%.2f", amount.toBigDecimal());
                 String currency = fromAccount.getCurrency().name();
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body("Недостатньо коштів на рахунку. Доступний баланс: " + balanceFormatted + " " + currency + 
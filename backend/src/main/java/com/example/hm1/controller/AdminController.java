@@ -4,24 +4,44 @@ import com.example.hm1.dao.UserRepository;
 import com.example.hm1.dao.RoleRepository;
 import com.example.hm1.dao.CustomerRepo;
 import com.example.hm1.dao.AccountRepo;
+import com.example.hm1.dao.UserListingRow;
+import com.example.hm1.dao.CustomerTransactionView;
+import com.example.hm1.dao.TransactionCursor;
+import com.example.hm1.dao.TransactionView;
+import com.example.hm1.dto.AccountActivityDTO;
+import com.example.hm1.dto.TransactionCursorPageDTO;
 import com.example.hm1.entity.Role;
 import com.example.hm1.entity.User;
 import com.example.hm1.entity.Customer;
 import com.example.hm1.entity.Account;
 import com.example.hm1.entity.Employer;
 import com.example.hm1.service.TransactionService;
-import com.example.hm1.entity.Transaction;
+import com.example.hm1.service.stats.ExpenseRollupReconciler;
+import com.example.hm1.service.stats.SystemStatsService;
+import com.example.hm1.security.TokenRevocationRegistry;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.data.domain.Sort;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -35,14 +55,26 @@ public class AdminController {
     private final CustomerRepo customerRepo;
     private final AccountRepo accountRepo;
     private final TransactionService transactionService;
+    private final TokenRevocationRegistry tokenRevocations;
+    private final ObjectMapper objectMapper;
+    private final SystemStatsService systemStats;
+    private final ExpenseRollupReconciler expenseRollupReconciler;
+
+    static final int USERS_PAGE_MAX = 1000;
+    static final int TRANSACTIONS_PAGE_MAX = 1000;
+    static final int DETAILS_TX_PAGE_MAX = 200;
 
     @Autowired
-    public AdminController(UserRepository userRepository, RoleRepository roleRepository, CustomerRepo customerRepo, AccountRepo accountRepo, TransactionService transactionService) {
+    public AdminController(UserRepository userRepository, RoleRepository roleRepository, CustomerRepo customerRepo, AccountRepo accountRepo, TransactionService transactionService, TokenRevocationRegistry tokenRevocations, ObjectMapper objectMapper, SystemStatsService systemStats, ExpenseRollupReconciler expenseRollupReconciler) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.customerRepo = customerRepo;
         this.accountRepo = accountRepo;
         this.transactionService = transactionService;
+        this.tokenRevocations = tokenRevocations;
+        this.objectMapper = objectMapper;
+        this.systemStats = systemStats;
+        this.expenseRollupReconciler = expenseRollupReconciler;
     }
 
     @PostMapping("/assign-admin/{username}")
@@ -55,7 +87,7 @@ public class AdminController {
                     .orElseThrow(() -> new RuntimeException("ROLE_ADMIN not found"));
 
             user.getRoles().add(adminRole);
-            userRepository.save(user);
+            saveWithRevokedTokens(user);
 
             return ResponseEntity.ok("Admin role assigned successfully to " + username);
         } catch (Exception e) {
@@ -73,7 +105,7 @@ public class AdminController {
                     .orElseThrow(() -> new RuntimeException("ROLE_ADMIN not found"));
 
             user.getRoles().remove(adminRole);
-            userRepository.save(user);
+            saveWithRevokedTokens(user);
 
             return ResponseEntity.ok("Admin role removed successfully from " + username);
         } catch (Exception e) {
@@ -104,11 +136,20 @@ public class AdminController {
         public String toAccount;
     }
 
+    public static class AdminTransactionPageDto {
+        public List<AdminTransactionDto> items;
+        public String nextCursor;
+    }
+
     public static class AdminAccountDto {
         public Long id;
         public String number;
         public String balance;
         public String currency;
+        public long transactionCount;
+        public String outgoingTotal;
+        public String incomingTotal;
+        public String lastActivity;
     }
 
     public static class UserDetailsDto {
@@ -123,31 +164,56 @@ public class AdminController {
         public List<String> employers;
         public List<AdminAccountDto> accounts;
         public List<AdminTransactionDto> transactions;
+        public int transactionsPage;
+        public int transactionsPageSize;
+        public boolean transactionsHasMore;
     }
 
     @GetMapping("/users")
-    @Operation(summary = "Отримати всіх користувачів", description = "Повертає список всіх користувачів системи з їх ролями та інформацією про клієнтів")
-    @ApiResponse(responseCode = "200", description = "Успішно отримано список користувачів")
-    public ResponseEntity<?> getAllUsers() {
-        try {
-            List<User> users = userRepository.findAll(Sort.by(Sort.Direction.ASC, "id"));
-            List<AdminUserDto> dto = users.stream().map(u -> {
-                Customer customer = (u.getId() != null) ? customerRepo.findByUserId(u.getId()).orElse(null) : null;
-                AdminUserDto d = new AdminUserDto();
-                d.id = u.getId();
-                d.username = u.getUsername();
-                d.enabled = u.isEnabled();
-                d.roles = (u.getRoles() != null) ? u.getRoles().stream().map(Role::getName).collect(Collectors.toList()) : List.of();
-                d.customerId = (customer != null) ? customer.getId() : null;
-                d.customerName = (customer != null) ? customer.getName() : null;
-                d.customerEmail = (customer != null) ? customer.getEmail() : null;
-                return d;
-            }).collect(Collectors.toList());
-            return ResponseEntity.ok(dto);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.badRequest().body("Failed to get users: " + e.getMessage());
+    @Operation(summary = "Отримати сторінку користувачів", description = "Keyset-пагінація за id: повертає до limit користувачів з id > afterId з їх ролями та клієнтом. " +
+            "nextAfterId - курсор наступної сторінки (null, якщо сторінка остання)")
+    @ApiResponse(responseCode = "200", description = "Успішно отримано сторінку користувачів")
+    public ResponseEntity<?> getUsers(@RequestParam(defaultValue = "0") long afterId,
+                                      @RequestParam(defaultValue = "100") int limit) {
+        if (limit < 1 || limit > USERS_PAGE_MAX) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and " + USERS_PAGE_MAX);
         }
+        // Користувачі пишуться у відповідь по одному, щойно прочитані з ResultSet
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                long[] lastId = {afterId};
+                json.writeStartObject();
+                json.writeArrayFieldStart("items");
+                int written = userRepository.forEachUserAfter(afterId, limit, row -> {
+                    lastId[0] = row.getId();
+                    try {
+                        json.writeObject(toAdminUserDto(row));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                json.writeEndArray();
+                if (written == limit) {
+                    json.writeNumberField("nextAfterId", lastId[0]);
+                } else {
+                    json.writeNullField("nextAfterId");
+                }
+                json.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private static AdminUserDto toAdminUserDto(UserListingRow row) {
+        AdminUserDto d = new AdminUserDto();
+        d.id = row.getId();
+        d.username = row.getUsername();
+        d.enabled = row.isEnabled();
+        d.roles = row.getRoles();
+        d.customerId = row.getCustomerId();
+        d.customerName = row.getCustomerName();
+        d.customerEmail = row.getCustomerEmail();
+        return d;
     }
 
     @PostMapping("/assign-role/{userId}/{roleName}")
@@ -156,7 +222,7 @@ public class AdminController {
             User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
             Role role = roleRepository.findByName(roleName).orElseThrow(() -> new RuntimeException("Role not found: " + roleName));
             user.getRoles().add(role);
-            userRepository.save(user);
+            saveWithRevokedTokens(user);
             return ResponseEntity.ok("Role assigned successfully");
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Failed to assign role: " + e.getMessage());
@@ -169,13 +235,38 @@ public class AdminController {
             User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
             Role role = roleRepository.findByName(roleName).orElseThrow(() -> new RuntimeException("Role not found: " + roleName));
             user.getRoles().remove(role);
-            userRepository.save(user);
+            saveWithRevokedTokens(user);
             return ResponseEntity.ok("Role removed successfully");
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Failed to remove role: " + e.getMessage());
         }
     }
 
+    @PostMapping("/users/{userId}/enabled/{enabled}")
+    @Operation(summary = "Увімкнути/вимкнути користувача", description = "Вимкнений користувач не проходить автентифікацію навіть з чинним JWT")
+    public ResponseEntity<?> setUserEnabled(@PathVariable Long userId, @PathVariable boolean enabled) {
+        try {
+            User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
+            user.setEnabled(enabled);
+            saveWithRevokedTokens(user);
+            tokenRevocations.setEnabled(user.getUsername(), enabled);
+            return ResponseEntity.ok("User " + user.getUsername() + (enabled ? " enabled" : " disabled"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Failed to update user: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Зберігає зміни ролей/доступу і відкликає видані раніше JWT: ролям з таких токенів
+     * JwtAuthFilter більше не довіряє і перечитує користувача з БД.
+     */
+    private void saveWithRevokedTokens(User user) {
+        Instant now = Instant.now();
+        user.setTokensRevokedAt(LocalDateTime.ofInstant(now, ZoneId.systemDefault()));
+        userRepository.save(user);
+        tokenRevocations.revokeTokens(user.getUsername(), now);
+    }
+
     @GetMapping("/users/count")
     public ResponseEntity<?> getUsersCount() {
         try {
@@ -188,21 +279,33 @@ public class AdminController {
     }
 
     @GetMapping("/transactions")
-    public ResponseEntity<?> getAllTransactionsDto() {
+    @Operation(summary = "Отримати сторінку транзакцій", description = "Keyset-пагінація від новіших: повертає до limit транзакцій після cursor. " +
+            "nextCursor - курсор наступної сторінки (null, якщо сторінка остання)")
+    @ApiResponse(responseCode = "200", description = "Успішно отримано сторінку транзакцій")
+    public ResponseEntity<?> getAllTransactionsDto(@RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "200") int limit) {
+        if (limit < 1 || limit > TRANSACTIONS_PAGE_MAX) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and " + TRANSACTIONS_PAGE_MAX);
+        }
         try {
-            List<Transaction> list = transactionService.getAllTransactions();
-            List<AdminTransactionDto> dto = list.stream().map(t -> {
+            // Одна keyset-сторінка по idx_transactions_ts замість усієї таблиці в пам'яті
+            TransactionCursor after = cursor == null || cursor.isBlank() ? null : TransactionCursor.decode(cursor);
+            TransactionCursorPageDTO page = transactionService.getAllTransactions(after, limit);
+            // Клієнт і номери рахунків уже в рядках TransactionView - без догрузки сутностей на кожну транзакцію
+            AdminTransactionPageDto dto = new AdminTransactionPageDto();
+            dto.nextCursor = page.getNextCursor();
+            dto.items = page.getContent().stream().map(t -> {
                 AdminTransactionDto d = new AdminTransactionDto();
                 d.id = t.getId();
                 d.type = t.getType() != null ? t.getType().name() : null;
                 d.amount = t.getAmount() != null ? t.getAmount().toPlainString() : null;
                 d.description = t.getDescription();
-                d.customerId = (t.getCustomer() != null ? t.getCustomer().getId() : null);
-                d.customerName = (t.getCustomer() != null ? t.getCustomer().getName() : null);
+                d.customerId = t.getCustomerId();
+                d.customerName = t.getCustomerName();
                 d.timestamp = t.getTimestamp() != null ? t.getTimestamp().toString() : null;
                 d.status = t.getStatus() != null ? t.getStatus().name() : null;
-                d.fromAccount = (t.getFromAccount() != null ? t.getFromAccount().getNumber() : null);
-                d.toAccount = (t.getToAccount() != null ? t.getToAccount().getNumber() : null);
+                d.fromAccount = t.getFromAccountNumber();
+                d.toAccount = t.getToAccountNumber();
                 return d;
             }).collect(java.util.stream.Collectors.toList());
             return ResponseEntity.ok(dto);
@@ -213,7 +316,15 @@ public class AdminController {
     }
 
     @GetMapping("/users/{userId}/details")
-    public ResponseEntity<?> getUserDetails(@PathVariable Long userId) {
+    @Operation(summary = "Деталі користувача", description = "Клієнт, рахунки з агрегатами (кількість транзакцій, суми списань і зарахувань, остання операція) " +
+            "та сторінка транзакцій клієнта від найновіших. transactionsHasMore - чи є наступна сторінка (txPage + 1)")
+    @ApiResponse(responseCode = "200", description = "Успішно отримано деталі користувача")
+    public ResponseEntity<?> getUserDetails(@PathVariable Long userId,
+                                            @RequestParam(defaultValue = "0") int txPage,
+                                            @RequestParam(defaultValue = "50") int txSize) {
+        if (txPage < 0 || txSize < 1 || txSize > DETAILS_TX_PAGE_MAX) {
+            return ResponseEntity.badRequest().body("txPage must be >= 0 and txSize between 1 and " + DETAILS_TX_PAGE_MAX);
+        }
         try {
             User user = userRepository.findById(userId)
                     .orElseThrow(() -> new RuntimeException("User not found"));
@@ -225,9 +336,11 @@ public class AdminController {
             details.roles = user.getRoles().stream()
                     .map(Role::getName)
                     .collect(Collectors.toList());
+            details.transactionsPage = txPage;
+            details.transactionsPageSize = txSize;
 
-            // Customer details
-            Customer customer = customerRepo.findByUserId(user.getId()).orElse(null);
+            // Customer details (роботодавці приєднані тим самим запитом)
+            Customer customer = customerRepo.findByUsername(user.getUsername()).orElse(null);
             if (customer != null) {
                 details.customerId = customer.getId();
                 details.customerName = customer.getName();
@@ -239,36 +352,20 @@ public class AdminController {
                                 .collect(Collectors.toList())
                         : new ArrayList<>();
 
-                // Accounts
+                // Accounts + агрегати, пораховані в БД
+                Map<Long, AccountActivityDTO> activity = transactionService.getAccountActivity(customer.getId());
                 List<Account> accounts = accountRepo.findByCustomerId(customer.getId());
-                details.accounts = accounts.stream().map(a -> {
-                    AdminAccountDto accountDto = new AdminAccountDto();
-                    accountDto.id = a.getId();
-                    accountDto.number = a.getNumber();
-                    accountDto.balance = a.getBalance() != null ? String.valueOf(a.getBalance()) : "0";
-                    accountDto.currency = a.getCurrency() != null ? a.getCurrency().name() : null;
-                    return accountDto;
-                }).collect(Collectors.toList());
-
-                // Transactions
-                List<Transaction> transactions = transactionService.getAllTransactions().stream()
-                        .filter(t -> t.getCustomer() != null && t.getCustomer().getId().equals(customer.getId()))
+                details.accounts = accounts.stream()
+                        .map(a -> toAdminAccountDto(a, activity.getOrDefault(a.getId(), AccountActivityDTO.EMPTY)))
                         .collect(Collectors.toList());
-                
-                details.transactions = transactions.stream().map(t -> {
-                    AdminTransactionDto transactionDto = new AdminTransactionDto();
-                    transactionDto.id = t.getId();
-                    transactionDto.type = t.getType() != null ? t.getType().name() : null;
-                    transactionDto.amount = t.getAmount() != null ? t.getAmount().toPlainString() : null;
-                    transactionDto.description = t.getDescription();
-                    transactionDto.customerId = t.getCustomer() != null ? t.getCustomer().getId() : null;
-                    transactionDto.customerName = t.getCustomer() != null ? t.getCustomer().getName() : null;
-                    transactionDto.timestamp = t.getTimestamp() != null ? t.getTimestamp().toString() : null;
-                    transactionDto.status = t.getStatus() != null ? t.getStatus().name() : null;
-                    transactionDto.fromAccount = t.getFromAccount() != null ? t.getFromAccount().getNumber() : null;
-                    transactionDto.toAccount = t.getToAccount() != null ? t.getToAccount().getNumber() : null;
-                    return transactionDto;
-                }).collect(Collectors.toList());
+
+                // Transactions: лише одна сторінка, без count-запиту
+                Slice<CustomerTransactionView> slice = transactionService.getCustomerTransactionViews(
+                        customer.getId(), PageRequest.of(txPage, txSize));
+                details.transactions = slice.getContent().stream()
+                        .map(t -> toAdminTransactionDto(t, customer))
+                        .collect(Collectors.toList());
+                details.transactionsHasMore = slice.hasNext();
             } else {
                 details.customerId = null;
                 details.customerName = null;
@@ -286,21 +383,67 @@ public class AdminController {
         }
     }
 
+    private AdminAccountDto toAdminAccountDto(Account a, AccountActivityDTO activity) {
+        AdminAccountDto accountDto = new AdminAccountDto();
+        accountDto.id = a.getId();
+        accountDto.number = a.getNumber();
+        accountDto.balance = a.getCurrency() != null ? a.getBalance().toBigDecimal().toPlainString() : "0";
+        accountDto.currency = a.getCurrency() != null ? a.getCurrency().name() : null;
+        accountDto.transactionCount = activity.getTransactionCount();
+        accountDto.outgoingTotal = activity.getOutgoingTotal().toPlainString();
+        accountDto.incomingTotal = activity.getIncomingTotal().toPlainString();
+        accountDto.lastActivity = activity.getLastActivity() != null ? activity.getLastActivity().toString() : null;
+        return accountDto;
+    }
+
+    private AdminTransactionDto toAdminTransactionDto(CustomerTransactionView t, Customer customer) {
+        AdminTransactionDto transactionDto = new AdminTransactionDto();
+        transactionDto.id = t.getId();
+        transactionDto.type = t.getType() != null ? t.getType().name() : null;
+        transactionDto.amount = t.getAmount() != null ? t.getAmount().toPlainString() : null;
+        transactionDto.description = t.getDescription();
+        transactionDto.customerId = customer.getId();
+        transactionDto.customerName = customer.getName();
+        transactionDto.timestamp = t.getTimestamp() != null ? t.getTimestamp().toString() : null;
+        transactionDto.status = t.getStatus() != null ? t.getStatus().name() : null;
+        transactionDto.fromAccount = t.getFromAccountNumber();
+        transactionDto.toAccount = t.getToAccountNumber();
+        return transactionDto;
+    }
+
+    @PostMapping("/expense-rollups/rebuild")
+    @Operation(summary = "Перерахувати статистику витрат", description = "Перераховує expense_rollups з transactions за місяці from..to (формат yyyy-MM) включно, " +
+            "кожен місяць в окремій транзакції. failedMonths - місяці, змінені конкурентно під час перерахунку (їх варто повторити)")
+    @ApiResponse(responseCode = "200", description = "Перерахунок виконано")
+    public ResponseEntity<?> rebuildExpenseRollups(@RequestParam String from, @RequestParam String to) {
+        YearMonth fromMonth;
+        YearMonth toMonth;
+        try {
+            fromMonth = YearMonth.parse(from);
+            toMonth = YearMonth.parse(to);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("from and to must be in yyyy-MM format");
+        }
+        if (toMonth.isBefore(fromMonth)) {
+            return ResponseEntity.badRequest().body("to must not be before from");
+        }
+        int failed = expenseRollupReconciler.rebuild(fromMonth, toMonth);
+        return ResponseEntity.ok(Map.of("from", fromMonth.toString(), "to", toMonth.toString(), "failedMonths", failed));
+    }
+
     @GetMapping("/metrics/summary")
-    @Operation(summary = "Отримати короткий звіт про метрики", description = "Повертає статистику системи для адміна")
+    @Operation(summary = "Отримати короткий звіт про метрики", description = "Повертає статистику системи для адміна. " +
+            "Кількості беруться з лічильників SystemStatsService (звіряються з count(*) у фоні), без запитів до БД")
     @ApiResponse(responseCode = "200", description = "Успішно отримано метрики")
     public ResponseEntity<?> getMetricsSummary() {
         try {
-            long totalUsers = userRepository.count();
-            long totalCustomers = customerRepo.findAll().size();
-            long totalAccounts = accountRepo.findAll().size();
-            long totalTransactions = transactionService.getAllTransactions().size();
+            Map<SystemStatsService.Entity, Long> counts = systemStats.snapshot();
             
             java.util.Map<String, Object> metrics = java.util.Map.of(
-                "totalUsers", totalUsers,
-                "totalCustomers", totalCustomers,
-                "totalAccounts", totalAccounts,
-                "totalTransactions", totalTransactions,
+                "totalUsers", counts.get(SystemStatsService.Entity.USERS),
+                "totalCustomers", counts.get(SystemStatsService.Entity.CUSTOMERS),
+                "totalAccounts", counts.get(SystemStatsService.Entity.ACCOUNTS),
+                "totalTransactions", counts.get(SystemStatsService.Entity.TRANSACTIONS),
                 "grafanaUrl", "https://grafana.andreychyk-bank.duckdns.org",
                 "prometheusUrl", "https://andreychyk-bank.duckdns.org/prometheus",
                 "prometheusInternalUrl", "http://prometheus:9090"
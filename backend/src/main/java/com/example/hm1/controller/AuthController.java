@@ -6,17 +6,23 @@ import com.example.hm1.dao.UserRepository;
 import com.example.hm1.entity.Customer;
 import com.example.hm1.entity.Role;
 import com.example.hm1.entity.User;
+import com.example.hm1.security.CachingUserDetailsService;
 import com.example.hm1.security.JwtService;
+import com.example.hm1.security.UserSnapshot;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -28,6 +34,7 @@ import jakarta.validation.constraints.NotBlank;
 
 import java.util.Set;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -40,9 +47,11 @@ public class AuthController {
     private final UserRepository userRepository;
     private final CustomerRepo customerRepository;
     private final @Lazy PasswordEncoder passwordEncoder;
+    private final CachingUserDetailsService userCache;
 
-    public AuthController(AuthenticationManager authManager, JwtService jwtService, RoleRepository roleRepository, UserRepository userRepository, CustomerRepo customerRepository, PasswordEncoder passwordEncoder) {
+    public AuthController(AuthenticationManager authManager, JwtService jwtService, RoleRepository roleRepository, UserRepository userRepository, CustomerRepo customerRepository, PasswordEncoder passwordEncoder, CachingUserDetailsService userCache) {
         this.authManager = authManager;
+        this.userCache = userCache;
         this.jwtService = jwtService;
         this.roleRepository = roleRepository;
         this.userRepository = userRepository;
@@ -54,7 +63,8 @@ public class AuthController {
     @Operation(summary = "Реєстрація нового користувача", description = "Створює нового користувача з роллю USER та пов'язаний обліковий запис Customer")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Користувач успішно зареєстрований"),
-            @ApiResponse(responseCode = "400", description = "Помилка реєстрації: користувач з таким ім'ям або email вже існує, або невалідні дані")
+            @ApiResponse(responseCode = "400", description = "Помилка реєстрації: користувач з таким ім'ям або email вже існує, або невалідні дані"),
+            @ApiResponse(responseCode = "429", description = "Забагато одночасних реєстрацій, повторіть запит після Retry-After")
     })
     public ResponseEntity<?> register(
             @Parameter(description = "Дані для реєстрації: username, email, password", required = true)
@@ -100,6 +110,8 @@ public class AuthController {
                     (savedCustomer.getUser() != null ? savedCustomer.getUser().getId() : "null"));
 
             return ResponseEntity.ok("User registered successfully");
+        } catch (RejectedExecutionException e) {
+            return tooManyRequests();
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Registration failed: " + e.getMessage());
         }
@@ -109,14 +121,17 @@ public class AuthController {
     @Operation(summary = "Авторизація користувача", description = "Перевіряє облікові дані користувача та повертає JWT токен для доступу до API")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Успішна авторизація, повертається JWT токен та ролі користувача"),
-            @ApiResponse(responseCode = "401", description = "Помилка авторизації: невірний username або password, або користувач не знайдений")
+            @ApiResponse(responseCode = "401", description = "Помилка авторизації: невірний username або password, або користувач не знайдений"),
+            @ApiResponse(responseCode = "429", description = "Забагато одночасних входів, повторіть запит після Retry-After")
     })
     public ResponseEntity<?> login(
             @Parameter(description = "Облікові дані: username та password", required = true)
             @RequestBody LoginRequest req) {
         try {
-            // Перевіряємо чи користувач існує
-            if (!userRepository.existsByUsername(req.getUsername())) {
+            // Перевіряємо чи користувач існує (через кеш: authenticate нижче візьме цей самий запис)
+            try {
+                userCache.loadUserByUsername(req.getUsername());
+            } catch (UsernameNotFoundException e) {
                 Map<String, String> error = new java.util.HashMap<>();
                 error.put("message", "Користувач не знайдений. Будь ласка, зареєструйтеся.");
                 error.put("error", "USER_NOT_FOUND");
@@ -127,18 +142,21 @@ public class AuthController {
                     new UsernamePasswordAuthenticationToken(req.getUsername(), req.getPassword())
             );
 
-            User user = (User) authentication.getPrincipal();
+            UserDetails user = (UserDetails) authentication.getPrincipal();
+            Long userId = user instanceof UserSnapshot snapshot ? snapshot.getId() : ((User) user).getId();
             String[] roles = user.getAuthorities().stream()
                     .map(auth -> auth.getAuthority())
                     .toArray(String[]::new);
 
-            String token = jwtService.generateToken(user.getUsername(), roles);
+            String token = jwtService.generateToken(userId, user.getUsername(), roles);
             return ResponseEntity.ok(new AuthResponse(token, roles));
         } catch (org.springframework.security.authentication.BadCredentialsException e) {
             Map<String, String> error = new java.util.HashMap<>();
             error.put("message", "Невірний пароль. Спробуйте ще раз.");
             error.put("error", "BAD_CREDENTIALS");
             return ResponseEntity.status(401).body(error);
+        } catch (RejectedExecutionException e) {
+            return tooManyRequests();
         } catch (Exception e) {
             Map<String, String> error = new java.util.HashMap<>();
             error.put("message", "Помилка входу: " + e.getMessage());
@@ -147,6 +165,16 @@ public class AuthController {
         }
     }
 
+    // Пул хешування паролів заповнений - клієнт має повторити пізніше, а не чекати в черзі
+    private static ResponseEntity<?> tooManyRequests() {
+        Map<String, String> error = new java.util.HashMap<>();
+        error.put("message", "Забагато одночасних входів. Спробуйте ще раз за секунду.");
+        error.put("error", "TOO_MANY_REQUESTS");
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
+
     public static class RegisterRequest {
         @NotBlank
         private String username;
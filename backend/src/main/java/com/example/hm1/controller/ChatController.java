@@ -6,6 +6,8 @@ import com.example.hm1.dto.chat.ChatMessageRequest;
 import com.example.hm1.dto.chat.ChatMessageResponse;
 import com.example.hm1.dto.chat.ChatThreadResponse;
 import com.example.hm1.entity.User;
+import com.example.hm1.security.JwtPrincipal;
+import com.example.hm1.security.UserSnapshot;
 import com.example.hm1.service.chat.ChatService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -63,8 +65,7 @@ public class ChatController {
     public ResponseEntity<ChatMessageResponse> sendMessage(
             @Parameter(description = "Дані повідомлення: threadId (опціонально), recipientUserId, content", required = true)
             @Valid @RequestBody ChatMessageRequest request) {
-        User currentUser = resolveCurrentUser();
-        request.setSenderUserId(currentUser.getId());
+        request.setSenderUserId(resolveCurrentUserId());
         ChatMessageResponse response = chatService.sendMessage(request);
         messagingTemplate.convertAndSend("/topic/chat/" + response.getThreadId(), response);
         return ResponseEntity.ok(response);
@@ -72,9 +73,9 @@ public class ChatController {
 
     @GetMapping("/contacts")
     public ResponseEntity<List<ChatContactResponse>> getContacts() {
-        User currentUser = resolveCurrentUser();
+        Long currentUserId = resolveCurrentUserId();
         List<ChatContactResponse> contacts = userRepository.findAll().stream()
-                .filter(user -> !user.getId().equals(currentUser.getId()))
+                .filter(user -> !user.getId().equals(currentUserId))
                 .map(user -> new ChatContactResponse(user.getId(), user.getUsername()))
                 .collect(Collectors.toList());
         return ResponseEntity.ok(contacts);
@@ -82,17 +83,35 @@ public class ChatController {
 
     @GetMapping("/me")
     public ResponseEntity<ChatContactResponse> getCurrentUserProfile() {
-        User currentUser = resolveCurrentUser();
-        return ResponseEntity.ok(new ChatContactResponse(currentUser.getId(), currentUser.getUsername()));
+        Long currentUserId = resolveCurrentUserId();
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        return ResponseEntity.ok(new ChatContactResponse(currentUserId, username));
     }
 
+    /** Посилання на User без SELECT: сервісу чату потрібен лише id для запитів і перевірки учасника. */
     private User resolveCurrentUser() {
+        return userRepository.getReferenceById(resolveCurrentUserId());
+    }
+
+    /**
+     * Id поточного користувача з principal, який уже поставив JwtAuthFilter: JwtPrincipal з claims
+     * токена або UserSnapshot з CachingUserDetailsService. SELECT users - лише для іншого principal.
+     */
+    private Long resolveCurrentUserId() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication != null ? authentication.getName() : null;
         if (username == null) {
             throw new IllegalStateException("Cannot resolve current user");
         }
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof JwtPrincipal jwtPrincipal && jwtPrincipal.getUserId() != null) {
+            return jwtPrincipal.getUserId();
+        }
+        if (principal instanceof UserSnapshot snapshot && snapshot.getId() != null) {
+            return snapshot.getId();
+        }
         return userRepository.findByUsername(username)
+                .map(User::getId)
                 .orElseThrow(() -> new IllegalStateException("User not found: " + username));
     }
 }
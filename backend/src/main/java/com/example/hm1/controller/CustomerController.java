@@ -4,7 +4,9 @@ import com.example.hm1.dao.CustomerRepo;
 import com.example.hm1.dao.UserRepository;
 import com.example.hm1.dao.EmployerRepo;
 import com.example.hm1.dto.AccountResponseDTO;
+import com.example.hm1.dto.CurrentCustomerDTO;
 import com.example.hm1.dto.CustomerRequestDTO;
+import com.example.hm1.dto.CustomerResponseDTO;
 import com.example.hm1.entity.User;
 import com.example.hm1.entity.Employer;
 import io.swagger.v3.oas.annotations.Operation;
@@ -29,6 +31,7 @@ import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -38,26 +41,6 @@ import java.util.stream.Collectors;
 @Tag(name = "Customers", description = "API для управління клієнтами банку")
 public class CustomerController {
 
-    public static class CustomerDTO {
-        public Long id;
-        public String name;
-        public String email;
-        public Integer age;
-        public List<String> employers;
-        
-        public CustomerDTO(Customer customer) {
-            this.id = customer.getId();
-            this.name = customer.getName();
-            this.email = customer.getEmail();
-            this.age = customer.getAge();
-            this.employers = customer.getEmployers() != null 
-                ? customer.getEmployers().stream()
-                    .map(Employer::getName)
-                    .collect(Collectors.toList())
-                : new java.util.ArrayList<>();
-        }
-    }
-
     private final CustomerService customerService;
     private final CustomerRepo customerRepo;
     private final UserRepository userRepository;
@@ -74,8 +57,8 @@ public class CustomerController {
     @GetMapping
     @Operation(summary = "Отримати всіх клієнтів", description = "Повертає список всіх клієнтів банку")
     @ApiResponse(responseCode = "200", description = "Успішно отримано список клієнтів")
-    public ResponseEntity<List<Customer>> getAllCustomers() {
-        List<Customer> customers = customerService.getAllCustomers();
+    public ResponseEntity<List<CustomerResponseDTO>> getAllCustomers() {
+        List<CustomerResponseDTO> customers = customerService.getAllCustomers();
         return ResponseEntity.ok(customers);
     }
 
@@ -87,68 +70,20 @@ public class CustomerController {
             @ApiResponse(responseCode = "404", description = "Клієнт не знайдений для поточного користувача")
     })
     public ResponseEntity<?> getCurrentCustomer() {
-        try {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            String username = authentication.getName();
-            
-            if (username == null) {
-                System.err.println("CustomerController: username is null");
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-            }
-            
-            System.out.println("CustomerController: Looking for customer for username: " + username);
-            
-            User user = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found: " + username));
-            
-            if (user.getId() == null) {
-                System.err.println("CustomerController: User ID is null for username: " + username);
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-            }
-            
-            System.out.println("CustomerController: Found user with ID: " + user.getId());
-            
-            Customer customer = customerRepo.findByUserId(user.getId())
-                    .orElse(null);
-            
-            if (customer == null) {
-                System.err.println("CustomerController: Customer not found for userId: " + user.getId());
-                System.err.println("CustomerController: Total customers in repo: " + customerRepo.findAll().size());
-                // Логуємо всіх клієнтів для діагностики
-                customerRepo.findAll().forEach(c -> {
-                    System.err.println("  Customer ID: " + c.getId() + ", name: " + c.getName() + 
-                                     ", user ID: " + (c.getUser() != null ? c.getUser().getId() : "null"));
-                });
-                // Якщо не знайдено, повертаємо 404
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-            }
-            
-            System.out.println("CustomerController: Found customer with ID: " + customer.getId() + 
-                             ", name: " + customer.getName() + ", email: " + customer.getEmail());
-            
-            if (customer.getId() == null) {
-                System.err.println("CustomerController: WARNING! Customer ID is null before returning");
-            }
-            
-            try {
-                CustomerDTO dto = new CustomerDTO(customer);
-                System.out.println("CustomerController: Successfully created DTO with ID: " + dto.id);
-                return ResponseEntity.ok(dto);
-            } catch (Exception e) {
-                System.err.println("CustomerController: Error creating DTO: " + e.getMessage());
-                e.printStackTrace();
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", "Failed to serialize customer data"));
-            }
-        } catch (RuntimeException e) {
-            System.err.println("CustomerController: RuntimeException: " + e.getMessage());
-            e.printStackTrace();
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String username = authentication != null ? authentication.getName() : null;
+        if (username == null) {
+            System.err.println("CustomerController: username is null");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        // Клієнт, роботодавці й рахунки - одним запитом за username
+        Optional<CurrentCustomerDTO> customer = customerService.getCurrentCustomer(username);
+        if (customer.isEmpty()) {
+            System.err.println("CustomerController: Customer not found for username: " + username);
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-        } catch (Exception e) {
-            System.err.println("CustomerController: Exception: " + e.getMessage());
-            e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
+        return ResponseEntity.ok(customer.get());
     }
 
     @GetMapping("/{id}")
@@ -157,10 +92,10 @@ public class CustomerController {
             @ApiResponse(responseCode = "200", description = "Клієнт знайдено"),
             @ApiResponse(responseCode = "404", description = "Клієнт з вказаним ID не знайдено")
     })
-    public ResponseEntity<Customer> getCustomerById(
+    public ResponseEntity<CustomerResponseDTO> getCustomerById(
             @Parameter(description = "ID клієнта", required = true)
             @PathVariable Long id) {
-        Customer customer = customerService.getCustomerById(id);
+        CustomerResponseDTO customer = customerService.getCustomerById(id);
         if (customer == null) {
             return ResponseEntity.notFound().build();
         }
@@ -201,16 +136,14 @@ public class CustomerController {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Username is null");
             }
             
-            User user = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found: " + username));
-            
-            System.out.println("CustomerController.updateCurrentCustomer: Found user with ID: " + user.getId());
-            
-            Customer customer = customerRepo.findByUserId(user.getId()).orElse(null);
+            // Клієнт разом з user і роботодавцями одним запитом; users читається лише для нового клієнта
+            Customer customer = customerRepo.findByUsername(username).orElse(null);
             
             // Якщо Customer не знайдено, створюємо нового
             if (customer == null) {
                 System.out.println("CustomerController.updateCurrentCustomer: Customer not found, creating new one");
+                User user = userRepository.findByUsername(username)
+                        .orElseThrow(() -> new RuntimeException("User not found: " + username));
                 customer = new Customer(customerDTO.getName(), customerDTO.getEmail(), customerDTO.getAge());
                 customer.setUser(user);
                 customer = customerRepo.save(customer);
@@ -276,26 +209,13 @@ public class CustomerController {
                 }
             }
             
-            // Переконуємося що User встановлено
-            if (customer.getUser() == null) {
-                customer.setUser(user);
-            }
-            
             Customer updatedCustomer = customerRepo.save(customer);
             System.out.println("CustomerController.updateCurrentCustomer: Customer saved successfully with ID: " + updatedCustomer.getId());
             System.out.println("CustomerController.updateCurrentCustomer: Employers count after save: " + 
                 (updatedCustomer.getEmployers() != null ? updatedCustomer.getEmployers().size() : 0));
             
-            // Перевіряємо що збереження пройшло успішно
-            Customer savedCheck = customerRepo.findByUserId(user.getId()).orElse(null);
-            if (savedCheck == null) {
-                System.err.println("CustomerController.updateCurrentCustomer: WARNING! Customer not found after save!");
-            } else {
-                System.out.println("CustomerController.updateCurrentCustomer: Employers count in DB check: " + 
-                    (savedCheck.getEmployers() != null ? savedCheck.getEmployers().size() : 0));
-            }
-            
-            return ResponseEntity.ok(updatedCustomer);
+            // Відповідь - з того ж плану вибірки, що й GET /{id}: рахунки клієнта тут не завантажені
+            return ResponseEntity.ok(customerService.getCustomerById(updatedCustomer.getId()));
         } catch (RuntimeException e) {
             System.err.println("CustomerController.updateCurrentCustomer: RuntimeException: " + e.getMessage());
             e.printStackTrace();
@@ -308,14 +228,11 @@ public class CustomerController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Customer> updateCustomer(@PathVariable Long id, @RequestBody Customer customer) {
-        Customer existingCustomer = customerService.getCustomerById(id);
-        if (existingCustomer == null) {
+    public ResponseEntity<CustomerResponseDTO> updateCustomer(@PathVariable Long id, @RequestBody Customer customer) {
+        CustomerResponseDTO updatedCustomer = customerService.updateCustomer(id, customer);
+        if (updatedCustomer == null) {
             return ResponseEntity.notFound().build();
         }
-
-        customer.setId(id);
-        Customer updatedCustomer = customerService.updateCustomer(customer);
         return ResponseEntity.ok(updatedCustomer);
     }
 
@@ -339,17 +256,14 @@ public class CustomerController {
             @Parameter(description = "ID клієнта", required = true)
             @PathVariable Long customerId) {
         try {
-            Customer customer = customerService.getCustomerById(customerId);
+            CustomerResponseDTO customer = customerService.getCustomerById(customerId);
             if (customer == null) {
                 return ResponseEntity.notFound().build();
             }
-            Comparator<Account> byIdDesc = Comparator.comparing(Account::getId, Comparator.nullsLast(Long::compareTo)).reversed();
-            List<AccountResponseDTO> accounts = customer.getAccounts() == null
-                    ? List.of()
-                    : customer.getAccounts().stream()
-                        .sorted(byIdDesc)
-                        .map(AccountResponseDTO::from)
-                        .collect(Collectors.toList());
+            Comparator<AccountResponseDTO> byIdDesc = Comparator.comparing(AccountResponseDTO::getId, Comparator.nullsLast(Long::compareTo)).reversed();
+            List<AccountResponseDTO> accounts = customer.getAccounts().stream()
+                    .sorted(byIdDesc)
+                    .collect(Collectors.toList());
             return ResponseEntity.ok(accounts);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -1,6 +1,7 @@
 package com.example.hm1.controller;
 
 import com.example.hm1.dto.ExchangeRateHistoryPoint;
+import com.example.hm1.dto.ExchangeRateImportDTO;
 import com.example.hm1.entity.Currency;
 import com.example.hm1.service.ExchangeRateService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -103,6 +104,24 @@ public class ExchangeRateController {
         }
     }
 
+    @PostMapping("/history")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Імпортувати історію курсів", description = "Масово зберігає курси до UAH по днях; курс на ту ж дату перезаписується")
+    @ApiResponse(responseCode = "200", description = "Курси імпортовано")
+    public ResponseEntity<?> importRateHistory(@RequestBody List<ExchangeRateImportDTO> rates) {
+        try {
+            int imported = exchangeRateService.importHistoricalRates(rates);
+            return ResponseEntity.ok(Map.of("imported", imported));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest()
+                .body("Error importing rates: " + ex.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.badRequest()
+                .body("Error importing rates: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/all")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<?> getAllRates(@RequestParam(defaultValue = "UAH") Currency base) {
@@ -119,6 +138,20 @@ public class ExchangeRateController {
         }
     }
 
+    @GetMapping("/snapshots/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Знімок курсів", description = "Курси, за якими виконувались конвертації транзакцій з цим rateSnapshotId")
+    @ApiResponse(responseCode = "200", description = "Знімок знайдено")
+    public ResponseEntity<?> getRateSnapshot(@PathVariable long id) {
+        return exchangeRateService.findSnapshot(id)
+                .<ResponseEntity<?>>map(snapshot -> ResponseEntity.ok(Map.of(
+                        "id", snapshot.getId(),
+                        "capturedAt", snapshot.getCapturedAt(),
+                        "ratesToUah", snapshot.getRatesToUah()
+                )))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     @PostMapping("/update")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> updateRates() {
@@ -1,9 +1,13 @@
 package com.example.hm1.controller;
 
+import com.example.hm1.dao.TransactionCursor;
+import com.example.hm1.dao.TransactionView;
 import com.example.hm1.dto.ExpenseStatisticsDTO;
 import com.example.hm1.dto.UpdateTransactionCategoryDTO;
 import com.example.hm1.entity.Transaction;
+import com.example.hm1.service.TransactionExportService;
 import com.example.hm1.service.TransactionService;
+import com.example.hm1.service.stats.ExpenseStatisticsStreamer;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -12,13 +16,17 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
-import java.util.Map;
 
 @RestController
 @RequestMapping("/api/transactions")
@@ -26,103 +34,153 @@ import java.util.Map;
 @Tag(name = "Transactions", description = "API для управління транзакціями та статистикою витрат")
 public class TransactionController {
 
+    private static final int CURSOR_PAGE_MAX = 200;
+
     private final TransactionService transactionService;
+    private final TransactionExportService transactionExportService;
+    private final ExpenseStatisticsStreamer expenseStatisticsStreamer;
 
-    public TransactionController(TransactionService transactionService) {
+    public TransactionController(TransactionService transactionService,
+                                 TransactionExportService transactionExportService,
+                                 ExpenseStatisticsStreamer expenseStatisticsStreamer) {
         this.transactionService = transactionService;
+        this.transactionExportService = transactionExportService;
+        this.expenseStatisticsStreamer = expenseStatisticsStreamer;
     }
 
     @GetMapping("/customer/{customerId}")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     @Operation(summary = "Отримати транзакції клієнта", description = "Повертає список всіх транзакцій вказаного клієнта")
     @ApiResponse(responseCode = "200", description = "Успішно отримано список транзакцій")
-    public ResponseEntity<List<Transaction>> getTransactionsByCustomer(
+    public ResponseEntity<List<TransactionView>> getTransactionsByCustomer(
             @Parameter(description = "ID клієнта", required = true)
             @PathVariable Long customerId) {
         System.out.println("TransactionController.getTransactionsByCustomer: customerId=" + customerId);
-        List<Transaction> transactions = transactionService.getTransactionsByCustomerId(customerId);
+        List<TransactionView> transactions = transactionService.getTransactionsByCustomerId(customerId);
         System.out.println("TransactionController.getTransactionsByCustomer: Found " + transactions.size() + " transactions");
         return ResponseEntity.ok(transactions);
     }
 
     @GetMapping("/history/{customerId}")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public ResponseEntity<List<Transaction>> getTransactionHistory(@PathVariable Long customerId) {
+    public ResponseEntity<List<TransactionView>> getTransactionHistory(@PathVariable Long customerId) {
         System.out.println("TransactionController.getTransactionHistory: customerId=" + customerId);
-        List<Transaction> transactions = transactionService.getTransactionsByCustomerId(customerId);
+        List<TransactionView> transactions = transactionService.getTransactionsByCustomerId(customerId);
         System.out.println("TransactionController.getTransactionHistory: Found " + transactions.size() + " transactions");
         return ResponseEntity.ok(transactions);
     }
 
     @GetMapping("/customer/{customerId}/page")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public ResponseEntity<Page<Transaction>> getTransactionsByCustomerPage(
+    @Operation(summary = "Сторінка транзакцій клієнта", description = "Без cursor - offset-сторінка Page (page, size) з count-запитом. " +
+            "З cursor - keyset-сторінка за (timestamp, id) без count: порожній cursor дає найновіші транзакції, " +
+            "nextCursor з відповіді - наступну сторінку; час не залежить від глибини")
+    public ResponseEntity<?> getTransactionsByCustomerPage(
             @PathVariable Long customerId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Непрозорий курсор nextCursor попередньої сторінки; порожній - перша сторінка")
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            if (size < 1 || size > CURSOR_PAGE_MAX) {
+                return ResponseEntity.badRequest().body("size must be between 1 and " + CURSOR_PAGE_MAX);
+            }
+            return ResponseEntity.ok(transactionService.getTransactionsByCustomerId(customerId, decodeCursor(cursor), size));
+        }
         Pageable pageable = PageRequest.of(page, size);
-        Page<Transaction> transactions = transactionService.getTransactionsByCustomerId(customerId, pageable);
+        Page<TransactionView> transactions = transactionService.getTransactionsByCustomerId(customerId, pageable);
         return ResponseEntity.ok(transactions);
     }
 
     @GetMapping("/all")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<Transaction>> getAllTransactions() {
-        List<Transaction> transactions = transactionService.getAllTransactions();
-        return ResponseEntity.ok(transactions);
+    @Operation(summary = "Отримати всі транзакції", description = "Без format - JSON-масив транзакцій (лише для невеликих таблиць). " +
+            "format=ndjson або format=csv - потокове вивантаження за зростанням id: рядки читаються курсором і пишуться " +
+            "у відповідь по одному, пам'ять не залежить від кількості транзакцій")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Транзакції або файл вивантаження"),
+            @ApiResponse(responseCode = "400", description = "Непідтримуваний формат")
+    })
+    public ResponseEntity<?> getAllTransactions(
+            @Parameter(description = "ndjson або csv для потокового вивантаження")
+            @RequestParam(required = false) String format) {
+        if (format == null) {
+            List<TransactionView> transactions = transactionService.getAllTransactions();
+            return ResponseEntity.ok(transactions);
+        }
+        TransactionExportService.Format exportFormat = TransactionExportService.Format.parse(format);
+        if (exportFormat == null) {
+            return ResponseEntity.badRequest().body("format must be ndjson or csv");
+        }
+        StreamingResponseBody body = out -> transactionExportService.export(exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(TransactionExportService.fileName(exportFormat)).build().toString())
+                .body(body);
     }
 
     @GetMapping("/all/page")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Page<Transaction>> getAllTransactionsPage(
+    @Operation(summary = "Сторінка всіх транзакцій", description = "Як /customer/{customerId}/page: без cursor - offset-сторінка, " +
+            "з cursor - keyset-сторінка з nextCursor")
+    public ResponseEntity<?> getAllTransactionsPage(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Непрозорий курсор nextCursor попередньої сторінки; порожній - перша сторінка")
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            if (size < 1 || size > CURSOR_PAGE_MAX) {
+                return ResponseEntity.badRequest().body("size must be between 1 and " + CURSOR_PAGE_MAX);
+            }
+            return ResponseEntity.ok(transactionService.getAllTransactions(decodeCursor(cursor), size));
+        }
         Pageable pageable = PageRequest.of(page, size);
-        Page<Transaction> transactions = transactionService.getAllTransactions(pageable);
+        Page<TransactionView> transactions = transactionService.getAllTransactions(pageable);
         return ResponseEntity.ok(transactions);
     }
 
     @GetMapping("/customer/{customerId}/date-range")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public ResponseEntity<List<Transaction>> getTransactionsByDateRange(
+    public ResponseEntity<List<TransactionView>> getTransactionsByDateRange(
             @PathVariable Long customerId,
             @RequestParam String startDate,
             @RequestParam String endDate) {
         LocalDateTime start = LocalDateTime.parse(startDate);
         LocalDateTime end = LocalDateTime.parse(endDate);
-        List<Transaction> transactions = transactionService.getTransactionsByDateRange(customerId, start, end);
+        List<TransactionView> transactions = transactionService.getTransactionsByDateRange(customerId, start, end);
         return ResponseEntity.ok(transactions);
     }
 
     @GetMapping("/all/date-range")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<Transaction>> getAllTransactionsByDateRange(
+    public ResponseEntity<List<TransactionView>> getAllTransactionsByDateRange(
             @RequestParam String startDate,
             @RequestParam String endDate) {
         LocalDateTime start = LocalDateTime.parse(startDate);
         LocalDateTime end = LocalDateTime.parse(endDate);
-        List<Transaction> transactions = transactionService.getAllTransactionsByDateRange(start, end);
+        List<TransactionView> transactions = transactionService.getAllTransactionsByDateRange(start, end);
         return ResponseEntity.ok(transactions);
     }
 
     @GetMapping("/type/{type}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<Transaction>> getTransactionsByType(@PathVariable Transaction.TransactionType type) {
-        List<Transaction> transactions = transactionService.getTransactionsByType(type);
+    public ResponseEntity<List<TransactionView>> getTransactionsByType(@PathVariable Transaction.TransactionType type) {
+        List<TransactionView> transactions = transactionService.getTransactionsByType(type);
         return ResponseEntity.ok(transactions);
     }
 
     @GetMapping("/status/{status}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<Transaction>> getTransactionsByStatus(@PathVariable Transaction.TransactionStatus status) {
-        List<Transaction> transactions = transactionService.getTransactionsByStatus(status);
+    public ResponseEntity<List<TransactionView>> getTransactionsByStatus(@PathVariable Transaction.TransactionStatus status) {
+        List<TransactionView> transactions = transactionService.getTransactionsByStatus(status);
         return ResponseEntity.ok(transactions);
     }
 
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public ResponseEntity<Transaction> getTransactionById(@PathVariable Long id) {
-        Transaction transaction = transactionService.getTransactionById(id);
+    public ResponseEntity<TransactionView> getTransactionById(@PathVariable Long id) {
+        TransactionView transaction = transactionService.getTransactionById(id);
         return ResponseEntity.ok(transaction);
     }
 
@@ -140,14 +198,15 @@ public class TransactionController {
             @ApiResponse(responseCode = "200", description = "Категорію успішно оновлено"),
             @ApiResponse(responseCode = "404", description = "Транзакція не знайдена")
     })
-    public ResponseEntity<Transaction> updateTransactionCategory(
+    public ResponseEntity<TransactionView> updateTransactionCategory(
             @Parameter(description = "ID транзакції", required = true)
             @PathVariable Long id,
             @Parameter(description = "Нова категорія транзакції (може бути null для видалення)", required = true)
             @RequestBody UpdateTransactionCategoryDTO dto) {
         // Allow null category to remove category assignment
-        Transaction updated = transactionService.updateTransactionCategory(id, dto.getCategory());
-        return ResponseEntity.ok(updated);
+        transactionService.updateTransactionCategory(id, dto.getCategory());
+        // Відповідь у тій самій формі, що й GET /{id}, без серіалізації лінивих зв'язків сутності
+        return ResponseEntity.ok(transactionService.getTransactionById(id));
     }
 
     @GetMapping("/customer/{customerId}/expense-statistics")
@@ -177,10 +236,20 @@ public class TransactionController {
 
     @GetMapping("/all/expense-statistics")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Map<Long, ExpenseStatisticsDTO>> getExpenseStatisticsForAllUsers(
+    @Operation(summary = "Статистика витрат усіх клієнтів за місяць", description = "JSON-об'єкт id клієнта -> статистика. " +
+            "Клієнти агрегуються паралельними порціями і пишуться у відповідь потоком, без побудови звіту в пам'яті")
+    public ResponseEntity<StreamingResponseBody> getExpenseStatisticsForAllUsers(
             @RequestParam int year,
             @RequestParam int month) {
-        Map<Long, ExpenseStatisticsDTO> statistics = transactionService.getExpenseStatisticsForAllUsersByMonth(year, month);
-        return ResponseEntity.ok(statistics);
+        YearMonth yearMonth = YearMonth.of(year, month);
+        StreamingResponseBody body = out -> expenseStatisticsStreamer.writeJson(yearMonth, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    private static TransactionCursor decodeCursor(String cursor) {
+        // IllegalArgumentException для зіпсованого курсора - 400 у GlobalExceptionHandler
+        return cursor.isBlank() ? null : TransactionCursor.decode(cursor);
     }
 }
@@ -0,0 +1,14 @@
+package com.example.hm1.dao;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Агрегат по рахунку за один напрямок (списання або зарахування), порахований у SQL.
+ */
+public interface AccountActivityView {
+    Long getAccountId();
+    Long getTransactionCount();
+    BigDecimal getTotal();
+    LocalDateTime getLastActivity();
+}
@@ -0,0 +1,14 @@
+package com.example.hm1.dao;
+
+/**
+ * Результат атомарного UPDATE ... RETURNING по рахунку: новий баланс
+ * без завантаження всієї сутності Account.
+ */
+public interface AccountBalanceView {
+    Long getId();
+    Long getCustomerId();
+    /** Валюта рахунку (Currency.name()). */
+    String getCurrency();
+    /** Новий баланс у мінімальних одиницях (див. Money). */
+    Long getBalanceMinor();
+}
@@ -2,10 +2,17 @@ package com.example.hm1.dao;
 
 import com.example.hm1.entity.Account;
 import org.springframework.data.jpa.repository.EntityGraph;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,6 +20,46 @@ import java.util.Optional;
 public interface AccountJpaRepository extends JpaRepository<Account, Long> {
     @EntityGraph(attributePaths = "customer")
     Optional<Account> findByNumber(String number);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "5000"))
+    @Query("SELECT a FROM Account a WHERE a.number = :number")
+    Optional<Account> findByNumberForUpdate(@Param("number") String number);
+
+    // Усі рахунки пакета переказів одним запитом
+    @EntityGraph(attributePaths = "customer")
+    @Query("SELECT a FROM Account a WHERE a.number IN :numbers")
+    List<Account> findByNumbers(@Param("numbers") Collection<String> numbers);
+
+    // Порядок за номером той самий, що й в одиночному переказі, тож рядкові локи не дають deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "5000"))
+    @Query("SELECT a FROM Account a WHERE a.number IN :numbers ORDER BY a.number")
+    List<Account> findByNumbersForUpdate(@Param("numbers") Collection<String> numbers);
+
+    // Зарахування одним запитом: без SELECT перед UPDATE
+    @Query(value = "UPDATE accounts SET balance = balance + :amount, version = version + 1, last_modified_date = CURRENT_TIMESTAMP " +
+            "WHERE number = :number AND currency = :currency " +
+            "RETURNING id AS id, customer_id AS \"customerId\", currency AS currency, CAST(balance * 100 AS BIGINT) AS \"balanceMinor\"", nativeQuery = true)
+    Optional<AccountBalanceView> credit(@Param("number") String number, @Param("currency") String currency, @Param("amount") BigDecimal amount);
+
+    // Списання з перевіркою залишку в тому ж UPDATE, тому овердрафт неможливий навіть без локів
+    @Query(value = "UPDATE accounts SET balance = balance - :amount, version = version + 1, last_modified_date = CURRENT_TIMESTAMP " +
+            "WHERE number = :number AND currency = :currency AND balance >= :amount " +
+            "RETURNING id AS id, customer_id AS \"customerId\", currency AS currency, CAST(balance * 100 AS BIGINT) AS \"balanceMinor\"", nativeQuery = true)
+    Optional<AccountBalanceView> debit(@Param("number") String number, @Param("currency") String currency, @Param("amount") BigDecimal amount);
+
+    // Те саме зарахування, але сума у валюті рахунку: ендпоінт не читає рахунок заради валюти
+    @Query(value = "UPDATE accounts SET balance = balance + :amount, version = version + 1, last_modified_date = CURRENT_TIMESTAMP " +
+            "WHERE number = :number " +
+            "RETURNING id AS id, customer_id AS \"customerId\", currency AS currency, CAST(balance * 100 AS BIGINT) AS \"balanceMinor\"", nativeQuery = true)
+    Optional<AccountBalanceView> creditInAccountCurrency(@Param("number") String number, @Param("amount") BigDecimal amount);
+
+    @Query(value = "UPDATE accounts SET balance = balance - :amount, version = version + 1, last_modified_date = CURRENT_TIMESTAMP " +
+            "WHERE number = :number AND balance >= :amount " +
+            "RETURNING id AS id, customer_id AS \"customerId\", currency AS currency, CAST(balance * 100 AS BIGINT) AS \"balanceMinor\"", nativeQuery = true)
+    Optional<AccountBalanceView> debitInAccountCurrency(@Param("number") String number, @Param("amount") BigDecimal amount);
+
     List<Account> findByCustomer_Id(Long customerId);
     
     @Query("SELECT a.number FROM Account a WHERE a.number LIKE 'ACC-%' ORDER BY a.number DESC")
@@ -1,10 +1,26 @@
 package com.example.hm1.dao;
 
 import com.example.hm1.entity.Account;
+import com.example.hm1.entity.Money;
+
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 public interface AccountRepo extends Dao<Account> {
     Account findByNumber(String number);
+    Account findByNumberForUpdate(String number);
+    List<Account> findByNumbers(Collection<String> numbers);
+    List<Account> findByNumbersForUpdate(Collection<String> numbers);
+    /** Атомарно додає amount до балансу; null якщо рахунку в цій валюті немає. */
+    AccountBalanceView credit(String number, Money amount);
+    /** Атомарно знімає amount, якщо вистачає коштів; null якщо рахунку в цій валюті немає або коштів недостатньо. */
+    AccountBalanceView debit(String number, Money amount);
+    /** Як credit, але amount у валюті рахунку, тож валюту не треба знати заздалегідь; null якщо рахунку немає. */
+    AccountBalanceView creditInAccountCurrency(String number, BigDecimal amount);
+    /** Як debit, але amount у валюті рахунку; null якщо рахунку немає або коштів недостатньо. */
+    AccountBalanceView debitInAccountCurrency(String number, BigDecimal amount);
+    Account getReferenceById(long id);
     List<Account> findByCustomerId(Long customerId);
     String getLastAccountNumber();
 }
\ No newline at end of file
@@ -1,9 +1,12 @@
 package com.example.hm1.dao;
 
 import com.example.hm1.entity.Account;
+import com.example.hm1.entity.Money;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -61,6 +64,46 @@ public class AccountRepoJpaImpl implements AccountRepo {
         return jpa.findByNumber(number).orElse(null);
     }
 
+    @Override
+    public Account findByNumberForUpdate(String number) {
+        return jpa.findByNumberForUpdate(number).orElse(null);
+    }
+
+    @Override
+    public List<Account> findByNumbers(Collection<String> numbers) {
+        return jpa.findByNumbers(numbers);
+    }
+
+    @Override
+    public List<Account> findByNumbersForUpdate(Collection<String> numbers) {
+        return jpa.findByNumbersForUpdate(numbers);
+    }
+
+    @Override
+    public AccountBalanceView credit(String number, Money amount) {
+        return jpa.credit(number, amount.getCurrency().name(), amount.toBigDecimal()).orElse(null);
+    }
+
+    @Override
+    public AccountBalanceView debit(String number, Money amount) {
+        return jpa.debit(number, amount.getCurrency().name(), amount.toBigDecimal()).orElse(null);
+    }
+
+    @Override
+    public AccountBalanceView creditInAccountCurrency(String number, BigDecimal amount) {
+        return jpa.creditInAccountCurrency(number, amount).orElse(null);
+    }
+
+    @Override
+    public AccountBalanceView debitInAccountCurrency(String number, BigDecimal amount) {
+        return jpa.debitInAccountCurrency(number, amount).orElse(null);
+    }
+
+    @Override
+    public Account getReferenceById(long id) {
+        return jpa.getReferenceById(id);
+    }
+
     @Override
     public List<Account> findByCustomerId(Long customerId) {
         return jpa.findByCustomer_Id(customerId);
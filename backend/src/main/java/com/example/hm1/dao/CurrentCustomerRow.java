@@ -0,0 +1,22 @@
+package com.example.hm1.dao;
+
+import com.example.hm1.entity.Currency;
+
+/**
+ * Рядок запиту "поточний клієнт": клієнт, один його роботодавець і один рахунок.
+ * Роботодавці та рахунки приєднані через LEFT JOIN, тож на клієнта приходить
+ * (роботодавці x рахунки) рядків; поля employer/account можуть бути null.
+ */
+public interface CurrentCustomerRow {
+    Long getCustomerId();
+    String getName();
+    String getEmail();
+    Integer getAge();
+    Long getEmployerId();
+    String getEmployerName();
+    Long getAccountId();
+    String getAccountNumber();
+    Currency getAccountCurrency();
+    /** Баланс у мінімальних одиницях (див. Money). */
+    Long getAccountBalance();
+}
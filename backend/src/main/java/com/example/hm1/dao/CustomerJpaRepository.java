@@ -2,12 +2,42 @@ package com.example.hm1.dao;
 
 import com.example.hm1.entity.Customer;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CustomerJpaRepository extends JpaRepository<Customer, Long> {
     Optional<Customer> findByUser_Id(Long userId);
     Customer findByEmail(String email);
+
+    /** Клієнт за username разом з user і роботодавцями - один SELECT замість users + customers. */
+    @Query("SELECT c FROM Customer c JOIN FETCH c.user u LEFT JOIN FETCH c.employers WHERE u.username = :username")
+    Optional<Customer> findByUsername(@Param("username") String username);
+
+    /** Клієнт, роботодавці та рахунки за username за один запит (див. CurrentCustomerRow). */
+    @Query("SELECT c.id AS customerId, c.name AS name, c.email AS email, c.age AS age, " +
+           "e.id AS employerId, e.name AS employerName, " +
+           "a.id AS accountId, a.number AS accountNumber, a.currency AS accountCurrency, a.balance AS accountBalance " +
+           "FROM Customer c JOIN c.user u LEFT JOIN c.employers e LEFT JOIN c.accounts a " +
+           "WHERE u.username = :username ORDER BY a.id")
+    List<CurrentCustomerRow> findCurrentCustomerRows(@Param("username") String username);
+
+    /** Усі клієнти з роботодавцями одним запитом (EAGER employers інакше - окремий SELECT на клієнта). */
+    @Query("SELECT DISTINCT c FROM Customer c LEFT JOIN FETCH c.employers ORDER BY c.id")
+    List<Customer> findAllWithEmployers();
+
+    @Query("SELECT c FROM Customer c LEFT JOIN FETCH c.employers WHERE c.id = :id")
+    Optional<Customer> findWithEmployersById(@Param("id") Long id);
+
+    /**
+     * Догружає рахунки вже завантажених клієнтів одним запитом. Окремо від employers: accounts - bag,
+     * і спільний JOIN FETCH з employers дублював би рахунки на кожного роботодавця.
+     */
+    @Query("SELECT DISTINCT c FROM Customer c LEFT JOIN FETCH c.accounts WHERE c IN :customers")
+    List<Customer> fetchAccounts(@Param("customers") Collection<Customer> customers);
 }
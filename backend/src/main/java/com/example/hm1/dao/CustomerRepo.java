@@ -3,10 +3,19 @@ package com.example.hm1.dao;
 import com.example.hm1.entity.Customer;
 import com.example.hm1.entity.User;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface CustomerRepo extends Dao<Customer> {
     Customer findByEmail(String email);
     Optional<Customer> findByUser(User user);
     Optional<Customer> findByUserId(Long userId);
+    Customer getReferenceById(long id);
+    Optional<Customer> findByUsername(String username);
+    List<CurrentCustomerRow> findCurrentCustomerRows(String username);
+
+    /** Клієнти разом з рахунками й роботодавцями - два запити незалежно від кількості клієнтів. */
+    List<Customer> findAllWithAccounts();
+
+    Optional<Customer> findWithAccountsById(long id);
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import com.example.hm1.entity.Customer;
 import com.example.hm1.entity.User;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -74,4 +75,38 @@ public class CustomerRepoJpaImpl implements CustomerRepo {
         if (userId == null) return Optional.empty();
         return jpa.findByUser_Id(userId);
     }
+
+    @Override
+    public Customer getReferenceById(long id) {
+        return jpa.getReferenceById(id);
+    }
+
+    @Override
+    public Optional<Customer> findByUsername(String username) {
+        return jpa.findByUsername(username);
+    }
+
+    @Override
+    public List<CurrentCustomerRow> findCurrentCustomerRows(String username) {
+        return jpa.findCurrentCustomerRows(username);
+    }
+
+    // Обидва запити в одному persistence context: fetchAccounts заповнює accounts тих самих екземплярів
+    @Override
+    @Transactional(readOnly = true)
+    public List<Customer> findAllWithAccounts() {
+        List<Customer> customers = jpa.findAllWithEmployers();
+        if (!customers.isEmpty()) {
+            jpa.fetchAccounts(customers);
+        }
+        return customers;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Customer> findWithAccountsById(long id) {
+        Optional<Customer> customer = jpa.findWithEmployersById(id);
+        customer.ifPresent(c -> jpa.fetchAccounts(List.of(c)));
+        return customer;
+    }
 }
@@ -0,0 +1,21 @@
+package com.example.hm1.dao;
+
+import com.example.hm1.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Транзакція клієнта для адмінських деталей: номери рахунків приєднані в тому ж запиті,
+ * тож сторінка не тягне сутності Account по одній.
+ */
+public interface CustomerTransactionView {
+    Long getId();
+    Transaction.TransactionType getType();
+    BigDecimal getAmount();
+    String getDescription();
+    LocalDateTime getTimestamp();
+    Transaction.TransactionStatus getStatus();
+    String getFromAccountNumber();
+    String getToAccountNumber();
+}
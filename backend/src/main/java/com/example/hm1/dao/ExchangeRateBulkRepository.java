@@ -0,0 +1,14 @@
+package com.example.hm1.dao;
+
+import com.example.hm1.entity.ExchangeRate;
+
+import java.util.Collection;
+
+public interface ExchangeRateBulkRepository {
+
+    /**
+     * Вставляє курси пачками; якщо курс для (currency, effective_at) уже є - перезаписує його.
+     * @return кількість записаних рядків
+     */
+    int upsertAll(Collection<ExchangeRate> rates);
+}
@@ -0,0 +1,47 @@
+package com.example.hm1.dao;
+
+import com.example.hm1.entity.ExchangeRate;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * JDBC-реалізація масового завантаження курсів: один INSERT ... ON CONFLICT на рядок,
+ * відправлений batch-ами, замість select + save через Hibernate для кожного запису.
+ */
+public class ExchangeRateBulkRepositoryImpl implements ExchangeRateBulkRepository {
+
+    static final int BATCH_SIZE = 500;
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO exchange_rates (currency, effective_at, rate_to_uah) VALUES (?, ?, ?) " +
+            "ON CONFLICT (currency, effective_at) DO UPDATE SET rate_to_uah = EXCLUDED.rate_to_uah";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ExchangeRateBulkRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int upsertAll(Collection<ExchangeRate> rates) {
+        if (rates.isEmpty()) {
+            return 0;
+        }
+        int written = 0;
+        int[][] results = jdbcTemplate.batchUpdate(UPSERT_SQL, new ArrayList<>(rates), BATCH_SIZE, (ps, rate) -> {
+            ps.setString(1, rate.getCurrency().name());
+            ps.setDate(2, Date.valueOf(rate.getEffectiveAt()));
+            ps.setBigDecimal(3, rate.getRateToUah());
+        });
+        for (int[] batch : results) {
+            for (int count : batch) {
+                // Драйвер може повернути SUCCESS_NO_INFO (-2) замість кількості рядків
+                written += count < 0 ? 1 : count;
+            }
+        }
+        return written;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.hm1.dao;
+
+import com.example.hm1.entity.ExchangeRate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ExchangeRateRepository extends JpaRepository<ExchangeRate, Long>, ExchangeRateBulkRepository {
+
+    @Query("SELECT r FROM ExchangeRate r WHERE r.effectiveAt >= :since ORDER BY r.effectiveAt")
+    List<ExchangeRate> findHistorySince(@Param("since") LocalDate since);
+
+    /** Останній курс, що діяв на дату since - з нього починається ряд, якщо в межах вікна запису немає. */
+    @Query("SELECT r FROM ExchangeRate r WHERE r.effectiveAt = " +
+           "(SELECT MAX(p.effectiveAt) FROM ExchangeRate p WHERE p.currency = r.currency AND p.effectiveAt < :since)")
+    List<ExchangeRate> findLatestBefore(@Param("since") LocalDate since);
+}
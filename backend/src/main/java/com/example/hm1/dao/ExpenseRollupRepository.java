@@ -0,0 +1,93 @@
+package com.example.hm1.dao;
+
+import com.example.hm1.entity.ExpenseRollup;
+import com.example.hm1.entity.ExpenseRollupId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ExpenseRollupRepository extends JpaRepository<ExpenseRollup, ExpenseRollupId> {
+
+    /**
+     * Додає amount і count до рядка (клієнт, рахунок, місяць, категорія), створюючи його за потреби.
+     * Для скасування витрати amount і count від'ємні. Один рядковий лок, без SELECT перед UPDATE.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO expense_rollups (customer_id, account_id, month_start, category, total, tx_count) " +
+            "VALUES (:customerId, :accountId, :monthStart, :category, :amount, :count) " +
+            "ON CONFLICT (customer_id, account_id, month_start, category) DO UPDATE " +
+            "SET total = expense_rollups.total + EXCLUDED.total, tx_count = expense_rollups.tx_count + EXCLUDED.tx_count",
+            nativeQuery = true)
+    void addExpense(@Param("customerId") Long customerId,
+                    @Param("accountId") Long accountId,
+                    @Param("monthStart") LocalDate monthStart,
+                    @Param("category") String category,
+                    @Param("amount") BigDecimal amount,
+                    @Param("count") long count);
+
+    @Query("SELECT r.id.category, SUM(r.total) FROM ExpenseRollup r " +
+           "WHERE r.id.customerId = :customerId AND r.id.monthStart = :monthStart AND r.txCount > 0 " +
+           "GROUP BY r.id.category")
+    List<Object[]> sumByCustomerAndMonth(@Param("customerId") Long customerId, @Param("monthStart") LocalDate monthStart);
+
+    @Query("SELECT r.id.category, SUM(r.total) FROM ExpenseRollup r " +
+           "WHERE r.id.accountId = :accountId AND r.id.monthStart = :monthStart AND r.txCount > 0 " +
+           "GROUP BY r.id.category")
+    List<Object[]> sumByAccountAndMonth(@Param("accountId") Long accountId, @Param("monthStart") LocalDate monthStart);
+
+    @Query("SELECT r.id.customerId, r.id.category, SUM(r.total) FROM ExpenseRollup r " +
+           "WHERE r.id.monthStart = :monthStart AND r.txCount > 0 " +
+           "GROUP BY r.id.customerId, r.id.category ORDER BY r.id.customerId")
+    List<Object[]> sumAllCustomersByMonth(@Param("monthStart") LocalDate monthStart);
+
+    /** Keyset-сторінка id клієнтів з витратами за місяць: id > afterId за зростанням, не більше page.size. */
+    @Query("SELECT DISTINCT r.id.customerId FROM ExpenseRollup r " +
+           "WHERE r.id.monthStart = :monthStart AND r.id.customerId > :afterId AND r.txCount > 0 " +
+           "ORDER BY r.id.customerId")
+    List<Long> findCustomerIdsAfter(@Param("monthStart") LocalDate monthStart,
+                                    @Param("afterId") long afterId,
+                                    Pageable page);
+
+    /** Як sumAllCustomersByMonth, але лише для клієнтів fromId..toId включно. */
+    @Query("SELECT r.id.customerId, r.id.category, SUM(r.total) FROM ExpenseRollup r " +
+           "WHERE r.id.monthStart = :monthStart AND r.id.customerId BETWEEN :fromId AND :toId AND r.txCount > 0 " +
+           "GROUP BY r.id.customerId, r.id.category ORDER BY r.id.customerId")
+    List<Object[]> sumCustomerRangeByMonth(@Param("monthStart") LocalDate monthStart,
+                                           @Param("fromId") long fromId,
+                                           @Param("toId") long toId);
+
+    @Modifying
+    @Query(value = "DELETE FROM expense_rollups WHERE month_start = :monthStart", nativeQuery = true)
+    int deleteMonth(@Param("monthStart") LocalDate monthStart);
+
+    /**
+     * Перераховує місяць з transactions. Викликається після deleteMonth у тій самій транзакції;
+     * ON CONFLICT додає до рядків, які встигли вставити конкурентні транзакції (їх немає у знімку).
+     */
+    @Modifying
+    @Query(value = "INSERT INTO expense_rollups (customer_id, account_id, month_start, category, total, tx_count) " +
+            "SELECT t.customer_id, COALESCE(t.from_account_id, t.to_account_id, 0), :monthStart, t.category, SUM(t.amount), COUNT(*) " +
+            "FROM transactions t " +
+            "WHERE t.type IN ('WITHDRAWAL', 'PAYMENT') AND t.category IS NOT NULL " +
+            "AND t.timestamp >= :startDate AND t.timestamp < :endDate " +
+            "GROUP BY t.customer_id, COALESCE(t.from_account_id, t.to_account_id, 0), t.category " +
+            "ON CONFLICT (customer_id, account_id, month_start, category) DO UPDATE " +
+            "SET total = expense_rollups.total + EXCLUDED.total, tx_count = expense_rollups.tx_count + EXCLUDED.tx_count",
+            nativeQuery = true)
+    int rebuildMonth(@Param("monthStart") LocalDate monthStart,
+                     @Param("startDate") LocalDateTime startDate,
+                     @Param("endDate") LocalDateTime endDate);
+
+    @Query("SELECT MIN(t.timestamp) FROM Transaction t " +
+           "WHERE t.type IN ('WITHDRAWAL', 'PAYMENT') AND t.category IS NOT NULL")
+    LocalDateTime findFirstExpenseTimestamp();
+}
@@ -0,0 +1,13 @@
+package com.example.hm1.dao;
+
+import com.example.hm1.entity.RateSnapshotRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface RateSnapshotRepository extends JpaRepository<RateSnapshotRecord, Long> {
+
+    Optional<RateSnapshotRecord> findTopByOrderByIdDesc();
+}
@@ -0,0 +1,14 @@
+package com.example.hm1.dao;
+
+import java.util.function.Consumer;
+
+public interface TransactionExportRepository {
+
+    /**
+     * Проходить усі транзакції за зростанням id серверним курсором: драйвер тримає в пам'яті
+     * лише одну порцію (fetch size) рядків. Для PostgreSQL курсор працює тільки з вимкненим
+     * autocommit, тому метод треба викликати всередині транзакції (@Transactional(readOnly = true)).
+     * @return кількість переданих рядків
+     */
+    long forEachExportRow(Consumer<TransactionExportRow> consumer);
+}
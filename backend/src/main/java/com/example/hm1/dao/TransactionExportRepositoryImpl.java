@@ -0,0 +1,61 @@
+package com.example.hm1.dao;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.function.Consumer;
+
+/**
+ * JDBC-реалізація вивантаження. ORDER BY id йде по первинному ключу, тож PostgreSQL
+ * віддає перші рядки одразу, без сортування всієї таблиці.
+ */
+public class TransactionExportRepositoryImpl implements TransactionExportRepository {
+
+    static final int EXPORT_FETCH_SIZE = 1000;
+
+    private static final String EXPORT_SQL =
+            "SELECT t.id, t.timestamp, t.type, t.status, t.amount, t.category, t.description, t.customer_id, " +
+            "fa.number AS from_account, ta.number AS to_account, t.rate_snapshot_id " +
+            "FROM transactions t " +
+            "LEFT JOIN accounts fa ON fa.id = t.from_account_id " +
+            "LEFT JOIN accounts ta ON ta.id = t.to_account_id " +
+            "ORDER BY t.id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TransactionExportRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public long forEachExportRow(Consumer<TransactionExportRow> consumer) {
+        long[] emitted = {0};
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(EXPORT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(EXPORT_FETCH_SIZE);
+            return ps;
+        }, rs -> {
+            Timestamp timestamp = rs.getTimestamp("timestamp");
+            BigDecimal amount = rs.getBigDecimal("amount");
+            long rateSnapshotId = rs.getLong("rate_snapshot_id");
+            Long snapshot = rs.wasNull() ? null : rateSnapshotId;
+            consumer.accept(new TransactionExportRow(
+                    rs.getLong("id"),
+                    timestamp != null ? timestamp.toLocalDateTime() : null,
+                    rs.getString("type"),
+                    rs.getString("status"),
+                    amount,
+                    rs.getString("category"),
+                    rs.getString("description"),
+                    rs.getLong("customer_id"),
+                    rs.getString("from_account"),
+                    rs.getString("to_account"),
+                    snapshot));
+            emitted[0]++;
+        });
+        return emitted[0];
+    }
+}
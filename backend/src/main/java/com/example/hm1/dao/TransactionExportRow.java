@@ -0,0 +1,82 @@
+package com.example.hm1.dao;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Рядок вивантаження транзакцій: плоскі поля без сутностей, номери рахунків замість Account.
+ */
+public final class TransactionExportRow {
+
+    private final long id;
+    private final LocalDateTime timestamp;
+    private final String type;
+    private final String status;
+    private final BigDecimal amount;
+    private final String category;
+    private final String description;
+    private final long customerId;
+    private final String fromAccount;
+    private final String toAccount;
+    private final Long rateSnapshotId;
+
+    public TransactionExportRow(long id, LocalDateTime timestamp, String type, String status, BigDecimal amount,
+                                String category, String description, long customerId,
+                                String fromAccount, String toAccount, Long rateSnapshotId) {
+        this.id = id;
+        this.timestamp = timestamp;
+        this.type = type;
+        this.status = status;
+        this.amount = amount;
+        this.category = category;
+        this.description = description;
+        this.customerId = customerId;
+        this.fromAccount = fromAccount;
+        this.toAccount = toAccount;
+        this.rateSnapshotId = rateSnapshotId;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public long getCustomerId() {
+        return customerId;
+    }
+
+    public String getFromAccount() {
+        return fromAccount;
+    }
+
+    public String getToAccount() {
+        return toAccount;
+    }
+
+    public Long getRateSnapshotId() {
+        return rateSnapshotId;
+    }
+}
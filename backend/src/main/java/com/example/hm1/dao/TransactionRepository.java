@@ -1,71 +1,130 @@
 package com.example.hm1.dao;
 
 import com.example.hm1.entity.Transaction;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
-    
-    @Query("SELECT t FROM Transaction t JOIN FETCH t.customer WHERE t.customer.id = :customerId ORDER BY t.timestamp DESC")
-    List<Transaction> findByCustomerIdOrderByTimestampDesc(@Param("customerId") Long customerId);
-    
-    @Query("SELECT t FROM Transaction t WHERE t.customer.id = :customerId ORDER BY t.timestamp DESC")
-    Page<Transaction> findByCustomerIdOrderByTimestampDescPage(@Param("customerId") Long customerId, Pageable pageable);
-    
-    List<Transaction> findByFromAccountIdOrToAccountIdOrderByTimestampDesc(Long fromAccountId, Long toAccountId);
-    
-    @Query("SELECT t FROM Transaction t WHERE t.customer.id = :customerId AND t.timestamp BETWEEN :startDate AND :endDate ORDER BY t.timestamp DESC")
-    List<Transaction> findByCustomerIdAndDateRange(@Param("customerId") Long customerId, 
-                                                   @Param("startDate") LocalDateTime startDate, 
-                                                   @Param("endDate") LocalDateTime endDate);
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, TransactionExportRepository {
+
+    /**
+     * SELECT для TransactionView: клієнт і обидва рахунки приєднані в тому ж запиті, тож сторінка
+     * з N транзакцій - один запит, а не 1 + N догрузок customer / fromAccount / toAccount.
+     * Умови пишуться через t.customer.id / t.fromAccount.id - це стовпці transactions, тож
+     * індекси idx_transactions_* використовуються так само, як без JOIN.
+     */
+    String VIEW_SELECT = "SELECT t.id AS id, t.type AS type, t.amount AS amount, t.description AS description, " +
+            "t.timestamp AS timestamp, t.status AS status, t.category AS category, t.rateSnapshotId AS rateSnapshotId, " +
+            "c.id AS customerId, c.name AS customerName, " +
+            "fa.id AS fromAccountId, fa.number AS fromAccountNumber, ta.id AS toAccountId, ta.number AS toAccountNumber " +
+            "FROM Transaction t JOIN t.customer c LEFT JOIN t.fromAccount fa LEFT JOIN t.toAccount ta ";
+
+    @Query(VIEW_SELECT + "WHERE t.customer.id = :customerId ORDER BY t.timestamp DESC")
+    List<TransactionView> findByCustomerIdOrderByTimestampDesc(@Param("customerId") Long customerId);
     
-    @Query("SELECT t FROM Transaction t WHERE t.timestamp BETWEEN :startDate AND :endDate ORDER BY t.timestamp DESC")
-    List<Transaction> findAllByDateRange(@Param("startDate") LocalDateTime startDate, 
-                                        @Param("endDate") LocalDateTime endDate);
+    @Query(value = VIEW_SELECT + "WHERE t.customer.id = :customerId ORDER BY t.timestamp DESC",
+           countQuery = "SELECT COUNT(t) FROM Transaction t WHERE t.customer.id = :customerId")
+    Page<TransactionView> findByCustomerIdOrderByTimestampDescPage(@Param("customerId") Long customerId, Pageable pageable);
     
-    @Query("SELECT t FROM Transaction t ORDER BY t.timestamp DESC")
-    Page<Transaction> findAllOrderByTimestampDesc(Pageable pageable);
+    /**
+     * Перша keyset-сторінка транзакцій клієнта (limit з pageable, без count-запиту).
+     * Порядок збігається з індексом idx_transactions_customer_ts.
+     */
+    @Query(VIEW_SELECT + "WHERE t.customer.id = :customerId ORDER BY t.timestamp DESC, t.id DESC")
+    List<TransactionView> findFirstByCustomerIdKeyset(@Param("customerId") Long customerId, Pageable limit);
+
+    /**
+     * Наступна keyset-сторінка: рядки після (timestamp, id) в порядку timestamp DESC, id DESC.
+     * Умова timestamp <= :timestamp задає межу діапазону індексу, тож сканування починається одразу
+     * з позиції курсора, а не з початку індексу, як при OFFSET.
+     */
+    @Query(VIEW_SELECT + "WHERE t.customer.id = :customerId " +
+           "AND t.timestamp <= :timestamp AND (t.timestamp < :timestamp OR t.id < :id) " +
+           "ORDER BY t.timestamp DESC, t.id DESC")
+    List<TransactionView> findByCustomerIdBefore(@Param("customerId") Long customerId,
+                                                 @Param("timestamp") LocalDateTime timestamp,
+                                                 @Param("id") Long id,
+                                                 Pageable limit);
+
+    /**
+     * Сторінка транзакцій клієнта без count-запиту (Slice бере size + 1 рядок).
+     * Порядок збігається з індексом idx_transactions_customer_ts.
+     */
+    @Query("SELECT t.id AS id, t.type AS type, t.amount AS amount, t.description AS description, " +
+           "t.timestamp AS timestamp, t.status AS status, " +
+           "fa.number AS fromAccountNumber, ta.number AS toAccountNumber " +
+           "FROM Transaction t LEFT JOIN t.fromAccount fa LEFT JOIN t.toAccount ta " +
+           "WHERE t.customer.id = :customerId ORDER BY t.timestamp DESC, t.id DESC")
+    Slice<CustomerTransactionView> findCustomerTransactionViews(@Param("customerId") Long customerId, Pageable pageable);
 
-    @Query("SELECT t FROM Transaction t ORDER BY t.timestamp DESC")
-    List<Transaction> findAllOrderByTimestampDesc();
+    /** Списання з рахунків клієнта: кількість, сума і остання дата по кожному рахунку. */
+    @Query("SELECT a.id AS accountId, COUNT(t) AS transactionCount, SUM(t.amount) AS total, " +
+           "MAX(t.timestamp) AS lastActivity " +
+           "FROM Transaction t JOIN t.fromAccount a WHERE a.customer.id = :customerId GROUP BY a.id")
+    List<AccountActivityView> sumOutgoingByCustomerAccounts(@Param("customerId") Long customerId);
+
+    /** Зарахування на рахунки клієнта, зокрема перекази від інших клієнтів. */
+    @Query("SELECT a.id AS accountId, COUNT(t) AS transactionCount, SUM(t.amount) AS total, " +
+           "MAX(t.timestamp) AS lastActivity " +
+           "FROM Transaction t JOIN t.toAccount a WHERE a.customer.id = :customerId GROUP BY a.id")
+    List<AccountActivityView> sumIncomingByCustomerAccounts(@Param("customerId") Long customerId);
+
+    /** Транзакція з рядковим локом (SELECT ... FOR UPDATE) для змін, що оновлюють expense_rollups. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "5000"))
+    @Query("SELECT t FROM Transaction t WHERE t.id = :id")
+    Optional<Transaction> findByIdForUpdate(@Param("id") Long id);
+
+    @Query(VIEW_SELECT + "WHERE t.id = :id")
+    Optional<TransactionView> findViewById(@Param("id") Long id);
+
+    @Query(VIEW_SELECT + "WHERE t.fromAccount.id = :fromAccountId OR t.toAccount.id = :toAccountId ORDER BY t.timestamp DESC")
+    List<TransactionView> findByFromAccountIdOrToAccountIdOrderByTimestampDesc(@Param("fromAccountId") Long fromAccountId,
+                                                                               @Param("toAccountId") Long toAccountId);
     
-    List<Transaction> findByTypeOrderByTimestampDesc(Transaction.TransactionType type);
+    @Query(VIEW_SELECT + "WHERE t.customer.id = :customerId AND t.timestamp BETWEEN :startDate AND :endDate ORDER BY t.timestamp DESC")
+    List<TransactionView> findByCustomerIdAndDateRange(@Param("customerId") Long customerId, 
+                                                       @Param("startDate") LocalDateTime startDate, 
+                                                       @Param("endDate") LocalDateTime endDate);
     
-    List<Transaction> findByStatusOrderByTimestampDesc(Transaction.TransactionStatus status);
+    @Query(VIEW_SELECT + "WHERE t.timestamp BETWEEN :startDate AND :endDate ORDER BY t.timestamp DESC")
+    List<TransactionView> findAllByDateRange(@Param("startDate") LocalDateTime startDate, 
+                                            @Param("endDate") LocalDateTime endDate);
+    
+    @Query(value = VIEW_SELECT + "ORDER BY t.timestamp DESC",
+           countQuery = "SELECT COUNT(t) FROM Transaction t")
+    Page<TransactionView> findAllOrderByTimestampDesc(Pageable pageable);
 
-    @Query("SELECT t.category, SUM(t.amount) FROM Transaction t " +
-           "WHERE t.customer.id = :customerId " +
-           "AND t.type IN ('WITHDRAWAL', 'PAYMENT') " +
-           "AND t.category IS NOT NULL " +
-           "AND t.timestamp >= :startDate AND t.timestamp < :endDate " +
-           "GROUP BY t.category")
-    List<Object[]> getExpenseStatisticsByMonth(@Param("customerId") Long customerId,
-                                                @Param("startDate") LocalDateTime startDate,
-                                                @Param("endDate") LocalDateTime endDate);
+    @Query(VIEW_SELECT + "ORDER BY t.timestamp DESC")
+    List<TransactionView> findAllOrderByTimestampDesc();
 
-    @Query("SELECT t.category, SUM(t.amount) FROM Transaction t " +
-           "WHERE (t.fromAccount.id = :accountId OR t.toAccount.id = :accountId) " +
-           "AND t.type IN ('WITHDRAWAL', 'PAYMENT') " +
-           "AND t.category IS NOT NULL " +
-           "AND t.timestamp >= :startDate AND t.timestamp < :endDate " +
-           "GROUP BY t.category")
-    List<Object[]> getExpenseStatisticsByAccountAndMonth(@Param("accountId") Long accountId,
-                                                          @Param("startDate") LocalDateTime startDate,
-                                                          @Param("endDate") LocalDateTime endDate);
+    /** Перша keyset-сторінка всіх транзакцій; порядок збігається з індексом idx_transactions_ts. */
+    @Query(VIEW_SELECT + "ORDER BY t.timestamp DESC, t.id DESC")
+    List<TransactionView> findFirstKeyset(Pageable limit);
 
-    @Query("SELECT t.customer.id, t.category, SUM(t.amount) FROM Transaction t " +
-           "WHERE t.type IN ('WITHDRAWAL', 'PAYMENT') " +
-           "AND t.category IS NOT NULL " +
-           "AND t.timestamp >= :startDate AND t.timestamp < :endDate " +
-           "GROUP BY t.customer.id, t.category")
-    List<Object[]> getExpenseStatisticsForAllUsersByMonth(@Param("startDate") LocalDateTime startDate,
-                                                           @Param("endDate") LocalDateTime endDate);
-}
+    @Query(VIEW_SELECT +
+           "WHERE t.timestamp <= :timestamp AND (t.timestamp < :timestamp OR t.id < :id) " +
+           "ORDER BY t.timestamp DESC, t.id DESC")
+    List<TransactionView> findAllBefore(@Param("timestamp") LocalDateTime timestamp,
+                                        @Param("id") Long id,
+                                        Pageable limit);
+    
+    @Query(VIEW_SELECT + "WHERE t.type = :type ORDER BY t.timestamp DESC")
+    List<TransactionView> findByTypeOrderByTimestampDesc(@Param("type") Transaction.TransactionType type);
+    
+    @Query(VIEW_SELECT + "WHERE t.status = :status ORDER BY t.timestamp DESC")
+    List<TransactionView> findByStatusOrderByTimestampDesc(@Param("status") Transaction.TransactionStatus status);
+}
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.example.hm1.dao;
+
+import com.example.hm1.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Транзакція для читаючих ендпоінтів: клієнт і рахунки приєднані в тому ж запиті
+ * (TransactionRepository.VIEW_SELECT), тож серіалізація не догружає сутності по одній.
+ * from/to рахунки можуть бути null (депозит, зняття).
+ */
+public interface TransactionView {
+    Long getId();
+    Transaction.TransactionType getType();
+    BigDecimal getAmount();
+    String getDescription();
+    LocalDateTime getTimestamp();
+    Transaction.TransactionStatus getStatus();
+    Transaction.ExpenseCategory getCategory();
+    Long getRateSnapshotId();
+    Long getCustomerId();
+    String getCustomerName();
+    Long getFromAccountId();
+    String getFromAccountNumber();
+    Long getToAccountId();
+    String getToAccountNumber();
+}
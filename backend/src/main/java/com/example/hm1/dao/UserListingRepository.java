@@ -0,0 +1,14 @@
+package com.example.hm1.dao;
+
+import java.util.function.Consumer;
+
+public interface UserListingRepository {
+
+    /**
+     * Keyset-сторінка: до limit користувачів з id > afterId за зростанням id, разом з ролями
+     * та клієнтом, одним запитом. Кожен користувач передається в consumer, щойно прочитані
+     * всі його рядки, тож сторінку можна писати у відповідь без проміжного списку.
+     * @return кількість переданих користувачів
+     */
+    int forEachUserAfter(long afterId, int limit, Consumer<UserListingRow> consumer);
+}
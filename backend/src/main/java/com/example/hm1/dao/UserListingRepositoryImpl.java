@@ -0,0 +1,82 @@
+package com.example.hm1.dao;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * JDBC-реалізація адмінського списку користувачів. Сторінка id вибирається підзапитом
+ * по первинному ключу (WHERE id > ? ORDER BY id LIMIT ?), тож вартість не залежить від
+ * номера сторінки; ролі та клієнт приєднуються лише до цих id. Користувач з кількома
+ * ролями дає кілька сусідніх рядків, які збираються в один UserListingRow.
+ */
+public class UserListingRepositoryImpl implements UserListingRepository {
+
+    private static final String PAGE_SQL =
+            "SELECT u.id, u.username, u.enabled, r.name AS role_name, " +
+            "c.id AS customer_id, c.name AS customer_name, c.email AS customer_email " +
+            "FROM (SELECT id, username, enabled FROM users WHERE id > ? ORDER BY id LIMIT ?) u " +
+            "LEFT JOIN users_roles ur ON ur.user_id = u.id " +
+            "LEFT JOIN roles r ON r.id = ur.role_id " +
+            "LEFT JOIN customers c ON c.user_id = u.id " +
+            "ORDER BY u.id, r.name";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserListingRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int forEachUserAfter(long afterId, int limit, Consumer<UserListingRow> consumer) {
+        RowCollector collector = new RowCollector(consumer);
+        jdbcTemplate.query(PAGE_SQL, rs -> {
+            long id = rs.getLong("id");
+            if (collector.currentId == null || collector.currentId != id) {
+                collector.flush();
+                collector.currentId = id;
+                collector.username = rs.getString("username");
+                collector.enabled = rs.getBoolean("enabled");
+                long customerId = rs.getLong("customer_id");
+                collector.customerId = rs.wasNull() ? null : customerId;
+                collector.customerName = rs.getString("customer_name");
+                collector.customerEmail = rs.getString("customer_email");
+            }
+            String role = rs.getString("role_name");
+            if (role != null && !collector.roles.contains(role)) {
+                collector.roles.add(role);
+            }
+        }, afterId, limit);
+        collector.flush();
+        return collector.emitted;
+    }
+
+    private static final class RowCollector {
+        private final Consumer<UserListingRow> consumer;
+        private Long currentId;
+        private String username;
+        private boolean enabled;
+        private List<String> roles = new ArrayList<>();
+        private Long customerId;
+        private String customerName;
+        private String customerEmail;
+        private int emitted;
+
+        private RowCollector(Consumer<UserListingRow> consumer) {
+            this.consumer = consumer;
+        }
+
+        private void flush() {
+            if (currentId == null) {
+                return;
+            }
+            consumer.accept(new UserListingRow(currentId, username, enabled, List.copyOf(roles),
+                    customerId, customerName, customerEmail));
+            emitted++;
+            currentId = null;
+            roles = new ArrayList<>();
+        }
+    }
+}
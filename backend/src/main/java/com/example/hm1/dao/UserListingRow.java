@@ -0,0 +1,56 @@
+package com.example.hm1.dao;
+
+import java.util.List;
+
+/**
+ * Користувач для адмінського списку: ролі та клієнт без завантаження сутностей.
+ */
+public final class UserListingRow {
+
+    private final long id;
+    private final String username;
+    private final boolean enabled;
+    private final List<String> roles;
+    private final Long customerId;
+    private final String customerName;
+    private final String customerEmail;
+
+    public UserListingRow(long id, String username, boolean enabled, List<String> roles,
+                          Long customerId, String customerName, String customerEmail) {
+        this.id = id;
+        this.username = username;
+        this.enabled = enabled;
+        this.roles = roles;
+        this.customerId = customerId;
+        this.customerName = customerName;
+        this.customerEmail = customerEmail;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public List<String> getRoles() {
+        return roles;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public String getCustomerEmail() {
+        return customerEmail;
+    }
+}
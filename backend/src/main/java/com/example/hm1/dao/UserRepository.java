@@ -2,12 +2,21 @@ package com.example.hm1.dao;
 
 import com.example.hm1.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserListingRepository {
     Optional<User> findByUsername(String username);
     boolean existsByUsername(String username);
+
+    /** Вимкнені користувачі та ті, чиї токени відкликані після since. */
+    @Query("SELECT u.username AS username, u.enabled AS enabled, u.tokensRevokedAt AS tokensRevokedAt " +
+           "FROM User u WHERE u.enabled = false OR u.tokensRevokedAt > :since")
+    List<UserRevocationView> findRevocations(@Param("since") LocalDateTime since);
 }
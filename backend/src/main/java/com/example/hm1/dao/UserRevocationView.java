@@ -0,0 +1,13 @@
+package com.example.hm1.dao;
+
+import java.time.LocalDateTime;
+
+/**
+ * Стан користувача, потрібний для перевірки JWT без завантаження User з ролями.
+ */
+public interface UserRevocationView {
+    String getUsername();
+    boolean isEnabled();
+    /** Коли востаннє змінювались ролі/доступ; null - ніколи. */
+    LocalDateTime getTokensRevokedAt();
+}
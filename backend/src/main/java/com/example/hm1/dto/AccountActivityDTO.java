@@ -0,0 +1,52 @@
+package com.example.hm1.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Активність рахунку: кількість транзакцій, суми списань і зарахувань, дата останньої операції.
+ */
+public class AccountActivityDTO {
+
+    public static final AccountActivityDTO EMPTY =
+            new AccountActivityDTO(0, BigDecimal.ZERO, BigDecimal.ZERO, null);
+
+    private final long transactionCount;
+    private final BigDecimal outgoingTotal;
+    private final BigDecimal incomingTotal;
+    private final LocalDateTime lastActivity;
+
+    public AccountActivityDTO(long transactionCount, BigDecimal outgoingTotal,
+                              BigDecimal incomingTotal, LocalDateTime lastActivity) {
+        this.transactionCount = transactionCount;
+        this.outgoingTotal = outgoingTotal;
+        this.incomingTotal = incomingTotal;
+        this.lastActivity = lastActivity;
+    }
+
+    /** Об'єднує агрегати списань і зарахувань одного рахунку. */
+    public AccountActivityDTO plus(AccountActivityDTO other) {
+        LocalDateTime last = lastActivity;
+        if (last == null || (other.lastActivity != null && other.lastActivity.isAfter(last))) {
+            last = other.lastActivity;
+        }
+        return new AccountActivityDTO(transactionCount + other.transactionCount,
+                outgoingTotal.add(other.outgoingTotal), incomingTotal.add(other.incomingTotal), last);
+    }
+
+    public long getTransactionCount() {
+        return transactionCount;
+    }
+
+    public BigDecimal getOutgoingTotal() {
+        return outgoingTotal;
+    }
+
+    public BigDecimal getIncomingTotal() {
+        return incomingTotal;
+    }
+
+    public LocalDateTime getLastActivity() {
+        return lastActivity;
+    }
+}
@@ -2,6 +2,7 @@ package com.example.hm1.dto;
 
 import com.example.hm1.entity.Account;
 import com.example.hm1.entity.Currency;
+import com.example.hm1.entity.Money;
 import com.fasterxml.jackson.annotation.JsonFormat;
 
 import java.time.LocalDateTime;
@@ -11,7 +12,7 @@ public class AccountResponseDTO {
     private Long id;
     private String number;
     private Currency currency;
-    private Double balance;
+    private Money balance;
     private Long customerId;
     private String customerName;
 
@@ -24,7 +25,7 @@ public class AccountResponseDTO {
     public AccountResponseDTO(Long id,
                               String number,
                               Currency currency,
-                              Double balance,
+                              Money balance,
                               Long customerId,
                               String customerName,
                               LocalDateTime createdDate) {
@@ -68,7 +69,7 @@ public class AccountResponseDTO {
         return currency;
     }
 
-    public Double getBalance() {
+    public Money getBalance() {
         return balance;
     }
 
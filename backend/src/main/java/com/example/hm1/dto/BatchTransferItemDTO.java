@@ -0,0 +1,63 @@
+package com.example.hm1.dto;
+
+import jakarta.validation.constraints.*;
+import java.math.BigDecimal;
+
+public class BatchTransferItemDTO {
+
+    @NotBlank(message = "Номер рахунку відправника обов'язковий")
+    private String fromAccountNumber;
+
+    @NotBlank(message = "Номер рахунку отримувача обов'язковий")
+    private String toAccountNumber;
+
+    // Сума у валюті рахунку відправника, як і в одиночному переказі
+    @NotNull(message = "Сума обов'язкова")
+    @DecimalMin(value = "0.01", message = "Сума має бути більше 0")
+    @Digits(integer = 15, fraction = 2, message = "Сума має бути числом з максимум 2 знаками після коми")
+    private BigDecimal amount;
+
+    @Size(max = 200, message = "Опис не довше 200 символів")
+    private String description;
+
+    public BatchTransferItemDTO() {
+    }
+
+    public BatchTransferItemDTO(String fromAccountNumber, String toAccountNumber, BigDecimal amount) {
+        this.fromAccountNumber = fromAccountNumber;
+        this.toAccountNumber = toAccountNumber;
+        this.amount = amount;
+    }
+
+    public String getFromAccountNumber() {
+        return fromAccountNumber;
+    }
+
+    public void setFromAccountNumber(String fromAccountNumber) {
+        this.fromAccountNumber = fromAccountNumber;
+    }
+
+    public String getToAccountNumber() {
+        return toAccountNumber;
+    }
+
+    public void setToAccountNumber(String toAccountNumber) {
+        this.toAccountNumber = toAccountNumber;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+}
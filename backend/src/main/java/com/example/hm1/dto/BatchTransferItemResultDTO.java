@@ -0,0 +1,98 @@
+package com.example.hm1.dto;
+
+import com.example.hm1.entity.Money;
+
+public class BatchTransferItemResultDTO {
+
+    public enum Status {
+        SUCCESS, FAILED
+    }
+
+    private int index;
+    private String fromAccountNumber;
+    private String toAccountNumber;
+    private Status status;
+    private String message;
+    private Money debited;
+    private Money credited;
+
+    public BatchTransferItemResultDTO() {
+    }
+
+    public static BatchTransferItemResultDTO success(int index, BatchTransferItemDTO item, Money debited, Money credited) {
+        BatchTransferItemResultDTO result = of(index, item, Status.SUCCESS, null);
+        result.debited = debited;
+        result.credited = credited;
+        return result;
+    }
+
+    public static BatchTransferItemResultDTO failed(int index, BatchTransferItemDTO item, String message) {
+        return of(index, item, Status.FAILED, message);
+    }
+
+    private static BatchTransferItemResultDTO of(int index, BatchTransferItemDTO item, Status status, String message) {
+        BatchTransferItemResultDTO result = new BatchTransferItemResultDTO();
+        result.index = index;
+        result.fromAccountNumber = item.getFromAccountNumber();
+        result.toAccountNumber = item.getToAccountNumber();
+        result.status = status;
+        result.message = message;
+        return result;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getFromAccountNumber() {
+        return fromAccountNumber;
+    }
+
+    public void setFromAccountNumber(String fromAccountNumber) {
+        this.fromAccountNumber = fromAccountNumber;
+    }
+
+    public String getToAccountNumber() {
+        return toAccountNumber;
+    }
+
+    public void setToAccountNumber(String toAccountNumber) {
+        this.toAccountNumber = toAccountNumber;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Money getDebited() {
+        return debited;
+    }
+
+    public void setDebited(Money debited) {
+        this.debited = debited;
+    }
+
+    public Money getCredited() {
+        return credited;
+    }
+
+    public void setCredited(Money credited) {
+        this.credited = credited;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.hm1.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class BatchTransferRequestDTO {
+
+    public static final int MAX_ITEMS = 10_000;
+
+    @NotEmpty(message = "Пакет переказів порожній")
+    @Size(max = MAX_ITEMS, message = "Не більше " + MAX_ITEMS + " переказів в одному пакеті")
+    private List<@Valid BatchTransferItemDTO> items;
+
+    public BatchTransferRequestDTO() {
+    }
+
+    public BatchTransferRequestDTO(List<BatchTransferItemDTO> items) {
+        this.items = items;
+    }
+
+    public List<BatchTransferItemDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<BatchTransferItemDTO> items) {
+        this.items = items;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.hm1.dto;
+
+import java.util.List;
+
+public class BatchTransferResultDTO {
+
+    private int total;
+    private int succeeded;
+    private int failed;
+    private Long rateSnapshotId;
+    private long durationMillis;
+    private double itemsPerSecond;
+    private List<BatchTransferItemResultDTO> items;
+
+    public BatchTransferResultDTO() {
+    }
+
+    public BatchTransferResultDTO(List<BatchTransferItemResultDTO> items, Long rateSnapshotId, long durationNanos) {
+        this.items = items;
+        this.total = items.size();
+        for (BatchTransferItemResultDTO item : items) {
+            if (item.getStatus() == BatchTransferItemResultDTO.Status.SUCCESS) {
+                succeeded++;
+            }
+        }
+        this.failed = total - succeeded;
+        this.rateSnapshotId = rateSnapshotId;
+        this.durationMillis = durationNanos / 1_000_000;
+        this.itemsPerSecond = durationNanos > 0 ? total * 1_000_000_000.0 / durationNanos : 0;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public void setSucceeded(int succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public Long getRateSnapshotId() {
+        return rateSnapshotId;
+    }
+
+    public void setRateSnapshotId(Long rateSnapshotId) {
+        this.rateSnapshotId = rateSnapshotId;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    public double getItemsPerSecond() {
+        return itemsPerSecond;
+    }
+
+    public void setItemsPerSecond(double itemsPerSecond) {
+        this.itemsPerSecond = itemsPerSecond;
+    }
+
+    public List<BatchTransferItemResultDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<BatchTransferItemResultDTO> items) {
+        this.items = items;
+    }
+}
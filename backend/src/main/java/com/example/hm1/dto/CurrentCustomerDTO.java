@@ -0,0 +1,83 @@
+package com.example.hm1.dto;
+
+import com.example.hm1.entity.Currency;
+import com.example.hm1.entity.Money;
+
+import java.util.List;
+
+/**
+ * Відповідь GET /api/customers/me: дані клієнта, назви роботодавців і короткі дані рахунків.
+ */
+public class CurrentCustomerDTO {
+
+    private final Long id;
+    private final String name;
+    private final String email;
+    private final Integer age;
+    private final List<String> employers;
+    private final List<AccountSummary> accounts;
+
+    public CurrentCustomerDTO(Long id, String name, String email, Integer age,
+                              List<String> employers, List<AccountSummary> accounts) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.age = age;
+        this.employers = employers;
+        this.accounts = accounts;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public Integer getAge() {
+        return age;
+    }
+
+    public List<String> getEmployers() {
+        return employers;
+    }
+
+    public List<AccountSummary> getAccounts() {
+        return accounts;
+    }
+
+    public static class AccountSummary {
+        private final Long id;
+        private final String number;
+        private final Currency currency;
+        private final Money balance;
+
+        public AccountSummary(Long id, String number, Currency currency, Money balance) {
+            this.id = id;
+            this.number = number;
+            this.currency = currency;
+            this.balance = balance;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getNumber() {
+            return number;
+        }
+
+        public Currency getCurrency() {
+            return currency;
+        }
+
+        public Money getBalance() {
+            return balance;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.hm1.dto;
+
+import com.example.hm1.entity.Customer;
+import com.example.hm1.entity.Employer;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Відповідь GET/PUT /api/customers/{id} і GET /api/customers. Будується в сервісі з плану вибірки
+ * CustomerRepo (клієнт з роботодавцями + рахунки), тож Jackson не торкається лінивих зв'язків.
+ */
+public class CustomerResponseDTO {
+
+    private final Long id;
+    private final String name;
+    private final String email;
+    private final Integer age;
+    private final List<EmployerSummary> employers;
+    private final List<AccountResponseDTO> accounts;
+
+    public CustomerResponseDTO(Long id, String name, String email, Integer age,
+                               List<EmployerSummary> employers, List<AccountResponseDTO> accounts) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.age = age;
+        this.employers = employers;
+        this.accounts = accounts;
+    }
+
+    public static CustomerResponseDTO from(Customer customer) {
+        List<EmployerSummary> employers = customer.getEmployers() == null
+                ? List.of()
+                : customer.getEmployers().stream()
+                    .sorted(Comparator.comparing(Employer::getId, Comparator.nullsLast(Long::compareTo)))
+                    .map(employer -> new EmployerSummary(employer.getId(), employer.getName(), employer.getAddress()))
+                    .collect(Collectors.toList());
+        List<AccountResponseDTO> accounts = customer.getAccounts() == null
+                ? List.of()
+                : customer.getAccounts().stream()
+                    .map(AccountResponseDTO::from)
+                    .collect(Collectors.toList());
+        return new CustomerResponseDTO(
+                customer.getId(),
+                customer.getName(),
+                customer.getEmail(),
+                customer.getAge(),
+                employers,
+                accounts
+        );
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public Integer getAge() {
+        return age;
+    }
+
+    public List<EmployerSummary> getEmployers() {
+        return employers;
+    }
+
+    public List<AccountResponseDTO> getAccounts() {
+        return accounts;
+    }
+
+    public static class EmployerSummary {
+        private final Long id;
+        private final String name;
+        private final String address;
+
+        public EmployerSummary(Long id, String name, String address) {
+            this.id = id;
+            this.name = name;
+            this.address = address;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getAddress() {
+            return address;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.hm1.dto;
+
+import com.example.hm1.entity.Currency;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Один рядок масового імпорту курсів: з дати date одиниця currency коштує rate UAH.
+ */
+public class ExchangeRateImportDTO {
+    private Currency currency;
+    private LocalDate date;
+    private BigDecimal rate;
+
+    public ExchangeRateImportDTO() {
+    }
+
+    public ExchangeRateImportDTO(Currency currency, LocalDate date, BigDecimal rate) {
+        this.currency = currency;
+        this.date = date;
+        this.rate = rate;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(Currency currency) {
+        this.currency = currency;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public BigDecimal getRate() {
+        return rate;
+    }
+
+    public void setRate(BigDecimal rate) {
+        this.rate = rate;
+    }
+}
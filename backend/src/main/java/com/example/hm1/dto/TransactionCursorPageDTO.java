@@ -0,0 +1,34 @@
+package com.example.hm1.dto;
+
+import com.example.hm1.dao.TransactionView;
+
+import java.util.List;
+
+/**
+ * Keyset-сторінка транзакцій без загальної кількості: nextCursor передається параметром cursor
+ * для наступної сторінки, null - сторінка остання.
+ */
+public class TransactionCursorPageDTO {
+
+    private final List<TransactionView> content;
+    private final String nextCursor;
+    private final boolean hasMore;
+
+    public TransactionCursorPageDTO(List<TransactionView> content, String nextCursor, boolean hasMore) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    public List<TransactionView> getContent() {
+        return content;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+}
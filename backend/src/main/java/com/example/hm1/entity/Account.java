@@ -1,15 +1,21 @@
 package com.example.hm1.entity;
 
+import com.example.hm1.service.stats.EntityCountListener;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import org.hibernate.annotations.CreationTimestamp;
@@ -19,11 +25,16 @@ import java.util.Objects;
 import java.util.UUID;
 
 @Entity
-@Table(name = "accounts")
+@Table(name = "accounts", indexes = {
+        // Рахунки клієнта: деталі користувача, агрегати sum*ByCustomerAccounts, список рахунків
+        @Index(name = "idx_accounts_customer_id", columnList = "customer_id")
+})
+@EntityListeners(EntityCountListener.class)
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Account {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "accounts_id_generator")
+    @SequenceGenerator(name = "accounts_id_generator", sequenceName = "accounts_id_seq", allocationSize = AbstractEntity.ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false, unique = true, length = 50)
@@ -32,8 +43,15 @@ public class Account {
     @Enumerated(EnumType.STRING)
     private Currency currency;
 
-    @Column(nullable = false)
-    private Double balance = 0.0;
+    // Баланс у мінімальних одиницях валюти рахунку (див. Money), у БД - NUMERIC(19,2)
+    @Convert(converter = MinorUnitsConverter.class)
+    @Column(nullable = false, precision = 19, scale = 2)
+    private long balance;
+
+    // Optimistic locking: паралельне оновлення того ж рахунку дасть OptimisticLockException
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
 
     @JsonBackReference
     @ManyToOne
@@ -48,15 +66,17 @@ public class Account {
         this.currency = currency;
         this.customer = customer;
         this.number = UUID.randomUUID().toString();
-        this.balance = 0.0;
+        this.balance = 0L;
     }
 
-    public Account(Long id, String number, Currency currency, Double balance, Customer customer) {
+    public Account(Long id, String number, Currency currency, Money balance, Customer customer) {
         this.id = id;
         this.number = number;
         this.currency = currency;
-        this.balance = balance;
         this.customer = customer;
+        if (balance != null) {
+            setBalance(balance);
+        }
     }
 
     public Account() {
@@ -90,7 +110,7 @@ public class Account {
                "id=" + id +
                ", number='" + number + '\'' +
                ", currency=" + currency +
-               ", balance=" + balance +
+               ", balance=" + Money.toDecimal(balance) +
                ", customer=" + (customer != null ? customer.getName() : "null") +
                '}';
     }
@@ -107,8 +127,24 @@ public class Account {
         return this.currency;
     }
 
-    public Double getBalance() {
-        return this.balance;
+    public Money getBalance() {
+        return Money.ofMinor(this.balance, this.currency);
+    }
+
+    /** Чи вистачає коштів для списання amount (без створення проміжних об'єктів). */
+    public boolean hasFunds(Money amount) {
+        requireAccountCurrency(amount);
+        return this.balance >= amount.getMinorUnits();
+    }
+
+    public void credit(Money amount) {
+        requireAccountCurrency(amount);
+        this.balance = Math.addExact(this.balance, amount.getMinorUnits());
+    }
+
+    public void debit(Money amount) {
+        requireAccountCurrency(amount);
+        this.balance = Math.subtractExact(this.balance, amount.getMinorUnits());
     }
 
     public void setId(Long id) {
@@ -123,14 +159,33 @@ public class Account {
         this.currency = currency;
     }
 
-    public void setBalance(Double balance) {
-        this.balance = balance;
+    /** Якщо валюта рахунку ще не задана, береться валюта суми. */
+    public void setBalance(Money balance) {
+        if (this.currency == null) {
+            this.currency = balance.getCurrency();
+        }
+        requireAccountCurrency(balance);
+        this.balance = balance.getMinorUnits();
+    }
+
+    private void requireAccountCurrency(Money amount) {
+        if (amount.getCurrency() != this.currency) {
+            throw new IllegalArgumentException("Account " + number + " is in " + currency + ", got " + amount.getCurrency());
+        }
     }
 
     public void setCustomer(Customer customer) {
         this.customer = customer;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public LocalDateTime getCreatedDate() {
         return createdDate;
     }
@@ -143,7 +198,7 @@ public class Account {
         private Long id;
         private String number;
         private Currency currency;
-        private Double balance;
+        private Money balance;
         private Customer customer;
 
         AccountBuilder() {
@@ -164,7 +219,7 @@ public class Account {
             return this;
         }
 
-        public AccountBuilder balance(Double balance) {
+        public AccountBuilder balance(Money balance) {
             this.balance = balance;
             return this;
         }
@@ -22,7 +22,8 @@ public class ChatMessage {
     }
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "chat_messages_id_generator")
+    @SequenceGenerator(name = "chat_messages_id_generator", sequenceName = "chat_messages_id_seq", allocationSize = AbstractEntity.ID_ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
@@ -12,7 +12,8 @@ import java.util.Set;
 public class ChatThread {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "chat_threads_id_generator")
+    @SequenceGenerator(name = "chat_threads_id_generator", sequenceName = "chat_threads_id_seq", allocationSize = AbstractEntity.ID_ALLOCATION_SIZE)
     private Long id;
 
     @ManyToMany
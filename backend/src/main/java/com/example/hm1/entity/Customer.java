@@ -1,8 +1,10 @@
 package com.example.hm1.entity;
 
+import com.example.hm1.service.stats.EntityCountListener;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -12,6 +14,7 @@ import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
@@ -25,11 +28,13 @@ import java.util.Set;
 
 @Entity
 @Table(name = "customers")
+@EntityListeners(EntityCountListener.class)
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Customer extends AbstractEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customers_id_generator")
+    @SequenceGenerator(name = "customers_id_generator", sequenceName = "customers_id_seq", allocationSize = AbstractEntity.ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false, length = 100)
@@ -115,6 +120,7 @@ public class Customer extends AbstractEntity {
     }
 
     @ManyToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE}, fetch = FetchType.EAGER)
+    @JsonIgnoreProperties({"customers", "hibernateLazyInitializer", "handler"})
     @JoinTable(
             name = "customer_employer",
             joinColumns = @JoinColumn(name = "customer_id"),
@@ -2,7 +2,11 @@ package com.example.hm1.entity;
 
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
 import jakarta.persistence.ManyToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 
 import java.util.HashSet;
@@ -11,6 +15,11 @@ import java.util.Set;
 @Entity
 @Table(name = "employers")
 public class Employer extends AbstractEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "employers_id_generator")
+    @SequenceGenerator(name = "employers_id_generator", sequenceName = "employers_id_seq", allocationSize = AbstractEntity.ID_ALLOCATION_SIZE)
+    private Long id;
+
     private String name;
     private String address;
 
@@ -20,6 +29,14 @@ public class Employer extends AbstractEntity {
     public Employer() {
     }
 
+    public Long getId() {
+        return this.id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     public String getName() {
         return this.name;
     }
@@ -44,8 +61,10 @@ public class Employer extends AbstractEntity {
         this.customers = customers;
     }
 
+    // customers - лінива колекція: toString/equals/hashCode її не чіпають, інакше додавання роботодавця
+    // в Set<Employer> клієнта догружало б усіх його клієнтів окремим запитом
     public String toString() {
-        return "Employer(name=" + this.getName() + ", address=" + this.getAddress() + ", customers=" + this.getCustomers() + ")";
+        return "Employer(name=" + this.getName() + ", address=" + this.getAddress() + ")";
     }
 
     public boolean equals(final Object o) {
@@ -60,9 +79,6 @@ public class Employer extends AbstractEntity {
         final Object this$address = this.getAddress();
         final Object other$address = other.getAddress();
         if (this$address == null ? other$address != null : !this$address.equals(other$address)) return false;
-        final Object this$customers = this.getCustomers();
-        final Object other$customers = other.getCustomers();
-        if (this$customers == null ? other$customers != null : !this$customers.equals(other$customers)) return false;
         return true;
     }
 
@@ -77,8 +93,6 @@ public class Employer extends AbstractEntity {
         result = result * PRIME + ($name == null ? 43 : $name.hashCode());
         final Object $address = this.getAddress();
         result = result * PRIME + ($address == null ? 43 : $address.hashCode());
-        final Object $customers = this.getCustomers();
-        result = result * PRIME + ($customers == null ? 43 : $customers.hashCode());
         return result;
     }
 }
\ No newline at end of file
@@ -0,0 +1,106 @@
+package com.example.hm1.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Курс валюти до UAH, що діє з дати effectiveAt і до наступного запису по тій самій валюті.
+ * Один запис на валюту за день: (currency, effective_at) унікальні.
+ */
+@Entity
+@Table(name = "exchange_rates",
+        uniqueConstraints = @UniqueConstraint(name = "uk_exchange_rates_currency_effective_at",
+                columnNames = {"currency", "effective_at"}))
+public class ExchangeRate {
+
+    public static final int RATE_SCALE = 6;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Currency currency;
+
+    @Column(name = "effective_at", nullable = false)
+    private LocalDate effectiveAt;
+
+    // Скільки UAH коштує одиниця валюти
+    @Column(name = "rate_to_uah", nullable = false, precision = 19, scale = RATE_SCALE)
+    private BigDecimal rateToUah;
+
+    public ExchangeRate() {
+    }
+
+    public ExchangeRate(Currency currency, LocalDate effectiveAt, BigDecimal rateToUah) {
+        this.currency = currency;
+        this.effectiveAt = effectiveAt;
+        this.rateToUah = rateToUah;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(Currency currency) {
+        this.currency = currency;
+    }
+
+    public LocalDate getEffectiveAt() {
+        return effectiveAt;
+    }
+
+    public void setEffectiveAt(LocalDate effectiveAt) {
+        this.effectiveAt = effectiveAt;
+    }
+
+    public BigDecimal getRateToUah() {
+        return rateToUah;
+    }
+
+    public void setRateToUah(BigDecimal rateToUah) {
+        this.rateToUah = rateToUah;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ExchangeRate that = (ExchangeRate) o;
+        return currency == that.currency && Objects.equals(effectiveAt, that.effectiveAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(currency, effectiveAt);
+    }
+
+    @Override
+    public String toString() {
+        return "ExchangeRate{" +
+                "currency=" + currency +
+                ", effectiveAt=" + effectiveAt +
+                ", rateToUah=" + rateToUah +
+                '}';
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.hm1.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.math.BigDecimal;
+
+/**
+ * Місячна сума витрат (WITHDRAWAL / PAYMENT з категорією) по клієнту, рахунку і категорії.
+ * Рядки змінюються upsert-ом у тій самій транзакції БД, що й транзакції (див. ExpenseRollupRepository),
+ * тож статистика витрат читає кілька рядків замість GROUP BY по transactions.
+ */
+@Entity
+@Table(name = "expense_rollups", indexes = {
+        @Index(name = "idx_expense_rollups_customer_month", columnList = "customer_id, month_start"),
+        @Index(name = "idx_expense_rollups_account_month", columnList = "account_id, month_start"),
+        @Index(name = "idx_expense_rollups_month_customer", columnList = "month_start, customer_id")
+})
+public class ExpenseRollup {
+
+    /** account_id для витрат без рахунку (рахунок видалено, from/to_account_id = NULL). */
+    public static final long NO_ACCOUNT = 0L;
+
+    @EmbeddedId
+    private ExpenseRollupId id;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal total;
+
+    @Column(name = "tx_count", nullable = false)
+    private long txCount;
+
+    public ExpenseRollup() {
+    }
+
+    public ExpenseRollupId getId() {
+        return id;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public long getTxCount() {
+        return txCount;
+    }
+}
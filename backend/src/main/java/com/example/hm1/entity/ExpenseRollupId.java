@@ -0,0 +1,70 @@
+package com.example.hm1.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+@Embeddable
+public class ExpenseRollupId implements Serializable {
+
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    /** Перший день місяця. */
+    @Column(name = "month_start", nullable = false)
+    private LocalDate monthStart;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Transaction.ExpenseCategory category;
+
+    public ExpenseRollupId() {
+    }
+
+    public ExpenseRollupId(Long customerId, Long accountId, LocalDate monthStart, Transaction.ExpenseCategory category) {
+        this.customerId = customerId;
+        this.accountId = accountId;
+        this.monthStart = monthStart;
+        this.category = category;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public LocalDate getMonthStart() {
+        return monthStart;
+    }
+
+    public Transaction.ExpenseCategory getCategory() {
+        return category;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ExpenseRollupId)) return false;
+        ExpenseRollupId other = (ExpenseRollupId) o;
+        return Objects.equals(customerId, other.customerId)
+                && Objects.equals(accountId, other.accountId)
+                && Objects.equals(monthStart, other.monthStart)
+                && category == other.category;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(customerId, accountId, monthStart, category);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.hm1.entity;
+
+import jakarta.persistence.CollectionTable;
+import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.MapKeyColumn;
+import jakarta.persistence.MapKeyEnumerated;
+import jakarta.persistence.Table;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Збережений набір курсів до UAH, за яким виконувались конвертації. Рядки не змінюються:
+ * кожне оновлення з новими курсами створює новий запис, а транзакції посилаються на його id.
+ */
+@Entity
+@Table(name = "rate_snapshots")
+public class RateSnapshotRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "captured_at", nullable = false, updatable = false)
+    private LocalDateTime capturedAt;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "rate_snapshot_rates", joinColumns = @JoinColumn(name = "snapshot_id"))
+    @MapKeyEnumerated(EnumType.STRING)
+    @MapKeyColumn(name = "currency", length = 10)
+    @Column(name = "rate_to_uah", nullable = false, precision = 19, scale = ExchangeRate.RATE_SCALE)
+    private Map<Currency, BigDecimal> ratesToUah = new EnumMap<>(Currency.class);
+
+    public RateSnapshotRecord() {
+    }
+
+    public RateSnapshotRecord(LocalDateTime capturedAt, Map<Currency, BigDecimal> ratesToUah) {
+        this.capturedAt = capturedAt;
+        this.ratesToUah = new EnumMap<>(ratesToUah);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDateTime getCapturedAt() {
+        return capturedAt;
+    }
+
+    public void setCapturedAt(LocalDateTime capturedAt) {
+        this.capturedAt = capturedAt;
+    }
+
+    public Map<Currency, BigDecimal> getRatesToUah() {
+        return ratesToUah;
+    }
+
+    public void setRatesToUah(Map<Currency, BigDecimal> ratesToUah) {
+        this.ratesToUah = ratesToUah;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.hm1.entity;
 
+import com.example.hm1.service.stats.EntityCountListener;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 
@@ -7,10 +8,28 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transactions")
+// Кожен запит TransactionRepository має свій індекс; план перевіряє TransactionQueryPlanTest.
+// Частковий індекс витрат (type + category) JPA не описує - його створює PartialIndexInitializer.
+@Table(name = "transactions", indexes = {
+        // Історія клієнта, keyset-сторінки клієнта і діапазон дат клієнта
+        @Index(name = "idx_transactions_customer_ts", columnList = "customer_id, timestamp DESC, id DESC"),
+        // Keyset-сторінки всіх транзакцій і діапазон дат
+        @Index(name = "idx_transactions_ts", columnList = "timestamp DESC, id DESC"),
+        // from_account_id OR to_account_id (BitmapOr) і агрегати списань/зарахувань по рахунках
+        @Index(name = "idx_transactions_from_account_ts", columnList = "from_account_id, timestamp DESC"),
+        @Index(name = "idx_transactions_to_account_ts", columnList = "to_account_id, timestamp DESC"),
+        @Index(name = "idx_transactions_type_ts", columnList = "type, timestamp DESC"),
+        @Index(name = "idx_transactions_status_ts", columnList = "status, timestamp DESC")
+})
+@EntityListeners(EntityCountListener.class)
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Transaction extends AbstractEntity {
 
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_id_generator")
+    @SequenceGenerator(name = "transactions_id_generator", sequenceName = "transactions_id_seq", allocationSize = AbstractEntity.ID_ALLOCATION_SIZE)
+    private Long id;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private TransactionType type;
@@ -47,6 +66,10 @@ public class Transaction extends AbstractEntity {
     @Column(name = "category")
     private ExpenseCategory category;
 
+    // Знімок курсів (rate_snapshots), за яким рахувалась конвертація; null - переказ без конвертації
+    @Column(name = "rate_snapshot_id")
+    private Long rateSnapshotId;
+
     public enum TransactionType {
         DEPOSIT, WITHDRAWAL, TRANSFER, PAYMENT
     }
@@ -84,6 +107,14 @@ public class Transaction extends AbstractEntity {
     }
 
     // Геттери та сеттери
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     public TransactionType getType() {
         return this.type;
     }
@@ -155,4 +186,12 @@ public class Transaction extends AbstractEntity {
     public void setCategory(ExpenseCategory category) {
         this.category = category;
     }
+
+    public Long getRateSnapshotId() {
+        return rateSnapshotId;
+    }
+
+    public void setRateSnapshotId(Long rateSnapshotId) {
+        this.rateSnapshotId = rateSnapshotId;
+    }
 }
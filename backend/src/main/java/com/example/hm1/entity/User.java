@@ -1,5 +1,6 @@
 package com.example.hm1.entity;
 
+import com.example.hm1.service.stats.EntityCountListener;
 import jakarta.persistence.*;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -8,6 +9,7 @@ import com.fasterxml.jackson.annotation.JsonManagedReference;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
@@ -15,6 +17,7 @@ import java.util.stream.Collectors;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(EntityCountListener.class)
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class User implements UserDetails {
     @Id
@@ -31,6 +34,11 @@ public class User implements UserDetails {
     @Column(nullable = false)
     private boolean enabled = true;
 
+    // JWT, видані раніше цього моменту, не довіряються ролям з токена (див. TokenRevocationRegistry)
+    @JsonIgnore
+    @Column(name = "tokens_revoked_at")
+    private LocalDateTime tokensRevokedAt;
+
     @ManyToMany(fetch = FetchType.EAGER, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     @JoinTable(
         name = "users_roles",
@@ -118,6 +126,14 @@ public class User implements UserDetails {
         this.enabled = enabled;
     }
 
+    public LocalDateTime getTokensRevokedAt() {
+        return tokensRevokedAt;
+    }
+
+    public void setTokensRevokedAt(LocalDateTime tokensRevokedAt) {
+        this.tokensRevokedAt = tokensRevokedAt;
+    }
+
     public Set<Role> getRoles() {
         return roles;
     }
@@ -172,7 +188,9 @@ public class User implements UserDetails {
         }
 
         public User build() {
-            return new User(this.username, this.password, this.enabled, this.roles);
+            User user = new User(this.username, this.password, this.enabled, this.roles);
+            user.setId(this.id);
+            return user;
         }
 
         public String toString() {
@@ -0,0 +1,46 @@
+package com.example.hm1.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+/**
+ * Підбирає вартість BCrypt під залізо: найбільшу в [min, max], за якої один хеш
+ * вкладається в цільовий час. Кожен крок вартості подвоює роботу, тому достатньо
+ * виміряти мінімальну вартість і екстраполювати.
+ */
+public final class BCryptCostCalibrator {
+
+    private static final String SAMPLE_PASSWORD = "calibration-password";
+    private static final int SAMPLES = 3;
+
+    private BCryptCostCalibrator() {
+    }
+
+    public static int calibrate(Duration targetLatency, int minStrength, int maxStrength) {
+        if (minStrength < 4 || maxStrength > 31 || minStrength > maxStrength) {
+            throw new IllegalArgumentException("Invalid BCrypt strength range: " + minStrength + ".." + maxStrength);
+        }
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(minStrength);
+        // Перший виклик - прогрів JIT, далі беремо найшвидший з кількох замірів
+        encoder.encode(SAMPLE_PASSWORD);
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long started = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - started);
+        }
+
+        long targetNanos = targetLatency.toNanos();
+        int strength = minStrength;
+        long estimatedNanos = bestNanos;
+        while (strength < maxStrength && estimatedNanos * 2 <= targetNanos) {
+            strength++;
+            estimatedNanos *= 2;
+        }
+        System.out.println("BCryptCostCalibrator: strength " + minStrength + " takes " + bestNanos / 1_000_000
+                + " ms, using strength " + strength + " (~" + estimatedNanos / 1_000_000
+                + " ms, target " + targetLatency.toMillis() + " ms)");
+        return strength;
+    }
+}
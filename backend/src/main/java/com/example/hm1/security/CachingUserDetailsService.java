@@ -0,0 +1,162 @@
+package com.example.hm1.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Primary;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Кеш над {@link CustomUserDetailsService}: LRU на security.user-cache.max-size користувачів з TTL.
+ * Запис перевіряється за версією токенів: якщо після його завантаження ролі чи доступ змінились
+ * (TokenRevocationRegistry, зокрема зміни з інших реплік), він вважається промахом.
+ * Паралельні промахи по тому ж користувачу чекають один SELECT, тож шторм логінів після деплою
+ * дає не більше одного запиту на користувача.
+ */
+@Service
+@Primary
+public class CachingUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
+
+    private final CustomUserDetailsService delegate;
+    private final TokenRevocationRegistry revocations;
+    private final int maxSize;
+    private final long ttlNanos;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expiredEvictions;
+    private final Counter revokedEvictions;
+
+    // Порядок доступу: перший запис - найдавніше використаний
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ConcurrentHashMap<String, CompletableFuture<UserSnapshot>> loading = new ConcurrentHashMap<>();
+
+    public CachingUserDetailsService(CustomUserDetailsService delegate,
+                                     TokenRevocationRegistry revocations,
+                                     UserCacheProperties properties,
+                                     MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.revocations = revocations;
+        this.maxSize = Math.max(0, properties.getMaxSize());
+        this.ttlNanos = properties.getTtl().toNanos();
+
+        this.hits = meterRegistry.counter("bank.user-cache.hits");
+        this.misses = meterRegistry.counter("bank.user-cache.misses");
+        this.sizeEvictions = meterRegistry.counter("bank.user-cache.evictions", "reason", "size");
+        this.expiredEvictions = meterRegistry.counter("bank.user-cache.evictions", "reason", "expired");
+        this.revokedEvictions = meterRegistry.counter("bank.user-cache.evictions", "reason", "revoked");
+        Gauge.builder("bank.user-cache.size", this, CachingUserDetailsService::size).register(meterRegistry);
+    }
+
+    @Override
+    public UserSnapshot loadUserByUsername(String username) throws UsernameNotFoundException {
+        UserSnapshot cached = lookup(username);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+
+        CompletableFuture<UserSnapshot> mine = new CompletableFuture<>();
+        CompletableFuture<UserSnapshot> running = loading.putIfAbsent(username, mine);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            // Момент до SELECT: зміна, закомічена під час читання, теж зробить запис недійсним
+            Instant loadStartedAt = Instant.now();
+            UserSnapshot snapshot = UserSnapshot.of(delegate.loadUserByUsername(username));
+            store(username, snapshot, loadStartedAt);
+            mine.complete(snapshot);
+            return snapshot;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(username, mine);
+        }
+    }
+
+    @Override
+    public UserSnapshot updatePassword(UserDetails user, String newPassword) {
+        UserSnapshot updated = UserSnapshot.of(delegate.updatePassword(user, newPassword));
+        evict(user.getUsername());
+        return updated;
+    }
+
+    /** Прибирає користувача з кешу на цьому інстансі (наприклад, після зміни пароля). */
+    public synchronized void evict(String username) {
+        entries.remove(username);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private synchronized UserSnapshot lookup(String username) {
+        Entry entry = entries.get(username);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.storedAtNanos >= ttlNanos) {
+            entries.remove(username);
+            expiredEvictions.increment();
+            return null;
+        }
+        if (revocations.isRevokedSince(username, entry.loadedAt)) {
+            entries.remove(username);
+            revokedEvictions.increment();
+            return null;
+        }
+        return entry.snapshot;
+    }
+
+    private synchronized void store(String username, UserSnapshot snapshot, Instant loadedAt) {
+        if (maxSize == 0) {
+            return;
+        }
+        entries.put(username, new Entry(snapshot, loadedAt, System.nanoTime()));
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxSize && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            sizeEvictions.increment();
+        }
+    }
+
+    private static UserSnapshot await(CompletableFuture<UserSnapshot> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Entry {
+        private final UserSnapshot snapshot;
+        private final Instant loadedAt;
+        private final long storedAtNanos;
+
+        private Entry(UserSnapshot snapshot, Instant loadedAt, long storedAtNanos) {
+            this.snapshot = snapshot;
+            this.loadedAt = loadedAt;
+            this.storedAtNanos = storedAtNanos;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.hm1.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -20,11 +21,16 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final SecurityProperties properties;
+    private final TokenRevocationRegistry revocations;
 
     @Autowired
-    public JwtAuthFilter(JwtService jwtService, UserDetailsService userDetailsService) {
+    public JwtAuthFilter(JwtService jwtService, UserDetailsService userDetailsService,
+                         SecurityProperties properties, TokenRevocationRegistry revocations) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.properties = properties;
+        this.revocations = revocations;
     }
 
     @Override
@@ -33,7 +39,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String username;
+        final Claims claims;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -42,24 +48,47 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         jwt = authHeader.substring(7);
         try {
-            username = jwtService.extractUsername(jwt);
+            // Один розбір токена на запит: підпис, строк дії і subject беруться з тих самих claims
+            claims = jwtService.parseAllClaims(jwt);
         } catch (Exception e) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-            if (jwtService.isTokenValid(jwt, username)) {
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
-                        null,
-                        userDetails.getAuthorities()
-                );
+        final String username = claims.getSubject();
+        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null
+                && jwtService.isTokenValid(claims, username)) {
+            UsernamePasswordAuthenticationToken authToken = authenticate(claims, username);
+            if (authToken != null) {
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
             }
         }
         filterChain.doFilter(request, response);
     }
+
+    private UsernamePasswordAuthenticationToken authenticate(Claims claims, String username) {
+        if (properties.getPrincipalSource() == PrincipalSource.TOKEN) {
+            if (revocations.isDisabled(username)) {
+                return null;
+            }
+            // Ролі з підписаного токена, якщо після його видачі вони не змінювались
+            if (!revocations.isRevoked(username, claims.getIssuedAt())) {
+                JwtPrincipal principal = jwtService.toPrincipal(claims);
+                if (principal != null) {
+                    return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+                }
+            }
+        }
+
+        UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+        if (!userDetails.isEnabled()) {
+            return null;
+        }
+        return new UsernamePasswordAuthenticationToken(
+                userDetails,
+                null,
+                userDetails.getAuthorities()
+        );
+    }
 }
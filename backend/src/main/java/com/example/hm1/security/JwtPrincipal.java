@@ -0,0 +1,45 @@
+package com.example.hm1.security;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.List;
+
+/**
+ * Користувач, відновлений з підписаних claims JWT (uid, sub, roles) без звернення до БД.
+ * authentication.getName() повертає username, як і для User з БД.
+ */
+public final class JwtPrincipal implements AuthenticatedPrincipal {
+
+    private final Long userId;
+    private final String username;
+    private final List<GrantedAuthority> authorities;
+
+    public JwtPrincipal(Long userId, String username, List<GrantedAuthority> authorities) {
+        this.userId = userId;
+        this.username = username;
+        this.authorities = List.copyOf(authorities);
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public List<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    @Override
+    public String toString() {
+        return "JwtPrincipal(userId=" + userId + ", username=" + username + ", authorities=" + authorities + ")";
+    }
+}
@@ -1,26 +1,42 @@
 package com.example.hm1.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.SignatureAlgorithm;
 
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.function.Function;
 
 @Service
 public class JwtService {
 
-    private final String secretBase64;
+    static final String USER_ID_CLAIM = "uid";
+    static final String ROLES_CLAIM = "roles";
+
     private final long expirationMillis;
+    // Ключ і парсер створюються один раз: JwtParser потокобезпечний
+    private final SecretKey signKey;
+    private final JwtParser parser;
+    private final VerifiedTokenCache verifiedTokens;
 
     public JwtService(SecurityProperties props) {
-        this.secretBase64 = props.getSecret();
         this.expirationMillis = props.getExpirationMillis();
+        this.signKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(props.getSecret()));
+        this.parser = Jwts.parser()
+                .verifyWith(signKey)
+                .build();
+        this.verifiedTokens = new VerifiedTokenCache(props.getVerifiedTokenCacheSize());
     }
 
     public String extractUsername(String token) {
@@ -33,37 +49,67 @@ public class JwtService {
     }
 
     public String generateToken(String username, String[] roles) {
+        return generateToken(null, username, roles);
+    }
+
+    /** Токен з id користувача (claim uid), з якого JwtAuthFilter може зібрати JwtPrincipal без БД. */
+    public String generateToken(Long userId, String username, String[] roles) {
         Date now = new Date();
         Date exp = new Date(now.getTime() + expirationMillis);
         return Jwts.builder()
-                .claim("roles", roles)
+                .claim(USER_ID_CLAIM, userId)
+                .claim(ROLES_CLAIM, roles)
                 .subject(username)
                 .issuedAt(now)
                 .expiration(exp)
-                .signWith(getSignKey(), SignatureAlgorithm.HS256)
+                .signWith(signKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public boolean isTokenValid(String token, String username) {
-        String sub = extractUsername(token);
-        return sub != null && sub.equals(username) && !isExpired(token);
+        return isTokenValid(parseAllClaims(token), username);
     }
 
-    private boolean isExpired(String token) {
-        Date exp = extractClaim(token, Claims::getExpiration);
-        return exp.before(new Date());
+    /** Перевірка вже розібраних claims, без повторного розбору токена. */
+    public boolean isTokenValid(Claims claims, String username) {
+        String sub = claims.getSubject();
+        return sub != null && sub.equals(username) && !isExpired(claims);
     }
 
-    private SecretKey getSignKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretBase64);
-        return Keys.hmacShaKeyFor(keyBytes);
+    /**
+     * Перевіряє підпис і строк дії та повертає claims. Повторний виклик для того самого токена
+     * береться з кешу, тому підпис перевіряється не частіше одного разу до закінчення строку дії.
+     * Невалідний токен - JwtException, як і раніше.
+     */
+    public Claims parseAllClaims(String token) {
+        long now = System.currentTimeMillis();
+        Claims claims = verifiedTokens.get(token, now);
+        if (claims == null) {
+            claims = parser.parseSignedClaims(token).getPayload();
+            verifiedTokens.put(token, claims, now);
+        }
+        return claims;
     }
 
-    private Claims parseAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSignKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    /**
+     * Principal з перевірених claims. null для токенів без uid або roles (видані до появи uid) -
+     * тоді користувач завантажується з БД.
+     */
+    public JwtPrincipal toPrincipal(Claims claims) {
+        Object userId = claims.get(USER_ID_CLAIM);
+        Object roles = claims.get(ROLES_CLAIM);
+        if (!(userId instanceof Number) || !(roles instanceof Collection<?>) || claims.getSubject() == null) {
+            return null;
+        }
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        for (Object role : (Collection<?>) roles) {
+            authorities.add(new SimpleGrantedAuthority(String.valueOf(role)));
+        }
+        return new JwtPrincipal(((Number) userId).longValue(), claims.getSubject(), authorities);
+    }
+
+    private boolean isExpired(Claims claims) {
+        Date exp = claims.getExpiration();
+        return exp.before(new Date());
     }
 }
\ No newline at end of file
@@ -0,0 +1,114 @@
+package com.example.hm1.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Виконує BCrypt на окремому обмеженому пулі замість потоків Tomcat. Одночасно хешують
+ * не більше threads потоків, ще queueCapacity запитів чекають у черзі; решта одразу
+ * отримує RejectedExecutionException (у відповіді - 429), тож сплеск логінів не забирає
+ * CPU і потоки запитів в інших ендпоінтів.
+ * upgradeEncoding повертає true для хешів з іншою вартістю - DaoAuthenticationProvider
+ * перехешовує пароль при успішному логіні.
+ */
+public class OffloadedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final int strength;
+    private final ThreadPoolExecutor executor;
+
+    private final Timer hashTimer;
+    private final Counter rejected;
+
+    public OffloadedPasswordEncoder(PasswordEncoder delegate, int strength, int threads, int queueCapacity,
+                                    MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.strength = strength;
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                task -> {
+                    Thread thread = new Thread(task, "password-hashing-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.hashTimer = meterRegistry.timer("bank.password-hashing.duration");
+        this.rejected = meterRegistry.counter("bank.password-hashing.rejected");
+        Gauge.builder("bank.password-hashing.queue", executor, e -> e.getQueue().size()).register(meterRegistry);
+        Gauge.builder("bank.password-hashing.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        int encodedStrength = strengthOf(encodedPassword);
+        // Перехешування - ще один BCrypt на логін, тому лише коли пул не має черги
+        return encodedStrength > 0 && encodedStrength != strength && executor.getQueue().isEmpty();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** Вартість з хешу виду $2a$10$...; -1, якщо це не BCrypt. */
+    static int strengthOf(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7
+                || encodedPassword.charAt(0) != '$' || encodedPassword.charAt(3) != '$' || encodedPassword.charAt(6) != '$') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private <T> T run(Callable<T> hashing) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> hashTimer.recordCallable(hashing));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new RejectedExecutionException("Password hashing queue is full", e);
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
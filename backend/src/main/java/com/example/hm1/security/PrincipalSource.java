@@ -0,0 +1,11 @@
+package com.example.hm1.security;
+
+/**
+ * Звідки JwtAuthFilter бере користувача для автентифікованого запиту.
+ */
+public enum PrincipalSource {
+    /** UserDetailsService (SELECT users + roles) на кожен запит. */
+    DATABASE,
+    /** Claims токена; у БД лише для токенів, виданих до зміни ролей користувача. */
+    TOKEN
+}
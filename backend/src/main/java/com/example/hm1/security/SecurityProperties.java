@@ -12,6 +12,10 @@ import org.springframework.stereotype.Component;
 public class SecurityProperties {
     private String secret;
     private long expirationMillis;
+    // Скільки перевірених токенів тримати в кеші JwtService; 0 - без кешу
+    private int verifiedTokenCacheSize = 10_000;
+    // token - principal з claims без БД, database - UserDetailsService на кожен запит
+    private PrincipalSource principalSource = PrincipalSource.DATABASE;
 
     public String getSecret() {
         return secret;
@@ -28,4 +32,20 @@ public class SecurityProperties {
     public void setExpirationMillis(long expirationMillis) {
         this.expirationMillis = expirationMillis;
     }
+
+    public int getVerifiedTokenCacheSize() {
+        return verifiedTokenCacheSize;
+    }
+
+    public void setVerifiedTokenCacheSize(int verifiedTokenCacheSize) {
+        this.verifiedTokenCacheSize = verifiedTokenCacheSize;
+    }
+
+    public PrincipalSource getPrincipalSource() {
+        return principalSource;
+    }
+
+    public void setPrincipalSource(PrincipalSource principalSource) {
+        this.principalSource = principalSource;
+    }
 }
\ No newline at end of file
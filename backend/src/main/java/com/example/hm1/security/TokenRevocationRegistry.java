@@ -0,0 +1,147 @@
+package com.example.hm1.security;
+
+import com.example.hm1.dao.UserRepository;
+import com.example.hm1.dao.UserRevocationView;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Вимкнені користувачі та моменти відкликання токенів (зміна ролей в AdminController).
+ * Роль з токена, виданого раніше відкликання, не довіряється - JwtAuthFilter іде в БД.
+ * Зміни на цьому інстансі застосовуються одразу, зміни з інших реплік - при періодичному
+ * перечитуванні users.tokens_revoked_at. Тримаються лише записи за останній строк дії токена.
+ */
+@Component
+public class TokenRevocationRegistry {
+
+    private final UserRepository userRepository;
+    private final long tokenTtlMillis;
+
+    // null - ще не завантажено: тоді жодному токену без БД не довіряємо
+    private volatile Snapshot snapshot;
+    // Лічильник локальних змін: перечитування, під час якого вони сталися, відкидається
+    private long localChanges;
+
+    public TokenRevocationRegistry(UserRepository userRepository, SecurityProperties properties) {
+        this.userRepository = userRepository;
+        this.tokenTtlMillis = properties.getExpirationMillis();
+    }
+
+    public boolean isDisabled(String username) {
+        Snapshot current = snapshot;
+        return current != null && current.disabled.contains(username);
+    }
+
+    /** true, якщо ролям з токена не можна довіряти і користувача треба перечитати з БД. */
+    public boolean isRevoked(String username, Date issuedAt) {
+        Snapshot current = snapshot;
+        if (current == null || issuedAt == null || current.disabled.contains(username)) {
+            return true;
+        }
+        Instant revokedAt = current.revokedAt.get(username);
+        if (revokedAt == null) {
+            return false;
+        }
+        // iat має точність до секунди: токен, виданий у ту ж секунду, що й відкликання, теж не довіряється
+        return !issuedAt.toInstant().isAfter(revokedAt.truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    /** true, якщо ролі чи доступ користувача змінювались після since (для кешу користувачів). */
+    public boolean isRevokedSince(String username, Instant since) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return false;
+        }
+        Instant revokedAt = current.revokedAt.get(username);
+        return revokedAt != null && !revokedAt.isBefore(since);
+    }
+
+    public synchronized void revokeTokens(String username, Instant revokedAt) {
+        localChanges++;
+        Snapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+        Map<String, Instant> revoked = new HashMap<>(current.revokedAt);
+        revoked.put(username, revokedAt);
+        snapshot = new Snapshot(revoked, current.disabled);
+    }
+
+    public synchronized void setEnabled(String username, boolean enabled) {
+        localChanges++;
+        Snapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+        Set<String> disabled = new HashSet<>(current.disabled);
+        if (enabled) {
+            disabled.remove(username);
+        } else {
+            disabled.add(username);
+        }
+        snapshot = new Snapshot(current.revokedAt, disabled);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${security.jwt.revocation-refresh-interval:PT1M}",
+            initialDelayString = "${security.jwt.revocation-refresh-interval:PT1M}")
+    public void refresh() {
+        long changesBefore;
+        synchronized (this) {
+            changesBefore = localChanges;
+        }
+        LocalDateTime since = LocalDateTime.now().minus(tokenTtlMillis, ChronoUnit.MILLIS);
+        List<UserRevocationView> rows;
+        try {
+            rows = userRepository.findRevocations(since);
+        } catch (Exception e) {
+            System.err.println("TokenRevocationRegistry: Failed to refresh: " + e.getMessage());
+            return;
+        }
+
+        Map<String, Instant> revoked = new HashMap<>();
+        Set<String> disabled = new HashSet<>();
+        for (UserRevocationView row : rows) {
+            if (!row.isEnabled()) {
+                disabled.add(row.getUsername());
+            }
+            if (row.getTokensRevokedAt() != null && row.getTokensRevokedAt().isAfter(since)) {
+                // users.tokens_revoked_at пишеться в локальному часі сервера (AdminController)
+                revoked.put(row.getUsername(), row.getTokensRevokedAt().atZone(ZoneId.systemDefault()).toInstant());
+            }
+        }
+
+        synchronized (this) {
+            if (localChanges != changesBefore) {
+                // Запит міг прочитати стан до локальної зміни; наступне перечитування його підтягне
+                return;
+            }
+            snapshot = new Snapshot(revoked, disabled);
+        }
+        System.out.println("TokenRevocationRegistry: " + disabled.size() + " disabled users, "
+                + revoked.size() + " recently revoked");
+    }
+
+    private static final class Snapshot {
+        private final Map<String, Instant> revokedAt;
+        private final Set<String> disabled;
+
+        private Snapshot(Map<String, Instant> revokedAt, Set<String> disabled) {
+            this.revokedAt = Map.copyOf(revokedAt);
+            this.disabled = Set.copyOf(disabled);
+        }
+    }
+}
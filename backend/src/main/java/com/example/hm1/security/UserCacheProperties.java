@@ -0,0 +1,32 @@
+package com.example.hm1.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "security.user-cache")
+public class UserCacheProperties {
+
+    // Скільки користувачів тримати; 0 вимикає кеш
+    private int maxSize = 10_000;
+    // Верхня межа застарілості, якщо зміну не помітив TokenRevocationRegistry
+    private Duration ttl = Duration.ofMinutes(5);
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+}
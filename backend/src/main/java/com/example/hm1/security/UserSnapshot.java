@@ -0,0 +1,86 @@
+package com.example.hm1.security;
+
+import com.example.hm1.entity.Role;
+import com.example.hm1.entity.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Незмінна копія користувача для кешу {@link CachingUserDetailsService}: без зв'язків JPA,
+ * тож її можна віддавати кільком потокам одночасно. Не реалізує CredentialsContainer,
+ * щоб Spring Security не стирав пароль у спільному екземплярі після логіну.
+ */
+public final class UserSnapshot implements UserDetails {
+
+    private final Long id;
+    private final String username;
+    private final String password;
+    private final boolean enabled;
+    private final List<GrantedAuthority> authorities;
+
+    public UserSnapshot(Long id, String username, String password, boolean enabled, List<GrantedAuthority> authorities) {
+        this.id = id;
+        this.username = username;
+        this.password = password;
+        this.enabled = enabled;
+        this.authorities = List.copyOf(authorities);
+    }
+
+    public static UserSnapshot of(User user) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        if (user.getRoles() != null) {
+            for (Role role : user.getRoles()) {
+                authorities.add(new SimpleGrantedAuthority(role.getName()));
+            }
+        }
+        return new UserSnapshot(user.getId(), user.getUsername(), user.getPassword(), user.isEnabled(), authorities);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public List<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public String toString() {
+        return "UserSnapshot(id=" + id + ", username=" + username + ", enabled=" + enabled + ", authorities=" + authorities + ")";
+    }
+}
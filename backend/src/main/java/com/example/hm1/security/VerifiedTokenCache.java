@@ -0,0 +1,89 @@
+package com.example.hm1.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Claims уже перевірених JWT. Ключ - SHA-256 від токена, тому самі токени в пам'яті не тримаються.
+ * Запис живе до exp токена; при переповненні спочатку викидаються прострочені, далі довільні записи.
+ * maxSize = 0 вимикає кеш.
+ */
+final class VerifiedTokenCache {
+
+    private final int maxSize;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    VerifiedTokenCache(int maxSize) {
+        this.maxSize = Math.max(0, maxSize);
+    }
+
+    /** Claims, якщо токен уже перевірявся і ще не прострочений, інакше null. */
+    Claims get(String token, long nowMillis) {
+        if (maxSize == 0) {
+            return null;
+        }
+        String key = digest(token);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtMillis <= nowMillis) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.claims;
+    }
+
+    void put(String token, Claims claims, long nowMillis) {
+        Date expiration = claims.getExpiration();
+        // Токени без exp не кешуємо: їх нема коли викинути
+        if (maxSize == 0 || expiration == null || expiration.getTime() <= nowMillis) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            evict(nowMillis);
+        }
+        entries.put(digest(token), new Entry(claims, expiration.getTime()));
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void evict(long nowMillis) {
+        entries.values().removeIf(entry -> entry.expiresAtMillis <= nowMillis);
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (entries.size() >= maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 обов'язковий для кожної JVM
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Entry {
+        private final Claims claims;
+        private final long expiresAtMillis;
+
+        private Entry(Claims claims, long expiresAtMillis) {
+            this.claims = claims;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
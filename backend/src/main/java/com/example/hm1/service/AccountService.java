@@ -1,10 +1,22 @@
 package com.example.hm1.service;
 
+import com.example.hm1.dto.BatchTransferItemDTO;
+import com.example.hm1.dto.BatchTransferResultDTO;
 import com.example.hm1.entity.Account;
+import com.example.hm1.entity.Money;
+
+import java.math.BigDecimal;
+import java.util.List;
 
 public interface AccountService {
-    boolean deposit(String accountNumber, Double amount);
-    boolean withdraw(String accountNumber, Double amount);
-    boolean transfer(String fromAccountNumber, String toAccountNumber, Double amount);
+    boolean deposit(String accountNumber, Money amount);
+    boolean withdraw(String accountNumber, Money amount);
+    /** Поповнення на суму у валюті рахунку: один UPDATE, без попереднього читання рахунку. */
+    boolean deposit(String accountNumber, BigDecimal amount);
+    /** Зняття суми у валюті рахунку; false якщо рахунку немає або коштів недостатньо. */
+    boolean withdraw(String accountNumber, BigDecimal amount);
+    boolean transfer(String fromAccountNumber, String toAccountNumber, Money amount);
+    /** Виконує всі перекази пакета в одній транзакції; невдалі пункти не зупиняють решту. */
+    BatchTransferResultDTO transferBatch(List<BatchTransferItemDTO> items);
     Account getAccountByNumber(String accountNumber);
 }
\ No newline at end of file
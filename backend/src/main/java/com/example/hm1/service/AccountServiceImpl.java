@@ -1,60 +1,91 @@
 package com.example.hm1.service;
 
+import com.example.hm1.dao.AccountBalanceView;
 import com.example.hm1.dao.AccountRepo;
+import com.example.hm1.dao.CustomerRepo;
+import com.example.hm1.dto.BatchTransferItemDTO;
+import com.example.hm1.dto.BatchTransferItemResultDTO;
+import com.example.hm1.dto.BatchTransferResultDTO;
 import com.example.hm1.entity.Account;
 import com.example.hm1.entity.Currency;
-import com.example.hm1.entity.Customer;
+import com.example.hm1.entity.Money;
 import com.example.hm1.entity.Transaction;
+import com.example.hm1.service.lock.AccountLockManager;
+import com.example.hm1.service.lock.AccountLockManager.AccountLocks;
+import com.example.hm1.service.rates.RateSnapshot;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
 
 @Service
 @Transactional
 public class AccountServiceImpl implements AccountService {
 
     private final AccountRepo accountRepo;
+    private final CustomerRepo customerRepo;
     private final TransactionService transactionService;
     private final NotificationService notificationService;
     private final ExchangeRateService exchangeRateService;
+    private final AccountLockManager lockManager;
 
-    public AccountServiceImpl(AccountRepo accountRepo, TransactionService transactionService, NotificationService notificationService, ExchangeRateService exchangeRateService) {
+    public AccountServiceImpl(AccountRepo accountRepo, CustomerRepo customerRepo, TransactionService transactionService, NotificationService notificationService, ExchangeRateService exchangeRateService, AccountLockManager lockManager) {
         this.accountRepo = accountRepo;
+        this.customerRepo = customerRepo;
         this.transactionService = transactionService;
         this.notificationService = notificationService;
         this.exchangeRateService = exchangeRateService;
+        this.lockManager = lockManager;
     }
 
     @Override
-    public boolean deposit(String accountNumber, Double amount) {
-        if (amount <= 0) {
+    public boolean deposit(String accountNumber, Money amount) {
+        if (amount == null || !amount.isPositive()) {
             return false;
         }
 
-        Account account = accountRepo.findByNumber(accountNumber);
-        if (account == null) {
-            System.err.println("AccountServiceImpl.deposit: Account not found: " + accountNumber);
+        // Один UPDATE ... RETURNING: БД сама серіалізує зміни рядка, локи в пам'яті не потрібні
+        AccountBalanceView updated = accountRepo.credit(accountNumber, amount);
+        if (updated == null) {
+            System.err.println("AccountServiceImpl.deposit: Account not found: " + accountNumber + " (" + amount.getCurrency() + ")");
             return false;
         }
+        recordDeposit(accountNumber, amount, updated);
+        return true;
+    }
 
-        account.setBalance(account.getBalance() + amount);
-        accountRepo.save(account);
-        
-        // Записуємо транзакцію
-        Customer customer = account.getCustomer();
-        System.out.println("AccountServiceImpl.deposit: Account customer=" + (customer != null ? customer.getId() : "NULL"));
-        if (customer == null) {
-            System.err.println("AccountServiceImpl.deposit: ERROR - account.getCustomer() returned NULL for account: " + accountNumber);
+    @Override
+    public boolean deposit(String accountNumber, BigDecimal amount) {
+        long minorUnits = amount != null ? Money.toMinorUnits(amount) : 0L;
+        if (minorUnits <= 0) {
+            return false;
         }
-        
+
+        // Валюту повертає сам UPDATE ... RETURNING, тож рахунок заздалегідь не читається
+        AccountBalanceView updated = accountRepo.creditInAccountCurrency(accountNumber, Money.toDecimal(minorUnits));
+        if (updated == null) {
+            System.err.println("AccountServiceImpl.deposit: Account not found: " + accountNumber);
+            return false;
+        }
+        recordDeposit(accountNumber, Money.ofMinor(minorUnits, Currency.valueOf(updated.getCurrency())), updated);
+        return true;
+    }
+
+    private void recordDeposit(String accountNumber, Money amount, AccountBalanceView updated) {
+        // Записуємо транзакцію (посилання на рахунок і клієнта без додаткових SELECT)
         transactionService.createTransaction(
             Transaction.TransactionType.DEPOSIT,
-            BigDecimal.valueOf(amount),
+            amount.toBigDecimal(),
             "Deposit to account " + accountNumber,
             null,
-            account,
-            customer
+            accountRepo.getReferenceById(updated.getId()),
+            customerRepo.getReferenceById(updated.getCustomerId())
         );
         
         // Відправляємо повідомлення через WebSocket
@@ -62,34 +93,49 @@ public class AccountServiceImpl implements AccountService {
             accountNumber, 
             "DEPOSIT", 
             amount, 
-            account.getBalance().doubleValue()
+            Money.ofMinor(updated.getBalanceMinor(), amount.getCurrency())
         );
-        
+    }
+
+    @Override
+    public boolean withdraw(String accountNumber, Money amount) {
+        if (amount == null || !amount.isPositive()) {
+            return false;
+        }
+
+        // Перевірка залишку і списання в одному UPDATE, тому овердрафт через гонку неможливий
+        AccountBalanceView updated = accountRepo.debit(accountNumber, amount);
+        if (updated == null) {
+            return false;
+        }
+        recordWithdrawal(accountNumber, amount, updated);
         return true;
     }
 
     @Override
-    public boolean withdraw(String accountNumber, Double amount) {
-        if (amount <= 0) {
+    public boolean withdraw(String accountNumber, BigDecimal amount) {
+        long minorUnits = amount != null ? Money.toMinorUnits(amount) : 0L;
+        if (minorUnits <= 0) {
             return false;
         }
 
-        Account account = accountRepo.findByNumber(accountNumber);
-        if (account == null || account.getBalance() < amount) {
+        AccountBalanceView updated = accountRepo.debitInAccountCurrency(accountNumber, Money.toDecimal(minorUnits));
+        if (updated == null) {
             return false;
         }
+        recordWithdrawal(accountNumber, Money.ofMinor(minorUnits, Currency.valueOf(updated.getCurrency())), updated);
+        return true;
+    }
 
-        account.setBalance(account.getBalance() - amount);
-        accountRepo.save(account);
-        
+    private void recordWithdrawal(String accountNumber, Money amount, AccountBalanceView updated) {
         // Записуємо транзакцію
         transactionService.createTransaction(
             Transaction.TransactionType.WITHDRAWAL,
-            BigDecimal.valueOf(amount),
+            amount.toBigDecimal(),
             "Withdrawal from account " + accountNumber,
-            account,
+            accountRepo.getReferenceById(updated.getId()),
             null,
-            account.getCustomer()
+            customerRepo.getReferenceById(updated.getCustomerId())
         );
         
         // Відправляємо повідомлення через WebSocket
@@ -97,22 +143,36 @@ public class AccountServiceImpl implements AccountService {
             accountNumber, 
             "WITHDRAWAL", 
             amount, 
-            account.getBalance().doubleValue()
+            Money.ofMinor(updated.getBalanceMinor(), amount.getCurrency())
         );
-        
-        return true;
     }
 
     @Override
-    public boolean transfer(String fromAccountNumber, String toAccountNumber, Double amount) {
-        if (amount <= 0) {
+    public boolean transfer(String fromAccountNumber, String toAccountNumber, Money amount) {
+        if (amount == null || !amount.isPositive()) {
             return false;
         }
 
-        Account fromAccount = accountRepo.findByNumber(fromAccountNumber);
-        Account toAccount = accountRepo.findByNumber(toAccountNumber);
+        // Обидва рахунки блокуються в фіксованому порядку, тому зустрічні перекази не дають deadlock
+        try (AccountLocks ignored = lockManager.acquire(fromAccountNumber, toAccountNumber)) {
+            return doTransfer(fromAccountNumber, toAccountNumber, amount);
+        }
+    }
 
-        if (fromAccount == null || toAccount == null || fromAccount.getBalance() < amount) {
+    private boolean doTransfer(String fromAccountNumber, String toAccountNumber, Money amount) {
+        Account fromAccount;
+        Account toAccount;
+        if (lockManager.usesDatabaseLocks() && fromAccountNumber.compareTo(toAccountNumber) > 0) {
+            toAccount = loadAccount(toAccountNumber);
+            fromAccount = loadAccount(fromAccountNumber);
+        } else {
+            fromAccount = loadAccount(fromAccountNumber);
+            toAccount = loadAccount(toAccountNumber);
+        }
+
+        // Сума переказу задається у валюті рахунку відправника
+        if (fromAccount == null || toAccount == null
+                || fromAccount.getCurrency() != amount.getCurrency() || !fromAccount.hasFunds(amount)) {
             return false;
         }
 
@@ -120,28 +180,28 @@ public class AccountServiceImpl implements AccountService {
         Currency fromCurrency = fromAccount.getCurrency();
         Currency toCurrency = toAccount.getCurrency();
         
-        BigDecimal originalAmount = BigDecimal.valueOf(amount);
-        BigDecimal convertedAmount = originalAmount;
+        Money convertedAmount = amount;
+        Long rateSnapshotId = null;
         String description;
         
         if (fromCurrency != toCurrency) {
-            // Виконуємо конвертацію
-            convertedAmount = exchangeRateService.convertAmount(originalAmount, fromCurrency, toCurrency);
-            description = String.format("Transfer from %s to %s (converted %s %.2f -> %s %.2f)",
+            // Виконуємо конвертацію за одним знімком курсів, id якого піде в транзакцію
+            RateSnapshot rates = exchangeRateService.getCurrentSnapshot();
+            convertedAmount = rates.convert(amount, toCurrency);
+            rateSnapshotId = rates.getId();
+            description = String.format("Transfer from %s to %s (converted %s %s -> %s %s)",
                 fromAccountNumber, toAccountNumber,
-                fromCurrency.name(), originalAmount.doubleValue(),
-                toCurrency.name(), convertedAmount.doubleValue());
+                fromCurrency.name(), amount.toBigDecimal().toPlainString(),
+                toCurrency.name(), convertedAmount.toBigDecimal().toPlainString());
             
-            System.out.println("AccountServiceImpl.transfer: Currency conversion - " +
-                originalAmount.doubleValue() + " " + fromCurrency.name() + " = " +
-                convertedAmount.doubleValue() + " " + toCurrency.name());
+            System.out.println("AccountServiceImpl.transfer: Currency conversion - " + amount + " = " + convertedAmount);
         } else {
             description = "Transfer from " + fromAccountNumber + " to " + toAccountNumber;
         }
 
         // Виконуємо операцію: знімаємо з одного рахунку, додаємо до іншого
-        fromAccount.setBalance(fromAccount.getBalance() - amount);
-        toAccount.setBalance(toAccount.getBalance() + convertedAmount.doubleValue());
+        fromAccount.debit(amount);
+        toAccount.credit(convertedAmount);
 
         accountRepo.save(fromAccount);
         accountRepo.save(toAccount);
@@ -149,11 +209,12 @@ public class AccountServiceImpl implements AccountService {
         // Записуємо транзакцію з оригінальною сумою (що було знято)
         transactionService.createTransaction(
             Transaction.TransactionType.TRANSFER,
-            originalAmount,
+            amount.toBigDecimal(),
             description,
             fromAccount,
             toAccount,
-            fromAccount.getCustomer()
+            fromAccount.getCustomer(),
+            rateSnapshotId
         );
         
         // Відправляємо повідомлення через WebSocket для обох акаунтів
@@ -161,21 +222,143 @@ public class AccountServiceImpl implements AccountService {
             fromAccountNumber, 
             "TRANSFER_OUT", 
             amount, 
-            fromAccount.getBalance().doubleValue()
+            fromAccount.getBalance()
         );
         
         notificationService.sendAccountUpdateNotification(
             toAccountNumber, 
             "TRANSFER_IN", 
-            convertedAmount.doubleValue(), 
-            toAccount.getBalance().doubleValue()
+            convertedAmount, 
+            toAccount.getBalance()
         );
         
         return true;
     }
 
+    @Override
+    public BatchTransferResultDTO transferBatch(List<BatchTransferItemDTO> items) {
+        long startedAt = System.nanoTime();
+
+        TreeSet<String> numbers = new TreeSet<>();
+        for (BatchTransferItemDTO item : items) {
+            if (item.getFromAccountNumber() != null) {
+                numbers.add(item.getFromAccountNumber());
+            }
+            if (item.getToAccountNumber() != null) {
+                numbers.add(item.getToAccountNumber());
+            }
+        }
+
+        // Локи на всі рахунки пакета до кінця транзакції, як в одиночному переказі
+        try (AccountLocks ignored = lockManager.acquire(numbers.toArray(new String[0]))) {
+            // Усі рахунки одним запитом замість двох SELECT на кожен переказ
+            List<Account> loaded = lockManager.usesDatabaseLocks()
+                    ? accountRepo.findByNumbersForUpdate(numbers)
+                    : accountRepo.findByNumbers(numbers);
+            Map<String, Account> accounts = new HashMap<>();
+            for (Account account : loaded) {
+                accounts.put(account.getNumber(), account);
+            }
+
+            List<BatchTransferItemResultDTO> results = new ArrayList<>(items.size());
+            List<Transaction> transactions = new ArrayList<>(items.size());
+            Map<String, Account> touched = new LinkedHashMap<>();
+            Map<String, Money> debitedTotals = new LinkedHashMap<>();
+            Map<String, Money> creditedTotals = new LinkedHashMap<>();
+            // Знімок курсів береться один раз на весь пакет і лише якщо є конвертація
+            RateSnapshot rates = null;
+
+            for (int i = 0; i < items.size(); i++) {
+                BatchTransferItemDTO item = items.get(i);
+                Account fromAccount = accounts.get(item.getFromAccountNumber());
+                Account toAccount = accounts.get(item.getToAccountNumber());
+                if (fromAccount == null) {
+                    results.add(BatchTransferItemResultDTO.failed(i, item, "Source account not found"));
+                    continue;
+                }
+                if (toAccount == null) {
+                    results.add(BatchTransferItemResultDTO.failed(i, item, "Destination account not found"));
+                    continue;
+                }
+                if (fromAccount == toAccount) {
+                    results.add(BatchTransferItemResultDTO.failed(i, item, "Source and destination accounts are the same"));
+                    continue;
+                }
+
+                // Сума переказу задається у валюті рахунку відправника
+                Money amount = item.getAmount() != null ? Money.of(item.getAmount(), fromAccount.getCurrency()) : null;
+                if (amount == null || !amount.isPositive()) {
+                    results.add(BatchTransferItemResultDTO.failed(i, item, "Amount must be positive"));
+                    continue;
+                }
+                // Баланс уже враховує попередні пункти пакета
+                if (!fromAccount.hasFunds(amount)) {
+                    results.add(BatchTransferItemResultDTO.failed(i, item, "Insufficient funds"));
+                    continue;
+                }
+
+                Money convertedAmount = amount;
+                Long rateSnapshotId = null;
+                if (fromAccount.getCurrency() != toAccount.getCurrency()) {
+                    if (rates == null) {
+                        rates = exchangeRateService.getCurrentSnapshot();
+                    }
+                    convertedAmount = rates.convert(amount, toAccount.getCurrency());
+                    rateSnapshotId = rates.getId();
+                }
+
+                fromAccount.debit(amount);
+                toAccount.credit(convertedAmount);
+
+                String description = item.getDescription() != null && !item.getDescription().isBlank()
+                        ? item.getDescription()
+                        : "Batch transfer from " + fromAccount.getNumber() + " to " + toAccount.getNumber();
+                Transaction transaction = new Transaction(
+                    Transaction.TransactionType.TRANSFER,
+                    amount.toBigDecimal(),
+                    description,
+                    fromAccount,
+                    toAccount,
+                    fromAccount.getCustomer()
+                );
+                transaction.setRateSnapshotId(rateSnapshotId);
+                transactions.add(transaction);
+
+                touched.put(fromAccount.getNumber(), fromAccount);
+                touched.put(toAccount.getNumber(), toAccount);
+                debitedTotals.merge(fromAccount.getNumber(), amount, Money::plus);
+                creditedTotals.merge(toAccount.getNumber(), convertedAmount, Money::plus);
+                results.add(BatchTransferItemResultDTO.success(i, item, amount, convertedAmount));
+            }
+
+            // Один saveAll для змінених рахунків і один для транзакцій: Hibernate відправить їх JDBC-пакетами
+            accountRepo.saveAll(new ArrayList<>(touched.values()));
+            transactionService.createTransactions(transactions);
+
+            // Одне повідомлення на рахунок з сумою за весь пакет, а не тисячі дрібних
+            for (Map.Entry<String, Money> entry : debitedTotals.entrySet()) {
+                notificationService.sendAccountUpdateNotification(
+                    entry.getKey(), "BATCH_TRANSFER_OUT", entry.getValue(), touched.get(entry.getKey()).getBalance());
+            }
+            for (Map.Entry<String, Money> entry : creditedTotals.entrySet()) {
+                notificationService.sendAccountUpdateNotification(
+                    entry.getKey(), "BATCH_TRANSFER_IN", entry.getValue(), touched.get(entry.getKey()).getBalance());
+            }
+
+            return new BatchTransferResultDTO(
+                    results, rates != null ? rates.getId() : null, System.nanoTime() - startedAt);
+        }
+    }
+
     @Override
     public Account getAccountByNumber(String accountNumber) {
         return accountRepo.findByNumber(accountNumber);
     }
+
+    private Account loadAccount(String accountNumber) {
+        if (lockManager.usesDatabaseLocks()) {
+            return accountRepo.findByNumberForUpdate(accountNumber);
+        }
+        return accountRepo.findByNumber(accountNumber);
+    }
 }
\ No newline at end of file
@@ -1,16 +1,20 @@
 package com.example.hm1.service;
 
+import com.example.hm1.dto.CurrentCustomerDTO;
+import com.example.hm1.dto.CustomerResponseDTO;
 import com.example.hm1.entity.Account;
 import com.example.hm1.entity.Currency;
 import com.example.hm1.entity.Customer;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface CustomerService {
     Customer createCustomer(String name, Integer age);
-    Customer updateCustomer(Customer customer);
-    Customer getCustomerById(Long id);
-    List<Customer> getAllCustomers();
+    CustomerResponseDTO updateCustomer(Long id, Customer changes);
+    CustomerResponseDTO getCustomerById(Long id);
+    List<CustomerResponseDTO> getAllCustomers();
+    Optional<CurrentCustomerDTO> getCurrentCustomer(String username);
     boolean deleteCustomer(Long id);
     Account createAccountForCustomer(Long customerId, Currency currency, String email, String password);
     boolean deleteAccountFromCustomer(Long customerId, Long accountId);
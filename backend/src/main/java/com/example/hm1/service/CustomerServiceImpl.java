@@ -2,14 +2,24 @@
 package com.example.hm1.service;
 
 import com.example.hm1.dao.AccountRepo;
+import com.example.hm1.dao.CurrentCustomerRow;
 import com.example.hm1.dao.CustomerRepo;
+import com.example.hm1.dto.CurrentCustomerDTO;
+import com.example.hm1.dto.CustomerResponseDTO;
 import com.example.hm1.entity.Account;
 import com.example.hm1.entity.Currency;
 import com.example.hm1.entity.Customer;
+import com.example.hm1.entity.Money;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 public class CustomerServiceImpl implements CustomerService {
@@ -29,29 +39,73 @@ public class CustomerServiceImpl implements CustomerService {
         return customerRepo.save(customer);
     }
 
+    /**
+     * Оновлює лише ім'я, email і вік: рахунки й роботодавці з тіла запиту не зливаються поверх
+     * збережених (orphanRemoval інакше видалив би рахунки, яких немає в тілі).
+     */
     @Override
-    public Customer updateCustomer(Customer customer) {
-        return customerRepo.save(customer);
+    @Transactional
+    public CustomerResponseDTO updateCustomer(Long id, Customer changes) {
+        Customer customer = customerRepo.findWithAccountsById(id).orElse(null);
+        if (customer == null) {
+            return null;
+        }
+        if (changes.getName() != null) {
+            customer.setName(changes.getName());
+        }
+        if (changes.getEmail() != null) {
+            customer.setEmail(changes.getEmail());
+        }
+        if (changes.getAge() != null) {
+            customer.setAge(changes.getAge());
+        }
+        return CustomerResponseDTO.from(customerRepo.save(customer));
     }
 
     @Override
-    public Customer getCustomerById(Long id) {
-        Customer customer = customerRepo.getOne(id);
-        if (customer != null) {
-            List<Account> accounts = accountRepo.findByCustomerId(id);
-            customer.setAccounts(accounts);
-        }
-        return customer;
+    public CustomerResponseDTO getCustomerById(Long id) {
+        // Рахунки й роботодавці завантажені явно: DTO будується без лінивих догрузок
+        return customerRepo.findWithAccountsById(id).map(CustomerResponseDTO::from).orElse(null);
     }
 
     @Override
-    public List<Customer> getAllCustomers() {
-        List<Customer> customers = customerRepo.findAll();
-        for (Customer customer : customers) {
-            List<Account> accounts = accountRepo.findByCustomerId(customer.getId());
-            customer.setAccounts(accounts);
+    public List<CustomerResponseDTO> getAllCustomers() {
+        return customerRepo.findAllWithAccounts().stream()
+                .map(CustomerResponseDTO::from)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Optional<CurrentCustomerDTO> getCurrentCustomer(String username) {
+        List<CurrentCustomerRow> rows = customerRepo.findCurrentCustomerRows(username);
+        if (rows.isEmpty()) {
+            return Optional.empty();
         }
-        return customers;
+
+        // Рядки - добуток роботодавців на рахунки, тому обидва списки збираються без повторів
+        Map<Long, String> employers = new LinkedHashMap<>();
+        Map<Long, CurrentCustomerDTO.AccountSummary> accounts = new LinkedHashMap<>();
+        for (CurrentCustomerRow row : rows) {
+            if (row.getEmployerId() != null) {
+                employers.putIfAbsent(row.getEmployerId(), row.getEmployerName());
+            }
+            if (row.getAccountId() != null && !accounts.containsKey(row.getAccountId())) {
+                accounts.put(row.getAccountId(), new CurrentCustomerDTO.AccountSummary(
+                        row.getAccountId(),
+                        row.getAccountNumber(),
+                        row.getAccountCurrency(),
+                        Money.ofMinor(row.getAccountBalance(), row.getAccountCurrency())));
+            }
+        }
+
+        CurrentCustomerRow first = rows.get(0);
+        return Optional.of(new CurrentCustomerDTO(
+                first.getCustomerId(),
+                first.getName(),
+                first.getEmail(),
+                first.getAge(),
+                new ArrayList<>(employers.values()),
+                new ArrayList<>(accounts.values())));
     }
 
     @Override
@@ -1,17 +1,27 @@
 package com.example.hm1.service;
 
 import com.example.hm1.dto.ExchangeRateHistoryPoint;
+import com.example.hm1.dto.ExchangeRateImportDTO;
 import com.example.hm1.entity.Currency;
+import com.example.hm1.entity.Money;
+import com.example.hm1.service.rates.RateSnapshot;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+
 public interface ExchangeRateService {
-    
+
+    /** Курси, якими операція має рахувати всі свої ноги: беремо один раз на операцію. */
+    RateSnapshot getCurrentSnapshot();
+    Optional<RateSnapshot> findSnapshot(long id);
     BigDecimal getExchangeRate(Currency from, Currency to);
     BigDecimal convertAmount(BigDecimal amount, Currency from, Currency to);
+    Money convert(Money amount, Currency to);
     Map<String, BigDecimal> getAllRates(Currency baseCurrency);
     Map<String, List<ExchangeRateHistoryPoint>> getHistoricalRates(List<Currency> currencies, int days);
+    int importHistoricalRates(List<ExchangeRateImportDTO> rates);
     void updateExchangeRates();
 }
 
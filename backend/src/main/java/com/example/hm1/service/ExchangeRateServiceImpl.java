@@ -1,32 +1,44 @@
 package com.example.hm1.service;
 
 import com.example.hm1.dto.ExchangeRateHistoryPoint;
+import com.example.hm1.dto.ExchangeRateImportDTO;
 import com.example.hm1.entity.Currency;
+import com.example.hm1.entity.ExchangeRate;
+import com.example.hm1.entity.Money;
+import com.example.hm1.service.rates.ExchangeRateHistory;
+import com.example.hm1.service.rates.ExchangeRateHistoryStore;
+import com.example.hm1.service.rates.ExchangeRateProviderPipeline;
+import com.example.hm1.service.rates.RateSnapshot;
+import com.example.hm1.service.rates.RateSnapshotStore;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.Optional;
 
 /**
- * Реалізація сервісу курсів валют
- * Наразі використовує статичні курси відносно UAH
- * TODO: Інтегрувати з реальним API (minfin.com.ua або exchangerate-api.com)
+ * Реалізація сервісу курсів валют.
+ * Курси відносно UAH періодично оновлюються з провайдерів (див. ExchangeRateProviderPipeline),
+ * а конвертація читає лише готовий {@link RateSnapshot} і ніколи не чекає на оновлення.
  */
 @Service
 public class ExchangeRateServiceImpl implements ExchangeRateService {
 
-    // Зберігаємо курси в пам'яті (в майбутньому можна перенести в БД з timestamp)
-    private final Map<String, BigDecimal> exchangeRates = new ConcurrentHashMap<>();
+    private final ExchangeRateHistoryStore historyStore;
+    private final ExchangeRateProviderPipeline providerPipeline;
+    private final RateSnapshotStore snapshotStore;
+
+    // Поточний знімок курсів. Незмінний: при оновленні будується новий і підміняється
+    // одним записом у volatile, тож читач бачить або старий, або новий набір
+    private volatile RateSnapshot currentSnapshot;
     
-    // Базові курси відносно UAH (буде оновлюватись scheduler або ззовнішнього API)
-    private static final Map<Currency, BigDecimal> BASE_RATES_UAH = new HashMap<>();
+    // Курси відносно UAH до першого успішного оновлення з провайдерів
+    private static final Map<Currency, BigDecimal> BASE_RATES_UAH = new EnumMap<>(Currency.class);
     
     static {
         // Курси на січень 2025 (приблизні)
@@ -37,49 +49,84 @@ public class ExchangeRateServiceImpl implements ExchangeRateService {
         BASE_RATES_UAH.put(Currency.CHF, new BigDecimal("43.20"));  // 1 CHF = 43.20 UAH
     }
     
-    public ExchangeRateServiceImpl() {
-        updateExchangeRates();
+    public ExchangeRateServiceImpl(ExchangeRateHistoryStore historyStore,
+                                   ExchangeRateProviderPipeline providerPipeline,
+                                   RateSnapshotStore snapshotStore) {
+        this.historyStore = historyStore;
+        this.providerPipeline = providerPipeline;
+        this.snapshotStore = snapshotStore;
+        this.currentSnapshot = RateSnapshot.of(null, null, BASE_RATES_UAH);
     }
 
-    @Override
-    public BigDecimal getExchangeRate(Currency from, Currency to) {
-        // Якщо валюти однакові, повертаємо 1
-        if (from == to) {
-            return BigDecimal.ONE;
+    /**
+     * Фонове оновлення: одразу після старту і далі кожні bank.exchange-rates.refresh-interval.
+     * Якщо жоден провайдер не відповів, лишаються останні успішно отримані курси.
+     */
+    @Scheduled(fixedDelayString = "${bank.exchange-rates.refresh-interval:PT1H}")
+    public void refreshExchangeRates() {
+        if (currentSnapshot.getId() == null) {
+            restoreLastSnapshot();
         }
-        
-        String rateKey = from.name() + "_TO_" + to.name();
-        
-        // Спочатку перевіряємо чи вже є прямий курс
-        if (exchangeRates.containsKey(rateKey)) {
-            return exchangeRates.get(rateKey);
+        try {
+            updateExchangeRates();
+        } catch (RuntimeException e) {
+            System.err.println("ExchangeRateService: Refresh failed, keeping last good rates: " + e.getMessage());
         }
-        
-        // Якщо прямого курсу немає, розраховуємо через базову валюту UAH
-        BigDecimal rate = calculateRateThroughBase(from, to);
-        
-        // Кешуємо розрахований курс
-        exchangeRates.put(rateKey, rate);
-        
-        return rate;
+    }
+
+    /**
+     * Після перезапуску продовжуємо з останнього збереженого знімка, а не з курсів за замовчуванням -
+     * на випадок, якщо провайдери зараз недоступні.
+     */
+    private synchronized void restoreLastSnapshot() {
+        try {
+            Optional<RateSnapshot> latest = snapshotStore.findLatest();
+            if (latest.isPresent() && currentSnapshot.getId() == null) {
+                currentSnapshot = latest.get();
+                System.out.println("ExchangeRateService: Restored rate snapshot #" + latest.get().getId());
+            }
+        } catch (RuntimeException e) {
+            System.err.println("ExchangeRateService: Failed to restore last rate snapshot: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public RateSnapshot getCurrentSnapshot() {
+        return currentSnapshot;
+    }
+
+    @Override
+    public Optional<RateSnapshot> findSnapshot(long id) {
+        RateSnapshot current = currentSnapshot;
+        if (current.getId() != null && current.getId() == id) {
+            return Optional.of(current);
+        }
+        return snapshotStore.findById(id);
+    }
+
+    @Override
+    public BigDecimal getExchangeRate(Currency from, Currency to) {
+        return currentSnapshot.getRate(from, to);
     }
 
     @Override
     public BigDecimal convertAmount(BigDecimal amount, Currency from, Currency to) {
-        BigDecimal rate = getExchangeRate(from, to);
-        BigDecimal converted = amount.multiply(rate);
-        
-        // Округлюємо до 2 знаків після коми для грошових сум
-        return converted.setScale(2, RoundingMode.HALF_UP);
+        return currentSnapshot.convertAmount(amount, from, to);
+    }
+
+    @Override
+    public Money convert(Money amount, Currency to) {
+        return currentSnapshot.convert(amount, to);
     }
 
     @Override
     public Map<String, BigDecimal> getAllRates(Currency baseCurrency) {
         Map<String, BigDecimal> rates = new HashMap<>();
+        RateSnapshot snapshot = currentSnapshot;
         
         for (Currency currency : Currency.values()) {
             if (currency != baseCurrency) {
-                BigDecimal rate = getExchangeRate(baseCurrency, currency);
+                BigDecimal rate = snapshot.getRate(baseCurrency, currency);
                 rates.put(currency.name(), rate);
             }
         }
@@ -94,83 +141,76 @@ public class ExchangeRateServiceImpl implements ExchangeRateService {
             return history;
         }
 
+        // Один знімок на весь запит, щоб усі валюти були з однієї версії історії
+        ExchangeRateHistory snapshot = historyStore.getHistory();
         LocalDate today = LocalDate.now();
+        LocalDate from = today.minusDays(days - 1L);
 
         for (Currency currency : currencies) {
             if (currency == null || currency == Currency.UAH) {
                 continue;
             }
 
-            BigDecimal baseRate = BASE_RATES_UAH.get(currency);
-            if (baseRate == null) {
-                continue;
+            List<ExchangeRateHistoryPoint> points = snapshot.points(currency, from, today);
+            if (!points.isEmpty()) {
+                history.put(currency.name(), points);
             }
+        }
 
-            List<ExchangeRateHistoryPoint> points = new ArrayList<>();
-            BigDecimal currentRate = baseRate;
-
-            for (int i = days - 1; i >= 0; i--) {
-                LocalDate date = today.minusDays(i);
-
-                if (!points.isEmpty()) {
-                    double variation = ThreadLocalRandom.current().nextDouble(-0.02, 0.02);
-                    currentRate = currentRate.multiply(BigDecimal.valueOf(1 + variation))
-                            .setScale(6, RoundingMode.HALF_UP);
+        return history;
+    }
 
-                    if (currentRate.compareTo(BigDecimal.ZERO) <= 0) {
-                        currentRate = baseRate;
-                    }
-                }
+    @Override
+    public int importHistoricalRates(List<ExchangeRateImportDTO> rates) {
+        if (rates == null || rates.isEmpty()) {
+            return 0;
+        }
 
-                BigDecimal roundedRate = currentRate.setScale(2, RoundingMode.HALF_UP);
-                points.add(new ExchangeRateHistoryPoint(date.toString(), roundedRate));
+        Map<String, ExchangeRate> records = new HashMap<>();
+        for (ExchangeRateImportDTO rate : rates) {
+            if (rate.getCurrency() == null || rate.getDate() == null || rate.getRate() == null) {
+                throw new IllegalArgumentException("Currency, date and rate are required");
             }
-
-            history.put(currency.name(), points);
+            if (rate.getCurrency() == Currency.UAH) {
+                throw new IllegalArgumentException("UAH is the base currency and has no rate");
+            }
+            if (rate.getRate().compareTo(BigDecimal.ZERO) <= 0) {
+                throw new IllegalArgumentException("Rate must be positive: " + rate.getCurrency() + " " + rate.getDate());
+            }
+            // Дублікати в одному запиті: останній виграє, інакше ON CONFLICT зачепить рядок двічі
+            records.put(rate.getCurrency() + "@" + rate.getDate(),
+                    new ExchangeRate(rate.getCurrency(), rate.getDate(), rate.getRate()));
         }
 
-        return history;
+        int written = historyStore.ingest(records.values());
+        System.out.println("ExchangeRateService: Imported " + written + " historical rates");
+        return written;
     }
 
     @Override
-    public void updateExchangeRates() {
-        System.out.println("ExchangeRateService: Updating exchange rates...");
-        
-        // Очищаємо старі курси
-        exchangeRates.clear();
-        
-        // TODO: Отримати курси з реального API
-        // Приклад з minfin.com.ua:
-        // String url = "https://api.minfin.com.ua/mb/" + currency + "/";
-        // або exchangerate-api.com:
-        // String url = "https://api.exchangerate-api.com/v4/latest/UAH";
-        
-        // Поки що використовуємо статичні значення
-        System.out.println("ExchangeRateService: Using mock rates");
-        
-        // Після отримання даних з API оновимо BASE_RATES_UAH
-        // і автоматично розрахуються всі кроскурси
-        
-        System.out.println("ExchangeRateService: Exchange rates updated");
-    }
+    public synchronized void updateExchangeRates() {
+        System.out.println("ExchangeRateService: Updating exchange rates from " + providerPipeline.getProviderNames());
 
-    /**
-     * Розрахунок курсу через базову валюту (UAH)
-     * Приклад: USD -> EUR через UAH
-     * 1 USD = 37.50 UAH
-     * 1 EUR = 40.80 UAH
-     * USD -> EUR = 37.50 / 40.80 = 0.9191 (1 USD = 0.9191 EUR)
-     */
-    private BigDecimal calculateRateThroughBase(Currency from, Currency to) {
-        BigDecimal fromRate = BASE_RATES_UAH.get(from);
-        BigDecimal toRate = BASE_RATES_UAH.get(to);
-        
-        if (fromRate == null || toRate == null) {
-            throw new IllegalArgumentException("Exchange rate not found for: " + from + " or " + to);
+        Map<Currency, BigDecimal> fetched = providerPipeline.fetch();
+
+        // Валюти, яких цього разу не повернув жоден провайдер, лишаються з попереднього набору
+        RateSnapshot previous = currentSnapshot;
+        Map<Currency, BigDecimal> baseRates = new EnumMap<>(previous.getRatesToUah());
+        baseRates.putAll(fetched);
+
+        // Новий знімок зберігається до того, як ним почнуть рахувати перекази: кожен id у транзакціях є в БД.
+        // Якщо курси не змінились, лишається старий знімок і не плодяться однакові записи
+        if (previous.getId() == null || !previous.hasSameRates(baseRates)) {
+            currentSnapshot = snapshotStore.save(baseRates);
         }
-        
-        // Конвертація через UAH: from -> UAH -> to
-        return fromRate.divide(toRate, 6, RoundingMode.HALF_UP);
+
+        // Історія - не критична частина оновлення: курси вже застосовано, навіть якщо запис у БД не вдався
+        try {
+            historyStore.recordDailyRates(LocalDate.now(), fetched);
+        } catch (RuntimeException e) {
+            System.err.println("ExchangeRateService: Failed to record rate history: " + e.getMessage());
+        }
+
+        System.out.println("ExchangeRateService: Exchange rates updated: " + fetched);
     }
 }
-
@@ -1,7 +1,10 @@
 package com.example.hm1.service;
 
+import com.example.hm1.entity.Money;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -16,34 +19,34 @@ public class NotificationService {
         this.messagingTemplate = messagingTemplate;
     }
 
-    public void sendAccountUpdateNotification(String accountNumber, String operation, Double amount, Double newBalance) {
+    public void sendAccountUpdateNotification(String accountNumber, String operation, Money amount, Money newBalance) {
         Map<String, Object> notification = new HashMap<>();
         notification.put("accountNumber", accountNumber);
         notification.put("operation", operation);
-        notification.put("amount", amount);
-        notification.put("newBalance", newBalance);
+        notification.put("amount", amount.toBigDecimal());
+        notification.put("newBalance", newBalance.toBigDecimal());
         notification.put("timestamp", LocalDateTime.now());
         notification.put("message", String.format("Account %s: %s of %.2f completed. New balance: %.2f", 
-                accountNumber, operation, amount, newBalance));
+                accountNumber, operation, amount.toBigDecimal(), newBalance.toBigDecimal()));
 
         
         // Send to all subscribers of the account updates topic
-        messagingTemplate.convertAndSend("/topic/account-updates", notification);
+        publish("/topic/account-updates", notification);
     }
 
-    public void sendTransactionNotification(String accountNumber, String transactionType, Double amount, String status) {
+    public void sendTransactionNotification(String accountNumber, String transactionType, Money amount, String status) {
         Map<String, Object> notification = new HashMap<>();
         notification.put("accountNumber", accountNumber);
         notification.put("transactionType", transactionType);
-        notification.put("amount", amount);
+        notification.put("amount", amount.toBigDecimal());
         notification.put("status", status);
         notification.put("timestamp", LocalDateTime.now());
         notification.put("message", String.format("Transaction %s for account %s: %.2f - Status: %s", 
-                transactionType, accountNumber, amount, status));
+                transactionType, accountNumber, amount.toBigDecimal(), status));
 
         
         // Send to all subscribers of the transaction updates topic
-        messagingTemplate.convertAndSend("/topic/transaction-updates", notification);
+        publish("/topic/transaction-updates", notification);
     }
 
     public void sendSystemNotification(String message, String type) {
@@ -54,6 +57,24 @@ public class NotificationService {
 
         
         // Send to all subscribers of the system notifications topic
-        messagingTemplate.convertAndSend("/topic/system-notifications", notification);
+        publish("/topic/system-notifications", notification);
     }
-}
+
+    /**
+     * Якщо виклик відбувається всередині транзакції, повідомлення відправляється тільки після commit:
+     * операція, що відкотилась або буде повторена після конфлікту версій, не повинна
+     * показати клієнту баланс, якого немає в БД.
+     */
+    private void publish(String destination, Map<String, Object> notification) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    messagingTemplate.convertAndSend(destination, notification);
+                }
+            });
+            return;
+        }
+        messagingTemplate.convertAndSend(destination, notification);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.example.hm1.service;
+
+import com.example.hm1.dto.BatchTransferItemDTO;
+import com.example.hm1.dto.BatchTransferResultDTO;
+import com.example.hm1.entity.Account;
+import com.example.hm1.entity.Money;
+import com.example.hm1.service.lock.OptimisticRetryExecutor;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Обгортка над AccountServiceImpl, що повторює операцію при конфлікті версій Account.
+ * Сам не транзакційний: кожна спроба відкриває нову транзакцію в AccountServiceImpl,
+ * бо транзакція після OptimisticLockException вже позначена як rollback-only.
+ */
+@Service
+@Primary
+public class RetryingAccountService implements AccountService {
+
+    private final AccountServiceImpl delegate;
+    private final OptimisticRetryExecutor retryExecutor;
+
+    public RetryingAccountService(AccountServiceImpl delegate, OptimisticRetryExecutor retryExecutor) {
+        this.delegate = delegate;
+        this.retryExecutor = retryExecutor;
+    }
+
+    @Override
+    public boolean deposit(String accountNumber, Money amount) {
+        return retryExecutor.execute("deposit", () -> delegate.deposit(accountNumber, amount));
+    }
+
+    @Override
+    public boolean withdraw(String accountNumber, Money amount) {
+        return retryExecutor.execute("withdraw", () -> delegate.withdraw(accountNumber, amount));
+    }
+
+    @Override
+    public boolean deposit(String accountNumber, BigDecimal amount) {
+        return retryExecutor.execute("deposit", () -> delegate.deposit(accountNumber, amount));
+    }
+
+    @Override
+    public boolean withdraw(String accountNumber, BigDecimal amount) {
+        return retryExecutor.execute("withdraw", () -> delegate.withdraw(accountNumber, amount));
+    }
+
+    @Override
+    public boolean transfer(String fromAccountNumber, String toAccountNumber, Money amount) {
+        return retryExecutor.execute("transfer", () -> delegate.transfer(fromAccountNumber, toAccountNumber, amount));
+    }
+
+    @Override
+    public BatchTransferResultDTO transferBatch(List<BatchTransferItemDTO> items) {
+        // Пакет - одна транзакція, тож при конфлікті версій повторюється цілком
+        return retryExecutor.execute("transfer_batch", () -> delegate.transferBatch(items));
+    }
+
+    @Override
+    public Account getAccountByNumber(String accountNumber) {
+        return delegate.getAccountByNumber(accountNumber);
+    }
+}
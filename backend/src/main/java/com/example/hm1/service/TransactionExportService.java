@@ -0,0 +1,169 @@
+package com.example.hm1.service;
+
+import com.example.hm1.dao.TransactionExportRow;
+import com.example.hm1.dao.TransactionRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Вивантаження всіх транзакцій у NDJSON або CSV. Рядки пишуться у відповідь по одному,
+ * щойно прочитані з курсору, тож пам'ять не залежить від розміру таблиці.
+ */
+@Service
+public class TransactionExportService {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /** null, якщо формат не підтримується. */
+        public static Format parse(String value) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(value) || format.extension.equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            return null;
+        }
+    }
+
+    static final String CSV_HEADER =
+            "id,timestamp,type,status,amount,category,description,customerId,fromAccount,toAccount,rateSnapshotId";
+
+    private final TransactionRepository transactionRepository;
+    private final ObjectMapper objectMapper;
+
+    public TransactionExportService(TransactionRepository transactionRepository, ObjectMapper objectMapper) {
+        this.transactionRepository = transactionRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Пише всі транзакції в out і повертає їх кількість. Транзакція БД лише для читання
+     * потрібна, щоб PostgreSQL читав курсором (з autocommit драйвер забирає весь результат).
+     */
+    @Transactional(readOnly = true)
+    public long export(Format format, OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        long rows;
+        try {
+            rows = format == Format.CSV ? writeCsv(out) : writeNdjson(out);
+        } catch (UncheckedIOException e) {
+            // Клієнт розірвав з'єднання - курсор закривається разом з транзакцією
+            throw e.getCause();
+        }
+        System.out.println("TransactionExportService.export: " + rows + " rows as " + format + " in "
+                + (System.nanoTime() - started) / 1_000_000 + " ms");
+        return rows;
+    }
+
+    private long writeNdjson(OutputStream out) throws IOException {
+        try (SequenceWriter json = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(out)) {
+            long rows = transactionRepository.forEachExportRow(row -> {
+                try {
+                    json.write(row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            json.flush();
+            if (rows > 0) {
+                out.write('\n');
+            }
+            return rows;
+        }
+    }
+
+    private long writeCsv(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        long rows = transactionRepository.forEachExportRow(row -> {
+            try {
+                writeCsvRow(writer, row);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+        return rows;
+    }
+
+    static void writeCsvRow(Writer writer, TransactionExportRow row) throws IOException {
+        writer.write(Long.toString(row.getId()));
+        writer.write(',');
+        writer.write(row.getTimestamp() != null ? row.getTimestamp().toString() : "");
+        writer.write(',');
+        writer.write(csv(row.getType()));
+        writer.write(',');
+        writer.write(csv(row.getStatus()));
+        writer.write(',');
+        writer.write(row.getAmount() != null ? row.getAmount().toPlainString() : "");
+        writer.write(',');
+        writer.write(csv(row.getCategory()));
+        writer.write(',');
+        writer.write(csv(row.getDescription()));
+        writer.write(',');
+        writer.write(Long.toString(row.getCustomerId()));
+        writer.write(',');
+        writer.write(csv(row.getFromAccount()));
+        writer.write(',');
+        writer.write(csv(row.getToAccount()));
+        writer.write(',');
+        writer.write(row.getRateSnapshotId() != null ? row.getRateSnapshotId().toString() : "");
+        writer.write('\n');
+    }
+
+    /** RFC 4180: поле з комою, лапками чи переносом рядка береться в лапки, лапки подвоюються. */
+    static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                quote = true;
+                break;
+            }
+        }
+        if (!quote) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    public static String fileName(Format format) {
+        return "transactions." + format.getExtension();
+    }
+}
@@ -1,11 +1,17 @@
 package com.example.hm1.service;
 
+import com.example.hm1.dao.CustomerTransactionView;
+import com.example.hm1.dao.TransactionCursor;
+import com.example.hm1.dao.TransactionView;
+import com.example.hm1.dto.AccountActivityDTO;
 import com.example.hm1.dto.ExpenseStatisticsDTO;
+import com.example.hm1.dto.TransactionCursorPageDTO;
 import com.example.hm1.entity.Account;
 import com.example.hm1.entity.Customer;
 import com.example.hm1.entity.Transaction;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -20,24 +26,49 @@ public interface TransactionService {
                                 Account fromAccount, 
                                 Account toAccount, 
                                 Customer customer);
+
+    Transaction createTransaction(Transaction.TransactionType type,
+                                BigDecimal amount,
+                                String description,
+                                Account fromAccount,
+                                Account toAccount,
+                                Customer customer,
+                                Long rateSnapshotId);
+
+    List<Transaction> createTransactions(List<Transaction> transactions);
+    
+    /**
+     * Читаючі методи повертають TransactionView: клієнт і рахунки вже приєднані в запиті,
+     * тож результат можна серіалізувати поза транзакцією без догрузок.
+     */
+    List<TransactionView> getTransactionsByCustomerId(Long customerId);
     
-    List<Transaction> getTransactionsByCustomerId(Long customerId);
+    Page<TransactionView> getTransactionsByCustomerId(Long customerId, Pageable pageable);
+
+    /** Keyset-сторінка транзакцій клієнта після cursor (null - найновіші), без count-запиту. */
+    TransactionCursorPageDTO getTransactionsByCustomerId(Long customerId, TransactionCursor cursor, int size);
     
-    Page<Transaction> getTransactionsByCustomerId(Long customerId, Pageable pageable);
+    /** Сторінка транзакцій клієнта без підрахунку загальної кількості. */
+    Slice<CustomerTransactionView> getCustomerTransactionViews(Long customerId, Pageable pageable);
+
+    /** Агрегати по кожному рахунку клієнта, у якого є транзакції (ключ - id рахунку). */
+    Map<Long, AccountActivityDTO> getAccountActivity(Long customerId);
     
-    List<Transaction> getAllTransactions();
+    List<TransactionView> getAllTransactions();
     
-    Page<Transaction> getAllTransactions(Pageable pageable);
+    Page<TransactionView> getAllTransactions(Pageable pageable);
+
+    TransactionCursorPageDTO getAllTransactions(TransactionCursor cursor, int size);
     
-    List<Transaction> getTransactionsByDateRange(Long customerId, LocalDateTime startDate, LocalDateTime endDate);
+    List<TransactionView> getTransactionsByDateRange(Long customerId, LocalDateTime startDate, LocalDateTime endDate);
     
-    List<Transaction> getAllTransactionsByDateRange(LocalDateTime startDate, LocalDateTime endDate);
+    List<TransactionView> getAllTransactionsByDateRange(LocalDateTime startDate, LocalDateTime endDate);
     
-    List<Transaction> getTransactionsByType(Transaction.TransactionType type);
+    List<TransactionView> getTransactionsByType(Transaction.TransactionType type);
     
-    List<Transaction> getTransactionsByStatus(Transaction.TransactionStatus status);
+    List<TransactionView> getTransactionsByStatus(Transaction.TransactionStatus status);
     
-    Transaction getTransactionById(Long id);
+    TransactionView getTransactionById(Long id);
     
     void deleteTransaction(Long id);
     
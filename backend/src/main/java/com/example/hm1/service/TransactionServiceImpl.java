@@ -1,20 +1,30 @@
 package com.example.hm1.service;
 
+import com.example.hm1.dao.AccountActivityView;
+import com.example.hm1.dao.CustomerTransactionView;
+import com.example.hm1.dao.ExpenseRollupRepository;
+import com.example.hm1.dao.TransactionCursor;
 import com.example.hm1.dao.TransactionRepository;
+import com.example.hm1.dao.TransactionView;
+import com.example.hm1.dto.AccountActivityDTO;
 import com.example.hm1.dto.ExpenseStatisticsDTO;
+import com.example.hm1.dto.TransactionCursorPageDTO;
 import com.example.hm1.entity.Account;
 import com.example.hm1.entity.Customer;
+import com.example.hm1.entity.ExpenseRollup;
 import com.example.hm1.entity.Transaction;
+import com.example.hm1.service.stats.ExpenseAggregator;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -23,9 +33,12 @@ import java.util.Map;
 public class TransactionServiceImpl implements TransactionService {
 
     private final TransactionRepository transactionRepository;
+    private final ExpenseRollupRepository expenseRollupRepository;
 
-    public TransactionServiceImpl(TransactionRepository transactionRepository) {
+    public TransactionServiceImpl(TransactionRepository transactionRepository,
+                                  ExpenseRollupRepository expenseRollupRepository) {
         this.transactionRepository = transactionRepository;
+        this.expenseRollupRepository = expenseRollupRepository;
     }
 
     @Override
@@ -35,200 +48,223 @@ public class TransactionServiceImpl implements TransactionService {
                                        Account fromAccount, 
                                        Account toAccount, 
                                        Customer customer) {
+        return createTransaction(type, amount, description, fromAccount, toAccount, customer, null);
+    }
+
+    @Override
+    @Transactional
+    public Transaction createTransaction(Transaction.TransactionType type,
+                                       BigDecimal amount,
+                                       String description,
+                                       Account fromAccount,
+                                       Account toAccount,
+                                       Customer customer,
+                                       Long rateSnapshotId) {
         System.out.println("TransactionServiceImpl.createTransaction: type=" + type + ", amount=" + amount + ", customer=" + (customer != null ? customer.getId() : "null"));
         Transaction transaction = new Transaction(type, amount, description, fromAccount, toAccount, customer);
+        transaction.setRateSnapshotId(rateSnapshotId);
         
         Transaction saved = transactionRepository.save(transaction);
+        applyExpense(saved, saved.getCategory(), 1);
         System.out.println("TransactionServiceImpl.createTransaction: Saved transaction ID=" + saved.getId());
         return saved;
     }
 
+    @Override
+    @Transactional
+    public List<Transaction> createTransactions(List<Transaction> transactions) {
+        // saveAll у межах однієї транзакції: INSERT-и йдуть JDBC-пакетами по hibernate.jdbc.batch_size
+        List<Transaction> saved = transactionRepository.saveAll(transactions);
+        for (Transaction transaction : saved) {
+            applyExpense(transaction, transaction.getCategory(), 1);
+        }
+        return saved;
+    }
+
     @Override
     @Transactional(readOnly = true)
-    public List<Transaction> getTransactionsByCustomerId(Long customerId) {
+    public List<TransactionView> getTransactionsByCustomerId(Long customerId) {
         System.out.println("TransactionServiceImpl.getTransactionsByCustomerId: customerId=" + customerId);
-        List<Transaction> transactions = transactionRepository.findByCustomerIdOrderByTimestampDesc(customerId);
+        List<TransactionView> transactions = transactionRepository.findByCustomerIdOrderByTimestampDesc(customerId);
         System.out.println("TransactionServiceImpl.getTransactionsByCustomerId: Found " + transactions.size() + " transactions");
         if (!transactions.isEmpty()) {
-            System.out.println("TransactionServiceImpl.getTransactionsByCustomerId: First transaction: " + transactions.get(0));
+            System.out.println("TransactionServiceImpl.getTransactionsByCustomerId: First transaction ID=" + transactions.get(0).getId());
         }
         return transactions;
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Page<Transaction> getTransactionsByCustomerId(Long customerId, Pageable pageable) {
+    public Page<TransactionView> getTransactionsByCustomerId(Long customerId, Pageable pageable) {
         return transactionRepository.findByCustomerIdOrderByTimestampDescPage(customerId, pageable);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<Transaction> getAllTransactions() {
+    public TransactionCursorPageDTO getTransactionsByCustomerId(Long customerId, TransactionCursor cursor, int size) {
+        // Зайвий рядок показує, чи є наступна сторінка, без count-запиту
+        Pageable limit = PageRequest.ofSize(size + 1);
+        List<TransactionView> rows = cursor == null
+                ? transactionRepository.findFirstByCustomerIdKeyset(customerId, limit)
+                : transactionRepository.findByCustomerIdBefore(customerId, cursor.getTimestamp(), cursor.getId(), limit);
+        return toCursorPage(rows, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<CustomerTransactionView> getCustomerTransactionViews(Long customerId, Pageable pageable) {
+        return transactionRepository.findCustomerTransactionViews(customerId, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, AccountActivityDTO> getAccountActivity(Long customerId) {
+        // Обидва запити групують у БД, тож результат - рядок на рахунок, а не на транзакцію
+        Map<Long, AccountActivityDTO> activity = new LinkedHashMap<>();
+        for (AccountActivityView out : transactionRepository.sumOutgoingByCustomerAccounts(customerId)) {
+            activity.merge(out.getAccountId(),
+                    new AccountActivityDTO(out.getTransactionCount(), out.getTotal(), BigDecimal.ZERO, out.getLastActivity()),
+                    AccountActivityDTO::plus);
+        }
+        for (AccountActivityView in : transactionRepository.sumIncomingByCustomerAccounts(customerId)) {
+            activity.merge(in.getAccountId(),
+                    new AccountActivityDTO(in.getTransactionCount(), BigDecimal.ZERO, in.getTotal(), in.getLastActivity()),
+                    AccountActivityDTO::plus);
+        }
+        return activity;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TransactionView> getAllTransactions() {
         return transactionRepository.findAllOrderByTimestampDesc();
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Page<Transaction> getAllTransactions(Pageable pageable) {
+    public Page<TransactionView> getAllTransactions(Pageable pageable) {
         return transactionRepository.findAllOrderByTimestampDesc(pageable);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<Transaction> getTransactionsByDateRange(Long customerId, LocalDateTime startDate, LocalDateTime endDate) {
+    public TransactionCursorPageDTO getAllTransactions(TransactionCursor cursor, int size) {
+        Pageable limit = PageRequest.ofSize(size + 1);
+        List<TransactionView> rows = cursor == null
+                ? transactionRepository.findFirstKeyset(limit)
+                : transactionRepository.findAllBefore(cursor.getTimestamp(), cursor.getId(), limit);
+        return toCursorPage(rows, size);
+    }
+
+    private static TransactionCursorPageDTO toCursorPage(List<TransactionView> rows, int size) {
+        boolean hasMore = rows.size() > size;
+        List<TransactionView> content = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            TransactionView last = content.get(content.size() - 1);
+            nextCursor = new TransactionCursor(last.getTimestamp(), last.getId()).encode();
+        }
+        return new TransactionCursorPageDTO(content, nextCursor, hasMore);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TransactionView> getTransactionsByDateRange(Long customerId, LocalDateTime startDate, LocalDateTime endDate) {
         return transactionRepository.findByCustomerIdAndDateRange(customerId, startDate, endDate);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<Transaction> getAllTransactionsByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
+    public List<TransactionView> getAllTransactionsByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
         return transactionRepository.findAllByDateRange(startDate, endDate);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<Transaction> getTransactionsByType(Transaction.TransactionType type) {
+    public List<TransactionView> getTransactionsByType(Transaction.TransactionType type) {
         return transactionRepository.findByTypeOrderByTimestampDesc(type);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<Transaction> getTransactionsByStatus(Transaction.TransactionStatus status) {
+    public List<TransactionView> getTransactionsByStatus(Transaction.TransactionStatus status) {
         return transactionRepository.findByStatusOrderByTimestampDesc(status);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Transaction getTransactionById(Long id) {
-        return transactionRepository.findById(id)
+    public TransactionView getTransactionById(Long id) {
+        return transactionRepository.findViewById(id)
                 .orElseThrow(() -> new RuntimeException("Transaction not found with id: " + id));
     }
 
     @Override
+    @Transactional
     public void deleteTransaction(Long id) {
-        transactionRepository.deleteById(id);
+        transactionRepository.findByIdForUpdate(id).ifPresent(transaction -> {
+            applyExpense(transaction, transaction.getCategory(), -1);
+            transactionRepository.delete(transaction);
+        });
     }
 
     @Override
     @Transactional
     public Transaction updateTransactionCategory(Long transactionId, Transaction.ExpenseCategory category) {
-        Transaction transaction = getTransactionById(transactionId);
+        // Рядковий лок: дві одночасні зміни категорії не можуть обидві відняти ту саму стару категорію
+        Transaction transaction = transactionRepository.findByIdForUpdate(transactionId)
+                .orElseThrow(() -> new RuntimeException("Transaction not found with id: " + transactionId));
+        Transaction.ExpenseCategory previous = transaction.getCategory();
+        if (previous != category) {
+            applyExpense(transaction, previous, -1);
+            applyExpense(transaction, category, 1);
+        }
         transaction.setCategory(category);
         return transactionRepository.save(transaction);
     }
 
-    @Override
-    @Transactional(readOnly = true)
-    public ExpenseStatisticsDTO getExpenseStatisticsByMonth(Long customerId, int year, int month) {
-        LocalDate startDate = LocalDate.of(year, month, 1);
-        LocalDate endDate = startDate.plusMonths(1);
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atStartOfDay();
-
-        List<Object[]> results = transactionRepository.getExpenseStatisticsByMonth(
-                customerId, startDateTime, endDateTime);
-
-        Map<Transaction.ExpenseCategory, BigDecimal> expensesByCategory = new HashMap<>();
-        BigDecimal totalExpenses = BigDecimal.ZERO;
-
-        for (Object[] result : results) {
-            Transaction.ExpenseCategory category = (Transaction.ExpenseCategory) result[0];
-            BigDecimal amount = (BigDecimal) result[1];
-            expensesByCategory.put(category, amount);
-            totalExpenses = totalExpenses.add(amount);
+    /**
+     * Переносить витрату в expense_rollups у поточній транзакції БД: sign = 1 додає, -1 віднімає.
+     * Рахунок витрати - рахунок списання (для WITHDRAWAL / PAYMENT to_account зазвичай порожній).
+     */
+    private void applyExpense(Transaction transaction, Transaction.ExpenseCategory category, int sign) {
+        if (category == null || !isExpense(transaction.getType())
+                || transaction.getAmount() == null || transaction.getCustomer() == null) {
+            return;
         }
+        Long accountId = transaction.getFromAccount() != null ? transaction.getFromAccount().getId()
+                : transaction.getToAccount() != null ? transaction.getToAccount().getId()
+                : ExpenseRollup.NO_ACCOUNT;
+        LocalDate monthStart = transaction.getTimestamp().toLocalDate().withDayOfMonth(1);
+        BigDecimal amount = sign > 0 ? transaction.getAmount() : transaction.getAmount().negate();
+        expenseRollupRepository.addExpense(transaction.getCustomer().getId(), accountId, monthStart,
+                category.name(), amount, sign);
+    }
 
-        Map<Transaction.ExpenseCategory, Double> percentagesByCategory = new HashMap<>();
-        if (totalExpenses.compareTo(BigDecimal.ZERO) > 0) {
-            for (Map.Entry<Transaction.ExpenseCategory, BigDecimal> entry : expensesByCategory.entrySet()) {
-                BigDecimal percentage = entry.getValue()
-                        .divide(totalExpenses, 4, RoundingMode.HALF_UP)
-                        .multiply(BigDecimal.valueOf(100));
-                percentagesByCategory.put(entry.getKey(), percentage.doubleValue());
-            }
-        }
+    static boolean isExpense(Transaction.TransactionType type) {
+        return type == Transaction.TransactionType.WITHDRAWAL || type == Transaction.TransactionType.PAYMENT;
+    }
 
-        return new ExpenseStatisticsDTO(expensesByCategory, totalExpenses, percentagesByCategory);
+    @Override
+    @Transactional(readOnly = true)
+    public ExpenseStatisticsDTO getExpenseStatisticsByMonth(Long customerId, int year, int month) {
+        return ExpenseAggregator.fromCategoryRows(
+                expenseRollupRepository.sumByCustomerAndMonth(customerId, LocalDate.of(year, month, 1)));
     }
 
     @Override
     @Transactional(readOnly = true)
     public ExpenseStatisticsDTO getExpenseStatisticsByAccountAndMonth(Long accountId, int year, int month) {
-        LocalDate startDate = LocalDate.of(year, month, 1);
-        LocalDate endDate = startDate.plusMonths(1);
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atStartOfDay();
-
-        List<Object[]> results = transactionRepository.getExpenseStatisticsByAccountAndMonth(
-                accountId, startDateTime, endDateTime);
-
-        Map<Transaction.ExpenseCategory, BigDecimal> expensesByCategory = new HashMap<>();
-        BigDecimal totalExpenses = BigDecimal.ZERO;
-
-        for (Object[] result : results) {
-            Transaction.ExpenseCategory category = (Transaction.ExpenseCategory) result[0];
-            BigDecimal amount = (BigDecimal) result[1];
-            expensesByCategory.put(category, amount);
-            totalExpenses = totalExpenses.add(amount);
-        }
-
-        Map<Transaction.ExpenseCategory, Double> percentagesByCategory = new HashMap<>();
-        if (totalExpenses.compareTo(BigDecimal.ZERO) > 0) {
-            for (Map.Entry<Transaction.ExpenseCategory, BigDecimal> entry : expensesByCategory.entrySet()) {
-                BigDecimal percentage = entry.getValue()
-                        .divide(totalExpenses, 4, RoundingMode.HALF_UP)
-                        .multiply(BigDecimal.valueOf(100));
-                percentagesByCategory.put(entry.getKey(), percentage.doubleValue());
-            }
-        }
-
-        return new ExpenseStatisticsDTO(expensesByCategory, totalExpenses, percentagesByCategory);
+        return ExpenseAggregator.fromCategoryRows(
+                expenseRollupRepository.sumByAccountAndMonth(accountId, LocalDate.of(year, month, 1)));
     }
 
     @Override
     @Transactional(readOnly = true)
     public Map<Long, ExpenseStatisticsDTO> getExpenseStatisticsForAllUsersByMonth(int year, int month) {
-        LocalDate startDate = LocalDate.of(year, month, 1);
-        LocalDate endDate = startDate.plusMonths(1);
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atStartOfDay();
-
-        List<Object[]> results = transactionRepository.getExpenseStatisticsForAllUsersByMonth(
-                startDateTime, endDateTime);
-
-        Map<Long, Map<Transaction.ExpenseCategory, BigDecimal>> userExpensesMap = new HashMap<>();
-
-        for (Object[] result : results) {
-            Long customerId = ((Number) result[0]).longValue();
-            Transaction.ExpenseCategory category = (Transaction.ExpenseCategory) result[1];
-            BigDecimal amount = (BigDecimal) result[2];
-
-            userExpensesMap.computeIfAbsent(customerId, k -> new HashMap<>())
-                    .put(category, amount);
-        }
-
-        Map<Long, ExpenseStatisticsDTO> statisticsByUser = new HashMap<>();
-
-        for (Map.Entry<Long, Map<Transaction.ExpenseCategory, BigDecimal>> entry : userExpensesMap.entrySet()) {
-            Long customerId = entry.getKey();
-            Map<Transaction.ExpenseCategory, BigDecimal> expensesByCategory = entry.getValue();
-            BigDecimal totalExpenses = expensesByCategory.values().stream()
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            Map<Transaction.ExpenseCategory, Double> percentagesByCategory = new HashMap<>();
-            if (totalExpenses.compareTo(BigDecimal.ZERO) > 0) {
-                for (Map.Entry<Transaction.ExpenseCategory, BigDecimal> catEntry : expensesByCategory.entrySet()) {
-                    BigDecimal percentage = catEntry.getValue()
-                            .divide(totalExpenses, 4, RoundingMode.HALF_UP)
-                            .multiply(BigDecimal.valueOf(100));
-                    percentagesByCategory.put(catEntry.getKey(), percentage.doubleValue());
-                }
-            }
-
-            statisticsByUser.put(customerId, new ExpenseStatisticsDTO(
-                    expensesByCategory, totalExpenses, percentagesByCategory));
-        }
-
+        // Увесь звіт у пам'яті - для великої кількості клієнтів є ExpenseStatisticsStreamer
+        Map<Long, ExpenseStatisticsDTO> statisticsByUser = new LinkedHashMap<>();
+        ExpenseAggregator.forEachCustomer(
+                expenseRollupRepository.sumAllCustomersByMonth(LocalDate.of(year, month, 1)), statisticsByUser::put);
         return statisticsByUser;
     }
 }
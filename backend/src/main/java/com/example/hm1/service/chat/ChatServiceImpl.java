@@ -13,14 +13,15 @@ import com.example.hm1.entity.ChatMessage;
 import com.example.hm1.entity.ChatThread;
 import com.example.hm1.entity.Currency;
 import com.example.hm1.entity.Customer;
-import com.example.hm1.entity.Transaction;
+import com.example.hm1.entity.Money;
 import com.example.hm1.entity.User;
-import com.example.hm1.service.ExchangeRateService;
-import com.example.hm1.service.NotificationService;
-import com.example.hm1.service.TransactionService;
+import com.example.hm1.service.lock.OptimisticRetryExecutor;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -40,9 +41,9 @@ public class ChatServiceImpl implements ChatService {
     private final UserRepository userRepository;
     private final CustomerRepo customerRepo;
     private final AccountRepo accountRepo;
-    private final ExchangeRateService exchangeRateService;
-    private final TransactionService transactionService;
-    private final NotificationService notificationService;
+    private final ChatTransferService transferService;
+    private final OptimisticRetryExecutor retryExecutor;
+    private final TransactionTemplate messageTransaction;
     private final ChatCommandParser commandParser = new ChatCommandParser();
 
     public ChatServiceImpl(ChatThreadRepository threadRepository,
@@ -50,17 +51,17 @@ public class ChatServiceImpl implements ChatService {
                            UserRepository userRepository,
                            CustomerRepo customerRepo,
                            AccountRepo accountRepo,
-                           ExchangeRateService exchangeRateService,
-                           TransactionService transactionService,
-                           NotificationService notificationService) {
+                           ChatTransferService transferService,
+                           OptimisticRetryExecutor retryExecutor,
+                           PlatformTransactionManager transactionManager) {
         this.threadRepository = threadRepository;
         this.messageRepository = messageRepository;
         this.userRepository = userRepository;
         this.customerRepo = customerRepo;
         this.accountRepo = accountRepo;
-        this.exchangeRateService = exchangeRateService;
-        this.transactionService = transactionService;
-        this.notificationService = notificationService;
+        this.transferService = transferService;
+        this.retryExecutor = retryExecutor;
+        this.messageTransaction = new TransactionTemplate(transactionManager);
     }
 
     @Override
@@ -91,8 +92,30 @@ public class ChatServiceImpl implements ChatService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Без спільної транзакції: повідомлення зберігається у своїй, а переказ іде окремими
+     * транзакціями ChatTransferService з повтором. Так запит тримає одне з'єднання з пулу за раз.
+     */
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public ChatMessageResponse sendMessage(ChatMessageRequest request) {
+        SavedMessage saved = messageTransaction.execute(status -> saveMessage(request));
+        if (saved.transfer == null) {
+            return saved.response;
+        }
+
+        PendingTransfer transfer = saved.transfer;
+        try {
+            // Конфлікт версій Account повторюється новою транзакцією, а не валить відправку повідомлення
+            return retryExecutor.execute("chat_transfer", () -> transferService.transfer(
+                    saved.messageId, transfer.senderAccountNumber, transfer.recipientAccountNumber, transfer.amount));
+        } catch (Exception ex) {
+            return transferService.markFailed(saved.messageId,
+                    ex.getMessage() != null ? ex.getMessage() : "Помилка переказу");
+        }
+    }
+
+    private SavedMessage saveMessage(ChatMessageRequest request) {
         User sender = userRepository.findById(request.getSenderUserId())
                 .orElseThrow(() -> new EntityNotFoundException("Sender not found: " + request.getSenderUserId()));
 
@@ -113,16 +136,15 @@ public class ChatServiceImpl implements ChatService {
             message.setTransferStatus(ChatMessage.TransferStatus.PENDING);
         }
 
+        PendingTransfer transfer = cashCommand.isPresent()
+                ? prepareTransfer(thread, message, sender, cashCommand.get())
+                : null;
         message = messageRepository.save(message);
 
-        if (message.getMessageType() == ChatMessage.MessageType.TRANSFER) {
-            processTransfer(thread, message, sender, cashCommand.get());
-        }
-
         thread.setUpdatedAt(LocalDateTime.now());
         threadRepository.save(thread);
 
-        return ChatMessageResponse.from(message);
+        return new SavedMessage(message.getId(), ChatMessageResponse.from(message), transfer);
     }
 
     private ChatThread createThread(User currentUser, User otherUser) {
@@ -157,10 +179,11 @@ public class ChatServiceImpl implements ChatService {
         }
     }
 
-    private void processTransfer(ChatThread thread,
-                                 ChatMessage message,
-                                 User sender,
-                                 ChatCommandParser.CashCommand command) {
+    /** Рахунки сторін переказу або null, якщо переказ неможливий (повідомлення тоді вже FAILED). */
+    private PendingTransfer prepareTransfer(ChatThread thread,
+                                            ChatMessage message,
+                                            User sender,
+                                            ChatCommandParser.CashCommand command) {
         User recipient = thread.getParticipants().stream()
                 .filter(user -> !user.getId().equals(sender.getId()))
                 .findFirst()
@@ -171,91 +194,23 @@ public class ChatServiceImpl implements ChatService {
 
         Optional<Account> senderAccountOpt = findAccountForUser(sender, commandCurrency);
         if (senderAccountOpt.isEmpty()) {
-            markTransferFailure(message, "У відправника немає рахунку в валюті " + commandCurrency.name());
-            return;
+            ChatTransferService.markTransferFailure(message,
+                    "У відправника немає рахунку в валюті " + commandCurrency.name());
+            return null;
         }
 
         Optional<Account> recipientAccountOpt = findAccountForUser(recipient, commandCurrency);
         if (recipientAccountOpt.isEmpty()) {
-            markTransferFailure(message, "У отримувача немає рахунку в валюті " + commandCurrency.name());
-            return;
+            ChatTransferService.markTransferFailure(message,
+                    "У отримувача немає рахунку в валюті " + commandCurrency.name());
+            return null;
         }
 
-        Account senderAccount = senderAccountOpt.get();
-        Account recipientAccount = recipientAccountOpt.get();
-
-        try {
-            BigDecimal debitAmount = convertAmount(originalAmount, commandCurrency, senderAccount.getCurrency())
-                    .setScale(2, RoundingMode.HALF_UP);
-            BigDecimal creditAmount = convertAmount(originalAmount, commandCurrency, recipientAccount.getCurrency())
-                    .setScale(2, RoundingMode.HALF_UP);
-
-            BigDecimal senderBalance = BigDecimal.valueOf(senderAccount.getBalance()).setScale(2, RoundingMode.HALF_UP);
-            if (senderBalance.compareTo(debitAmount) < 0) {
-                markTransferFailure(message, "Недостатньо коштів");
-                return;
-            }
-
-            BigDecimal newSenderBalance = senderBalance.subtract(debitAmount).setScale(2, RoundingMode.HALF_UP);
-            BigDecimal newRecipientBalance = BigDecimal.valueOf(recipientAccount.getBalance())
-                    .setScale(2, RoundingMode.HALF_UP)
-                    .add(creditAmount)
-                    .setScale(2, RoundingMode.HALF_UP);
-
-            senderAccount.setBalance(newSenderBalance.doubleValue());
-            recipientAccount.setBalance(newRecipientBalance.doubleValue());
-            accountRepo.save(senderAccount);
-            accountRepo.save(recipientAccount);
-
-            String summary = String.format(
-                    "Chat transfer %s %.2f (debited %.2f %s, credited %.2f %s)",
-                    commandCurrency.name(),
-                    originalAmount,
-                    debitAmount,
-                    senderAccount.getCurrency().name(),
-                    creditAmount,
-                    recipientAccount.getCurrency().name()
-            );
-
-            Transaction senderTransaction = transactionService.createTransaction(
-                    Transaction.TransactionType.TRANSFER,
-                    debitAmount,
-                    summary,
-                    senderAccount,
-                    recipientAccount,
-                    senderAccount.getCustomer()
-            );
-
-            transactionService.createTransaction(
-                    Transaction.TransactionType.TRANSFER,
-                    creditAmount,
-                    summary,
-                    senderAccount,
-                    recipientAccount,
-                    recipientAccount.getCustomer()
-            );
-
-            message.setTransferAmount(originalAmount);
-            message.setTransferCurrency(commandCurrency.name());
-            message.setRelatedTransaction(senderTransaction);
-            message.setTransferStatus(ChatMessage.TransferStatus.SUCCESS);
-            messageRepository.save(message);
-
-            notificationService.sendAccountUpdateNotification(
-                    senderAccount.getNumber(),
-                    "CHAT_TRANSFER_OUT",
-                    debitAmount.doubleValue(),
-                    senderAccount.getBalance()
-            );
-            notificationService.sendAccountUpdateNotification(
-                    recipientAccount.getNumber(),
-                    "CHAT_TRANSFER_IN",
-                    creditAmount.doubleValue(),
-                    recipientAccount.getBalance()
-            );
-        } catch (Exception ex) {
-            markTransferFailure(message, ex.getMessage() != null ? ex.getMessage() : "Помилка переказу");
-        }
+        return new PendingTransfer(
+                senderAccountOpt.get().getNumber(),
+                recipientAccountOpt.get().getNumber(),
+                Money.of(originalAmount, commandCurrency)
+        );
     }
 
     private Optional<Account> findAccountForUser(User user, Currency preferredCurrency) {
@@ -271,27 +226,35 @@ public class ChatServiceImpl implements ChatService {
                 .min(Comparator.comparing(Account::getId));
     }
 
-    private BigDecimal convertAmount(BigDecimal amount, Currency from, Currency to) {
-        if (from == to) {
-            return amount;
+    private Currency toCurrency(String code) {
+        try {
+            return Currency.valueOf(code.toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Unsupported currency code: " + code);
         }
-        return exchangeRateService.convertAmount(amount, from, to);
     }
 
-    private void markTransferFailure(ChatMessage message, String reason) {
-        message.setTransferStatus(ChatMessage.TransferStatus.FAILED);
-        if (reason != null && !reason.isBlank()) {
-            message.setContent(message.getContent() + "\n(" + reason + ")");
+    private static final class SavedMessage {
+        private final Long messageId;
+        private final ChatMessageResponse response;
+        private final PendingTransfer transfer;
+
+        private SavedMessage(Long messageId, ChatMessageResponse response, PendingTransfer transfer) {
+            this.messageId = messageId;
+            this.response = response;
+            this.transfer = transfer;
         }
-        messageRepository.save(message);
     }
 
-    private Currency toCurrency(String code) {
-        try {
-            return Currency.valueOf(code.toUpperCase());
-        } catch (IllegalArgumentException ex) {
-            throw new IllegalArgumentException("Unsupported currency code: " + code);
+    private static final class PendingTransfer {
+        private final String senderAccountNumber;
+        private final String recipientAccountNumber;
+        private final Money amount;
+
+        private PendingTransfer(String senderAccountNumber, String recipientAccountNumber, Money amount) {
+            this.senderAccountNumber = senderAccountNumber;
+            this.recipientAccountNumber = recipientAccountNumber;
+            this.amount = amount;
         }
     }
 }
-
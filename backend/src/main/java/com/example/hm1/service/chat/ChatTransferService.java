@@ -0,0 +1,170 @@
+package com.example.hm1.service.chat;
+
+import com.example.hm1.dao.AccountRepo;
+import com.example.hm1.dao.ChatMessageRepository;
+import com.example.hm1.dto.chat.ChatMessageResponse;
+import com.example.hm1.entity.Account;
+import com.example.hm1.entity.ChatMessage;
+import com.example.hm1.entity.Currency;
+import com.example.hm1.entity.Money;
+import com.example.hm1.entity.Transaction;
+import com.example.hm1.service.ExchangeRateService;
+import com.example.hm1.service.NotificationService;
+import com.example.hm1.service.TransactionService;
+import com.example.hm1.service.lock.AccountLockManager;
+import com.example.hm1.service.lock.AccountLockManager.AccountLocks;
+import com.example.hm1.service.rates.RateSnapshot;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Грошова частина переказу з чату. ChatServiceImpl.sendMessage викликає її поза транзакцією
+ * і повторює через OptimisticRetryExecutor, як RetryingAccountService, тож кожна спроба - одна
+ * транзакція на одному з'єднанні. Статус повідомлення (SUCCESS чи FAILED) пишеться в тій самій
+ * транзакції, що й баланси: гроші не можуть рухнути без запису в чаті і навпаки.
+ * Рахунки блокуються AccountLockManager і читаються вже під локом, як в AccountServiceImpl.transfer.
+ */
+@Service
+public class ChatTransferService {
+
+    private final AccountRepo accountRepo;
+    private final ChatMessageRepository messageRepository;
+    private final ExchangeRateService exchangeRateService;
+    private final TransactionService transactionService;
+    private final NotificationService notificationService;
+    private final AccountLockManager lockManager;
+
+    public ChatTransferService(AccountRepo accountRepo,
+                               ChatMessageRepository messageRepository,
+                               ExchangeRateService exchangeRateService,
+                               TransactionService transactionService,
+                               NotificationService notificationService,
+                               AccountLockManager lockManager) {
+        this.accountRepo = accountRepo;
+        this.messageRepository = messageRepository;
+        this.exchangeRateService = exchangeRateService;
+        this.transactionService = transactionService;
+        this.notificationService = notificationService;
+        this.lockManager = lockManager;
+    }
+
+    @Transactional
+    public ChatMessageResponse transfer(Long messageId, String senderAccountNumber, String recipientAccountNumber,
+                                        Money original) {
+        ChatMessage message = loadMessage(messageId);
+        try (AccountLocks ignored = lockManager.acquire(senderAccountNumber, recipientAccountNumber)) {
+            Account senderAccount;
+            Account recipientAccount;
+            if (lockManager.usesDatabaseLocks() && senderAccountNumber.compareTo(recipientAccountNumber) > 0) {
+                recipientAccount = loadAccount(recipientAccountNumber);
+                senderAccount = loadAccount(senderAccountNumber);
+            } else {
+                senderAccount = loadAccount(senderAccountNumber);
+                recipientAccount = loadAccount(recipientAccountNumber);
+            }
+            if (senderAccount == null || recipientAccount == null) {
+                return markFailed(message, "Рахунок не знайдено");
+            }
+
+            Currency commandCurrency = original.getCurrency();
+            // Обидві ноги рахуються за одним знімком: оновлення курсів між ними не розведе суми
+            RateSnapshot rates = exchangeRateService.getCurrentSnapshot();
+            Money debitAmount = rates.convert(original, senderAccount.getCurrency());
+            Money creditAmount = rates.convert(original, recipientAccount.getCurrency());
+            boolean converted = senderAccount.getCurrency() != commandCurrency
+                    || recipientAccount.getCurrency() != commandCurrency;
+            Long rateSnapshotId = converted ? rates.getId() : null;
+
+            if (!senderAccount.hasFunds(debitAmount)) {
+                return markFailed(message, "Недостатньо коштів");
+            }
+
+            senderAccount.debit(debitAmount);
+            recipientAccount.credit(creditAmount);
+            accountRepo.save(senderAccount);
+            accountRepo.save(recipientAccount);
+
+            String summary = String.format(
+                    "Chat transfer %s %.2f (debited %.2f %s, credited %.2f %s)",
+                    commandCurrency.name(),
+                    original.toBigDecimal(),
+                    debitAmount.toBigDecimal(),
+                    senderAccount.getCurrency().name(),
+                    creditAmount.toBigDecimal(),
+                    recipientAccount.getCurrency().name()
+            );
+
+            Transaction senderTransaction = transactionService.createTransaction(
+                    Transaction.TransactionType.TRANSFER,
+                    debitAmount.toBigDecimal(),
+                    summary,
+                    senderAccount,
+                    recipientAccount,
+                    senderAccount.getCustomer(),
+                    rateSnapshotId
+            );
+
+            transactionService.createTransaction(
+                    Transaction.TransactionType.TRANSFER,
+                    creditAmount.toBigDecimal(),
+                    summary,
+                    senderAccount,
+                    recipientAccount,
+                    recipientAccount.getCustomer(),
+                    rateSnapshotId
+            );
+
+            notificationService.sendAccountUpdateNotification(
+                    senderAccount.getNumber(),
+                    "CHAT_TRANSFER_OUT",
+                    debitAmount,
+                    senderAccount.getBalance()
+            );
+            notificationService.sendAccountUpdateNotification(
+                    recipientAccount.getNumber(),
+                    "CHAT_TRANSFER_IN",
+                    creditAmount,
+                    recipientAccount.getBalance()
+            );
+
+            message.setTransferAmount(original.toBigDecimal());
+            message.setTransferCurrency(commandCurrency.name());
+            message.setRelatedTransaction(senderTransaction);
+            message.setTransferStatus(ChatMessage.TransferStatus.SUCCESS);
+            messageRepository.save(message);
+            return ChatMessageResponse.from(message);
+        }
+    }
+
+    /** Позначає переказ невдалим, коли всі спроби transfer завершились винятком. */
+    @Transactional
+    public ChatMessageResponse markFailed(Long messageId, String reason) {
+        return markFailed(loadMessage(messageId), reason);
+    }
+
+    static void markTransferFailure(ChatMessage message, String reason) {
+        message.setTransferStatus(ChatMessage.TransferStatus.FAILED);
+        if (reason != null && !reason.isBlank()) {
+            message.setContent(message.getContent() + "\n(" + reason + ")");
+        }
+    }
+
+    private ChatMessageResponse markFailed(ChatMessage message, String reason) {
+        markTransferFailure(message, reason);
+        messageRepository.save(message);
+        return ChatMessageResponse.from(message);
+    }
+
+    private ChatMessage loadMessage(Long messageId) {
+        return messageRepository.findById(messageId)
+                .orElseThrow(() -> new EntityNotFoundException("Chat message not found: " + messageId));
+    }
+
+    private Account loadAccount(String accountNumber) {
+        if (lockManager.usesDatabaseLocks()) {
+            return accountRepo.findByNumberForUpdate(accountNumber);
+        }
+        return accountRepo.findByNumber(accountNumber);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.hm1.service.lock;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped locks по номеру рахунку.
+ * Номер рахунку хешується в один з фіксованої кількості локів, тому пам'ять не росте
+ * з кількістю рахунків. Кілька локів завжди беруться в порядку зростання індексу,
+ * тож два зустрічні перекази A->B та B->A не можуть взаємно заблокуватись.
+ */
+@Component
+public class AccountLockManager {
+
+    private final AccountLockMode mode;
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public AccountLockManager(AccountLockProperties properties) {
+        this.mode = properties.getMode() != null ? properties.getMode() : AccountLockMode.STRIPED;
+        int size = Integer.highestOneBit(Math.max(1, properties.getStripes() - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    public AccountLockMode getMode() {
+        return mode;
+    }
+
+    public boolean usesDatabaseLocks() {
+        return mode == AccountLockMode.DATABASE;
+    }
+
+    /**
+     * Бере локи для всіх переданих рахунків у фіксованому порядку.
+     * Якщо є активна транзакція, локи відпускаються тільки після її commit/rollback,
+     * щоб наступний потік гарантовано прочитав вже закомічений баланс.
+     * У режимах DATABASE та OPTIMISTIC повертає порожній handle - серіалізацію робить
+     * SELECT ... FOR UPDATE або перевірка @Version при commit.
+     */
+    public AccountLocks acquire(String... accountNumbers) {
+        if (mode != AccountLockMode.STRIPED || accountNumbers.length == 0) {
+            return new AccountLocks(new ReentrantLock[0]);
+        }
+
+        int[] indexes = new int[accountNumbers.length];
+        for (int i = 0; i < accountNumbers.length; i++) {
+            indexes[i] = stripeIndex(accountNumbers[i]);
+        }
+        Arrays.sort(indexes);
+
+        ReentrantLock[] ordered = new ReentrantLock[indexes.length];
+        int count = 0;
+        for (int i = 0; i < indexes.length; i++) {
+            if (i == 0 || indexes[i] != indexes[i - 1]) {
+                ordered[count++] = stripes[indexes[i]];
+            }
+        }
+        ReentrantLock[] locks = Arrays.copyOf(ordered, count);
+
+        int acquired = 0;
+        try {
+            for (ReentrantLock lock : locks) {
+                lock.lock();
+                acquired++;
+            }
+        } catch (RuntimeException | Error e) {
+            for (int i = acquired - 1; i >= 0; i--) {
+                locks[i].unlock();
+            }
+            throw e;
+        }
+
+        AccountLocks handle = new AccountLocks(locks);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            handle.deferUntilTransactionCompletion();
+        }
+        return handle;
+    }
+
+    int stripeIndex(String accountNumber) {
+        int h = accountNumber != null ? accountNumber.hashCode() : 0;
+        h ^= (h >>> 16);
+        return h & mask;
+    }
+
+    int stripeCount() {
+        return stripes.length;
+    }
+
+    public static final class AccountLocks implements AutoCloseable {
+        private final ReentrantLock[] locks;
+        private boolean deferred;
+        private boolean released;
+
+        private AccountLocks(ReentrantLock[] locks) {
+            this.locks = locks;
+        }
+
+        private void deferUntilTransactionCompletion() {
+            deferred = true;
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    release();
+                }
+            });
+        }
+
+        private void release() {
+            if (released) {
+                return;
+            }
+            released = true;
+            for (int i = locks.length - 1; i >= 0; i--) {
+                locks[i].unlock();
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!deferred) {
+                release();
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.hm1.service.lock;
+
+/**
+ * Спосіб серіалізації конкурентних операцій над одним рахунком.
+ * STRIPED - in-process striped locks (один інстанс застосунку),
+ * DATABASE - SELECT ... FOR UPDATE на рядках accounts (кілька інстансів),
+ * OPTIMISTIC - без блокувань, конфлікти ловить @Version і операція повторюється.
+ */
+public enum AccountLockMode {
+    STRIPED,
+    DATABASE,
+    OPTIMISTIC
+}
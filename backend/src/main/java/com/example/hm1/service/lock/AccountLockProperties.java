@@ -0,0 +1,27 @@
+package com.example.hm1.service.lock;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "bank.accounts.locking")
+public class AccountLockProperties {
+    private AccountLockMode mode = AccountLockMode.STRIPED;
+    private int stripes = 256;
+
+    public AccountLockMode getMode() {
+        return mode;
+    }
+
+    public void setMode(AccountLockMode mode) {
+        this.mode = mode;
+    }
+
+    public int getStripes() {
+        return stripes;
+    }
+
+    public void setStripes(int stripes) {
+        this.stripes = stripes;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.hm1.service.lock;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Повторює операцію над рахунками при конфлікті версій (або lock timeout / deadlock у БД).
+ * Кожна спроба має виконуватись у власній транзакції, тому executor викликається
+ * ззовні транзакційного сервісу. Між спробами - експоненційний backoff з jitter,
+ * щоб конкуруючі потоки не повторювали запит синхронно.
+ *
+ * Метрики (тег operation):
+ * bank.account.operations - всі виклики, bank.account.conflicts - отримані конфлікти,
+ * bank.account.retries - повторні спроби, bank.account.retries.exhausted - невдачі після всіх спроб.
+ * Частка конфліктів = rate(bank_account_conflicts_total) / rate(bank_account_operations_total).
+ */
+@Component
+public class OptimisticRetryExecutor {
+
+    private final OptimisticRetryProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public OptimisticRetryExecutor(OptimisticRetryProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T execute(String operation, Supplier<T> action) {
+        counter("bank.account.operations", operation).increment();
+        int maxAttempts = Math.max(1, properties.getMaxAttempts());
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (RuntimeException e) {
+                if (!isRetryable(e)) {
+                    throw e;
+                }
+                counter("bank.account.conflicts", operation).increment();
+                if (attempt >= maxAttempts) {
+                    counter("bank.account.retries.exhausted", operation).increment();
+                    System.err.println("OptimisticRetryExecutor: " + operation + " failed after "
+                            + attempt + " attempts: " + e.getMessage());
+                    throw e;
+                }
+                counter("bank.account.retries", operation).increment();
+                backoff(attempt, e);
+            }
+        }
+    }
+
+    static boolean isRetryable(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof ConcurrencyFailureException || t instanceof OptimisticLockException) {
+                return true;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    private void backoff(int attempt, RuntimeException conflict) {
+        long ceiling = Math.min(properties.getMaxBackoffMillis(),
+                properties.getInitialBackoffMillis() << Math.min(attempt - 1, 20));
+        if (ceiling <= 0) {
+            return;
+        }
+        // "Equal jitter": половина інтервалу фіксована, половина випадкова
+        long sleepMillis = ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+        try {
+            Thread.sleep(sleepMillis);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+
+    private Counter counter(String name, String operation) {
+        return meterRegistry.counter(name, "operation", operation);
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.hm1.service.rates;
+
+import com.example.hm1.dto.ExchangeRateHistoryPoint;
+import com.example.hm1.entity.Currency;
+import com.example.hm1.entity.ExchangeRate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Незмінний знімок історії курсів до UAH у примітивних масивах.
+ * Для кожної валюти - суцільний ряд по днях: rates[c][i] - курс на день firstDays[c] + i
+ * у мільйонних частках (scale 6). Дні без запису заповнюються попереднім курсом,
+ * а після останнього запису діє останній курс. Запит за період - це проход по відрізку масиву.
+ */
+public final class ExchangeRateHistory {
+
+    private static final Currency[] CURRENCIES = Currency.values();
+    private static final ExchangeRateHistory EMPTY =
+            new ExchangeRateHistory(new long[CURRENCIES.length], new long[CURRENCIES.length][]);
+
+    private final long[] firstDays;
+    // null - по валюті немає жодного запису
+    private final long[][] rates;
+
+    private ExchangeRateHistory(long[] firstDays, long[][] rates) {
+        this.firstDays = firstDays;
+        this.rates = rates;
+    }
+
+    public static ExchangeRateHistory empty() {
+        return EMPTY;
+    }
+
+    /** Будує ряди з записів у будь-якому порядку. Для однієї валюти і дня має бути не більше одного запису. */
+    public static ExchangeRateHistory of(Collection<ExchangeRate> records) {
+        if (records.isEmpty()) {
+            return EMPTY;
+        }
+
+        long[] firstDays = new long[CURRENCIES.length];
+        long[] lastDays = new long[CURRENCIES.length];
+        boolean[] present = new boolean[CURRENCIES.length];
+        for (ExchangeRate record : records) {
+            int c = record.getCurrency().ordinal();
+            long day = record.getEffectiveAt().toEpochDay();
+            if (!present[c]) {
+                present[c] = true;
+                firstDays[c] = day;
+                lastDays[c] = day;
+            } else {
+                firstDays[c] = Math.min(firstDays[c], day);
+                lastDays[c] = Math.max(lastDays[c], day);
+            }
+        }
+
+        long[][] rates = new long[CURRENCIES.length][];
+        for (int c = 0; c < CURRENCIES.length; c++) {
+            if (present[c]) {
+                rates[c] = new long[Math.toIntExact(lastDays[c] - firstDays[c] + 1)];
+            }
+        }
+        for (ExchangeRate record : records) {
+            int c = record.getCurrency().ordinal();
+            int index = (int) (record.getEffectiveAt().toEpochDay() - firstDays[c]);
+            rates[c][index] = toMicros(record.getRateToUah());
+        }
+
+        // Курс діє до наступного запису: 0 (дня немає в БД) замінюємо попереднім значенням
+        for (long[] series : rates) {
+            if (series == null) {
+                continue;
+            }
+            for (int i = 1; i < series.length; i++) {
+                if (series[i] == 0) {
+                    series[i] = series[i - 1];
+                }
+            }
+        }
+        return new ExchangeRateHistory(firstDays, rates);
+    }
+
+    /**
+     * Точки по днях з from до to включно. Дні до першого запису пропускаються,
+     * тож для валюти без історії повертається порожній список.
+     */
+    public List<ExchangeRateHistoryPoint> points(Currency currency, LocalDate from, LocalDate to) {
+        long[] series = rates[currency.ordinal()];
+        if (series == null) {
+            return new ArrayList<>();
+        }
+
+        long firstDay = firstDays[currency.ordinal()];
+        long start = Math.max(from.toEpochDay(), firstDay);
+        long end = to.toEpochDay();
+        if (start > end) {
+            return new ArrayList<>();
+        }
+
+        int last = series.length - 1;
+        List<ExchangeRateHistoryPoint> points = new ArrayList<>((int) (end - start + 1));
+        for (long day = start; day <= end; day++) {
+            int index = (int) Math.min(day - firstDay, last);
+            points.add(new ExchangeRateHistoryPoint(LocalDate.ofEpochDay(day).toString(), toDisplayRate(series[index])));
+        }
+        return points;
+    }
+
+    /** Кількість днів у всіх рядах разом (для логів). */
+    public int size() {
+        int size = 0;
+        for (long[] series : rates) {
+            if (series != null) {
+                size += series.length;
+            }
+        }
+        return size;
+    }
+
+    private static long toMicros(BigDecimal rate) {
+        return rate.setScale(ExchangeRate.RATE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    // На графіку курси показуються з двома знаками, як і раніше
+    private static BigDecimal toDisplayRate(long micros) {
+        return BigDecimal.valueOf(micros, ExchangeRate.RATE_SCALE).setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.hm1.service.rates;
+
+import com.example.hm1.dao.ExchangeRateRepository;
+import com.example.hm1.entity.Currency;
+import com.example.hm1.entity.ExchangeRate;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Історія курсів: зберігається в таблиці exchange_rates, а читається з {@link ExchangeRateHistory} у пам'яті.
+ * Знімок завантажується при старті і перебудовується після commit кожного запису, читачі лише беруть посилання.
+ */
+@Service
+public class ExchangeRateHistoryStore {
+
+    private final ExchangeRateRepository exchangeRateRepository;
+    private final ExchangeRateProperties properties;
+
+    private volatile ExchangeRateHistory history = ExchangeRateHistory.empty();
+
+    public ExchangeRateHistoryStore(ExchangeRateRepository exchangeRateRepository,
+                                    ExchangeRateProperties properties) {
+        this.exchangeRateRepository = exchangeRateRepository;
+        this.properties = properties;
+    }
+
+    public ExchangeRateHistory getHistory() {
+        return history;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        LocalDate since = LocalDate.now().minusDays(properties.getHistoryDays());
+
+        List<ExchangeRate> records = new ArrayList<>();
+        // Курс, що діяв на початок вікна, ставимо на сам початок, щоб ряд не тягнувся в минуле
+        for (ExchangeRate before : exchangeRateRepository.findLatestBefore(since)) {
+            records.add(new ExchangeRate(before.getCurrency(), since, before.getRateToUah()));
+        }
+        for (ExchangeRate record : exchangeRateRepository.findHistorySince(since)) {
+            if (record.getEffectiveAt().equals(since)) {
+                records.removeIf(seed -> seed.getCurrency() == record.getCurrency());
+            }
+            records.add(record);
+        }
+
+        ExchangeRateHistory loaded = ExchangeRateHistory.of(records);
+        history = loaded;
+        System.out.println("ExchangeRateHistoryStore: Loaded " + loaded.size() + " daily rates since " + since);
+    }
+
+    /** Масове завантаження курсів (наприклад, архіву НБУ). Існуючі записи на ту ж дату перезаписуються. */
+    @Transactional
+    public int ingest(Collection<ExchangeRate> rates) {
+        int written = exchangeRateRepository.upsertAll(rates);
+        reloadAfterCommit();
+        return written;
+    }
+
+    /** Зберігає курси до UAH, що діють з вказаного дня. Сама UAH не зберігається. */
+    @Transactional
+    public int recordDailyRates(LocalDate day, Map<Currency, BigDecimal> ratesToUah) {
+        List<ExchangeRate> records = new ArrayList<>();
+        for (Map.Entry<Currency, BigDecimal> entry : ratesToUah.entrySet()) {
+            if (entry.getKey() != Currency.UAH) {
+                records.add(new ExchangeRate(entry.getKey(), day, entry.getValue()));
+            }
+        }
+        return ingest(records);
+    }
+
+    /**
+     * Знімок перебудовується лише після commit, як NotificationService.publish:
+     * якщо запис відкотиться, читачі не побачать курсів, яких немає в БД.
+     */
+    private void reloadAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    load();
+                }
+            });
+            return;
+        }
+        load();
+    }
+}
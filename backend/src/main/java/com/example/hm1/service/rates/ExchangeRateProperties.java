@@ -0,0 +1,61 @@
+package com.example.hm1.service.rates;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "bank.exchange-rates")
+public class ExchangeRateProperties {
+    // Скільки днів історії тримати в пам'яті (найдовший період на графіку - 12m)
+    private int historyDays = 730;
+    // Провайдери курсів у порядку пріоритету: валюту бере перший, хто її повернув
+    private List<String> providers = new ArrayList<>(List.of(FileExchangeRateProvider.NAME));
+    private Duration refreshInterval = Duration.ofHours(1);
+    // Скільки чекати на одного провайдера; повільний провайдер не затримує оновлення від інших
+    private Duration providerTimeout = Duration.ofSeconds(10);
+    private String stubFile = "classpath:exchange-rates-stub.json";
+
+    public int getHistoryDays() {
+        return historyDays;
+    }
+
+    public void setHistoryDays(int historyDays) {
+        this.historyDays = historyDays;
+    }
+
+    public List<String> getProviders() {
+        return providers;
+    }
+
+    public void setProviders(List<String> providers) {
+        this.providers = providers;
+    }
+
+    public Duration getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    public void setRefreshInterval(Duration refreshInterval) {
+        this.refreshInterval = refreshInterval;
+    }
+
+    public Duration getProviderTimeout() {
+        return providerTimeout;
+    }
+
+    public void setProviderTimeout(Duration providerTimeout) {
+        this.providerTimeout = providerTimeout;
+    }
+
+    public String getStubFile() {
+        return stubFile;
+    }
+
+    public void setStubFile(String stubFile) {
+        this.stubFile = stubFile;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.hm1.service.rates;
+
+import com.example.hm1.entity.Currency;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Джерело курсів валют. Нова реалізація - це Spring-бін з унікальним getName(),
+ * який вмикається через bank.exchange-rates.providers.
+ */
+public interface ExchangeRateProvider {
+
+    String getName();
+
+    /**
+     * Поточні курси: скільки UAH коштує одиниця валюти. Можна повертати не всі валюти.
+     * Викликається з потоку оновлення, тож може блокуватись на мережі; при помилці - кидати виняток.
+     */
+    Map<Currency, BigDecimal> fetchRatesToUah() throws Exception;
+}
@@ -0,0 +1,118 @@
+package com.example.hm1.service.rates;
+
+import com.example.hm1.entity.Currency;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Опитує всіх увімкнених провайдерів паралельно і зводить їхні курси в один набір.
+ * Якщо валюту повернули кілька провайдерів, береться курс того, хто раніше в bank.exchange-rates.providers.
+ * Провайдер, що впав або не вклався в таймаут, пропускається; виняток - лише коли не відповів ніхто.
+ */
+@Component
+public class ExchangeRateProviderPipeline {
+
+    private final List<ExchangeRateProvider> providers;
+    private final ExchangeRateProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService executor;
+
+    public ExchangeRateProviderPipeline(List<ExchangeRateProvider> availableProviders,
+                                        ExchangeRateProperties properties,
+                                        MeterRegistry meterRegistry) {
+        Map<String, ExchangeRateProvider> byName = new HashMap<>();
+        for (ExchangeRateProvider provider : availableProviders) {
+            byName.put(provider.getName(), provider);
+        }
+
+        List<ExchangeRateProvider> enabled = new ArrayList<>();
+        for (String name : properties.getProviders()) {
+            ExchangeRateProvider provider = byName.get(name.trim());
+            if (provider == null) {
+                throw new IllegalStateException("Unknown exchange rate provider: " + name + ", available: " + byName.keySet());
+            }
+            enabled.add(provider);
+        }
+
+        this.providers = List.copyOf(enabled);
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "exchange-rate-provider-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public List<String> getProviderNames() {
+        return providers.stream().map(ExchangeRateProvider::getName).toList();
+    }
+
+    public Map<Currency, BigDecimal> fetch() {
+        long timeoutMillis = properties.getProviderTimeout().toMillis();
+        List<CompletableFuture<Map<Currency, BigDecimal>>> futures = new ArrayList<>(providers.size());
+        for (ExchangeRateProvider provider : providers) {
+            futures.add(CompletableFuture
+                    .supplyAsync(() -> fetchFrom(provider), executor)
+                    .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS));
+        }
+
+        Map<Currency, BigDecimal> merged = new EnumMap<>(Currency.class);
+        int succeeded = 0;
+        for (int i = 0; i < providers.size(); i++) {
+            ExchangeRateProvider provider = providers.get(i);
+            try {
+                Map<Currency, BigDecimal> fetched = futures.get(i).join();
+                for (Map.Entry<Currency, BigDecimal> entry : fetched.entrySet()) {
+                    if (entry.getKey() != Currency.UAH && entry.getValue() != null && entry.getValue().signum() > 0) {
+                        merged.putIfAbsent(entry.getKey(), entry.getValue());
+                    }
+                }
+                succeeded++;
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                meterRegistry.counter("bank.exchange-rates.provider.failures", "provider", provider.getName()).increment();
+                System.err.println("ExchangeRateProviderPipeline: Provider " + provider.getName() + " failed: " + cause);
+            }
+        }
+
+        if (succeeded == 0) {
+            throw new IllegalStateException("All exchange rate providers failed: " + getProviderNames());
+        }
+        return merged;
+    }
+
+    private static Map<Currency, BigDecimal> fetchFrom(ExchangeRateProvider provider) {
+        try {
+            Map<Currency, BigDecimal> rates = provider.fetchRatesToUah();
+            if (rates == null) {
+                throw new IllegalStateException("Provider returned no rates");
+            }
+            return rates;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.hm1.service.rates;
+
+import com.example.hm1.entity.Currency;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Заглушка для роботи без мережі: курси з JSON-файлу {"USD": 37.50, "EUR": 40.80, ...}.
+ * Файл читається при кожному оновленні, тож змінені курси підхоплюються без перезапуску.
+ */
+@Component
+public class FileExchangeRateProvider implements ExchangeRateProvider {
+
+    public static final String NAME = "file";
+
+    private final ResourceLoader resourceLoader;
+    private final ObjectMapper objectMapper;
+    private final ExchangeRateProperties properties;
+
+    public FileExchangeRateProvider(ResourceLoader resourceLoader, ObjectMapper objectMapper,
+                                    ExchangeRateProperties properties) {
+        this.resourceLoader = resourceLoader;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Map<Currency, BigDecimal> fetchRatesToUah() throws Exception {
+        Resource resource = resourceLoader.getResource(properties.getStubFile());
+        JsonNode root;
+        try (InputStream in = resource.getInputStream()) {
+            root = objectMapper.readTree(in);
+        }
+
+        Map<Currency, BigDecimal> rates = new EnumMap<>(Currency.class);
+        Iterator<Map.Entry<String, JsonNode>> fields = root.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            rates.put(Currency.valueOf(field.getKey().toUpperCase()), field.getValue().decimalValue());
+        }
+        return rates;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.hm1.service.rates;
+
+import com.example.hm1.entity.Currency;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Офіційні курси НБУ (публічний API без ключа).
+ */
+@Component
+public class NbuExchangeRateProvider implements ExchangeRateProvider {
+
+    public static final String NAME = "nbu";
+
+    private static final String URL = "https://bank.gov.ua/NBUStatService/v1/statdirectory/exchange?json";
+
+    private final RestTemplate restTemplate;
+
+    public NbuExchangeRateProvider(RestTemplateBuilder restTemplateBuilder, ExchangeRateProperties properties) {
+        this.restTemplate = restTemplateBuilder
+                .setConnectTimeout(properties.getProviderTimeout())
+                .setReadTimeout(properties.getProviderTimeout())
+                .build();
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Map<Currency, BigDecimal> fetchRatesToUah() {
+        NbuRate[] response = restTemplate.getForObject(URL, NbuRate[].class);
+        if (response == null) {
+            throw new IllegalStateException("Empty response from NBU");
+        }
+
+        Map<Currency, BigDecimal> rates = new EnumMap<>(Currency.class);
+        for (NbuRate rate : response) {
+            for (Currency currency : Currency.values()) {
+                if (currency.name().equals(rate.cc) && rate.rate != null) {
+                    rates.put(currency, rate.rate);
+                }
+            }
+        }
+        return rates;
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class NbuRate {
+        public String cc;
+        public BigDecimal rate;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.hm1.service.rates;
+
+import com.example.hm1.entity.Currency;
+import com.example.hm1.entity.Money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Незмінний набір курсів, з яким виконується одна операція від початку до кінця.
+ * Операція бере знімок один раз і рахує всі свої ноги по ньому, тож паралельне оновлення курсів
+ * не може дати різні курси для списання і зарахування. Id знімка пишеться в транзакцію,
+ * а курси за id зберігаються в rate_snapshots - конвертацію можна перерахувати при аудиті.
+ */
+public final class RateSnapshot {
+
+    private static final Currency[] CURRENCIES = Currency.values();
+
+    // null - курси за замовчуванням, ще не збережені в БД
+    private final Long id;
+    private final LocalDateTime capturedAt;
+    private final Map<Currency, BigDecimal> ratesToUah;
+    // Усі кроскурси, rates[from.ordinal()][to.ordinal()]: пошук - два звернення до масиву
+    private final BigDecimal[][] rates;
+
+    private RateSnapshot(Long id, LocalDateTime capturedAt, Map<Currency, BigDecimal> ratesToUah) {
+        this.id = id;
+        this.capturedAt = capturedAt;
+        Map<Currency, BigDecimal> copy = new EnumMap<>(Currency.class);
+        copy.putAll(ratesToUah);
+        copy.put(Currency.UAH, BigDecimal.ONE);
+        this.ratesToUah = Collections.unmodifiableMap(copy);
+        this.rates = buildCrossRates(copy);
+    }
+
+    public static RateSnapshot of(Long id, LocalDateTime capturedAt, Map<Currency, BigDecimal> ratesToUah) {
+        return new RateSnapshot(id, capturedAt, ratesToUah);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDateTime getCapturedAt() {
+        return capturedAt;
+    }
+
+    public Map<Currency, BigDecimal> getRatesToUah() {
+        return ratesToUah;
+    }
+
+    public BigDecimal getRate(Currency from, Currency to) {
+        BigDecimal rate = rates[from.ordinal()][to.ordinal()];
+        if (rate == null) {
+            throw new IllegalArgumentException("Exchange rate not found for: " + from + " or " + to);
+        }
+        return rate;
+    }
+
+    public BigDecimal convertAmount(BigDecimal amount, Currency from, Currency to) {
+        // Округлюємо до 2 знаків після коми для грошових сум
+        return amount.multiply(getRate(from, to)).setScale(Money.SCALE, RoundingMode.HALF_UP);
+    }
+
+    public Money convert(Money amount, Currency to) {
+        if (amount.getCurrency() == to) {
+            return amount;
+        }
+        return Money.of(convertAmount(amount.toBigDecimal(), amount.getCurrency(), to), to);
+    }
+
+    /** Чи ті самі курси (без урахування кількості знаків після коми). */
+    public boolean hasSameRates(Map<Currency, BigDecimal> otherRatesToUah) {
+        for (Currency currency : CURRENCIES) {
+            if (currency == Currency.UAH) {
+                continue;
+            }
+            BigDecimal mine = ratesToUah.get(currency);
+            BigDecimal other = otherRatesToUah.get(currency);
+            if (mine == null || other == null ? mine != other : mine.compareTo(other) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static BigDecimal[][] buildCrossRates(Map<Currency, BigDecimal> ratesToUah) {
+        BigDecimal[][] rates = new BigDecimal[CURRENCIES.length][CURRENCIES.length];
+        for (Currency from : CURRENCIES) {
+            BigDecimal fromRate = ratesToUah.get(from);
+            for (Currency to : CURRENCIES) {
+                BigDecimal toRate = ratesToUah.get(to);
+                if (from == to) {
+                    rates[from.ordinal()][to.ordinal()] = BigDecimal.ONE;
+                } else if (fromRate != null && toRate != null) {
+                    rates[from.ordinal()][to.ordinal()] = calculateRateThroughBase(fromRate, toRate);
+                }
+            }
+        }
+        return rates;
+    }
+
+    /**
+     * Розрахунок курсу через базову валюту (UAH)
+     * Приклад: USD -> EUR через UAH
+     * 1 USD = 37.50 UAH
+     * 1 EUR = 40.80 UAH
+     * USD -> EUR = 37.50 / 40.80 = 0.9191 (1 USD = 0.9191 EUR)
+     */
+    private static BigDecimal calculateRateThroughBase(BigDecimal fromRate, BigDecimal toRate) {
+        // Конвертація через UAH: from -> UAH -> to
+        return fromRate.divide(toRate, 6, RoundingMode.HALF_UP);
+    }
+
+    @Override
+    public String toString() {
+        return "RateSnapshot{id=" + id + ", capturedAt=" + capturedAt + ", ratesToUah=" + ratesToUah + '}';
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.hm1.service.rates;
+
+import com.example.hm1.dao.RateSnapshotRepository;
+import com.example.hm1.entity.Currency;
+import com.example.hm1.entity.RateSnapshotRecord;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Зберігає знімки курсів у rate_snapshots, щоб конвертацію в транзакції можна було відтворити за її rate_snapshot_id.
+ */
+@Service
+public class RateSnapshotStore {
+
+    private final RateSnapshotRepository rateSnapshotRepository;
+
+    public RateSnapshotStore(RateSnapshotRepository rateSnapshotRepository) {
+        this.rateSnapshotRepository = rateSnapshotRepository;
+    }
+
+    @Transactional
+    public RateSnapshot save(Map<Currency, BigDecimal> ratesToUah) {
+        Map<Currency, BigDecimal> rates = new EnumMap<>(ratesToUah);
+        rates.remove(Currency.UAH);
+        RateSnapshotRecord saved = rateSnapshotRepository.save(new RateSnapshotRecord(LocalDateTime.now(), rates));
+        return toSnapshot(saved);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<RateSnapshot> findLatest() {
+        return rateSnapshotRepository.findTopByOrderByIdDesc().map(RateSnapshotStore::toSnapshot);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<RateSnapshot> findById(long id) {
+        return rateSnapshotRepository.findById(id).map(RateSnapshotStore::toSnapshot);
+    }
+
+    private static RateSnapshot toSnapshot(RateSnapshotRecord record) {
+        return RateSnapshot.of(record.getId(), record.getCapturedAt(), record.getRatesToUah());
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.hm1.service.stats;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * JPA-слухач для SystemStatsService. Hibernate створює його через Spring (SpringBeanContainer),
+ * тож сервіс підставляється сеттером; без Spring (бенчмарки на голому Hibernate) або без сервісу
+ * в контексті (@DataJpaTest) слухач нічого не робить.
+ */
+public class EntityCountListener {
+
+    private SystemStatsService stats;
+
+    @Autowired(required = false)
+    public void setStats(SystemStatsService stats) {
+        this.stats = stats;
+    }
+
+    @PostPersist
+    public void onPersist(Object entity) {
+        if (stats != null) {
+            stats.recordInsert(entity);
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        if (stats != null) {
+            stats.recordDelete(entity);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.hm1.service.stats;
+
+import com.example.hm1.dto.ExpenseStatisticsDTO;
+import com.example.hm1.entity.Money;
+import com.example.hm1.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Суми витрат по категоріях одного клієнта або рахунку. Накопичує копійки в long[] за ordinal
+ * категорії, тож додавання не створює BigDecimal і не хешує ключі; BigDecimal і EnumMap
+ * створюються лише один раз у toStatistics(). Екземпляр не потокобезпечний - для паралельної
+ * обробки кожен потік має власний і перевикористовує його через reset().
+ */
+public final class ExpenseAggregator {
+
+    private static final Transaction.ExpenseCategory[] CATEGORIES = Transaction.ExpenseCategory.values();
+
+    private final long[] minorUnits = new long[CATEGORIES.length];
+    /** Категорії, для яких був хоча б один рядок (як ключі HashMap у попередній реалізації). */
+    private long present;
+
+    public void add(Transaction.ExpenseCategory category, BigDecimal amount) {
+        addMinorUnits(category, Money.toMinorUnits(amount));
+    }
+
+    public void addMinorUnits(Transaction.ExpenseCategory category, long amount) {
+        int index = category.ordinal();
+        minorUnits[index] = Math.addExact(minorUnits[index], amount);
+        present |= 1L << index;
+    }
+
+    public boolean isEmpty() {
+        return present == 0;
+    }
+
+    public void reset() {
+        Arrays.fill(minorUnits, 0L);
+        present = 0;
+    }
+
+    /** Суми, загальна сума і відсотки (HALF_UP до сотих відсотка); відсотки лише при додатній сумі. */
+    public ExpenseStatisticsDTO toStatistics() {
+        Map<Transaction.ExpenseCategory, BigDecimal> expenses = new EnumMap<>(Transaction.ExpenseCategory.class);
+        long total = 0;
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            if ((present & (1L << i)) != 0) {
+                expenses.put(CATEGORIES[i], Money.toDecimal(minorUnits[i]));
+                total = Math.addExact(total, minorUnits[i]);
+            }
+        }
+
+        Map<Transaction.ExpenseCategory, Double> percentages = new EnumMap<>(Transaction.ExpenseCategory.class);
+        if (total > 0) {
+            for (int i = 0; i < CATEGORIES.length; i++) {
+                if ((present & (1L << i)) != 0) {
+                    percentages.put(CATEGORIES[i], percentage(minorUnits[i], total));
+                }
+            }
+        }
+        return new ExpenseStatisticsDTO(expenses, Money.toDecimal(total), percentages);
+    }
+
+    /**
+     * amount / total з чотирма знаками HALF_UP, помножене на 100 - те саме, що давав BigDecimal.divide.
+     * Для невід'ємних сум рахується в long; від'ємні (скасування більші за витрати) - через BigDecimal.
+     */
+    static double percentage(long amount, long total) {
+        if (amount >= 0 && amount <= Long.MAX_VALUE / 20_000) {
+            long basisPoints = (amount * 20_000 + total) / (2 * total);
+            return basisPoints / 100.0;
+        }
+        return BigDecimal.valueOf(amount)
+                .divide(BigDecimal.valueOf(total), 4, RoundingMode.HALF_UP)
+                .multiply(BigDecimal.valueOf(100))
+                .doubleValue();
+    }
+
+    /** Рядки [category, amount] одного клієнта або рахунку. */
+    public static ExpenseStatisticsDTO fromCategoryRows(List<Object[]> rows) {
+        ExpenseAggregator aggregator = new ExpenseAggregator();
+        for (Object[] row : rows) {
+            aggregator.add((Transaction.ExpenseCategory) row[0], (BigDecimal) row[1]);
+        }
+        return aggregator.toStatistics();
+    }
+
+    /**
+     * Рядки [customerId, category, amount]. Рядки одного клієнта мають іти поспіль (ORDER BY customer_id),
+     * тоді в пам'яті тримається лише поточний клієнт; кожен готовий клієнт передається в sink.
+     * @return кількість клієнтів
+     */
+    public static int forEachCustomer(List<Object[]> rows, BiConsumer<Long, ExpenseStatisticsDTO> sink) {
+        ExpenseAggregator aggregator = new ExpenseAggregator();
+        long currentId = 0;
+        int customers = 0;
+        for (Object[] row : rows) {
+            long customerId = ((Number) row[0]).longValue();
+            if (!aggregator.isEmpty() && customerId != currentId) {
+                sink.accept(currentId, aggregator.toStatistics());
+                customers++;
+                aggregator.reset();
+            }
+            currentId = customerId;
+            aggregator.add((Transaction.ExpenseCategory) row[1], (BigDecimal) row[2]);
+        }
+        if (!aggregator.isEmpty()) {
+            sink.accept(currentId, aggregator.toStatistics());
+            customers++;
+        }
+        return customers;
+    }
+}
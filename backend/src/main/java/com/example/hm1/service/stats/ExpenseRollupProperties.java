@@ -0,0 +1,33 @@
+package com.example.hm1.service.stats;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "bank.expense-rollups")
+public class ExpenseRollupProperties {
+
+    /** Як часто перераховувати останні місяці з transactions. */
+    private Duration reconcileInterval = Duration.ofHours(1);
+
+    /** Скільки останніх місяців (включно з поточним) перераховувати при звірці. */
+    private int reconcileMonths = 2;
+
+    public Duration getReconcileInterval() {
+        return reconcileInterval;
+    }
+
+    public void setReconcileInterval(Duration reconcileInterval) {
+        this.reconcileInterval = reconcileInterval;
+    }
+
+    public int getReconcileMonths() {
+        return reconcileMonths;
+    }
+
+    public void setReconcileMonths(int reconcileMonths) {
+        this.reconcileMonths = reconcileMonths;
+    }
+}
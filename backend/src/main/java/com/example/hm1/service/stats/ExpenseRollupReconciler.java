@@ -0,0 +1,112 @@
+package com.example.hm1.service.stats;
+
+import com.example.hm1.dao.ExpenseRollupRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * Заповнення і звірка expense_rollups з transactions. Місяць перераховується в одній транзакції
+ * REPEATABLE READ (DELETE місяця + INSERT ... SELECT GROUP BY з одного знімка): конкурентна
+ * витрата або чекає на лок і додається поверх перерахованого рядка, або звірка отримує
+ * serialization failure і цей місяць перераховується наступного разу.
+ *
+ * При старті порожня таблиця заповнюється з першого місяця з витратами; далі кожні
+ * bank.expense-rollups.reconcile-interval перераховуються останні reconcile-months місяців -
+ * це виправляє зміни, які обійшли TransactionService (SQL-скрипти, ON DELETE CASCADE).
+ *
+ * Метрика: bank.expense-rollups.rebuilds{result=ok|conflict|failed}.
+ */
+@Component
+public class ExpenseRollupReconciler {
+
+    private final ExpenseRollupRepository rollupRepository;
+    private final ExpenseRollupProperties properties;
+    private final TransactionTemplate rebuildTransaction;
+    private final Counter rebuildsOk;
+    private final Counter rebuildsConflict;
+    private final Counter rebuildsFailed;
+
+    public ExpenseRollupReconciler(ExpenseRollupRepository rollupRepository,
+                                   ExpenseRollupProperties properties,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry) {
+        this.rollupRepository = rollupRepository;
+        this.properties = properties;
+        this.rebuildTransaction = new TransactionTemplate(transactionManager);
+        this.rebuildTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.rebuildsOk = Counter.builder("bank.expense-rollups.rebuilds").tag("result", "ok").register(meterRegistry);
+        this.rebuildsConflict = Counter.builder("bank.expense-rollups.rebuilds").tag("result", "conflict").register(meterRegistry);
+        this.rebuildsFailed = Counter.builder("bank.expense-rollups.rebuilds").tag("result", "failed").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        try {
+            if (rollupRepository.count() > 0) {
+                return;
+            }
+            LocalDateTime firstExpense = rollupRepository.findFirstExpenseTimestamp();
+            if (firstExpense == null) {
+                return;
+            }
+            System.out.println("ExpenseRollupReconciler: Backfilling expense_rollups from " + YearMonth.from(firstExpense));
+            rebuild(YearMonth.from(firstExpense), YearMonth.now());
+        } catch (Exception e) {
+            System.err.println("ExpenseRollupReconciler: Backfill failed: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${bank.expense-rollups.reconcile-interval:PT1H}",
+            initialDelayString = "${bank.expense-rollups.reconcile-interval:PT1H}")
+    public void reconcileRecentMonths() {
+        YearMonth current = YearMonth.now();
+        rebuild(current.minusMonths(Math.max(1, properties.getReconcileMonths()) - 1), current);
+    }
+
+    /**
+     * Перераховує місяці from..to включно, кожен у власній транзакції.
+     * @return кількість місяців, які не вдалося перерахувати
+     */
+    public int rebuild(YearMonth from, YearMonth to) {
+        int failed = 0;
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            if (!rebuildMonth(month)) {
+                failed++;
+            }
+        }
+        return failed;
+    }
+
+    public boolean rebuildMonth(YearMonth month) {
+        try {
+            Integer rows = rebuildTransaction.execute(status -> {
+                rollupRepository.deleteMonth(month.atDay(1));
+                return rollupRepository.rebuildMonth(month.atDay(1),
+                        month.atDay(1).atStartOfDay(), month.plusMonths(1).atDay(1).atStartOfDay());
+            });
+            rebuildsOk.increment();
+            System.out.println("ExpenseRollupReconciler: Rebuilt " + month + " (" + rows + " rows)");
+            return true;
+        } catch (ConcurrencyFailureException e) {
+            // Конкурентна витрата змінила рядок цього місяця після нашого знімка
+            rebuildsConflict.increment();
+            System.out.println("ExpenseRollupReconciler: " + month + " changed concurrently, will retry on next run");
+            return false;
+        } catch (Exception e) {
+            rebuildsFailed.increment();
+            System.err.println("ExpenseRollupReconciler: Failed to rebuild " + month + ": " + e.getMessage());
+            return false;
+        }
+    }
+}
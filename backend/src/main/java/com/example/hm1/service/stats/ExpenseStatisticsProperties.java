@@ -0,0 +1,31 @@
+package com.example.hm1.service.stats;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "bank.expense-statistics")
+public class ExpenseStatisticsProperties {
+
+    /** Скільки порцій клієнтів звіту по всіх користувачах агрегуються одночасно. */
+    private int parallelism = 4;
+
+    /** Клієнтів в одній порції; порція - один запит до expense_rollups. */
+    private int chunkSize = 500;
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+}
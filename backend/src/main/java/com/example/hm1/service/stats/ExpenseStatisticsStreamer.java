@@ -0,0 +1,163 @@
+package com.example.hm1.service.stats;
+
+import com.example.hm1.dao.ExpenseRollupRepository;
+import com.example.hm1.dto.ExpenseStatisticsDTO;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Статистика витрат усіх клієнтів за місяць порціями. Id клієнтів вибираються keyset-сторінками
+ * по (month_start, customer_id), кожна порція агрегується окремим запитом у пулі з parallelism
+ * потоків, а готові порції передаються в sink по черзі на потоці виклику - у порядку id.
+ * Одночасно в пам'яті не більше parallelism порцій, незалежно від кількості клієнтів.
+ *
+ * Порції читаються в окремих транзакціях, тож звіт не є одним знімком: витрата, додана під час
+ * вивантаження, може потрапити або не потрапити в уже прочитаного клієнта.
+ */
+@Component
+public class ExpenseStatisticsStreamer {
+
+    private final ExpenseRollupRepository rollupRepository;
+    private final ObjectMapper objectMapper;
+    private final int parallelism;
+    private final int chunkSize;
+    private final ThreadPoolExecutor executor;
+
+    public ExpenseStatisticsStreamer(ExpenseRollupRepository rollupRepository,
+                                     ObjectMapper objectMapper,
+                                     ExpenseStatisticsProperties properties) {
+        this.rollupRepository = rollupRepository;
+        this.objectMapper = objectMapper;
+        this.parallelism = Math.max(1, properties.getParallelism());
+        this.chunkSize = Math.max(1, properties.getChunkSize());
+        AtomicInteger threadCounter = new AtomicInteger();
+        // Кожен виклик тримає не більше parallelism задач; при паралельних звітах надлишок
+        // агрегується на потоці виклику, а не накопичується в черзі
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(parallelism),
+                task -> {
+                    Thread thread = new Thread(task, "expense-statistics-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Передає статистику кожного клієнта з витратами за місяць у sink за зростанням id.
+     * @return кількість клієнтів
+     */
+    public long forEachCustomer(YearMonth month, BiConsumer<Long, ExpenseStatisticsDTO> sink) {
+        LocalDate monthStart = month.atDay(1);
+        Deque<Future<List<Map.Entry<Long, ExpenseStatisticsDTO>>>> inFlight = new ArrayDeque<>();
+        long customers = 0;
+        long afterId = 0;
+        try {
+            while (true) {
+                List<Long> ids = rollupRepository.findCustomerIdsAfter(monthStart, afterId, PageRequest.of(0, chunkSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                long fromId = ids.get(0);
+                long toId = ids.get(ids.size() - 1);
+                inFlight.addLast(executor.submit(() -> aggregateChunk(monthStart, fromId, toId)));
+                afterId = toId;
+                if (inFlight.size() >= parallelism) {
+                    customers += emit(inFlight.pollFirst(), sink);
+                }
+                if (ids.size() < chunkSize) {
+                    break;
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                customers += emit(inFlight.pollFirst(), sink);
+            }
+        } finally {
+            // Помилка sink (клієнт розірвав з'єднання) - решта порцій не потрібна
+            inFlight.forEach(future -> future.cancel(true));
+        }
+        return customers;
+    }
+
+    /**
+     * Пише JSON-об'єкт {"customerId": ExpenseStatisticsDTO, ...} - той самий формат, що й
+     * Map, який повертав звіт раніше, але без побудови Map для всіх клієнтів.
+     * @return кількість клієнтів
+     */
+    public long writeJson(YearMonth month, OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        long customers;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            customers = forEachCustomer(month, (customerId, statistics) -> {
+                try {
+                    generator.writeFieldName(Long.toString(customerId));
+                    generator.writeObject(statistics);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndObject();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        System.out.println("ExpenseStatisticsStreamer: Wrote " + customers + " customers for " + month + " in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) + " ms");
+        return customers;
+    }
+
+    private List<Map.Entry<Long, ExpenseStatisticsDTO>> aggregateChunk(LocalDate monthStart, long fromId, long toId) {
+        List<Object[]> rows = rollupRepository.sumCustomerRangeByMonth(monthStart, fromId, toId);
+        List<Map.Entry<Long, ExpenseStatisticsDTO>> chunk = new ArrayList<>(chunkSize);
+        ExpenseAggregator.forEachCustomer(rows, (customerId, statistics) -> chunk.add(Map.entry(customerId, statistics)));
+        return chunk;
+    }
+
+    private static int emit(Future<List<Map.Entry<Long, ExpenseStatisticsDTO>>> future,
+                            BiConsumer<Long, ExpenseStatisticsDTO> sink) {
+        List<Map.Entry<Long, ExpenseStatisticsDTO>> chunk;
+        try {
+            chunk = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Expense statistics export interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        for (Map.Entry<Long, ExpenseStatisticsDTO> entry : chunk) {
+            sink.accept(entry.getKey(), entry.getValue());
+        }
+        return chunk.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
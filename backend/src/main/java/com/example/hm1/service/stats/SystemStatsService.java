@@ -0,0 +1,174 @@
+package com.example.hm1.service.stats;
+
+import com.example.hm1.entity.Account;
+import com.example.hm1.entity.Customer;
+import com.example.hm1.entity.Transaction;
+import com.example.hm1.entity.User;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кількість користувачів, клієнтів, рахунків і транзакцій без SELECT count(*) на кожен запит.
+ * Лічильники змінюються з EntityCountListener (@PostPersist / @PostRemove); зміни в межах
+ * транзакції БД накопичуються і застосовуються лише після коміту, відкат їх відкидає.
+ * Видалення, які обходять Hibernate (ON DELETE CASCADE, bulk DELETE, SQL-скрипти), лічильники
+ * не бачать, тому reconcile() періодично перечитує count(*) і перезаписує значення.
+ *
+ * Метрики: bank.entities.count{entity=users|customers|accounts|transactions},
+ * bank.entities.reconcile.drift{entity} - наскільки лічильник розійшовся з БД на останній звірці.
+ */
+@Service
+public class SystemStatsService {
+
+    public enum Entity {
+        USERS("users"),
+        CUSTOMERS("customers"),
+        ACCOUNTS("accounts"),
+        TRANSACTIONS("transactions");
+
+        private final String table;
+
+        Entity(String table) {
+            this.table = table;
+        }
+
+        public String table() {
+            return table;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Entity, AtomicLong> counts = new EnumMap<>(Entity.class);
+    private final Map<Entity, AtomicLong> drift = new EnumMap<>(Entity.class);
+    private volatile boolean reconciled;
+
+    // JdbcTemplate замість репозиторіїв: слухач сутностей створюється разом з EntityManagerFactory,
+    // і залежність від JPA-репозиторіїв дала б цикл
+    public SystemStatsService(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        for (Entity entity : Entity.values()) {
+            AtomicLong count = new AtomicLong();
+            AtomicLong entityDrift = new AtomicLong();
+            counts.put(entity, count);
+            drift.put(entity, entityDrift);
+            Gauge.builder("bank.entities.count", count, AtomicLong::get)
+                    .tag("entity", entity.table())
+                    .register(meterRegistry);
+            Gauge.builder("bank.entities.reconcile.drift", entityDrift, AtomicLong::get)
+                    .tag("entity", entity.table())
+                    .register(meterRegistry);
+        }
+    }
+
+    /** Поточні значення; до першої звірки один раз читає count(*). */
+    public Map<Entity, Long> snapshot() {
+        if (!reconciled) {
+            reconcile();
+        }
+        Map<Entity, Long> snapshot = new EnumMap<>(Entity.class);
+        counts.forEach((entity, count) -> snapshot.put(entity, count.get()));
+        return snapshot;
+    }
+
+    public long get(Entity entity) {
+        return counts.get(entity).get();
+    }
+
+    public void recordInsert(Object entity) {
+        record(entity, 1);
+    }
+
+    public void recordDelete(Object entity) {
+        record(entity, -1);
+    }
+
+    private void record(Object entity, int delta) {
+        Entity kind = kindOf(entity);
+        if (kind == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            counts.get(kind).addAndGet(delta);
+            return;
+        }
+        PendingDeltas pending = (PendingDeltas) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingDeltas();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.deltas[kind.ordinal()] += delta;
+    }
+
+    static Entity kindOf(Object entity) {
+        if (entity instanceof Transaction) {
+            return Entity.TRANSACTIONS;
+        }
+        if (entity instanceof Account) {
+            return Entity.ACCOUNTS;
+        }
+        if (entity instanceof Customer) {
+            return Entity.CUSTOMERS;
+        }
+        if (entity instanceof User) {
+            return Entity.USERS;
+        }
+        return null;
+    }
+
+    /**
+     * Перезаписує лічильники значеннями count(*). Коміти, що збіглися зі звіркою, можуть
+     * дати розбіжність на кілька одиниць; її виправить наступна звірка.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${bank.stats.reconcile-interval:PT5M}",
+            initialDelayString = "${bank.stats.reconcile-interval:PT5M}")
+    public void reconcile() {
+        for (Entity entity : Entity.values()) {
+            Long actual;
+            try {
+                actual = jdbcTemplate.queryForObject("SELECT count(*) FROM " + entity.table(), Long.class);
+            } catch (Exception e) {
+                System.err.println("SystemStatsService: Failed to count " + entity.table() + ": " + e.getMessage());
+                continue;
+            }
+            long value = actual != null ? actual : 0;
+            long previous = counts.get(entity).getAndSet(value);
+            long diff = reconciled ? value - previous : 0;
+            drift.get(entity).set(diff);
+            if (diff != 0) {
+                System.out.println("SystemStatsService: " + entity.table() + " drifted by " + diff + ", reset to " + value);
+            }
+        }
+        reconciled = true;
+    }
+
+    private final class PendingDeltas implements TransactionSynchronization {
+        private final long[] deltas = new long[Entity.values().length];
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(SystemStatsService.this);
+            if (status != STATUS_COMMITTED) {
+                return;
+            }
+            for (Entity entity : Entity.values()) {
+                long delta = deltas[entity.ordinal()];
+                if (delta != 0) {
+                    counts.get(entity).addAndGet(delta);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+-- Виконується Spring SQL init (spring.sql.init.schema-locations) до створення EntityManagerFactory.
+-- Hibernate бере id блоками по 50 (pooled-lo) і при старті перевіряє крок послідовності, тому
+-- послідовності BIGSERIAL зі старих баз переводяться на INCREMENT BY 50 ще до цієї перевірки.
+-- На новій базі послідовностей ще немає - їх створить Hibernate з потрібним кроком.
+-- Значення, видане nextval, - нижня межа блоку, тож DEFAULT nextval у ручних INSERT не конфліктує з блоками.
+ALTER SEQUENCE IF EXISTS customers_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS employers_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS accounts_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS transactions_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS chat_threads_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS chat_messages_id_seq INCREMENT BY 50;
@@ -1,8 +1,13 @@
 package com.example.hm1.controller;
 
 import com.example.hm1.dao.AccountRepo;
+import com.example.hm1.dto.BatchTransferItemDTO;
+import com.example.hm1.dto.BatchTransferItemResultDTO;
+import com.example.hm1.dto.BatchTransferResultDTO;
 import com.example.hm1.entity.Account;
 import com.example.hm1.entity.Currency;
+import com.example.hm1.entity.Money;
+import com.example.hm1.security.JwtAuthFilter;
 import com.example.hm1.service.AccountService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,19 +16,28 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.mapping.JpaMetamodelMappingContext;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Map;
 
-import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@WebMvcTest(AccountController.class)
+@WebMvcTest(controllers = AccountController.class,
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = JwtAuthFilter.class))
 @AutoConfigureMockMvc(addFilters = false)
 class AccountControllerTest {
 
@@ -36,6 +50,9 @@ class AccountControllerTest {
     @MockBean
     private AccountRepo accountRepo;
 
+    @MockBean
+    private JpaMetamodelMappingContext jpaMetamodelMappingContext;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -48,20 +65,19 @@ class AccountControllerTest {
         usdAccount.setId(1L);
         usdAccount.setNumber("123456");
         usdAccount.setCurrency(Currency.USD);
-        usdAccount.setBalance(1000.0);
+        usdAccount.setBalance(Money.of("1000.00", Currency.USD));
 
         eurAccount = new Account();
         eurAccount.setId(2L);
         eurAccount.setNumber("654321");
         eurAccount.setCurrency(Currency.EUR);
-        eurAccount.setBalance(500.0);
+        eurAccount.setBalance(Money.of("500.00", Currency.EUR));
     }
 
     @Test
     void deposit_ShouldReturnSuccess_WhenValidAmount() throws Exception {
         Map<String, Object> request = Map.of("amount", 100.0);
-        when(accountRepo.findByNumber("123456")).thenReturn(usdAccount);
-        when(accountService.deposit("123456", 100.0)).thenReturn(true);
+        when(accountService.deposit(eq("123456"), amount("100.00"))).thenReturn(true);
 
         mockMvc.perform(post("/api/accounts/123456/deposit")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -69,13 +85,15 @@ class AccountControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().string("Deposit successful"));
 
-        verify(accountRepo).findByNumber("123456");
-        verify(accountService).deposit("123456", 100.0);
+        // Успішне поповнення - один виклик сервісу без попереднього читання рахунку
+        verify(accountService).deposit(eq("123456"), amount("100.00"));
+        verifyNoInteractions(accountRepo);
     }
 
     @Test
     void deposit_ShouldReturnNotFound_WhenAccountMissing() throws Exception {
         Map<String, Object> request = Map.of("amount", 100.0);
+        when(accountService.deposit(eq("123456"), amount("100.00"))).thenReturn(false);
         when(accountRepo.findByNumber("123456")).thenReturn(null);
 
         mockMvc.perform(post("/api/accounts/123456/deposit")
@@ -85,7 +103,6 @@ class AccountControllerTest {
                 .andExpect(content().string("Account not found"));
 
         verify(accountRepo).findByNumber("123456");
-        verify(accountService, never()).deposit(anyString(), anyDouble());
     }
 
     @Test
@@ -99,7 +116,7 @@ class AccountControllerTest {
                 .andExpect(jsonPath("$.error").value("Validation failed"))
                 .andExpect(jsonPath("$.errors.amount").value("Сума має бути більше 0"));
 
-        verify(accountService, never()).deposit(anyString(), anyDouble());
+        verify(accountService, never()).deposit(anyString(), any(BigDecimal.class));
     }
 
     @Test
@@ -113,14 +130,13 @@ class AccountControllerTest {
                 .andExpect(jsonPath("$.error").value("Validation failed"))
                 .andExpect(jsonPath("$.errors.amount").value("Сума обов'язкова"));
 
-        verify(accountService, never()).deposit(any(), anyDouble());
+        verify(accountService, never()).deposit(any(), any(BigDecimal.class));
     }
 
     @Test
     void withdraw_ShouldReturnSuccess_WhenValidAmount() throws Exception {
         Map<String, Object> request = Map.of("amount", 50.0);
-        when(accountRepo.findByNumber("123456")).thenReturn(usdAccount);
-        when(accountService.withdraw("123456", 50.0)).thenReturn(true);
+        when(accountService.withdraw(eq("123456"), amount("50.00"))).thenReturn(true);
 
         mockMvc.perform(post("/api/accounts/123456/withdraw")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -128,13 +144,14 @@ class AccountControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().string("Withdrawal successful"));
 
-        verify(accountRepo).findByNumber("123456");
-        verify(accountService).withdraw("123456", 50.0);
+        verify(accountService).withdraw(eq("123456"), amount("50.00"));
+        verifyNoInteractions(accountRepo);
     }
 
     @Test
     void withdraw_ShouldReturnNotFound_WhenAccountMissing() throws Exception {
         Map<String, Object> request = Map.of("amount", 50.0);
+        when(accountService.withdraw(eq("123456"), amount("50.00"))).thenReturn(false);
         when(accountRepo.findByNumber("123456")).thenReturn(null);
 
         mockMvc.perform(post("/api/accounts/123456/withdraw")
@@ -144,7 +161,19 @@ class AccountControllerTest {
                 .andExpect(content().string("Account not found"));
 
         verify(accountRepo).findByNumber("123456");
-        verify(accountService, never()).withdraw(anyString(), anyDouble());
+    }
+
+    @Test
+    void withdraw_ShouldExplainInsufficientFunds_WhenDebitRejected() throws Exception {
+        Map<String, Object> request = Map.of("amount", 5000.0);
+        when(accountService.withdraw(eq("123456"), amount("5000.00"))).thenReturn(false);
+        when(accountRepo.findByNumber("123456")).thenReturn(usdAccount);
+
+        mockMvc.perform(post("/api/accounts/123456/withdraw")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(containsString("Недостатньо коштів")));
     }
 
     @Test
@@ -158,7 +187,7 @@ class AccountControllerTest {
                 .andExpect(jsonPath("$.error").value("Validation failed"))
                 .andExpect(jsonPath("$.errors.amount").value("Сума має бути більше 0"));
 
-        verify(accountService, never()).withdraw(anyString(), anyDouble());
+        verify(accountService, never()).withdraw(anyString(), any(BigDecimal.class));
     }
 
     @Test
@@ -170,7 +199,7 @@ class AccountControllerTest {
 
         when(accountRepo.findByNumber("123456")).thenReturn(usdAccount);
         when(accountRepo.findByNumber("654321")).thenReturn(eurAccount);
-        when(accountService.transfer("123456", "654321", 200.0)).thenReturn(true);
+        when(accountService.transfer("123456", "654321", Money.of("200.00", Currency.USD))).thenReturn(true);
 
         mockMvc.perform(post("/api/accounts/123456/transfer")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -179,7 +208,7 @@ class AccountControllerTest {
                 .andExpect(content().string("Transfer successful"));
 
         verify(accountRepo, times(2)).findByNumber(anyString());
-        verify(accountService).transfer("123456", "654321", 200.0);
+        verify(accountService).transfer("123456", "654321", Money.of("200.00", Currency.USD));
     }
 
     @Test
@@ -199,7 +228,7 @@ class AccountControllerTest {
                 .andExpect(content().string("Destination account not found"));
 
         verify(accountRepo, times(2)).findByNumber(anyString());
-        verify(accountService, never()).transfer(anyString(), anyString(), anyDouble());
+        verify(accountService, never()).transfer(anyString(), anyString(), any(Money.class));
     }
 
     @Test
@@ -211,8 +240,51 @@ class AccountControllerTest {
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.error").value("Validation failed"))
-                .andExpect(jsonPath("$.errors.toAccountNumber").value("Номер рахунку обов'язковий"));
+                .andExpect(jsonPath("$.errors.toAccountNumber").value("Номер рахунку отримувача обов'язковий"));
+
+        verify(accountService, never()).transfer(anyString(), anyString(), any(Money.class));
+    }
+
+    @Test
+    void transferBatch_ShouldReturnPerItemResults() throws Exception {
+        BatchTransferItemDTO ok = new BatchTransferItemDTO("123456", "654321", new BigDecimal("100.00"));
+        BatchTransferItemDTO missing = new BatchTransferItemDTO("123456", "000000", new BigDecimal("10.00"));
+        Map<String, Object> request = Map.of("items", List.of(ok, missing));
+
+        BatchTransferResultDTO result = new BatchTransferResultDTO(List.of(
+                BatchTransferItemResultDTO.success(0, ok, Money.of("100.00", Currency.USD), Money.of("90.00", Currency.EUR)),
+                BatchTransferItemResultDTO.failed(1, missing, "Destination account not found")
+        ), 7L, 1_000_000L);
+        when(accountService.transferBatch(anyList())).thenReturn(result);
+
+        mockMvc.perform(post("/api/accounts/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.rateSnapshotId").value(7))
+                .andExpect(jsonPath("$.items[1].status").value("FAILED"))
+                .andExpect(jsonPath("$.items[1].message").value("Destination account not found"));
+
+        verify(accountService).transferBatch(anyList());
+    }
+
+    @Test
+    void transferBatch_ShouldReturnValidationError_WhenItemsEmpty() throws Exception {
+        Map<String, Object> request = Map.of("items", List.of());
+
+        mockMvc.perform(post("/api/accounts/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Validation failed"));
+
+        verify(accountService, never()).transferBatch(any());
+    }
 
-        verify(accountService, never()).transfer(anyString(), anyString(), anyDouble());
+    /** Сума з JSON без урахування scale: 100.0 і 100.00 - та сама сума. */
+    private static BigDecimal amount(String value) {
+        return argThat(actual -> actual != null && actual.compareTo(new BigDecimal(value)) == 0);
     }
 }
@@ -6,6 +6,8 @@ import com.example.hm1.dao.UserRepository;
 import com.example.hm1.entity.Customer;
 import com.example.hm1.entity.Role;
 import com.example.hm1.entity.User;
+import com.example.hm1.security.CachingUserDetailsService;
+import com.example.hm1.security.JwtAuthFilter;
 import com.example.hm1.security.JwtService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,6 +16,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.mapping.JpaMetamodelMappingContext;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -30,7 +35,8 @@ import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@WebMvcTest(AuthController.class)
+@WebMvcTest(controllers = AuthController.class,
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = JwtAuthFilter.class))
 @AutoConfigureMockMvc(addFilters = false)
 class AuthControllerTest {
 
@@ -55,6 +61,12 @@ class AuthControllerTest {
     @MockBean
     private PasswordEncoder passwordEncoder;
 
+    @MockBean
+    private CachingUserDetailsService userCache;
+
+    @MockBean
+    private JpaMetamodelMappingContext jpaMetamodelMappingContext;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -96,7 +108,7 @@ class AuthControllerTest {
         when(customerRepository.save(any(Customer.class))).thenReturn(testCustomer);
 
         // When & Then
-        mockMvc.perform(post("/auth/register")
+        mockMvc.perform(post("/api/auth/register")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isOk())
@@ -121,7 +133,7 @@ class AuthControllerTest {
         when(userRepository.existsByUsername("existinguser")).thenReturn(true);
 
         // When & Then
-        mockMvc.perform(post("/auth/register")
+        mockMvc.perform(post("/api/auth/register")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isBadRequest())
@@ -143,7 +155,7 @@ class AuthControllerTest {
         when(customerRepository.findByEmail("existing@example.com")).thenReturn(testCustomer);
 
         // When & Then
-        mockMvc.perform(post("/auth/register")
+        mockMvc.perform(post("/api/auth/register")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isBadRequest())
@@ -165,17 +177,17 @@ class AuthControllerTest {
         when(authentication.getPrincipal()).thenReturn(testUser);
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(authentication);
-        when(jwtService.generateToken(anyString(), any(String[].class))).thenReturn("jwt-token");
+        when(jwtService.generateToken(any(), anyString(), any(String[].class))).thenReturn("jwt-token");
 
         // When & Then
-        mockMvc.perform(post("/auth/login")
+        mockMvc.perform(post("/api/auth/login")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.accessToken").value("jwt-token"));
 
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verify(jwtService).generateToken(anyString(), any(String[].class));
+        verify(jwtService).generateToken(any(), anyString(), any(String[].class));
     }
 
     @Test
@@ -189,13 +201,14 @@ class AuthControllerTest {
                 .thenThrow(new RuntimeException("Bad credentials"));
 
         // When & Then
-        mockMvc.perform(post("/auth/login")
+        mockMvc.perform(post("/api/auth/login")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isBadRequest())
-                .andExpect(content().string("Login failed: Bad credentials"));
+                .andExpect(jsonPath("$.error").value("LOGIN_FAILED"))
+                .andExpect(jsonPath("$.message").value("Помилка входу: Bad credentials"));
 
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verify(jwtService, never()).generateToken(anyString(), any(String[].class));
+        verify(jwtService, never()).generateToken(any(), anyString(), any(String[].class));
     }
 }
@@ -0,0 +1,109 @@
+package com.example.hm1.controller;
+
+import com.example.hm1.dao.UserRepository;
+import com.example.hm1.dto.chat.ChatThreadResponse;
+import com.example.hm1.entity.User;
+import com.example.hm1.security.JwtAuthFilter;
+import com.example.hm1.security.JwtPrincipal;
+import com.example.hm1.security.UserSnapshot;
+import com.example.hm1.service.chat.ChatService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.mapping.JpaMetamodelMappingContext;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.test.context.TestSecurityContextHolder;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Фільтри вимкнені, а JwtAuthFilter тягне JwtService і UserDetailsService, яких у зрізі немає
+@WebMvcTest(controllers = ChatController.class,
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = JwtAuthFilter.class))
+@AutoConfigureMockMvc(addFilters = false)
+class ChatControllerTest {
+
+    private static final List<GrantedAuthority> USER_ROLE = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ChatService chatService;
+
+    @MockBean
+    private UserRepository userRepository;
+
+    @MockBean
+    private SimpMessagingTemplate messagingTemplate;
+
+    // @EnableJpaAuditing на Hm1Application вимагає метамодель, якої у web-зрізі немає
+    @MockBean
+    private JpaMetamodelMappingContext jpaMetamodelMappingContext;
+
+    @Test
+    void me_ShouldTakeUserIdFromJwtPrincipalWithoutQueryingUsers() throws Exception {
+        JwtPrincipal principal = new JwtPrincipal(7L, "alice", USER_ROLE);
+
+        authenticateAs(principal);
+
+        mockMvc.perform(get("/api/chat/me"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(7))
+                .andExpect(jsonPath("$.username").value("alice"));
+
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void threads_ShouldUseCachedSnapshotIdAndUserReference() throws Exception {
+        UserSnapshot snapshot = new UserSnapshot(9L, "bob", "{noop}x", true, USER_ROLE);
+        User reference = new User();
+        reference.setId(9L);
+        when(userRepository.getReferenceById(9L)).thenReturn(reference);
+        when(chatService.getThreadsForUser(reference)).thenReturn(List.<ChatThreadResponse>of());
+
+        authenticateAs(snapshot);
+
+        mockMvc.perform(get("/api/chat/threads"))
+                .andExpect(status().isOk());
+
+        verify(userRepository).getReferenceById(9L);
+        verify(userRepository, never()).findByUsername(anyString());
+        verify(chatService).getThreadsForUser(reference);
+    }
+
+    @Test
+    @WithMockUser(username = "carol")
+    void me_ShouldFallBackToUsersTableForOtherPrincipals() throws Exception {
+        User carol = new User();
+        carol.setId(11L);
+        carol.setUsername("carol");
+        when(userRepository.findByUsername("carol")).thenReturn(Optional.of(carol));
+
+        mockMvc.perform(get("/api/chat/me"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(11));
+
+        verify(userRepository).findByUsername("carol");
+    }
+
+    /** Фільтри вимкнені, тож principal кладемо прямо в контекст, як це зробив би JwtAuthFilter. */
+    private static void authenticateAs(Object principal) {
+        TestSecurityContextHolder.setAuthentication(new UsernamePasswordAuthenticationToken(principal, null, USER_ROLE));
+    }
+}
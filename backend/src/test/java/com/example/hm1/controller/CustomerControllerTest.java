@@ -3,7 +3,12 @@ package com.example.hm1.controller;
 import com.example.hm1.dao.CustomerRepo;
 import com.example.hm1.dao.EmployerRepo;
 import com.example.hm1.dao.UserRepository;
+import com.example.hm1.dto.CurrentCustomerDTO;
+import com.example.hm1.dto.CustomerResponseDTO;
+import com.example.hm1.entity.Currency;
 import com.example.hm1.entity.Customer;
+import com.example.hm1.entity.Money;
+import com.example.hm1.security.JwtAuthFilter;
 import com.example.hm1.service.CustomerService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,7 +17,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.mapping.JpaMetamodelMappingContext;
 import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.*;
@@ -25,7 +34,8 @@ import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@WebMvcTest(CustomerController.class)
+@WebMvcTest(controllers = CustomerController.class,
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = JwtAuthFilter.class))
 @AutoConfigureMockMvc(addFilters = false)
 class CustomerControllerTest {
 
@@ -44,6 +54,9 @@ class CustomerControllerTest {
     @MockBean
     private EmployerRepo employerRepo;
 
+    @MockBean
+    private JpaMetamodelMappingContext jpaMetamodelMappingContext;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -58,7 +71,7 @@ class CustomerControllerTest {
     @Test
     void getAllCustomers_ShouldReturnCustomersList() throws Exception {
         // Given
-        List<Customer> customers = Arrays.asList(testCustomer);
+        List<CustomerResponseDTO> customers = Arrays.asList(CustomerResponseDTO.from(testCustomer));
         when(customerService.getAllCustomers()).thenReturn(customers);
 
         // When & Then
@@ -72,10 +85,43 @@ class CustomerControllerTest {
         verify(customerService).getAllCustomers();
     }
 
+    @Test
+    @WithMockUser(username = "john")
+    void getCurrentCustomer_ShouldReturnCustomerWithEmployersAndAccounts() throws Exception {
+        // Given
+        CurrentCustomerDTO current = new CurrentCustomerDTO(1L, "John Doe", "john@example.com", 30,
+                List.of("Acme"),
+                List.of(new CurrentCustomerDTO.AccountSummary(100L, "ACC-0100", Currency.UAH, Money.of("150.00", Currency.UAH))));
+        when(customerService.getCurrentCustomer("john")).thenReturn(Optional.of(current));
+
+        // When & Then
+        mockMvc.perform(get("/api/customers/me"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(jsonPath("$.employers[0]").value("Acme"))
+                .andExpect(jsonPath("$.accounts[0].number").value("ACC-0100"));
+
+        verify(customerService).getCurrentCustomer("john");
+        verifyNoInteractions(userRepository, customerRepo);
+    }
+
+    @Test
+    @WithMockUser(username = "ghost")
+    void getCurrentCustomer_ShouldReturnNotFound_WithoutScanningCustomers() throws Exception {
+        // Given
+        when(customerService.getCurrentCustomer("ghost")).thenReturn(Optional.empty());
+
+        // When & Then
+        mockMvc.perform(get("/api/customers/me"))
+                .andExpect(status().isNotFound());
+
+        verifyNoInteractions(customerRepo);
+    }
+
     @Test
     void getCustomerById_ShouldReturnCustomer_WhenExists() throws Exception {
         // Given
-        when(customerService.getCustomerById(1L)).thenReturn(testCustomer);
+        when(customerService.getCustomerById(1L)).thenReturn(CustomerResponseDTO.from(testCustomer));
 
         // When & Then
         mockMvc.perform(get("/api/customers/1"))
@@ -99,6 +145,35 @@ class CustomerControllerTest {
         verify(customerService).getCustomerById(999L);
     }
 
+    @Test
+    void updateCustomer_ShouldReturnUpdatedCustomer_WhenExists() throws Exception {
+        // Given
+        Customer renamed = new Customer("John Smith", "john@example.com", 31);
+        renamed.setId(1L);
+        when(customerService.updateCustomer(eq(1L), any(Customer.class))).thenReturn(CustomerResponseDTO.from(renamed));
+
+        // When & Then
+        mockMvc.perform(put("/api/customers/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("name", "John Smith", "age", 31))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("John Smith"))
+                .andExpect(jsonPath("$.age").value(31))
+                .andExpect(jsonPath("$.accounts").isArray());
+    }
+
+    @Test
+    void updateCustomer_ShouldReturnNotFound_WhenNotExists() throws Exception {
+        // Given
+        when(customerService.updateCustomer(eq(999L), any(Customer.class))).thenReturn(null);
+
+        // When & Then
+        mockMvc.perform(put("/api/customers/999")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("name", "Ghost"))))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void createCustomer_ShouldReturnCreatedCustomer_WhenValidData() throws Exception {
         // Given
@@ -0,0 +1,220 @@
+package com.example.hm1.dao;
+
+import com.example.hm1.entity.Account;
+import com.example.hm1.entity.Currency;
+import com.example.hm1.entity.Customer;
+import com.example.hm1.entity.Money;
+import com.example.hm1.service.AccountServiceImpl;
+import com.example.hm1.service.ExchangeRateService;
+import com.example.hm1.service.NotificationService;
+import com.example.hm1.service.TransactionService;
+import com.example.hm1.service.lock.AccountLockManager;
+import com.example.hm1.service.lock.AccountLockProperties;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Порівняння старого шляху зняття коштів (findByNumber рахунку з клієнтом + save з @Version)
+ * з AccountServiceImpl.withdraw, який іде в AccountJpaRepository.debitInAccountCurrency (UPDATE ... RETURNING).
+ * Обидва шляхи виконуються через справжні репозиторії на PostgreSQL, а запити рахує Hibernate Statistics.
+ * Транзакції й повідомлення замокані: тут міряється лише робота з accounts. Без Docker тест пропускається.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Import({AccountServiceImpl.class, AccountRepoJpaImpl.class, CustomerRepoJpaImpl.class,
+        AccountLockManager.class, AccountLockProperties.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AccountBalanceUpdateBenchmarkTest {
+
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 2_000;
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", postgres::getDriverClassName);
+    }
+
+    @MockBean
+    private TransactionService transactionService;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    @MockBean
+    private ExchangeRateService exchangeRateService;
+
+    @Autowired
+    private AccountServiceImpl accountService;
+
+    @Autowired
+    private AccountRepo accountRepo;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private TransactionTemplate transactionTemplate;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void withdrawIsOneStatementInsteadOfLoadModifySave() {
+        String legacy = createAccount("1000000.00");
+        String atomic = createAccount("1000000.00");
+
+        for (int i = 0; i < WARMUP; i++) {
+            legacyWithdraw(legacy);
+            accountService.withdraw(atomic, AMOUNT);
+        }
+
+        statistics.clear();
+        long legacyStarted = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            legacyWithdraw(legacy);
+        }
+        long legacyNanos = System.nanoTime() - legacyStarted;
+        long legacyStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        long atomicStarted = System.nanoTime();
+        int applied = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            if (accountService.withdraw(atomic, AMOUNT)) {
+                applied++;
+            }
+        }
+        long atomicNanos = System.nanoTime() - atomicStarted;
+        long atomicStatements = statistics.getPrepareStatementCount();
+
+        System.out.printf("AccountBalanceUpdateBenchmarkTest: load-modify-save %.1f us/op, %.2f statements/op%n",
+                legacyNanos / 1_000.0 / ITERATIONS, (double) legacyStatements / ITERATIONS);
+        System.out.printf("AccountBalanceUpdateBenchmarkTest: atomic update   %.1f us/op, %.2f statements/op%n",
+                atomicNanos / 1_000.0 / ITERATIONS, (double) atomicStatements / ITERATIONS);
+
+        assertThat(applied).isEqualTo(ITERATIONS);
+        assertThat(atomicStatements).isEqualTo(ITERATIONS);
+        // SELECT рахунку з клієнтом + UPDATE з перевіркою версії (EAGER employers клієнта можуть додати ще запит)
+        assertThat(legacyStatements).isGreaterThanOrEqualTo(2L * ITERATIONS);
+        assertThat(balanceOf(atomic)).isEqualTo(balanceOf(legacy));
+    }
+
+    @Test
+    void depositReportsBalanceReturnedByTheUpdate() {
+        String number = createAccount("10.00");
+
+        statistics.clear();
+        assertThat(accountService.deposit(number, new BigDecimal("2.345"))).isTrue();
+
+        // Сума округлюється до копійок, а новий баланс береться з RETURNING без окремого SELECT
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(balanceOf(number)).isEqualTo(Money.of("12.35", Currency.USD));
+        verify(notificationService).sendAccountUpdateNotification(
+                number, "DEPOSIT", Money.of("2.35", Currency.USD), Money.of("12.35", Currency.USD));
+    }
+
+    @Test
+    void debitInAnotherCurrencyDoesNotTouchTheAccount() {
+        String number = createAccount("100.00");
+
+        assertThat(accountService.withdraw(number, Money.of("10.00", Currency.EUR))).isFalse();
+        assertThat(accountService.deposit(number, Money.of("10.00", Currency.EUR))).isFalse();
+
+        assertThat(balanceOf(number)).isEqualTo(Money.of("100.00", Currency.USD));
+    }
+
+    @Test
+    void concurrentWithdrawalsNeverOverdraw() throws Exception {
+        String number = createAccount("100.00");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        AtomicInteger succeeded = new AtomicInteger();
+
+        for (int i = 0; i < 200; i++) {
+            executor.submit(() -> {
+                if (accountService.withdraw(number, AMOUNT)) {
+                    succeeded.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(succeeded.get()).isEqualTo(100);
+        assertThat(balanceOf(number)).isEqualTo(Money.of("0.00", Currency.USD));
+    }
+
+    /** Старий шлях: завантажити рахунок разом з клієнтом, порахувати баланс у Java і зберегти. */
+    private void legacyWithdraw(String number) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Account account = accountRepo.findByNumber(number);
+            Money amount = Money.of(AMOUNT, account.getCurrency());
+            if (account.hasFunds(amount)) {
+                account.debit(amount);
+                accountRepo.save(account);
+            }
+        });
+    }
+
+    private String createAccount(String balance) {
+        return transactionTemplate.execute(status -> {
+            Customer customer = new Customer("Benchmark", "benchmark-" + System.nanoTime() + "@example.com", 30);
+            entityManager.persist(customer);
+            Account account = new Account(Currency.USD, customer);
+            account.setBalance(Money.of(balance, Currency.USD));
+            entityManager.persist(account);
+            return account.getNumber();
+        });
+    }
+
+    private Money balanceOf(String number) {
+        return accountRepo.findByNumber(number).getBalance();
+    }
+}
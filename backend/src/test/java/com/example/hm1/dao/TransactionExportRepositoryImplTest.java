@@ -0,0 +1,67 @@
+package com.example.hm1.dao;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionExportRepositoryImplTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionExportRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:transaction-export-" + System.nanoTime() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE accounts (id BIGINT PRIMARY KEY, number VARCHAR(50))");
+        jdbcTemplate.execute("CREATE TABLE transactions (id BIGINT PRIMARY KEY, amount NUMERIC(19,2), type VARCHAR(255), " +
+                "status VARCHAR(255), description VARCHAR(500), category VARCHAR(255), timestamp TIMESTAMP(6), " +
+                "from_account_id BIGINT, to_account_id BIGINT, customer_id BIGINT, rate_snapshot_id BIGINT)");
+        jdbcTemplate.execute("INSERT INTO accounts VALUES (1, 'ACC-1'), (2, 'ACC-2')");
+        jdbcTemplate.update("INSERT INTO transactions VALUES (30, 12.50, 'PAYMENT', 'COMPLETED', 'Coffee, large', 'FOOD', ?, 1, NULL, 7, NULL)",
+                LocalDateTime.of(2024, 5, 1, 9, 0));
+        jdbcTemplate.update("INSERT INTO transactions VALUES (10, 100.00, 'TRANSFER', 'COMPLETED', NULL, NULL, ?, 1, 2, 7, 4)",
+                LocalDateTime.of(2024, 5, 2, 9, 0));
+        jdbcTemplate.update("INSERT INTO transactions VALUES (20, 5.00, 'DEPOSIT', 'PENDING', 'Top up', NULL, ?, NULL, 2, 8, NULL)",
+                LocalDateTime.of(2024, 4, 30, 9, 0));
+        repository = new TransactionExportRepositoryImpl(jdbcTemplate);
+    }
+
+    @Test
+    void streamsAllRowsInIdOrderWithAccountNumbers() {
+        List<TransactionExportRow> rows = new ArrayList<>();
+
+        long emitted = repository.forEachExportRow(rows::add);
+
+        assertThat(emitted).isEqualTo(3);
+        assertThat(rows).extracting(TransactionExportRow::getId).containsExactly(10L, 20L, 30L);
+        TransactionExportRow transfer = rows.get(0);
+        assertThat(transfer.getFromAccount()).isEqualTo("ACC-1");
+        assertThat(transfer.getToAccount()).isEqualTo("ACC-2");
+        assertThat(transfer.getRateSnapshotId()).isEqualTo(4L);
+        assertThat(transfer.getAmount()).isEqualByComparingTo("100.00");
+        TransactionExportRow deposit = rows.get(1);
+        assertThat(deposit.getFromAccount()).isNull();
+        assertThat(deposit.getRateSnapshotId()).isNull();
+        assertThat(deposit.getCustomerId()).isEqualTo(8L);
+        assertThat(rows.get(2).getTimestamp()).isEqualTo(LocalDateTime.of(2024, 5, 1, 9, 0));
+        assertThat(rows.get(2).getCategory()).isEqualTo("FOOD");
+    }
+
+    @Test
+    void emptyTableEmitsNothing() {
+        jdbcTemplate.execute("DELETE FROM transactions");
+
+        assertThat(repository.forEachExportRow(row -> {
+            throw new AssertionError("unexpected row " + row.getId());
+        })).isZero();
+    }
+}
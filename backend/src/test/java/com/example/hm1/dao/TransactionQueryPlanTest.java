@@ -0,0 +1,354 @@
+package com.example.hm1.dao;
+
+import com.example.hm1.config.PartialIndexInitializer;
+import com.example.hm1.entity.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Регресія планів запитів до transactions. Кожен запит TransactionRepository (і читання transactions
+ * з ExpenseRollupRepository) виконується на PostgreSQL із засіяною таблицею; SQL, який згенерував
+ * Hibernate, разом з тими самими параметрами проганяється через EXPLAIN, і тест падає, якщо план
+ * містить Seq Scan on transactions (для рахунків клієнта - on accounts). Індекси створює сам Hibernate з @Index сутностей,
+ * часткові - PartialIndexInitializer, тож тест перевіряє саме те, що потрапляє в прод.
+ *
+ * Свідомо не перевіряються повні проходи: findAll, count, findAllOrderByTimestampDesc() без сторінки,
+ * forEachExportRow і count-запит сторінки всіх транзакцій.
+ * Без Docker тест пропускається.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Import(TransactionQueryPlanTest.StatementCaptureConfig.class)
+class TransactionQueryPlanTest {
+
+    private static final int CUSTOMERS = 2_000;
+    private static final int TRANSACTIONS = 300_000;
+    private static final long CUSTOMER_ID = 1L;
+    private static final long ACCOUNT_ID = 1L;
+    private static final LocalDateTime MAY_2023 = LocalDateTime.of(2023, 5, 1, 0, 0);
+
+    private static final List<CapturedStatement> CAPTURED = Collections.synchronizedList(new ArrayList<>());
+    private static boolean seeded;
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", postgres::getDriverClassName);
+    }
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ExpenseRollupRepository expenseRollupRepository;
+
+    @Autowired
+    private AccountJpaRepository accountJpaRepository;
+
+    /** Схему вже створив Hibernate при старті контексту; дані вставляються окремим з'єднанням з комітом. */
+    @BeforeEach
+    void seed() throws SQLException {
+        if (seeded) {
+            return;
+        }
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            for (String name : PartialIndexInitializer.PARTIAL_INDEXES.keySet()) {
+                statement.execute(PartialIndexInitializer.createStatement(name));
+            }
+            statement.execute("INSERT INTO customers (id, name, age, email, created_date) " +
+                    "SELECT g, 'Customer ' || g, 30, 'customer' || g || '@example.com', now() " +
+                    "FROM generate_series(1, " + CUSTOMERS + ") g");
+            // Два рахунки на клієнта: 2c - 1 і 2c
+            statement.execute("INSERT INTO accounts (id, number, currency, balance, version, customer_id, created_date) " +
+                    "SELECT g, 'ACC-' || g, 'USD', 0, 0, (g + 1) / 2, now() " +
+                    "FROM generate_series(1, " + (2 * CUSTOMERS) + ") g");
+            // Розподіл як у живій базі: переважно перекази й платежі, WITHDRAWAL і не-COMPLETED - рідкісні;
+            // id ростуть разом з timestamp (по 5 хвилин), як при звичайних вставках
+            statement.execute("INSERT INTO transactions (id, amount, type, status, description, category, timestamp, " +
+                    "from_account_id, to_account_id, customer_id, created_date) " +
+                    "SELECT g, (g % 1000) + 0.50, s.type, " +
+                    "CASE (g / 7) % 200 WHEN 0 THEN 'FAILED' WHEN 1 THEN 'PENDING' ELSE 'COMPLETED' END, " +
+                    "'Seeded', CASE WHEN s.type IN ('PAYMENT', 'WITHDRAWAL') THEN (ARRAY['FOOD', 'BILLS', 'SHOPPING'])[g % 3 + 1] END, " +
+                    "timestamp '2022-01-01' + g * interval '5 minutes', " +
+                    "CASE WHEN s.type = 'DEPOSIT' THEN NULL ELSE 2 * s.customer_id - 1 END, " +
+                    "CASE WHEN s.type IN ('DEPOSIT', 'TRANSFER') THEN (g * 7) % " + (2 * CUSTOMERS) + " + 1 END, " +
+                    "s.customer_id, now() " +
+                    "FROM generate_series(1, " + TRANSACTIONS + ") g " +
+                    "CROSS JOIN LATERAL (SELECT g % " + CUSTOMERS + " + 1 AS customer_id, " +
+                    "CASE WHEN g % 200 < 100 THEN 'TRANSFER' WHEN g % 200 < 170 THEN 'PAYMENT' " +
+                    "WHEN g % 200 < 199 THEN 'DEPOSIT' ELSE 'WITHDRAWAL' END AS type) s");
+            statement.execute("VACUUM ANALYZE customers");
+            statement.execute("VACUUM ANALYZE accounts");
+            statement.execute("VACUUM ANALYZE transactions");
+        }
+        seeded = true;
+    }
+
+    @Test
+    void customerHistoryUsesCustomerTimestampIndex() throws SQLException {
+        assertIndexed("findByCustomerIdOrderByTimestampDesc",
+                () -> transactionRepository.findByCustomerIdOrderByTimestampDesc(CUSTOMER_ID));
+        assertIndexed("findByCustomerIdOrderByTimestampDescPage",
+                () -> transactionRepository.findByCustomerIdOrderByTimestampDescPage(CUSTOMER_ID, PageRequest.of(2, 20)));
+        assertIndexed("findCustomerTransactionViews",
+                () -> transactionRepository.findCustomerTransactionViews(CUSTOMER_ID, PageRequest.of(1, 50)));
+        assertIndexed("findByCustomerIdAndDateRange",
+                () -> transactionRepository.findByCustomerIdAndDateRange(CUSTOMER_ID, MAY_2023, MAY_2023.plusMonths(1)));
+    }
+
+    @Test
+    void keysetPagesSeekIntoIndex() throws SQLException {
+        LocalDateTime cursor = MAY_2023.plusDays(3);
+        assertIndexed("findFirstByCustomerIdKeyset",
+                () -> transactionRepository.findFirstByCustomerIdKeyset(CUSTOMER_ID, PageRequest.ofSize(51)));
+        assertIndexed("findByCustomerIdBefore",
+                () -> transactionRepository.findByCustomerIdBefore(CUSTOMER_ID, cursor, 100_000L, PageRequest.ofSize(51)));
+        assertIndexed("findFirstKeyset",
+                () -> transactionRepository.findFirstKeyset(PageRequest.ofSize(51)));
+        assertIndexed("findAllBefore",
+                () -> transactionRepository.findAllBefore(cursor, 100_000L, PageRequest.ofSize(51)));
+    }
+
+    @Test
+    void globalTimeQueriesUseTimestampIndex() throws SQLException {
+        // count-запит Page рахує всю таблицю - перевіряється лише вибірка сторінки
+        assertIndexed("findAllOrderByTimestampDesc(Pageable)",
+                () -> transactionRepository.findAllOrderByTimestampDesc(PageRequest.of(100, 20)),
+                sql -> !sql.toLowerCase().contains("count("));
+        assertIndexed("findAllByDateRange",
+                () -> transactionRepository.findAllByDateRange(MAY_2023, MAY_2023.plusDays(7)));
+    }
+
+    @Test
+    void accountQueriesUseAccountIndexes() throws SQLException {
+        assertIndexed("findByFromAccountIdOrToAccountIdOrderByTimestampDesc",
+                () -> transactionRepository.findByFromAccountIdOrToAccountIdOrderByTimestampDesc(ACCOUNT_ID, ACCOUNT_ID));
+        assertIndexed("sumOutgoingByCustomerAccounts",
+                () -> transactionRepository.sumOutgoingByCustomerAccounts(CUSTOMER_ID));
+        assertIndexed("sumIncomingByCustomerAccounts",
+                () -> transactionRepository.sumIncomingByCustomerAccounts(CUSTOMER_ID));
+    }
+
+    @Test
+    void customerAccountsUseCustomerIndex() throws SQLException {
+        assertIndexed("findByCustomer_Id", "accounts",
+                () -> accountJpaRepository.findByCustomer_Id(CUSTOMER_ID), sql -> true);
+        assertIndexed("sumOutgoingByCustomerAccounts", "accounts",
+                () -> transactionRepository.sumOutgoingByCustomerAccounts(CUSTOMER_ID), sql -> true);
+        assertIndexed("sumIncomingByCustomerAccounts", "accounts",
+                () -> transactionRepository.sumIncomingByCustomerAccounts(CUSTOMER_ID), sql -> true);
+    }
+
+    @Test
+    void typeAndStatusFiltersUseTheirIndexes() throws SQLException {
+        assertIndexed("findByTypeOrderByTimestampDesc",
+                () -> transactionRepository.findByTypeOrderByTimestampDesc(Transaction.TransactionType.WITHDRAWAL));
+        assertIndexed("findByStatusOrderByTimestampDesc",
+                () -> transactionRepository.findByStatusOrderByTimestampDesc(Transaction.TransactionStatus.PENDING));
+        assertIndexed("findByIdForUpdate",
+                () -> transactionRepository.findByIdForUpdate(12_345L));
+    }
+
+    @Test
+    void expenseScansUsePartialIndex() throws SQLException {
+        assertIndexed("findFirstExpenseTimestamp",
+                () -> expenseRollupRepository.findFirstExpenseTimestamp());
+        LocalDate month = MAY_2023.toLocalDate();
+        assertIndexed("rebuildMonth",
+                () -> expenseRollupRepository.rebuildMonth(month, MAY_2023, MAY_2023.plusMonths(1)));
+    }
+
+    private void assertIndexed(String query, Runnable call) throws SQLException {
+        assertIndexed(query, call, sql -> true);
+    }
+
+    private void assertIndexed(String query, Runnable call, Predicate<String> checked) throws SQLException {
+        assertIndexed(query, "transactions", call, checked);
+    }
+
+    /** Виконує call, проганяє через EXPLAIN кожен його запит до table і перевіряє, що немає Seq Scan по ній. */
+    private void assertIndexed(String query, String table, Runnable call, Predicate<String> checked) throws SQLException {
+        Pattern tablePattern = Pattern.compile("\\b" + table + "\\b", Pattern.CASE_INSENSITIVE);
+        CAPTURED.clear();
+        call.run();
+        List<CapturedStatement> statements;
+        synchronized (CAPTURED) {
+            statements = new ArrayList<>(CAPTURED);
+        }
+        statements.removeIf(statement -> !tablePattern.matcher(statement.sql).find() || !checked.test(statement.sql));
+        assertThat(statements).as("statements captured for " + query).isNotEmpty();
+
+        try (Connection connection = connect()) {
+            for (CapturedStatement statement : statements) {
+                String plan = explain(connection, statement);
+                System.out.println("TransactionQueryPlanTest: " + query + "\n" + plan);
+                assertThat(plan)
+                        .as(query + " degraded to a sequential scan:\n" + statement.sql + "\n" + plan)
+                        .doesNotContain("Seq Scan on " + table);
+            }
+        }
+    }
+
+    private static String explain(Connection connection, CapturedStatement statement) throws SQLException {
+        try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + statement.sql)) {
+            for (CapturedStatement.Binding binding : statement.bindings) {
+                binding.applyTo(explain);
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = explain.executeQuery()) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+            }
+            return plan.toString();
+        }
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+    }
+
+    /** SQL з параметрами у тому вигляді, в якому Hibernate їх передав драйверу. */
+    private static final class CapturedStatement {
+        private final String sql;
+        private final List<Binding> bindings = new ArrayList<>();
+
+        private CapturedStatement(String sql) {
+            this.sql = sql;
+        }
+
+        /** Виклик setXxx(index, value, ...) - повторюється на PreparedStatement з EXPLAIN. */
+        private static final class Binding {
+            private final Method setter;
+            private final Object[] args;
+
+            private Binding(Method setter, Object[] args) {
+                this.setter = setter;
+                this.args = args;
+            }
+
+            private void applyTo(PreparedStatement statement) throws SQLException {
+                try {
+                    setter.invoke(statement, args);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                } catch (InvocationTargetException e) {
+                    if (e.getCause() instanceof SQLException sql) {
+                        throw sql;
+                    }
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        }
+    }
+
+    @TestConfiguration
+    static class StatementCaptureConfig {
+
+        @Bean
+        static BeanPostProcessor capturingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && !(bean instanceof CapturingDataSource)
+                            ? new CapturingDataSource(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    /** Записує SQL і параметри кожного PreparedStatement, виконаного через цей DataSource. */
+    static final class CapturingDataSource extends DelegatingDataSource {
+
+        CapturingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return capture(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return capture(super.getConnection(username, password));
+        }
+
+        private static Connection capture(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        Object result = invoke(connection, method, args);
+                        if (method.getName().equals("prepareStatement") && args != null && args[0] instanceof String sql) {
+                            return captureStatement((PreparedStatement) result, sql);
+                        }
+                        return result;
+                    });
+        }
+
+        private static PreparedStatement captureStatement(PreparedStatement statement, String sql) {
+            CapturedStatement captured = new CapturedStatement(sql);
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    (proxy, method, args) -> {
+                        String name = method.getName();
+                        if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                            captured.bindings.add(new CapturedStatement.Binding(method, args.clone()));
+                        } else if (name.startsWith("execute")) {
+                            CAPTURED.add(captured);
+                        }
+                        return invoke(statement, method, args);
+                    });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.hm1.dao;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserListingRepositoryImplTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private UserListingRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:user-listing-" + System.nanoTime() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, username VARCHAR(80), enabled BOOLEAN)");
+        jdbcTemplate.execute("CREATE TABLE roles (id BIGINT PRIMARY KEY, name VARCHAR(50))");
+        jdbcTemplate.execute("CREATE TABLE users_roles (user_id BIGINT, role_id BIGINT)");
+        jdbcTemplate.execute("CREATE TABLE customers (id BIGINT PRIMARY KEY, name VARCHAR(100), email VARCHAR(150), user_id BIGINT)");
+        jdbcTemplate.execute("INSERT INTO roles VALUES (1, 'ROLE_USER'), (2, 'ROLE_ADMIN')");
+        for (long id = 1; id <= 5; id++) {
+            jdbcTemplate.update("INSERT INTO users VALUES (?, ?, ?)", id, "user" + id, id != 4);
+            jdbcTemplate.update("INSERT INTO users_roles VALUES (?, 1)", id);
+        }
+        jdbcTemplate.update("INSERT INTO users_roles VALUES (2, 2)");
+        jdbcTemplate.update("INSERT INTO customers VALUES (20, 'Second', 'second@example.com', 2)");
+        repository = new UserListingRepositoryImpl(jdbcTemplate);
+    }
+
+    private List<UserListingRow> page(long afterId, int limit) {
+        List<UserListingRow> rows = new ArrayList<>();
+        int emitted = repository.forEachUserAfter(afterId, limit, rows::add);
+        assertThat(emitted).isEqualTo(rows.size());
+        return rows;
+    }
+
+    @Test
+    void pageCollapsesRolesAndJoinsCustomer() {
+        List<UserListingRow> rows = page(0, 2);
+
+        assertThat(rows).extracting(UserListingRow::getId).containsExactly(1L, 2L);
+        UserListingRow second = rows.get(1);
+        assertThat(second.getRoles()).containsExactly("ROLE_ADMIN", "ROLE_USER");
+        assertThat(second.getCustomerId()).isEqualTo(20L);
+        assertThat(second.getCustomerEmail()).isEqualTo("second@example.com");
+        assertThat(rows.get(0).getCustomerId()).isNull();
+    }
+
+    @Test
+    void keysetCursorWalksAllUsersOnce() {
+        List<Long> seen = new ArrayList<>();
+        long afterId = 0;
+        List<UserListingRow> rows;
+        do {
+            rows = page(afterId, 2);
+            for (UserListingRow row : rows) {
+                seen.add(row.getId());
+                afterId = row.getId();
+            }
+        } while (rows.size() == 2);
+
+        assertThat(seen).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(page(5, 2)).isEmpty();
+    }
+
+    @Test
+    void disabledUsersAreListed() {
+        assertThat(page(3, 1)).singleElement().satisfies(row -> {
+            assertThat(row.getUsername()).isEqualTo("user4");
+            assertThat(row.isEnabled()).isFalse();
+        });
+    }
+}
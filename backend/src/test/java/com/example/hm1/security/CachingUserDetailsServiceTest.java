@@ -0,0 +1,195 @@
+package com.example.hm1.security;
+
+import com.example.hm1.dao.UserRepository;
+import com.example.hm1.entity.Role;
+import com.example.hm1.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class CachingUserDetailsServiceTest {
+
+    private CustomUserDetailsService delegate;
+    private TokenRevocationRegistry revocations;
+    private UserCacheProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(CustomUserDetailsService.class);
+        when(delegate.loadUserByUsername(anyString())).thenAnswer(invocation -> user(invocation.getArgument(0), "ROLE_USER"));
+
+        SecurityProperties securityProperties = new SecurityProperties();
+        securityProperties.setExpirationMillis(60_000);
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findRevocations(any())).thenReturn(List.of());
+        revocations = new TokenRevocationRegistry(userRepository, securityProperties);
+        revocations.refresh();
+
+        properties = new UserCacheProperties();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private static User user(String username, String roleName) {
+        Role role = new Role();
+        role.setName(roleName);
+        return User.builder()
+                .id(1L)
+                .username(username)
+                .password("encoded")
+                .enabled(true)
+                .roles(Set.of(role))
+                .build();
+    }
+
+    private CachingUserDetailsService cache() {
+        return new CachingUserDetailsService(delegate, revocations, properties, meterRegistry);
+    }
+
+    private double counter(String name) {
+        return meterRegistry.counter(name).count();
+    }
+
+    private double evictions(String reason) {
+        return meterRegistry.counter("bank.user-cache.evictions", "reason", reason).count();
+    }
+
+    @Test
+    void repeatedLookupsAreServedFromCache() {
+        CachingUserDetailsService cache = cache();
+
+        UserSnapshot first = cache.loadUserByUsername("alice");
+        UserSnapshot second = cache.loadUserByUsername("alice");
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.getId()).isEqualTo(1L);
+        assertThat(first.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_USER");
+        verify(delegate, times(1)).loadUserByUsername("alice");
+        assertThat(counter("bank.user-cache.hits")).isEqualTo(1);
+        assertThat(counter("bank.user-cache.misses")).isEqualTo(1);
+        assertThat(meterRegistry.get("bank.user-cache.size").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void roleChangeAfterLoadInvalidatesEntry() {
+        CachingUserDetailsService cache = cache();
+        cache.loadUserByUsername("alice");
+        when(delegate.loadUserByUsername("alice")).thenReturn(user("alice", "ROLE_ADMIN"));
+
+        revocations.revokeTokens("alice", Instant.now());
+        UserSnapshot reloaded = cache.loadUserByUsername("alice");
+
+        assertThat(reloaded.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_ADMIN");
+        verify(delegate, times(2)).loadUserByUsername("alice");
+        assertThat(evictions("revoked")).isEqualTo(1);
+
+        // Новий запис завантажено після відкликання - він знову валідний
+        cache.loadUserByUsername("alice");
+        verify(delegate, times(2)).loadUserByUsername("alice");
+    }
+
+    @Test
+    void expiredEntryIsReloaded() {
+        properties.setTtl(Duration.ZERO);
+        CachingUserDetailsService cache = cache();
+
+        cache.loadUserByUsername("alice");
+        cache.loadUserByUsername("alice");
+
+        verify(delegate, times(2)).loadUserByUsername("alice");
+        assertThat(evictions("expired")).isEqualTo(1);
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedWhenFull() {
+        properties.setMaxSize(2);
+        CachingUserDetailsService cache = cache();
+
+        cache.loadUserByUsername("alice");
+        cache.loadUserByUsername("bob");
+        cache.loadUserByUsername("alice");
+        cache.loadUserByUsername("carol");
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(evictions("size")).isEqualTo(1);
+        cache.loadUserByUsername("alice");
+        verify(delegate, times(1)).loadUserByUsername("alice");
+        cache.loadUserByUsername("bob");
+        verify(delegate, times(2)).loadUserByUsername("bob");
+    }
+
+    @Test
+    void zeroSizeDisablesCache() {
+        properties.setMaxSize(0);
+        CachingUserDetailsService cache = cache();
+
+        cache.loadUserByUsername("alice");
+        cache.loadUserByUsername("alice");
+
+        verify(delegate, times(2)).loadUserByUsername("alice");
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void unknownUserIsNotCached() {
+        when(delegate.loadUserByUsername("ghost")).thenThrow(new UsernameNotFoundException("User not found: ghost"));
+        CachingUserDetailsService cache = cache();
+
+        assertThatThrownBy(() -> cache.loadUserByUsername("ghost")).isInstanceOf(UsernameNotFoundException.class);
+        assertThatThrownBy(() -> cache.loadUserByUsername("ghost")).isInstanceOf(UsernameNotFoundException.class);
+
+        verify(delegate, times(2)).loadUserByUsername("ghost");
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void concurrentMissesShareOneDatabaseLookup() throws Exception {
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.loadUserByUsername("alice")).thenAnswer(invocation -> {
+            loadStarted.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return user("alice", "ROLE_USER");
+        });
+        CachingUserDetailsService cache = cache();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<UserSnapshot> leader = executor.submit(() -> cache.loadUserByUsername("alice"));
+            assertThat(loadStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            List<Future<UserSnapshot>> followers = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                followers.add(executor.submit(() -> cache.loadUserByUsername("alice")));
+            }
+            // Даємо послідовникам дійти до очікування на спільний запит
+            Thread.sleep(100);
+            release.countDown();
+
+            UserSnapshot snapshot = leader.get(5, TimeUnit.SECONDS);
+            for (Future<UserSnapshot> follower : followers) {
+                assertThat(follower.get(5, TimeUnit.SECONDS)).isSameAs(snapshot);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(delegate, times(1)).loadUserByUsername("alice");
+    }
+}
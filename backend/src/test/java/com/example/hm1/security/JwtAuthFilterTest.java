@@ -0,0 +1,149 @@
+package com.example.hm1.security;
+
+import com.example.hm1.dao.UserRepository;
+import com.example.hm1.dao.UserRevocationView;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class JwtAuthFilterTest {
+
+    private SecurityProperties properties;
+    private JwtService jwtService;
+    private UserRepository userRepository;
+    private UserDetailsService userDetailsService;
+    private TokenRevocationRegistry revocations;
+    private JwtAuthFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SecurityProperties();
+        properties.setSecret(Base64.getEncoder().encodeToString("test-secret-key-with-at-least-256-bits!!".getBytes()));
+        properties.setExpirationMillis(60_000);
+        properties.setPrincipalSource(PrincipalSource.TOKEN);
+        jwtService = new JwtService(properties);
+
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findRevocations(any())).thenReturn(List.of());
+        revocations = new TokenRevocationRegistry(userRepository, properties);
+        revocations.refresh();
+
+        userDetailsService = mock(UserDetailsService.class);
+        UserDetails alice = org.springframework.security.core.userdetails.User.withUsername("alice")
+                .password("x").authorities("ROLE_USER").build();
+        when(userDetailsService.loadUserByUsername("alice")).thenReturn(alice);
+
+        filter = new JwtAuthFilter(jwtService, userDetailsService, properties, revocations);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Test
+    void tokenModeBuildsPrincipalFromClaimsWithoutDatabase() throws Exception {
+        String token = jwtService.generateToken(7L, "alice", new String[]{"ROLE_USER", "ROLE_ADMIN"});
+
+        Authentication authentication = authenticate(token);
+
+        assertThat(authentication.getName()).isEqualTo("alice");
+        assertThat(authentication.getPrincipal()).isInstanceOf(JwtPrincipal.class);
+        assertThat(((JwtPrincipal) authentication.getPrincipal()).getUserId()).isEqualTo(7L);
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactlyInAnyOrder("ROLE_USER", "ROLE_ADMIN");
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void tokenIssuedBeforeRoleChangeIsReloadedFromDatabase() throws Exception {
+        String token = jwtService.generateToken(7L, "alice", new String[]{"ROLE_USER", "ROLE_ADMIN"});
+        revocations.revokeTokens("alice", Instant.now().plusSeconds(2));
+
+        Authentication authentication = authenticate(token);
+
+        assertThat(authentication.getPrincipal()).isInstanceOf(UserDetails.class);
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_USER");
+        verify(userDetailsService).loadUserByUsername("alice");
+    }
+
+    @Test
+    void tokenIssuedInTheSecondOfRevocationIsReloadedFromDatabase() throws Exception {
+        String token = jwtService.generateToken(7L, "alice", new String[]{"ROLE_USER", "ROLE_ADMIN"});
+        // iat округлено до секунди, тож відкликання в ту ж секунду не можна відрізнити від пізнішого
+        revocations.revokeTokens("alice", Instant.now());
+
+        Authentication authentication = authenticate(token);
+
+        assertThat(authentication.getPrincipal()).isInstanceOf(UserDetails.class);
+        verify(userDetailsService).loadUserByUsername("alice");
+    }
+
+    @Test
+    void disabledUserIsNotAuthenticated() throws Exception {
+        String token = jwtService.generateToken(7L, "alice", new String[]{"ROLE_USER"});
+        revocations.setEnabled("alice", false);
+
+        assertThat(authenticate(token)).isNull();
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void disabledUsersAreLoadedOnRefresh() throws Exception {
+        UserRevocationView disabled = mock(UserRevocationView.class);
+        when(disabled.getUsername()).thenReturn("alice");
+        when(disabled.isEnabled()).thenReturn(false);
+        when(userRepository.findRevocations(any())).thenReturn(List.of(disabled));
+
+        revocations.refresh();
+
+        assertThat(revocations.isDisabled("alice")).isTrue();
+        assertThat(authenticate(jwtService.generateToken(7L, "alice", new String[]{"ROLE_USER"}))).isNull();
+    }
+
+    @Test
+    void tokenWithoutUserIdFallsBackToDatabase() throws Exception {
+        String token = jwtService.generateToken("alice", new String[]{"ROLE_USER"});
+
+        Authentication authentication = authenticate(token);
+
+        assertThat(authentication.getPrincipal()).isInstanceOf(UserDetails.class);
+        verify(userDetailsService).loadUserByUsername("alice");
+    }
+
+    @Test
+    void databaseModeLoadsUserOnEveryRequest() throws Exception {
+        properties.setPrincipalSource(PrincipalSource.DATABASE);
+        String token = jwtService.generateToken(7L, "alice", new String[]{"ROLE_USER"});
+
+        authenticate(token);
+        SecurityContextHolder.clearContext();
+        authenticate(token);
+
+        verify(userDetailsService, times(2)).loadUserByUsername("alice");
+    }
+}
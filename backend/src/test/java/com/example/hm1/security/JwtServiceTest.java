@@ -0,0 +1,92 @@
+package com.example.hm1.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtServiceTest {
+
+    private static final String SECRET =
+            Base64.getEncoder().encodeToString("test-secret-key-with-at-least-256-bits!!".getBytes());
+
+    private static JwtService service(long expirationMillis, int cacheSize) {
+        SecurityProperties properties = new SecurityProperties();
+        properties.setSecret(SECRET);
+        properties.setExpirationMillis(expirationMillis);
+        properties.setVerifiedTokenCacheSize(cacheSize);
+        return new JwtService(properties);
+    }
+
+    @Test
+    void repeatedVerificationOfSameTokenIsServedFromCache() {
+        JwtService jwtService = service(60_000, 100);
+        String token = jwtService.generateToken("alice", new String[]{"ROLE_USER"});
+
+        Claims first = jwtService.parseAllClaims(token);
+        Claims second = jwtService.parseAllClaims(token);
+
+        assertThat(first.getSubject()).isEqualTo("alice");
+        assertThat(second).isSameAs(first);
+        assertThat(jwtService.isTokenValid(first, "alice")).isTrue();
+        assertThat(jwtService.isTokenValid(token, "bob")).isFalse();
+    }
+
+    @Test
+    void disabledCacheVerifiesEveryTime() {
+        JwtService jwtService = service(60_000, 0);
+        String token = jwtService.generateToken("alice", new String[]{"ROLE_USER"});
+
+        assertThat(jwtService.parseAllClaims(token)).isNotSameAs(jwtService.parseAllClaims(token));
+        assertThat(jwtService.extractUsername(token)).isEqualTo("alice");
+    }
+
+    @Test
+    void tamperedAndExpiredTokensAreRejected() {
+        JwtService jwtService = service(60_000, 100);
+        String token = jwtService.generateToken("alice", new String[]{"ROLE_USER"});
+        jwtService.parseAllClaims(token);
+
+        // Інший підпис - інший ключ кешу, тому токен перевіряється заново і відхиляється
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        assertThatThrownBy(() -> jwtService.parseAllClaims(tampered)).isInstanceOf(JwtException.class);
+
+        JwtService expiredTokens = service(-1_000, 100);
+        String expired = expiredTokens.generateToken("alice", new String[]{"ROLE_USER"});
+        assertThatThrownBy(() -> expiredTokens.parseAllClaims(expired)).isInstanceOf(ExpiredJwtException.class);
+    }
+
+    @Test
+    void cacheStaysWithinConfiguredSize() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(3);
+        JwtService jwtService = service(60_000, 0);
+        long now = System.currentTimeMillis();
+
+        for (int i = 0; i < 10; i++) {
+            String token = jwtService.generateToken("user" + i, new String[]{"ROLE_USER"});
+            cache.put(token, jwtService.parseAllClaims(token), now);
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void cachedClaimsAreDroppedAfterTokenExpires() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        JwtService jwtService = service(60_000, 0);
+        String token = jwtService.generateToken("alice", new String[]{"ROLE_USER"});
+        Claims claims = jwtService.parseAllClaims(token);
+        long now = System.currentTimeMillis();
+
+        cache.put(token, claims, now);
+
+        assertThat(cache.get(token, now)).isSameAs(claims);
+        assertThat(cache.get(token, claims.getExpiration().getTime())).isNull();
+        assertThat(cache.size()).isZero();
+    }
+}
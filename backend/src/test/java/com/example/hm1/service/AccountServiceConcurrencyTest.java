@@ -0,0 +1,198 @@
+package com.example.hm1.service;
+
+import com.example.hm1.dao.AccountRepo;
+import com.example.hm1.dao.AccountRepoJpaImpl;
+import com.example.hm1.dao.CustomerRepo;
+import com.example.hm1.dao.CustomerRepoJpaImpl;
+import com.example.hm1.entity.Account;
+import com.example.hm1.entity.Currency;
+import com.example.hm1.entity.Customer;
+import com.example.hm1.entity.Money;
+import com.example.hm1.service.lock.AccountLockManager;
+import com.example.hm1.service.lock.AccountLockMode;
+import com.example.hm1.service.lock.AccountLockProperties;
+import com.example.hm1.service.lock.OptimisticRetryExecutor;
+import com.example.hm1.service.lock.OptimisticRetryProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Паралельні перекази AccountServiceImpl.transfer між кількома "гарячими" рахунками на PostgreSQL:
+ * striped-локи в пам'яті (STRIPED) проти SELECT ... FOR UPDATE (DATABASE). Кожен переказ іде,
+ * як з RetryingAccountService, - через OptimisticRetryExecutor у власній транзакції.
+ * Перевіряється поведінка: баланс кожного рахунку дорівнює початковому плюс сума успішних
+ * переказів (жодне оновлення не загубилось), немає овердрафту, винятків і конфліктів версій.
+ * Пропускна здатність лише друкується для порівняння режимів. Без Docker тест пропускається.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Import({AccountRepoJpaImpl.class, CustomerRepoJpaImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AccountServiceConcurrencyTest {
+
+    private static final int ACCOUNTS = 8;
+    private static final int THREADS = 16;
+    private static final int TRANSFERS = 2_000;
+    private static final Money INITIAL_BALANCE = Money.of("1000.00", Currency.USD);
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", postgres::getDriverClassName);
+    }
+
+    @MockBean
+    private TransactionService transactionService;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    @MockBean
+    private ExchangeRateService exchangeRateService;
+
+    @Autowired
+    private AccountRepo accountRepo;
+
+    @Autowired
+    private CustomerRepo customerRepo;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void stripedLocksSerializeTransfersOnHotAccounts() throws Exception {
+        double opsPerSecond = runTransfers(AccountLockMode.STRIPED);
+        System.out.printf("AccountServiceConcurrencyTest: STRIPED  %.0f transfers/sec%n", opsPerSecond);
+    }
+
+    @Test
+    void databaseLocksSerializeTransfersOnHotAccounts() throws Exception {
+        double opsPerSecond = runTransfers(AccountLockMode.DATABASE);
+        System.out.printf("AccountServiceConcurrencyTest: DATABASE %.0f transfers/sec%n", opsPerSecond);
+    }
+
+    private double runTransfers(AccountLockMode mode) throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        String[] numbers = createAccounts(transactionTemplate, mode);
+
+        AccountLockProperties lockProperties = new AccountLockProperties();
+        lockProperties.setMode(mode);
+        AccountServiceImpl service = new AccountServiceImpl(
+                accountRepo,
+                customerRepo,
+                transactionService,
+                notificationService,
+                exchangeRateService,
+                new AccountLockManager(lockProperties)
+        );
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OptimisticRetryExecutor retryExecutor = new OptimisticRetryExecutor(new OptimisticRetryProperties(), meterRegistry);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicLongArray deltas = new AtomicLongArray(ACCOUNTS);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        for (int i = 0; i < TRANSFERS; i++) {
+            executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int from = random.nextInt(ACCOUNTS);
+                int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                Money amount = Money.ofMinor(1 + random.nextInt(5_000), Currency.USD);
+                try {
+                    start.await();
+                    // Те саме, що RetryingAccountService: кожна спроба - нова транзакція
+                    Boolean done = retryExecutor.execute("transfer", () -> transactionTemplate.execute(
+                            status -> service.transfer(numbers[from], numbers[to], amount)));
+                    if (Boolean.TRUE.equals(done)) {
+                        succeeded.incrementAndGet();
+                        deltas.addAndGet(from, -amount.getMinorUnits());
+                        deltas.addAndGet(to, amount.getMinorUnits());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(120, TimeUnit.SECONDS)).isTrue();
+        long elapsedNanos = System.nanoTime() - startedAt;
+
+        assertThat(failure.get()).isNull();
+        assertThat(succeeded.get()).isPositive();
+        // Локи серіалізують перекази до читання балансу, тож @Version ніколи не спрацьовує
+        assertThat(meterRegistry.counter("bank.account.conflicts", "operation", "transfer").count()).isZero();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            Money balance = accountRepo.findByNumber(numbers[i]).getBalance();
+            assertThat(balance.getMinorUnits())
+                    .as("balance of %s", numbers[i])
+                    .isEqualTo(INITIAL_BALANCE.getMinorUnits() + deltas.get(i));
+            assertThat(balance.isNegative()).isFalse();
+        }
+
+        return TRANSFERS / (elapsedNanos / 1_000_000_000.0);
+    }
+
+    private String[] createAccounts(TransactionTemplate transactionTemplate, AccountLockMode mode) {
+        return transactionTemplate.execute(status -> {
+            Customer customer = new Customer("Concurrency " + mode, mode.name().toLowerCase() + "@example.com", 30);
+            entityManager.persist(customer);
+            String[] numbers = new String[ACCOUNTS];
+            for (int i = 0; i < ACCOUNTS; i++) {
+                Account account = Account.builder()
+                        .number(mode + "-" + i)
+                        .currency(Currency.USD)
+                        .balance(INITIAL_BALANCE)
+                        .customer(customer)
+                        .build();
+                entityManager.persist(account);
+                numbers[i] = account.getNumber();
+            }
+            return numbers;
+        });
+    }
+}
@@ -1,19 +1,33 @@
 package com.example.hm1.service;
 
+import com.example.hm1.dao.AccountBalanceView;
 import com.example.hm1.dao.AccountRepo;
+import com.example.hm1.dao.CustomerRepo;
+import com.example.hm1.dto.BatchTransferItemDTO;
+import com.example.hm1.dto.BatchTransferItemResultDTO;
+import com.example.hm1.dto.BatchTransferResultDTO;
 import com.example.hm1.entity.Account;
 import com.example.hm1.entity.Currency;
 import com.example.hm1.entity.Customer;
+import com.example.hm1.entity.Money;
 import com.example.hm1.entity.Transaction;
+import com.example.hm1.service.lock.AccountLockManager;
+import com.example.hm1.service.lock.AccountLockProperties;
+import com.example.hm1.service.rates.RateSnapshot;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
@@ -25,11 +39,17 @@ class AccountServiceImplTest {
     @Mock
     private AccountRepo accountRepo;
     @Mock
+    private CustomerRepo customerRepo;
+    @Mock
     private TransactionService transactionService;
     @Mock
     private NotificationService notificationService;
     @Mock
     private ExchangeRateService exchangeRateService;
+    @Spy
+    private AccountLockManager lockManager = new AccountLockManager(new AccountLockProperties());
+    @Captor
+    private ArgumentCaptor<List<Transaction>> transactions;
 
     @InjectMocks
     private AccountServiceImpl accountService;
@@ -47,7 +67,7 @@ class AccountServiceImplTest {
                 .id(10L)
                 .number("ACC-001")
                 .currency(Currency.USD)
-                .balance(1000.0)
+                .balance(usd("1000.00"))
                 .customer(customer)
                 .build();
 
@@ -55,14 +75,14 @@ class AccountServiceImplTest {
                 .id(20L)
                 .number("ACC-002")
                 .currency(Currency.EUR)
-                .balance(500.0)
+                .balance(eur("500.00"))
                 .customer(customer)
                 .build();
     }
 
     @Test
     void depositReturnsFalseWhenAmountIsNonPositive() {
-        boolean result = accountService.deposit("ACC-001", 0.0);
+        boolean result = accountService.deposit("ACC-001", usd("0.00"));
 
         assertThat(result).isFalse();
         verifyNoInteractions(accountRepo, transactionService, notificationService, exchangeRateService);
@@ -70,34 +90,33 @@ class AccountServiceImplTest {
 
     @Test
     void depositUpdatesBalanceAndPersistsTransaction() {
-        when(accountRepo.findByNumber("ACC-001")).thenReturn(usdAccount);
-        when(accountRepo.save(any(Account.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(accountRepo.credit("ACC-001", usd("200.00"))).thenReturn(balanceView(10L, 1L, 120000L));
+        when(accountRepo.getReferenceById(10L)).thenReturn(usdAccount);
+        when(customerRepo.getReferenceById(1L)).thenReturn(usdAccount.getCustomer());
 
-        boolean result = accountService.deposit("ACC-001", 200.0);
+        boolean result = accountService.deposit("ACC-001", usd("200.00"));
 
         assertThat(result).isTrue();
-
-        ArgumentCaptor<Account> accountCaptor = ArgumentCaptor.forClass(Account.class);
-        verify(accountRepo, times(1)).save(accountCaptor.capture());
-        assertThat(accountCaptor.getValue().getBalance()).isEqualTo(1200.0);
+        verify(accountRepo, never()).findByNumber(any());
+        verify(accountRepo, never()).save(any());
 
         verify(transactionService).createTransaction(
                 eq(Transaction.TransactionType.DEPOSIT),
-                eq(BigDecimal.valueOf(200.0)),
+                eq(new BigDecimal("200.00")),
                 contains("ACC-001"),
                 isNull(),
                 eq(usdAccount),
                 eq(usdAccount.getCustomer())
         );
 
-        verify(notificationService).sendAccountUpdateNotification("ACC-001", "DEPOSIT", 200.0, 1200.0);
+        verify(notificationService).sendAccountUpdateNotification("ACC-001", "DEPOSIT", usd("200.00"), usd("1200.00"));
     }
 
     @Test
     void depositReturnsFalseWhenAccountNotFound() {
-        when(accountRepo.findByNumber("ACC-404")).thenReturn(null);
+        when(accountRepo.credit("ACC-404", usd("50.00"))).thenReturn(null);
 
-        boolean result = accountService.deposit("ACC-404", 50.0);
+        boolean result = accountService.deposit("ACC-404", usd("50.00"));
 
         assertThat(result).isFalse();
         verify(accountRepo, never()).save(any());
@@ -106,7 +125,7 @@ class AccountServiceImplTest {
 
     @Test
     void withdrawReturnsFalseWhenAmountIsNonPositive() {
-        boolean result = accountService.withdraw("ACC-001", 0.0);
+        boolean result = accountService.withdraw("ACC-001", usd("0.00"));
 
         assertThat(result).isFalse();
         verifyNoInteractions(accountRepo, transactionService, notificationService, exchangeRateService);
@@ -114,54 +133,51 @@ class AccountServiceImplTest {
 
     @Test
     void withdrawReturnsFalseWhenAccountMissingOrInsufficientFunds() {
-        when(accountRepo.findByNumber("ACC-001")).thenReturn(null, usdAccount);
+        // debit повертає null і коли рахунку немає, і коли UPDATE не пройшов умову balance >= amount
+        when(accountRepo.debit("ACC-001", usd("50.00"))).thenReturn(null);
 
-        assertThat(accountService.withdraw("ACC-001", 50.0)).isFalse();
-
-        usdAccount.setBalance(20.0);
-        assertThat(accountService.withdraw("ACC-001", 50.0)).isFalse();
+        assertThat(accountService.withdraw("ACC-001", usd("50.00"))).isFalse();
         verify(accountRepo, never()).save(any());
         verifyNoInteractions(transactionService, notificationService);
     }
 
     @Test
     void withdrawUpdatesBalanceAndRecordsTransaction() {
-        when(accountRepo.findByNumber("ACC-001")).thenReturn(usdAccount);
-        when(accountRepo.save(any(Account.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(accountRepo.debit("ACC-001", usd("100.00"))).thenReturn(balanceView(10L, 1L, 90000L));
+        when(accountRepo.getReferenceById(10L)).thenReturn(usdAccount);
+        when(customerRepo.getReferenceById(1L)).thenReturn(usdAccount.getCustomer());
 
-        boolean result = accountService.withdraw("ACC-001", 100.0);
+        boolean result = accountService.withdraw("ACC-001", usd("100.00"));
 
         assertThat(result).isTrue();
-        assertThat(usdAccount.getBalance()).isEqualTo(900.0);
-
-        verify(accountRepo).save(usdAccount);
+        verify(accountRepo, never()).save(any());
         verify(transactionService).createTransaction(
                 eq(Transaction.TransactionType.WITHDRAWAL),
-                eq(BigDecimal.valueOf(100.0)),
+                eq(new BigDecimal("100.00")),
                 contains("ACC-001"),
                 eq(usdAccount),
                 isNull(),
                 eq(usdAccount.getCustomer())
         );
-        verify(notificationService).sendAccountUpdateNotification("ACC-001", "WITHDRAWAL", 100.0, 900.0);
+        verify(notificationService).sendAccountUpdateNotification("ACC-001", "WITHDRAWAL", usd("100.00"), usd("900.00"));
     }
 
     @Test
     void transferReturnsFalseForInvalidAmountsOrAccounts() {
-        assertThat(accountService.transfer("ACC-001", "ACC-002", -10.0)).isFalse();
+        assertThat(accountService.transfer("ACC-001", "ACC-002", usd("-10.00"))).isFalse();
         verifyNoInteractions(accountRepo, transactionService, notificationService, exchangeRateService);
 
         when(accountRepo.findByNumber("ACC-001")).thenReturn(null);
-        assertThat(accountService.transfer("ACC-001", "ACC-002", 100.0)).isFalse();
+        assertThat(accountService.transfer("ACC-001", "ACC-002", usd("100.00"))).isFalse();
 
         when(accountRepo.findByNumber("ACC-001")).thenReturn(usdAccount);
         when(accountRepo.findByNumber("ACC-002")).thenReturn(null);
-        assertThat(accountService.transfer("ACC-001", "ACC-002", 100.0)).isFalse();
+        assertThat(accountService.transfer("ACC-001", "ACC-002", usd("100.00"))).isFalse();
 
         when(accountRepo.findByNumber("ACC-002")).thenReturn(eurAccount);
-        usdAccount.setBalance(50.0);
-        assertThat(accountService.transfer("ACC-001", "ACC-002", 100.0)).isFalse();
-        verify(transactionService, never()).createTransaction(any(), any(), any(), any(), any(), any());
+        usdAccount.setBalance(usd("50.00"));
+        assertThat(accountService.transfer("ACC-001", "ACC-002", usd("100.00"))).isFalse();
+        verify(transactionService, never()).createTransaction(any(), any(), any(), any(), any(), any(), any());
     }
 
     @Test
@@ -171,46 +187,133 @@ class AccountServiceImplTest {
         when(accountRepo.findByNumber("ACC-002")).thenReturn(eurAccount);
         when(accountRepo.save(any(Account.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
-        boolean result = accountService.transfer("ACC-001", "ACC-002", 150.0);
+        boolean result = accountService.transfer("ACC-001", "ACC-002", usd("150.00"));
 
         assertThat(result).isTrue();
-        assertThat(usdAccount.getBalance()).isEqualTo(850.0);
-        assertThat(eurAccount.getBalance()).isEqualTo(650.0);
+        assertThat(usdAccount.getBalance()).isEqualTo(usd("850.00"));
+        assertThat(eurAccount.getBalance()).isEqualTo(usd("650.00"));
 
         verify(transactionService).createTransaction(
                 eq(Transaction.TransactionType.TRANSFER),
-                eq(BigDecimal.valueOf(150.0)),
+                eq(new BigDecimal("150.00")),
                 contains("ACC-001"),
                 eq(usdAccount),
                 eq(eurAccount),
-                eq(usdAccount.getCustomer())
+                eq(usdAccount.getCustomer()),
+                isNull()
         );
 
-        verify(notificationService).sendAccountUpdateNotification("ACC-001", "TRANSFER_OUT", 150.0, 850.0);
-        verify(notificationService).sendAccountUpdateNotification("ACC-002", "TRANSFER_IN", 150.0, 650.0);
-        verify(exchangeRateService, never()).convertAmount(any(), any(), any());
+        verify(notificationService).sendAccountUpdateNotification("ACC-001", "TRANSFER_OUT", usd("150.00"), usd("850.00"));
+        verify(notificationService).sendAccountUpdateNotification("ACC-002", "TRANSFER_IN", usd("150.00"), usd("650.00"));
+        verify(exchangeRateService, never()).getCurrentSnapshot();
     }
 
     @Test
     void transferDifferentCurrenciesUsesConversion() {
-        usdAccount.setBalance(1000.0);
-        eurAccount.setBalance(500.0);
+        usdAccount.setBalance(usd("1000.00"));
+        eurAccount.setBalance(eur("500.00"));
 
         when(accountRepo.findByNumber("ACC-001")).thenReturn(usdAccount);
         when(accountRepo.findByNumber("ACC-002")).thenReturn(eurAccount);
         when(accountRepo.save(any(Account.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        when(exchangeRateService.convertAmount(BigDecimal.valueOf(200.0), Currency.USD, Currency.EUR))
-                .thenReturn(new BigDecimal("180.00"));
+        when(exchangeRateService.getCurrentSnapshot()).thenReturn(RateSnapshot.of(42L, LocalDateTime.now(),
+                Map.of(Currency.USD, new BigDecimal("36.00"), Currency.EUR, new BigDecimal("40.00"))));
 
-        boolean result = accountService.transfer("ACC-001", "ACC-002", 200.0);
+        boolean result = accountService.transfer("ACC-001", "ACC-002", usd("200.00"));
 
         assertThat(result).isTrue();
-        assertThat(usdAccount.getBalance()).isEqualTo(800.0);
-        assertThat(eurAccount.getBalance()).isEqualTo(680.0);
+        assertThat(usdAccount.getBalance()).isEqualTo(usd("800.00"));
+        assertThat(eurAccount.getBalance()).isEqualTo(eur("680.00"));
 
-        verify(exchangeRateService).convertAmount(BigDecimal.valueOf(200.0), Currency.USD, Currency.EUR);
-        verify(notificationService).sendAccountUpdateNotification("ACC-001", "TRANSFER_OUT", 200.0, 800.0);
-        verify(notificationService).sendAccountUpdateNotification("ACC-002", "TRANSFER_IN", 180.0, 680.0);
+        verify(exchangeRateService).getCurrentSnapshot();
+        verify(transactionService).createTransaction(
+                eq(Transaction.TransactionType.TRANSFER),
+                eq(new BigDecimal("200.00")),
+                contains("converted"),
+                eq(usdAccount),
+                eq(eurAccount),
+                eq(usdAccount.getCustomer()),
+                eq(42L)
+        );
+        verify(notificationService).sendAccountUpdateNotification("ACC-001", "TRANSFER_OUT", usd("200.00"), usd("800.00"));
+        verify(notificationService).sendAccountUpdateNotification("ACC-002", "TRANSFER_IN", eur("180.00"), eur("680.00"));
+    }
+
+    @Test
+    void transferBatchAppliesItemsInOrderAndPersistsOnce() {
+        Account usdSavings = Account.builder()
+                .id(30L)
+                .number("ACC-003")
+                .currency(Currency.USD)
+                .balance(usd("0.00"))
+                .customer(usdAccount.getCustomer())
+                .build();
+
+        when(accountRepo.findByNumbers(any())).thenReturn(List.of(usdAccount, eurAccount, usdSavings));
+        when(exchangeRateService.getCurrentSnapshot()).thenReturn(RateSnapshot.of(42L, LocalDateTime.now(),
+                Map.of(Currency.USD, new BigDecimal("36.00"), Currency.EUR, new BigDecimal("40.00"))));
+
+        BatchTransferResultDTO result = accountService.transferBatch(List.of(
+                new BatchTransferItemDTO("ACC-001", "ACC-002", new BigDecimal("200.00")),
+                new BatchTransferItemDTO("ACC-001", "ACC-404", new BigDecimal("10.00")),
+                new BatchTransferItemDTO("ACC-001", "ACC-003", new BigDecimal("300.00")),
+                new BatchTransferItemDTO("ACC-001", "ACC-002", new BigDecimal("900.00")),
+                new BatchTransferItemDTO("ACC-001", "ACC-002", new BigDecimal("100.00"))
+        ));
+
+        assertThat(result.getTotal()).isEqualTo(5);
+        assertThat(result.getSucceeded()).isEqualTo(3);
+        assertThat(result.getFailed()).isEqualTo(2);
+        assertThat(result.getRateSnapshotId()).isEqualTo(42L);
+        assertThat(result.getItems().get(1).getStatus()).isEqualTo(BatchTransferItemResultDTO.Status.FAILED);
+        assertThat(result.getItems().get(1).getMessage()).isEqualTo("Destination account not found");
+        // Після перших пунктів на рахунку лишилось 500, тому 900 не проходить
+        assertThat(result.getItems().get(3).getMessage()).isEqualTo("Insufficient funds");
+
+        assertThat(usdAccount.getBalance()).isEqualTo(usd("400.00"));
+        assertThat(eurAccount.getBalance()).isEqualTo(eur("770.00"));
+        assertThat(usdSavings.getBalance()).isEqualTo(usd("300.00"));
+
+        // Один знімок курсів на весь пакет, один saveAll і один пакет транзакцій
+        verify(exchangeRateService, times(1)).getCurrentSnapshot();
+        verify(accountRepo).saveAll(List.of(usdAccount, eurAccount, usdSavings));
+        verify(accountRepo, never()).save(any(Account.class));
+
+        verify(transactionService).createTransactions(transactions.capture());
+        assertThat(transactions.getValue()).hasSize(3);
+        assertThat(transactions.getValue()).extracting(Transaction::getRateSnapshotId)
+                .containsExactly(42L, null, 42L);
+
+        verify(notificationService).sendAccountUpdateNotification("ACC-001", "BATCH_TRANSFER_OUT", usd("600.00"), usd("400.00"));
+        verify(notificationService).sendAccountUpdateNotification("ACC-002", "BATCH_TRANSFER_IN", eur("270.00"), eur("770.00"));
+        verify(notificationService).sendAccountUpdateNotification("ACC-003", "BATCH_TRANSFER_IN", usd("300.00"), usd("300.00"));
+        verifyNoMoreInteractions(notificationService);
+    }
+
+    @Test
+    void transferBatchSkipsSnapshotWhenAllItemsShareCurrency() {
+        Account usdSavings = Account.builder()
+                .id(30L)
+                .number("ACC-003")
+                .currency(Currency.USD)
+                .balance(usd("0.00"))
+                .customer(usdAccount.getCustomer())
+                .build();
+
+        when(accountRepo.findByNumbers(any())).thenReturn(List.of(usdAccount, usdSavings));
+
+        BatchTransferResultDTO result = accountService.transferBatch(List.of(
+                new BatchTransferItemDTO("ACC-001", "ACC-003", new BigDecimal("50.00")),
+                new BatchTransferItemDTO("ACC-001", "ACC-001", new BigDecimal("5.00")),
+                new BatchTransferItemDTO("ACC-001", "ACC-003", new BigDecimal("0.00"))
+        ));
+
+        assertThat(result.getSucceeded()).isEqualTo(1);
+        assertThat(result.getRateSnapshotId()).isNull();
+        assertThat(result.getItems().get(1).getMessage()).isEqualTo("Source and destination accounts are the same");
+        assertThat(result.getItems().get(2).getMessage()).isEqualTo("Amount must be positive");
+        assertThat(usdSavings.getBalance()).isEqualTo(usd("50.00"));
+        verify(exchangeRateService, never()).getCurrentSnapshot();
     }
 
     @Test
@@ -222,5 +325,36 @@ class AccountServiceImplTest {
         assertThat(result).isSameAs(usdAccount);
         verify(accountRepo).findByNumber("ACC-001");
     }
-}
 
+    private static Money usd(String amount) {
+        return Money.of(amount, Currency.USD);
+    }
+
+    private static Money eur(String amount) {
+        return Money.of(amount, Currency.EUR);
+    }
+
+    private static AccountBalanceView balanceView(Long id, Long customerId, long balanceMinor) {
+        return new AccountBalanceView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Long getCustomerId() {
+                return customerId;
+            }
+
+            @Override
+            public String getCurrency() {
+                return Currency.USD.name();
+            }
+
+            @Override
+            public Long getBalanceMinor() {
+                return balanceMinor;
+            }
+        };
+    }
+}
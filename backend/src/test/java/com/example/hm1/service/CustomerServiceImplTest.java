@@ -1,9 +1,14 @@
 package com.example.hm1.service;
 
 import com.example.hm1.dao.AccountRepo;
+import com.example.hm1.dao.CurrentCustomerRow;
 import com.example.hm1.dao.CustomerRepo;
+import com.example.hm1.dto.AccountResponseDTO;
+import com.example.hm1.dto.CurrentCustomerDTO;
+import com.example.hm1.dto.CustomerResponseDTO;
 import com.example.hm1.entity.Account;
 import com.example.hm1.entity.Currency;
+import com.example.hm1.entity.Money;
 import com.example.hm1.entity.Customer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,7 +18,9 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -61,45 +68,57 @@ class CustomerServiceImplTest {
     }
 
     @Test
-    void updateCustomerReturnsSavedEntity() {
+    void updateCustomerChangesOnlyScalarFieldsOfStoredCustomer() {
+        Account account = Account.builder().id(10L).number("ACC-001").currency(Currency.USD).balance(Money.of("100.00", Currency.USD)).customer(customer).build();
+        customer.setAccounts(new ArrayList<>(List.of(account)));
+        when(customerRepo.findWithAccountsById(1L)).thenReturn(Optional.of(customer));
         when(customerRepo.save(customer)).thenReturn(customer);
+        Customer changes = new Customer("Alice Smith", null, 29);
 
-        Customer updated = customerService.updateCustomer(customer);
+        CustomerResponseDTO updated = customerService.updateCustomer(1L, changes);
 
-        assertThat(updated).isSameAs(customer);
+        assertThat(updated.getName()).isEqualTo("Alice Smith");
+        assertThat(updated.getEmail()).isEqualTo("alice@example.com");
+        assertThat(updated.getAge()).isEqualTo(29);
+        // Порожній список рахунків з тіла запиту не затирає збережені
+        assertThat(updated.getAccounts()).extracting(AccountResponseDTO::getNumber).containsExactly("ACC-001");
         verify(customerRepo).save(customer);
     }
 
     @Test
-    void getCustomerByIdLoadsAccounts() {
-        List<Account> accounts = List.of(Account.builder().id(10L).number("ACC-001").currency(Currency.UAH).balance(100.0).customer(customer).build());
-        when(customerRepo.getOne(1L)).thenReturn(customer);
-        when(accountRepo.findByCustomerId(1L)).thenReturn(accounts);
+    void updateCustomerReturnsNullForUnknownId() {
+        when(customerRepo.findWithAccountsById(2L)).thenReturn(Optional.empty());
+
+        assertThat(customerService.updateCustomer(2L, new Customer("Ghost", null, 1))).isNull();
+        verify(customerRepo, never()).save(any(Customer.class));
+    }
 
-        Customer result = customerService.getCustomerById(1L);
+    @Test
+    void getCustomerByIdUsesFetchPlanWithAccounts() {
+        when(customerRepo.findWithAccountsById(1L)).thenReturn(Optional.of(customer));
+        when(customerRepo.findWithAccountsById(2L)).thenReturn(Optional.empty());
 
-        assertThat(result.getAccounts()).isEqualTo(accounts);
-        verify(accountRepo).findByCustomerId(1L);
+        assertThat(customerService.getCustomerById(1L).getId()).isEqualTo(1L);
+        assertThat(customerService.getCustomerById(2L)).isNull();
+        verifyNoInteractions(accountRepo);
     }
 
     @Test
-    void getAllCustomersPopulatesAccountsForEach() {
+    void getAllCustomersLoadsAccountsWithoutPerCustomerQueries() {
         Customer another = Customer.builder().id(2L).name("Eve").email("eve@example.com").age(35).build();
-        when(customerRepo.findAll()).thenReturn(List.of(customer, another));
-        when(accountRepo.findByCustomerId(1L)).thenReturn(List.of());
-        when(accountRepo.findByCustomerId(2L)).thenReturn(List.of());
+        when(customerRepo.findAllWithAccounts()).thenReturn(List.of(customer, another));
 
-        List<Customer> result = customerService.getAllCustomers();
+        List<CustomerResponseDTO> result = customerService.getAllCustomers();
 
-        assertThat(result).hasSize(2);
-        verify(accountRepo).findByCustomerId(1L);
-        verify(accountRepo).findByCustomerId(2L);
+        assertThat(result).extracting(CustomerResponseDTO::getId).containsExactly(1L, 2L);
+        verify(customerRepo, never()).findAll();
+        verifyNoInteractions(accountRepo);
     }
 
     @Test
     void deleteCustomerRemovesAccountsBeforeDeletingCustomer() {
-        Account account1 = Account.builder().id(10L).number("ACC-001").currency(Currency.USD).balance(100.0).customer(customer).build();
-        Account account2 = Account.builder().id(11L).number("ACC-002").currency(Currency.EUR).balance(50.0).customer(customer).build();
+        Account account1 = Account.builder().id(10L).number("ACC-001").currency(Currency.USD).balance(Money.of("100.00", Currency.USD)).customer(customer).build();
+        Account account2 = Account.builder().id(11L).number("ACC-002").currency(Currency.EUR).balance(Money.of("50.00", Currency.EUR)).customer(customer).build();
         when(accountRepo.findByCustomerId(1L)).thenReturn(List.of(account1, account2));
         when(customerRepo.deleteById(1L)).thenReturn(true);
 
@@ -140,9 +159,9 @@ class CustomerServiceImplTest {
 
     @Test
     void deleteAccountFromCustomerValidatesOwnership() {
-        Account ownedAccount = Account.builder().id(100L).number("ACC-100").currency(Currency.UAH).balance(0.0).customer(customer).build();
+        Account ownedAccount = Account.builder().id(100L).number("ACC-100").currency(Currency.UAH).balance(Money.of("0.00", Currency.UAH)).customer(customer).build();
         Customer otherCustomer = Customer.builder().id(2L).name("Other").email("other@example.com").age(40).build();
-        Account foreignAccount = Account.builder().id(200L).number("ACC-200").currency(Currency.UAH).balance(0.0).customer(otherCustomer).build();
+        Account foreignAccount = Account.builder().id(200L).number("ACC-200").currency(Currency.UAH).balance(Money.of("0.00", Currency.UAH)).customer(otherCustomer).build();
 
         when(customerRepo.getOne(1L)).thenReturn(customer);
         when(accountRepo.getOne(100L)).thenReturn(ownedAccount);
@@ -155,5 +174,52 @@ class CustomerServiceImplTest {
         when(customerRepo.getOne(3L)).thenReturn(null);
         assertThat(customerService.deleteAccountFromCustomer(3L, 100L)).isFalse();
     }
-}
 
+    @Test
+    void getCurrentCustomerCollapsesJoinedRows() {
+        // 2 роботодавці x 2 рахунки = 4 рядки
+        when(customerRepo.findCurrentCustomerRows("alice")).thenReturn(List.of(
+                row(10L, "Acme", 100L, "ACC-0100", Currency.UAH, 150_00L),
+                row(11L, "Globex", 100L, "ACC-0100", Currency.UAH, 150_00L),
+                row(10L, "Acme", 101L, "ACC-0101", Currency.USD, 20_50L),
+                row(11L, "Globex", 101L, "ACC-0101", Currency.USD, 20_50L)));
+
+        CurrentCustomerDTO result = customerService.getCurrentCustomer("alice").orElseThrow();
+
+        assertThat(result.getId()).isEqualTo(1L);
+        assertThat(result.getName()).isEqualTo("Alice");
+        assertThat(result.getEmployers()).containsExactly("Acme", "Globex");
+        assertThat(result.getAccounts()).extracting(CurrentCustomerDTO.AccountSummary::getNumber)
+                .containsExactly("ACC-0100", "ACC-0101");
+        assertThat(result.getAccounts().get(1).getBalance()).isEqualTo(Money.of("20.50", Currency.USD));
+        verify(customerRepo, never()).findAll();
+    }
+
+    @Test
+    void getCurrentCustomerWithoutEmployersOrAccounts() {
+        when(customerRepo.findCurrentCustomerRows("alice")).thenReturn(List.of(row(null, null, null, null, null, null)));
+        when(customerRepo.findCurrentCustomerRows("ghost")).thenReturn(List.of());
+
+        CurrentCustomerDTO result = customerService.getCurrentCustomer("alice").orElseThrow();
+
+        assertThat(result.getEmployers()).isEmpty();
+        assertThat(result.getAccounts()).isEmpty();
+        assertThat(customerService.getCurrentCustomer("ghost")).isEqualTo(Optional.empty());
+    }
+
+    private static CurrentCustomerRow row(Long employerId, String employerName,
+                                          Long accountId, String accountNumber, Currency currency, Long balance) {
+        return new CurrentCustomerRow() {
+            public Long getCustomerId() { return 1L; }
+            public String getName() { return "Alice"; }
+            public String getEmail() { return "alice@example.com"; }
+            public Integer getAge() { return 28; }
+            public Long getEmployerId() { return employerId; }
+            public String getEmployerName() { return employerName; }
+            public Long getAccountId() { return accountId; }
+            public String getAccountNumber() { return accountNumber; }
+            public Currency getAccountCurrency() { return currency; }
+            public Long getAccountBalance() { return balance; }
+        };
+    }
+}
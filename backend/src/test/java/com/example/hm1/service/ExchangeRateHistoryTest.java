@@ -0,0 +1,126 @@
+package com.example.hm1.service;
+
+import com.example.hm1.dao.ExchangeRateRepository;
+import com.example.hm1.dto.ExchangeRateHistoryPoint;
+import com.example.hm1.entity.Currency;
+import com.example.hm1.entity.ExchangeRate;
+import com.example.hm1.service.rates.ExchangeRateHistory;
+import com.example.hm1.service.rates.ExchangeRateHistoryStore;
+import com.example.hm1.service.rates.ExchangeRateProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ExchangeRateHistoryTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2025, 1, 6);
+
+    @Test
+    void gapsAndDaysAfterLastRecordKeepPreviousRate() {
+        ExchangeRateHistory history = ExchangeRateHistory.of(List.of(
+                new ExchangeRate(Currency.USD, MONDAY.plusDays(4), new BigDecimal("42.10")),
+                new ExchangeRate(Currency.USD, MONDAY, new BigDecimal("41.50"))));
+
+        List<ExchangeRateHistoryPoint> points = history.points(Currency.USD, MONDAY, MONDAY.plusDays(6));
+
+        assertThat(points).extracting(ExchangeRateHistoryPoint::getDate)
+                .containsExactly("2025-01-06", "2025-01-07", "2025-01-08", "2025-01-09",
+                        "2025-01-10", "2025-01-11", "2025-01-12");
+        assertThat(points).extracting(ExchangeRateHistoryPoint::getRate)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("41.50"), new BigDecimal("41.50"), new BigDecimal("41.50"),
+                        new BigDecimal("41.50"), new BigDecimal("42.10"), new BigDecimal("42.10"), new BigDecimal("42.10"));
+    }
+
+    @Test
+    void daysBeforeFirstRecordAreSkipped() {
+        ExchangeRateHistory history = ExchangeRateHistory.of(List.of(
+                new ExchangeRate(Currency.EUR, MONDAY, new BigDecimal("43.123456"))));
+
+        List<ExchangeRateHistoryPoint> points = history.points(Currency.EUR, MONDAY.minusDays(3), MONDAY);
+
+        assertThat(points).singleElement().satisfies(point -> {
+            assertThat(point.getDate()).isEqualTo("2025-01-06");
+            assertThat(point.getRate()).isEqualByComparingTo("43.12");
+        });
+    }
+
+    @Test
+    void currencyWithoutRecordsHasNoPoints() {
+        ExchangeRateHistory history = ExchangeRateHistory.of(List.of(
+                new ExchangeRate(Currency.USD, MONDAY, new BigDecimal("41.50"))));
+
+        assertThat(history.points(Currency.GBP, MONDAY, MONDAY.plusDays(10))).isEmpty();
+        assertThat(ExchangeRateHistory.empty().points(Currency.USD, MONDAY, MONDAY)).isEmpty();
+    }
+
+    @Test
+    void yearOfHistoryIsOnePointPerDay() {
+        LocalDate start = MONDAY.minusDays(729);
+        List<ExchangeRate> records = new ArrayList<>();
+        for (int i = 0; i < 730; i++) {
+            records.add(new ExchangeRate(Currency.USD, start.plusDays(i), new BigDecimal("40.00")));
+        }
+        ExchangeRateHistory history = ExchangeRateHistory.of(records);
+
+        List<ExchangeRateHistoryPoint> points = history.points(Currency.USD, MONDAY.minusDays(364), MONDAY);
+
+        assertThat(history.size()).isEqualTo(730);
+        assertThat(points).hasSize(365);
+        assertThat(points.get(364).getDate()).isEqualTo(MONDAY.toString());
+    }
+
+    @Test
+    void ingestPublishesHistoryOnlyAfterCommit() {
+        ExchangeRateRepository repository = mock(ExchangeRateRepository.class);
+        ExchangeRateHistoryStore store = new ExchangeRateHistoryStore(repository, new ExchangeRateProperties());
+        List<ExchangeRate> rates = List.of(new ExchangeRate(Currency.USD, LocalDate.now(), new BigDecimal("41.50")));
+        when(repository.upsertAll(rates)).thenReturn(1);
+        when(repository.findHistorySince(any())).thenReturn(rates);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            store.ingest(rates);
+            // До commit знімок у пам'яті не змінюється
+            verify(repository, never()).findHistorySince(any());
+            assertThat(store.getHistory().size()).isZero();
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(store.getHistory().points(Currency.USD, LocalDate.now(), LocalDate.now())).hasSize(1);
+    }
+
+    @Test
+    void rolledBackIngestKeepsPreviousHistory() {
+        ExchangeRateRepository repository = mock(ExchangeRateRepository.class);
+        ExchangeRateHistoryStore store = new ExchangeRateHistoryStore(repository, new ExchangeRateProperties());
+        List<ExchangeRate> rates = List.of(new ExchangeRate(Currency.USD, LocalDate.now(), new BigDecimal("41.50")));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            store.ingest(rates);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(repository, never()).findHistorySince(any());
+        assertThat(store.getHistory().size()).isZero();
+    }
+}
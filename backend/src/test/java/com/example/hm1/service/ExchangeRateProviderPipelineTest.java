@@ -0,0 +1,142 @@
+package com.example.hm1.service;
+
+import com.example.hm1.entity.Currency;
+import com.example.hm1.service.rates.ExchangeRateProperties;
+import com.example.hm1.service.rates.ExchangeRateProvider;
+import com.example.hm1.service.rates.ExchangeRateProviderPipeline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExchangeRateProviderPipelineTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExchangeRateProperties properties;
+    private final List<ExchangeRateProviderPipeline> pipelines = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new ExchangeRateProperties();
+        properties.setProviderTimeout(Duration.ofMillis(500));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipelines.forEach(ExchangeRateProviderPipeline::shutdown);
+    }
+
+    @Test
+    void earlierProviderWinsAndLaterOneFillsMissingCurrencies() {
+        ExchangeRateProviderPipeline pipeline = pipeline(
+                provider("primary", Map.of(Currency.USD, new BigDecimal("41.00"))),
+                provider("secondary", Map.of(Currency.USD, new BigDecimal("40.00"), Currency.EUR, new BigDecimal("45.00"))));
+
+        Map<Currency, BigDecimal> rates = pipeline.fetch();
+
+        assertThat(rates).containsOnlyKeys(Currency.USD, Currency.EUR);
+        assertThat(rates.get(Currency.USD)).isEqualByComparingTo("41.00");
+        assertThat(rates.get(Currency.EUR)).isEqualByComparingTo("45.00");
+    }
+
+    @Test
+    void failedProviderIsSkippedAndCounted() {
+        ExchangeRateProviderPipeline pipeline = pipeline(
+                failing("broken"),
+                provider("stub", Map.of(Currency.GBP, new BigDecimal("52.00"))));
+
+        Map<Currency, BigDecimal> rates = pipeline.fetch();
+
+        assertThat(rates).containsOnlyKeys(Currency.GBP);
+        assertThat(meterRegistry.get("bank.exchange-rates.provider.failures").tag("provider", "broken").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void providersAreQueriedInParallelAndSlowOneTimesOut() {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        ExchangeRateProvider slow = new TestProvider("slow", () -> {
+            bothStarted.countDown();
+            Thread.sleep(5_000);
+            return Map.of(Currency.CHF, new BigDecimal("47.00"));
+        });
+        ExchangeRateProvider fast = new TestProvider("fast", () -> {
+            bothStarted.countDown();
+            // Якби провайдери йшли по черзі, повільний ще не стартував би
+            assertThat(bothStarted.await(1, TimeUnit.SECONDS)).isTrue();
+            return Map.of(Currency.USD, new BigDecimal("41.00"));
+        });
+        ExchangeRateProviderPipeline pipeline = pipeline(slow, fast);
+
+        long started = System.nanoTime();
+        Map<Currency, BigDecimal> rates = pipeline.fetch();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(3));
+        assertThat(rates).containsOnlyKeys(Currency.USD);
+    }
+
+    @Test
+    void throwsWhenEveryProviderFails() {
+        ExchangeRateProviderPipeline pipeline = pipeline(failing("first"), failing("second"));
+
+        assertThatThrownBy(pipeline::fetch).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void unknownProviderNameFailsOnStartup() {
+        properties.setProviders(List.of("minfin"));
+
+        assertThatThrownBy(() -> new ExchangeRateProviderPipeline(List.of(), properties, meterRegistry))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("minfin");
+    }
+
+    private ExchangeRateProviderPipeline pipeline(ExchangeRateProvider... providers) {
+        List<String> names = new ArrayList<>();
+        for (ExchangeRateProvider provider : providers) {
+            names.add(provider.getName());
+        }
+        properties.setProviders(names);
+        ExchangeRateProviderPipeline pipeline = new ExchangeRateProviderPipeline(List.of(providers), properties, meterRegistry);
+        pipelines.add(pipeline);
+        return pipeline;
+    }
+
+    private static ExchangeRateProvider provider(String name, Map<Currency, BigDecimal> rates) {
+        return new TestProvider(name, () -> rates);
+    }
+
+    private static ExchangeRateProvider failing(String name) {
+        return new TestProvider(name, () -> {
+            throw new IllegalStateException(name + " is down");
+        });
+    }
+
+    private interface RatesSupplier {
+        Map<Currency, BigDecimal> get() throws Exception;
+    }
+
+    private record TestProvider(String name, RatesSupplier supplier) implements ExchangeRateProvider {
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Map<Currency, BigDecimal> fetchRatesToUah() throws Exception {
+            return supplier.get();
+        }
+    }
+}
@@ -1,25 +1,64 @@
 package com.example.hm1.service;
 
 import com.example.hm1.dto.ExchangeRateHistoryPoint;
+import com.example.hm1.dto.ExchangeRateImportDTO;
 import com.example.hm1.entity.Currency;
+import com.example.hm1.entity.ExchangeRate;
+import com.example.hm1.entity.Money;
+import com.example.hm1.service.rates.ExchangeRateHistory;
+import com.example.hm1.service.rates.ExchangeRateHistoryStore;
+import com.example.hm1.service.rates.ExchangeRateProviderPipeline;
+import com.example.hm1.service.rates.RateSnapshot;
+import com.example.hm1.service.rates.RateSnapshotStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+@ExtendWith(MockitoExtension.class)
 class ExchangeRateServiceImplTest {
 
+    @Mock
+    private ExchangeRateHistoryStore historyStore;
+
+    @Mock
+    private ExchangeRateProviderPipeline providerPipeline;
+
+    @Mock
+    private RateSnapshotStore snapshotStore;
+
     private ExchangeRateServiceImpl service;
+    private long nextSnapshotId = 1;
 
     @BeforeEach
     void setUp() {
-        service = new ExchangeRateServiceImpl();
+        service = new ExchangeRateServiceImpl(historyStore, providerPipeline, snapshotStore);
+    }
+
+    private void snapshotsAreSaved() {
+        when(snapshotStore.save(any())).thenAnswer(invocation ->
+                RateSnapshot.of(nextSnapshotId++, LocalDateTime.now(), invocation.getArgument(0)));
     }
 
     @Test
@@ -39,6 +78,54 @@ class ExchangeRateServiceImplTest {
         );
     }
 
+    @Test
+    void updateExchangeRatesRebuildsRatesForEveryCurrencyPair() {
+        BigDecimal before = service.getExchangeRate(Currency.GBP, Currency.CHF);
+        Map<Currency, BigDecimal> fetched = Map.of(Currency.USD, new BigDecimal("41.00"));
+        when(providerPipeline.fetch()).thenReturn(fetched);
+        snapshotsAreSaved();
+
+        service.updateExchangeRates();
+
+        for (Currency from : Currency.values()) {
+            for (Currency to : Currency.values()) {
+                BigDecimal rate = service.getExchangeRate(from, to);
+                assertThat(rate).isPositive();
+                if (from == to) {
+                    assertThat(rate).isEqualByComparingTo(BigDecimal.ONE);
+                }
+            }
+        }
+        assertThat(service.getExchangeRate(Currency.GBP, Currency.CHF)).isEqualByComparingTo(before);
+        assertThat(service.getExchangeRate(Currency.USD, Currency.UAH)).isEqualByComparingTo("41.00");
+        verify(historyStore).recordDailyRates(LocalDate.now(), fetched);
+    }
+
+    @Test
+    void refreshKeepsLastGoodRatesWhenProvidersFail() {
+        when(providerPipeline.fetch())
+                .thenReturn(Map.of(Currency.EUR, new BigDecimal("44.00")))
+                .thenThrow(new IllegalStateException("All exchange rate providers failed"));
+        snapshotsAreSaved();
+
+        service.refreshExchangeRates();
+        service.refreshExchangeRates();
+
+        assertThat(service.getExchangeRate(Currency.EUR, Currency.UAH)).isEqualByComparingTo("44.00");
+        verify(historyStore).recordDailyRates(eq(LocalDate.now()), any());
+    }
+
+    @Test
+    void historyWriteFailureDoesNotRollBackFetchedRates() {
+        when(providerPipeline.fetch()).thenReturn(Map.of(Currency.CHF, new BigDecimal("46.00")));
+        when(historyStore.recordDailyRates(any(), any())).thenThrow(new IllegalStateException("database is down"));
+        snapshotsAreSaved();
+
+        service.updateExchangeRates();
+
+        assertThat(service.getExchangeRate(Currency.CHF, Currency.UAH)).isEqualByComparingTo("46.00");
+    }
+
     @Test
     void convertAmountUsesExchangeRateAndRoundsToTwoDecimals() {
         BigDecimal converted = service.convertAmount(new BigDecimal("100.00"), Currency.USD, Currency.GBP);
@@ -48,6 +135,20 @@ class ExchangeRateServiceImplTest {
         );
     }
 
+    @Test
+    void convertMoneyMatchesConvertAmountAndKeepsSameCurrencyUntouched() {
+        Money amount = Money.of("100.00", Currency.USD);
+
+        Money converted = service.convert(amount, Currency.GBP);
+
+        assertAll(
+                () -> assertThat(converted.getCurrency()).isEqualTo(Currency.GBP),
+                () -> assertThat(converted.toBigDecimal())
+                        .isEqualByComparingTo(service.convertAmount(new BigDecimal("100.00"), Currency.USD, Currency.GBP)),
+                () -> assertThat(service.convert(amount, Currency.USD)).isSameAs(amount)
+        );
+    }
+
     @Test
     void getAllRatesReturnsCrossRatesForBaseCurrency() {
         Map<String, BigDecimal> rates = service.getAllRates(Currency.UAH);
@@ -61,8 +162,62 @@ class ExchangeRateServiceImplTest {
     }
 
     @Test
-    void getHistoricalRatesGeneratesRequestedAmountOfPoints() {
+    void pinnedSnapshotIsNotAffectedByConcurrentUpdate() {
+        snapshotsAreSaved();
+        when(providerPipeline.fetch()).thenReturn(Map.of(Currency.USD, new BigDecimal("40.00")));
+        service.updateExchangeRates();
+        RateSnapshot pinned = service.getCurrentSnapshot();
+        Money debit = pinned.convert(Money.of("100.00", Currency.USD), Currency.UAH);
+
+        when(providerPipeline.fetch()).thenReturn(Map.of(Currency.USD, new BigDecimal("50.00")));
+        service.updateExchangeRates();
+
+        assertAll(
+                () -> assertThat(pinned.convert(Money.of("100.00", Currency.USD), Currency.UAH)).isEqualTo(debit),
+                () -> assertThat(debit).isEqualTo(Money.of("4000.00", Currency.UAH)),
+                () -> assertThat(service.getCurrentSnapshot().getId()).isNotEqualTo(pinned.getId()),
+                () -> assertThat(service.convert(Money.of("100.00", Currency.USD), Currency.UAH))
+                        .isEqualTo(Money.of("5000.00", Currency.UAH))
+        );
+    }
+
+    @Test
+    void unchangedRatesKeepCurrentSnapshot() {
+        snapshotsAreSaved();
+        when(providerPipeline.fetch()).thenReturn(Map.of(Currency.USD, new BigDecimal("40.00")));
+        service.updateExchangeRates();
+        Long firstId = service.getCurrentSnapshot().getId();
+
+        when(providerPipeline.fetch()).thenReturn(Map.of(Currency.USD, new BigDecimal("40.000000")));
+        service.updateExchangeRates();
+
+        assertThat(service.getCurrentSnapshot().getId()).isEqualTo(firstId);
+        verify(snapshotStore).save(any());
+    }
+
+    @Test
+    void firstRefreshRestoresLastSavedSnapshotWhenProvidersAreDown() {
+        RateSnapshot saved = RateSnapshot.of(7L, LocalDateTime.now(), Map.of(Currency.USD, new BigDecimal("39.00")));
+        when(snapshotStore.findLatest()).thenReturn(Optional.of(saved));
+        when(providerPipeline.fetch()).thenThrow(new IllegalStateException("All exchange rate providers failed"));
+
+        service.refreshExchangeRates();
+
+        assertThat(service.getCurrentSnapshot()).isSameAs(saved);
+        assertThat(service.getExchangeRate(Currency.USD, Currency.UAH)).isEqualByComparingTo("39.00");
+    }
+
+    @Test
+    void getHistoricalRatesSlicesStoredHistory() {
         int days = 7;
+        LocalDate today = LocalDate.now();
+        List<ExchangeRate> stored = new ArrayList<>();
+        for (int i = 30; i >= 0; i--) {
+            stored.add(new ExchangeRate(Currency.USD, today.minusDays(i), new BigDecimal("37.00").add(BigDecimal.valueOf(30 - i))));
+            stored.add(new ExchangeRate(Currency.EUR, today.minusDays(i), new BigDecimal("40.80")));
+            stored.add(new ExchangeRate(Currency.GBP, today.minusDays(i), new BigDecimal("47.60")));
+        }
+        when(historyStore.getHistory()).thenReturn(ExchangeRateHistory.of(stored));
         List<Currency> currencies = List.copyOf(EnumSet.of(Currency.USD, Currency.EUR, Currency.GBP));
 
         Map<String, List<ExchangeRateHistoryPoint>> history = service.getHistoricalRates(currencies, days);
@@ -70,13 +225,42 @@ class ExchangeRateServiceImplTest {
         assertAll(
                 () -> assertThat(history.keySet()).containsExactlyInAnyOrder("USD", "EUR", "GBP"),
                 () -> assertThat(history.values()).allMatch(points -> points.size() == days),
-                () -> assertThat(history.values())
-                        .flatExtracting(points -> points)
-                        .allSatisfy(point -> {
-                            assertThat(point.getDate()).isNotBlank();
-                            assertThat(point.getRate()).isNotNull();
-                        })
+                () -> assertThat(history.get("USD").get(0).getDate()).isEqualTo(today.minusDays(days - 1).toString()),
+                () -> assertThat(history.get("USD").get(days - 1).getRate()).isEqualByComparingTo("67.00"),
+                () -> assertThat(service.getHistoricalRates(currencies, days))
+                        .as("повторний запит повертає ті самі дані")
+                        .usingRecursiveComparison().isEqualTo(history)
         );
     }
-}
 
+    @Test
+    void importHistoricalRatesRejectsInvalidRowsBeforeWriting() {
+        List<ExchangeRateImportDTO> rates = List.of(
+                new ExchangeRateImportDTO(Currency.USD, LocalDate.of(2025, 1, 1), new BigDecimal("42.00")),
+                new ExchangeRateImportDTO(Currency.EUR, LocalDate.of(2025, 1, 1), BigDecimal.ZERO));
+
+        assertThatThrownBy(() -> service.importHistoricalRates(rates))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(historyStore, never()).ingest(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importHistoricalRatesKeepsLastDuplicateForSameDay() {
+        LocalDate day = LocalDate.of(2025, 1, 1);
+        when(historyStore.ingest(any())).thenAnswer(invocation -> ((Collection<ExchangeRate>) invocation.getArgument(0)).size());
+
+        int imported = service.importHistoricalRates(List.of(
+                new ExchangeRateImportDTO(Currency.USD, day, new BigDecimal("41.00")),
+                new ExchangeRateImportDTO(Currency.USD, day, new BigDecimal("42.00")),
+                new ExchangeRateImportDTO(Currency.EUR, day, new BigDecimal("45.00"))));
+
+        ArgumentCaptor<Collection<ExchangeRate>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(historyStore).ingest(captor.capture());
+        assertThat(imported).isEqualTo(2);
+        assertThat(captor.getValue())
+                .filteredOn(rate -> rate.getCurrency() == Currency.USD)
+                .singleElement()
+                .satisfies(rate -> assertThat(rate.getRateToUah()).isEqualByComparingTo("42.00"));
+    }
+}
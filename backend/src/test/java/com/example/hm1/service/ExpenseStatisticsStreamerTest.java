@@ -0,0 +1,134 @@
+package com.example.hm1.service;
+
+import com.example.hm1.dao.ExpenseRollupRepository;
+import com.example.hm1.dto.ExpenseStatisticsDTO;
+import com.example.hm1.entity.Transaction;
+import com.example.hm1.service.stats.ExpenseAggregator;
+import com.example.hm1.service.stats.ExpenseStatisticsProperties;
+import com.example.hm1.service.stats.ExpenseStatisticsStreamer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ExpenseStatisticsStreamerTest {
+
+    private static final LocalDate MAY = LocalDate.of(2024, 5, 1);
+
+    private ExpenseRollupRepository rollupRepository;
+    private ExpenseStatisticsStreamer streamer;
+
+    @BeforeEach
+    void setUp() {
+        rollupRepository = mock(ExpenseRollupRepository.class);
+        ExpenseStatisticsProperties properties = new ExpenseStatisticsProperties();
+        properties.setParallelism(2);
+        properties.setChunkSize(2);
+        streamer = new ExpenseStatisticsStreamer(rollupRepository, new ObjectMapper(), properties);
+
+        when(rollupRepository.findCustomerIdsAfter(MAY, 0L, PageRequest.of(0, 2))).thenReturn(List.of(1L, 3L));
+        when(rollupRepository.findCustomerIdsAfter(MAY, 3L, PageRequest.of(0, 2))).thenReturn(List.of(4L, 9L));
+        when(rollupRepository.findCustomerIdsAfter(MAY, 9L, PageRequest.of(0, 2))).thenReturn(List.of(12L));
+        when(rollupRepository.sumCustomerRangeByMonth(MAY, 1L, 3L)).thenReturn(List.of(
+                row(1L, Transaction.ExpenseCategory.FOOD, "75.00"),
+                row(1L, Transaction.ExpenseCategory.BILLS, "25.00"),
+                row(3L, Transaction.ExpenseCategory.OTHER, "10.00")));
+        when(rollupRepository.sumCustomerRangeByMonth(MAY, 4L, 9L)).thenReturn(List.of(
+                row(4L, Transaction.ExpenseCategory.FOOD, "1.00"),
+                row(9L, Transaction.ExpenseCategory.FOOD, "2.00")));
+        when(rollupRepository.sumCustomerRangeByMonth(MAY, 12L, 12L)).thenReturn(List.<Object[]>of(
+                row(12L, Transaction.ExpenseCategory.BILLS, "3.00")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        streamer.shutdown();
+    }
+
+    @Test
+    void customersAreEmittedInIdOrderAcrossChunks() {
+        List<Long> ids = new ArrayList<>();
+        List<ExpenseStatisticsDTO> statistics = new ArrayList<>();
+
+        long customers = streamer.forEachCustomer(YearMonth.of(2024, 5), (id, dto) -> {
+            ids.add(id);
+            statistics.add(dto);
+        });
+
+        assertThat(customers).isEqualTo(5);
+        assertThat(ids).containsExactly(1L, 3L, 4L, 9L, 12L);
+        ExpenseStatisticsDTO first = statistics.get(0);
+        assertThat(first.getTotalExpenses()).isEqualByComparingTo("100.00");
+        assertThat(first.getPercentagesByCategory())
+                .containsEntry(Transaction.ExpenseCategory.FOOD, 75.0)
+                .containsEntry(Transaction.ExpenseCategory.BILLS, 25.0);
+    }
+
+    @Test
+    void writeJsonKeepsMapShape() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long customers = streamer.writeJson(YearMonth.of(2024, 5), out);
+
+        JsonNode json = new ObjectMapper().readTree(out.toByteArray());
+        assertThat(customers).isEqualTo(5);
+        assertThat(json.fieldNames()).toIterable().containsExactly("1", "3", "4", "9", "12");
+        assertThat(json.get("3").get("totalExpenses").decimalValue()).isEqualByComparingTo("10.00");
+        assertThat(json.get("3").get("percentagesByCategory").get("OTHER").asDouble()).isEqualTo(100.0);
+    }
+
+    @Test
+    void chunkFailureIsPropagated() {
+        when(rollupRepository.sumCustomerRangeByMonth(MAY, 4L, 9L)).thenThrow(new IllegalStateException("db down"));
+
+        assertThatThrownBy(() -> streamer.forEachCustomer(YearMonth.of(2024, 5), (id, dto) -> { }))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("db down");
+    }
+
+    @Test
+    void percentagesMatchBigDecimalRounding() {
+        ExpenseAggregator aggregator = new ExpenseAggregator();
+        aggregator.add(Transaction.ExpenseCategory.FOOD, new BigDecimal("1.00"));
+        aggregator.add(Transaction.ExpenseCategory.BILLS, new BigDecimal("2.00"));
+        aggregator.add(Transaction.ExpenseCategory.FOOD, new BigDecimal("0.00"));
+
+        ExpenseStatisticsDTO statistics = aggregator.toStatistics();
+
+        assertThat(statistics.getTotalExpenses()).isEqualByComparingTo("3.00");
+        assertThat(statistics.getPercentagesByCategory())
+                .containsEntry(Transaction.ExpenseCategory.FOOD, 33.33)
+                .containsEntry(Transaction.ExpenseCategory.BILLS, 66.67);
+        assertThat(statistics.getExpensesByCategory()).containsOnlyKeys(
+                Transaction.ExpenseCategory.FOOD, Transaction.ExpenseCategory.BILLS);
+    }
+
+    @Test
+    void zeroTotalHasNoPercentages() {
+        ExpenseAggregator aggregator = new ExpenseAggregator();
+        aggregator.add(Transaction.ExpenseCategory.FOOD, new BigDecimal("0.00"));
+
+        ExpenseStatisticsDTO statistics = aggregator.toStatistics();
+
+        assertThat(statistics.getExpensesByCategory()).containsOnlyKeys(Transaction.ExpenseCategory.FOOD);
+        assertThat(statistics.getPercentagesByCategory()).isEmpty();
+    }
+
+    private static Object[] row(long customerId, Transaction.ExpenseCategory category, String amount) {
+        return new Object[]{customerId, category, new BigDecimal(amount)};
+    }
+}
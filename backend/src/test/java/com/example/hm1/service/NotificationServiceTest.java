@@ -1,5 +1,7 @@
 package com.example.hm1.service;
 
+import com.example.hm1.entity.Currency;
+import com.example.hm1.entity.Money;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -8,6 +10,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 
+import java.math.BigDecimal;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -28,7 +31,7 @@ class NotificationServiceTest {
 
     @Test
     void sendAccountUpdateNotificationPublishesToAccountTopic() {
-        notificationService.sendAccountUpdateNotification("ACC-001", "DEPOSIT", 100.0, 1200.0);
+        notificationService.sendAccountUpdateNotification("ACC-001", "DEPOSIT", Money.of("100.00", Currency.USD), Money.of("1200.00", Currency.USD));
 
         ArgumentCaptor<Map<String, Object>> captor = ArgumentCaptor.forClass(mapClass());
         verify(messagingTemplate).convertAndSend(org.mockito.ArgumentMatchers.eq("/topic/account-updates"), captor.capture());
@@ -37,15 +40,15 @@ class NotificationServiceTest {
         assertThat(payload)
                 .containsEntry("accountNumber", "ACC-001")
                 .containsEntry("operation", "DEPOSIT")
-                .containsEntry("amount", 100.0)
-                .containsEntry("newBalance", 1200.0)
+                .containsEntry("amount", new BigDecimal("100.00"))
+                .containsEntry("newBalance", new BigDecimal("1200.00"))
                 .containsKey("timestamp")
                 .containsEntry("message", "Account ACC-001: DEPOSIT of 100.00 completed. New balance: 1200.00");
     }
 
     @Test
     void sendTransactionNotificationPublishesToTransactionTopic() {
-        notificationService.sendTransactionNotification("ACC-002", "TRANSFER", 75.5, "COMPLETED");
+        notificationService.sendTransactionNotification("ACC-002", "TRANSFER", Money.of("75.50", Currency.USD), "COMPLETED");
 
         ArgumentCaptor<Map<String, Object>> captor = ArgumentCaptor.forClass(mapClass());
         verify(messagingTemplate).convertAndSend(org.mockito.ArgumentMatchers.eq("/topic/transaction-updates"), captor.capture());
@@ -54,7 +57,7 @@ class NotificationServiceTest {
         assertThat(payload)
                 .containsEntry("accountNumber", "ACC-002")
                 .containsEntry("transactionType", "TRANSFER")
-                .containsEntry("amount", 75.5)
+                .containsEntry("amount", new BigDecimal("75.50"))
                 .containsEntry("status", "COMPLETED")
                 .containsKey("timestamp")
                 .containsEntry("message", "Transaction TRANSFER for account ACC-002: 75.50 - Status: COMPLETED");
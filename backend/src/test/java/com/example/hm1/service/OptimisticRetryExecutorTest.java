@@ -0,0 +1,80 @@
+package com.example.hm1.service;
+
+import com.example.hm1.service.lock.OptimisticRetryExecutor;
+import com.example.hm1.service.lock.OptimisticRetryProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+class OptimisticRetryExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private OptimisticRetryExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        OptimisticRetryProperties properties = new OptimisticRetryProperties();
+        properties.setMaxAttempts(3);
+        properties.setInitialBackoffMillis(0);
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new OptimisticRetryExecutor(properties, meterRegistry);
+    }
+
+    @Test
+    void retriesOnVersionConflictAndRecordsMetrics() {
+        AtomicInteger calls = new AtomicInteger();
+
+        Boolean result = executor.execute("transfer", () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException("Account", 1L);
+            }
+            return true;
+        });
+
+        assertThat(result).isTrue();
+        assertThat(calls.get()).isEqualTo(3);
+        assertThat(count("bank.account.operations", "transfer")).isEqualTo(1.0);
+        assertThat(count("bank.account.conflicts", "transfer")).isEqualTo(2.0);
+        assertThat(count("bank.account.retries", "transfer")).isEqualTo(2.0);
+        assertThat(meterRegistry.find("bank.account.retries.exhausted").counter()).isNull();
+    }
+
+    @Test
+    void rethrowsConflictWhenAttemptsAreExhausted() {
+        AtomicInteger calls = new AtomicInteger();
+
+        Throwable thrown = catchThrowable(() -> executor.execute("withdraw", () -> {
+            calls.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException("Account", 1L);
+        }));
+
+        assertThat(thrown).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(calls.get()).isEqualTo(3);
+        assertThat(count("bank.account.conflicts", "withdraw")).isEqualTo(3.0);
+        assertThat(count("bank.account.retries.exhausted", "withdraw")).isEqualTo(1.0);
+    }
+
+    @Test
+    void doesNotRetryOtherExceptions() {
+        AtomicInteger calls = new AtomicInteger();
+
+        Throwable thrown = catchThrowable(() -> executor.execute("deposit", () -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("boom");
+        }));
+
+        assertThat(thrown).isInstanceOf(IllegalStateException.class);
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(meterRegistry.find("bank.account.conflicts").counter()).isNull();
+    }
+
+    private double count(String name, String operation) {
+        return meterRegistry.get(name).tag("operation", operation).counter().count();
+    }
+}
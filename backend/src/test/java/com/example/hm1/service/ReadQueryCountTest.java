@@ -0,0 +1,222 @@
+package com.example.hm1.service;
+
+import com.example.hm1.dao.AccountRepoJpaImpl;
+import com.example.hm1.dao.CustomerRepoJpaImpl;
+import com.example.hm1.dao.TransactionCursor;
+import com.example.hm1.dao.TransactionRepository;
+import com.example.hm1.dao.TransactionView;
+import com.example.hm1.dto.TransactionCursorPageDTO;
+import com.example.hm1.entity.Account;
+import com.example.hm1.entity.Currency;
+import com.example.hm1.entity.Customer;
+import com.example.hm1.entity.Employer;
+import com.example.hm1.entity.Transaction;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Кількість SQL-запитів на читаючі ендпоінти. Кожен виклик сервісу йде у власній транзакції, як
+ * з контролера, а результат серіалізується в JSON уже після неї - без enable_lazy_load_no_trans
+ * будь-яка лінива догрузка під час серіалізації тут падає, а зайвий запит у сервісі видно в лічильнику.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({TransactionServiceImpl.class, CustomerServiceImpl.class, CustomerRepoJpaImpl.class, AccountRepoJpaImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReadQueryCountTest {
+
+    private static final int HISTORY_SIZE = 500;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private static boolean seeded;
+    private static Long customerId;
+    private static Long accountId;
+    private static Long transactionId;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (seeded) {
+            return;
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Employer bank = new Employer();
+            bank.setName("Bank");
+            bank.setAddress("Kyiv");
+            entityManager.persist(bank);
+            Employer shop = new Employer();
+            shop.setName("Shop");
+            shop.setAddress("Lviv");
+            entityManager.persist(shop);
+
+            List<Customer> customers = new ArrayList<>();
+            List<Account> accounts = new ArrayList<>();
+            for (int i = 1; i <= 3; i++) {
+                Customer customer = new Customer("Customer " + i, "customer" + i + "@example.com", 30 + i);
+                customer.getEmployers().add(bank);
+                customer.getEmployers().add(shop);
+                entityManager.persist(customer);
+                customers.add(customer);
+                for (Currency currency : List.of(Currency.UAH, Currency.USD)) {
+                    Account account = new Account(currency, customer);
+                    entityManager.persist(account);
+                    accounts.add(account);
+                }
+            }
+
+            // 500 транзакцій першого клієнта: депозити, платежі й перекази на рахунки інших клієнтів
+            Customer owner = customers.get(0);
+            List<Transaction> history = new ArrayList<>();
+            for (int i = 0; i < HISTORY_SIZE; i++) {
+                Transaction transaction = switch (i % 3) {
+                    case 0 -> new Transaction(Transaction.TransactionType.DEPOSIT, BigDecimal.TEN,
+                            "Deposit " + i, null, accounts.get(0), owner);
+                    case 1 -> new Transaction(Transaction.TransactionType.PAYMENT, BigDecimal.ONE,
+                            "Payment " + i, accounts.get(0), null, owner);
+                    default -> new Transaction(Transaction.TransactionType.TRANSFER, BigDecimal.ONE,
+                            "Transfer " + i, accounts.get(1), accounts.get(2 + i % 4), owner);
+                };
+                transaction.setTimestamp(START.plusMinutes(i));
+                if (transaction.getType() == Transaction.TransactionType.PAYMENT) {
+                    transaction.setCategory(Transaction.ExpenseCategory.FOOD);
+                }
+                history.add(transaction);
+            }
+            transactionRepository.saveAll(history);
+
+            customerId = owner.getId();
+            accountId = accounts.get(0).getId();
+            transactionId = history.get(HISTORY_SIZE - 1).getId();
+        });
+        seeded = true;
+    }
+
+    @Test
+    void historyOfFiveHundredTransactionsIsOneQuery() throws Exception {
+        JsonNode json = objectMapper.readTree(
+                serialize(() -> transactionService.getTransactionsByCustomerId(customerId)));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(json).hasSize(HISTORY_SIZE);
+        JsonNode newest = json.get(0);
+        assertThat(newest.get("id").asLong()).isEqualTo(transactionId);
+        assertThat(newest.get("customerName").asText()).isEqualTo("Customer 1");
+        assertThat(newest.get("category").asText()).isEqualTo("FOOD");
+        assertThat(newest.get("fromAccountId").asLong()).isEqualTo(accountId);
+    }
+
+    @Test
+    void transactionListEndpointsAreOneQueryEach() throws Exception {
+        LocalDateTime end = START.plusDays(1);
+        assertSingleQuery(() -> transactionService.getAllTransactions());
+        assertSingleQuery(() -> transactionService.getTransactionsByDateRange(customerId, START, end));
+        assertSingleQuery(() -> transactionService.getAllTransactionsByDateRange(START, end));
+        assertSingleQuery(() -> transactionService.getTransactionsByType(Transaction.TransactionType.TRANSFER));
+        assertSingleQuery(() -> transactionService.getTransactionsByStatus(Transaction.TransactionStatus.COMPLETED));
+        assertSingleQuery(() -> transactionRepository.findByFromAccountIdOrToAccountIdOrderByTimestampDesc(accountId, accountId));
+        assertSingleQuery(() -> transactionService.getTransactionById(transactionId));
+    }
+
+    @Test
+    void keysetPagesAreOneQueryEach() throws Exception {
+        TransactionCursorPageDTO first = transactionService.getTransactionsByCustomerId(customerId, null, 50);
+        TransactionCursor cursor = TransactionCursor.decode(first.getNextCursor());
+
+        assertSingleQuery(() -> transactionService.getTransactionsByCustomerId(customerId, null, 50));
+        assertSingleQuery(() -> transactionService.getTransactionsByCustomerId(customerId, cursor, 50));
+        assertSingleQuery(() -> transactionService.getAllTransactions(cursor, 50));
+    }
+
+    @Test
+    void offsetPagesAddOnlyTheCountQuery() throws Exception {
+        serialize(() -> transactionService.getTransactionsByCustomerId(customerId, PageRequest.of(2, 100)));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+
+        serialize(() -> transactionService.getAllTransactions(PageRequest.of(0, 100)));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void transactionViewCarriesAccountNumbers() throws Exception {
+        List<TransactionView> transfers = transactionService.getTransactionsByType(Transaction.TransactionType.TRANSFER);
+
+        assertThat(transfers).isNotEmpty().allSatisfy(view -> {
+            assertThat(view.getCustomerId()).isEqualTo(customerId);
+            assertThat(view.getFromAccountNumber()).isNotNull();
+            assertThat(view.getToAccountNumber()).isNotNull();
+        });
+    }
+
+    @Test
+    void customersAreLoadedWithAccountsAndEmployersInTwoQueries() throws Exception {
+        JsonNode all = objectMapper.readTree(serialize(() -> customerService.getAllCustomers()));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(all).hasSize(3).allSatisfy(customer -> {
+            assertThat(customer.get("accounts")).hasSize(2);
+            assertThat(customer.get("employers")).hasSize(2);
+        });
+
+        JsonNode one = objectMapper.readTree(serialize(() -> customerService.getCustomerById(customerId)));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(one.get("accounts")).hasSize(2);
+        assertThat(one.get("employers")).hasSize(2);
+    }
+
+    private void assertSingleQuery(Supplier<?> endpoint) throws Exception {
+        serialize(endpoint);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    /** Виклик "ендпоінта": сервіс у своїй транзакції, потім Jackson поза нею, як у контролері. */
+    private String serialize(Supplier<?> endpoint) throws Exception {
+        statistics.clear();
+        Object body = endpoint.get();
+        return objectMapper.writeValueAsString(body);
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.hm1.service;
+
+import com.example.hm1.entity.Account;
+import com.example.hm1.entity.Customer;
+import com.example.hm1.entity.Transaction;
+import com.example.hm1.entity.User;
+import com.example.hm1.service.stats.SystemStatsService;
+import com.example.hm1.service.stats.SystemStatsService.Entity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class SystemStatsServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private SystemStatsService stats;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject("SELECT count(*) FROM users", Long.class)).thenReturn(3L);
+        when(jdbcTemplate.queryForObject("SELECT count(*) FROM customers", Long.class)).thenReturn(2L);
+        when(jdbcTemplate.queryForObject("SELECT count(*) FROM accounts", Long.class)).thenReturn(4L);
+        when(jdbcTemplate.queryForObject("SELECT count(*) FROM transactions", Long.class)).thenReturn(100L);
+        meterRegistry = new SimpleMeterRegistry();
+        stats = new SystemStatsService(jdbcTemplate, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void snapshotReconcilesOnceAndThenServesCounters() {
+        Map<Entity, Long> first = stats.snapshot();
+        clearInvocations(jdbcTemplate);
+        stats.snapshot();
+
+        assertThat(first).containsEntry(Entity.USERS, 3L)
+                .containsEntry(Entity.CUSTOMERS, 2L)
+                .containsEntry(Entity.ACCOUNTS, 4L)
+                .containsEntry(Entity.TRANSACTIONS, 100L);
+        verifyNoInteractions(jdbcTemplate);
+        assertThat(meterRegistry.get("bank.entities.count").tag("entity", "transactions").gauge().value())
+                .isEqualTo(100.0);
+    }
+
+    @Test
+    void insertsAndDeletesOutsideTransactionApplyImmediately() {
+        stats.reconcile();
+
+        stats.recordInsert(new Transaction());
+        stats.recordInsert(new Transaction());
+        stats.recordInsert(new User());
+        stats.recordDelete(Account.builder().build());
+        stats.recordInsert("not an entity");
+
+        assertThat(stats.get(Entity.TRANSACTIONS)).isEqualTo(102L);
+        assertThat(stats.get(Entity.USERS)).isEqualTo(4L);
+        assertThat(stats.get(Entity.ACCOUNTS)).isEqualTo(3L);
+        assertThat(stats.get(Entity.CUSTOMERS)).isEqualTo(2L);
+    }
+
+    @Test
+    void changesInsideTransactionApplyOnlyAfterCommit() {
+        stats.reconcile();
+        TransactionSynchronizationManager.initSynchronization();
+
+        stats.recordInsert(new Transaction());
+        stats.recordInsert(new Transaction());
+        stats.recordInsert(Customer.builder().build());
+        assertThat(stats.get(Entity.TRANSACTIONS)).isEqualTo(100L);
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(stats.get(Entity.TRANSACTIONS)).isEqualTo(102L);
+        assertThat(stats.get(Entity.CUSTOMERS)).isEqualTo(3L);
+        assertThat(TransactionSynchronizationManager.getResource(stats)).isNull();
+    }
+
+    @Test
+    void rolledBackChangesAreDiscarded() {
+        stats.reconcile();
+        TransactionSynchronizationManager.initSynchronization();
+
+        stats.recordInsert(new Transaction());
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(stats.get(Entity.TRANSACTIONS)).isEqualTo(100L);
+    }
+
+    @Test
+    void reconcileResetsDriftedCountersAndReportsDrift() {
+        stats.reconcile();
+        stats.recordInsert(new Transaction());
+        // Видалення через ON DELETE CASCADE: лічильник його не бачив
+        when(jdbcTemplate.queryForObject("SELECT count(*) FROM transactions", Long.class)).thenReturn(95L);
+
+        stats.reconcile();
+
+        assertThat(stats.get(Entity.TRANSACTIONS)).isEqualTo(95L);
+        assertThat(meterRegistry.get("bank.entities.reconcile.drift").tag("entity", "transactions").gauge().value())
+                .isEqualTo(-6.0);
+    }
+
+    @Test
+    void failedCountKeepsPreviousValue() {
+        stats.reconcile();
+        stats.recordInsert(new User());
+        when(jdbcTemplate.queryForObject(eq("SELECT count(*) FROM users"), eq(Long.class)))
+                .thenThrow(new IllegalStateException("db down"));
+
+        stats.reconcile();
+
+        assertThat(stats.get(Entity.USERS)).isEqualTo(4L);
+        verify(jdbcTemplate, atLeastOnce()).queryForObject(anyString(), eq(Long.class));
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        for (TransactionSynchronization synchronization : synchronizations) {
+            synchronization.afterCompletion(status);
+        }
+    }
+}
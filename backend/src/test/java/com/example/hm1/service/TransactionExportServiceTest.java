@@ -0,0 +1,104 @@
+package com.example.hm1.service;
+
+import com.example.hm1.dao.TransactionExportRow;
+import com.example.hm1.dao.TransactionRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TransactionExportServiceTest {
+
+    private TransactionRepository transactionRepository;
+    private ObjectMapper objectMapper;
+    private TransactionExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository = mock(TransactionRepository.class);
+        objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        exportService = new TransactionExportService(transactionRepository, objectMapper);
+    }
+
+    private void stubRows(List<TransactionExportRow> rows) {
+        when(transactionRepository.forEachExportRow(any())).thenAnswer(invocation -> {
+            Consumer<TransactionExportRow> consumer = invocation.getArgument(0);
+            rows.forEach(consumer);
+            return (long) rows.size();
+        });
+    }
+
+    private static TransactionExportRow row(long id, String description, String fromAccount) {
+        return new TransactionExportRow(id, LocalDateTime.of(2024, 5, 1, 9, 30), "PAYMENT", "COMPLETED",
+                new BigDecimal("12.50"), "FOOD", description, 7L, fromAccount, null, null);
+    }
+
+    @Test
+    void ndjsonWritesOneObjectPerLine() throws IOException {
+        stubRows(List.of(row(1, "Coffee", "ACC-1"), row(2, null, null)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.export(TransactionExportService.Format.NDJSON, out);
+
+        String body = out.toString(StandardCharsets.UTF_8);
+        String[] lines = body.split("\n");
+        assertThat(rows).isEqualTo(2);
+        assertThat(body).endsWith("\n");
+        assertThat(lines).hasSize(2);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertThat(first.get("id").asLong()).isEqualTo(1);
+        assertThat(first.get("timestamp").asText()).isEqualTo("2024-05-01T09:30:00");
+        assertThat(first.get("amount").decimalValue()).isEqualByComparingTo("12.50");
+        assertThat(first.get("fromAccount").asText()).isEqualTo("ACC-1");
+        assertThat(objectMapper.readTree(lines[1]).get("description").isNull()).isTrue();
+    }
+
+    @Test
+    void csvWritesHeaderAndEscapesFields() throws IOException {
+        stubRows(List.of(row(1, "Coffee, \"large\"", "ACC-1"), row(2, "multi\nline", null)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.export(TransactionExportService.Format.CSV, out);
+
+        String body = out.toString(StandardCharsets.UTF_8);
+        assertThat(rows).isEqualTo(2);
+        assertThat(body).startsWith(TransactionExportService.CSV_HEADER + "\n");
+        assertThat(body).contains("1,2024-05-01T09:30,PAYMENT,COMPLETED,12.50,FOOD,\"Coffee, \"\"large\"\"\",7,ACC-1,,\n");
+        assertThat(body).contains("2,2024-05-01T09:30,PAYMENT,COMPLETED,12.50,FOOD,\"multi\nline\",7,,,\n");
+    }
+
+    @Test
+    void emptyExportWritesOnlyCsvHeader() throws IOException {
+        stubRows(List.of());
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+
+        exportService.export(TransactionExportService.Format.NDJSON, ndjson);
+        exportService.export(TransactionExportService.Format.CSV, csv);
+
+        assertThat(ndjson.size()).isZero();
+        assertThat(csv.toString(StandardCharsets.UTF_8)).isEqualTo(TransactionExportService.CSV_HEADER + "\n");
+    }
+
+    @Test
+    void formatParsingAcceptsNamesAndExtensions() {
+        assertThat(TransactionExportService.Format.parse("ndjson")).isEqualTo(TransactionExportService.Format.NDJSON);
+        assertThat(TransactionExportService.Format.parse("CSV")).isEqualTo(TransactionExportService.Format.CSV);
+        assertThat(TransactionExportService.Format.parse("xml")).isNull();
+    }
+}
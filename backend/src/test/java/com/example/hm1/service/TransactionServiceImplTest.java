@@ -1,8 +1,16 @@
 package com.example.hm1.service;
 
+import com.example.hm1.dao.AccountActivityView;
+import com.example.hm1.dao.ExpenseRollupRepository;
+import com.example.hm1.dao.TransactionCursor;
 import com.example.hm1.dao.TransactionRepository;
+import com.example.hm1.dao.TransactionView;
+import com.example.hm1.dto.AccountActivityDTO;
+import com.example.hm1.dto.ExpenseStatisticsDTO;
+import com.example.hm1.dto.TransactionCursorPageDTO;
 import com.example.hm1.entity.Account;
 import com.example.hm1.entity.Currency;
+import com.example.hm1.entity.Money;
 import com.example.hm1.entity.Customer;
 import com.example.hm1.entity.Transaction;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,11 +25,14 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -32,6 +43,9 @@ class TransactionServiceImplTest {
     @Mock
     private TransactionRepository transactionRepository;
 
+    @Mock
+    private ExpenseRollupRepository expenseRollupRepository;
+
     @InjectMocks
     private TransactionServiceImpl transactionService;
 
@@ -52,7 +66,7 @@ class TransactionServiceImplTest {
                 .id(100L)
                 .number("ACC-100")
                 .currency(Currency.USD)
-                .balance(1000.0)
+                .balance(Money.of("1000.00", Currency.USD))
                 .customer(customer)
                 .build();
 
@@ -60,7 +74,7 @@ class TransactionServiceImplTest {
                 .id(200L)
                 .number("ACC-200")
                 .currency(Currency.EUR)
-                .balance(500.0)
+                .balance(Money.of("500.00", Currency.EUR))
                 .customer(customer)
                 .build();
     }
@@ -100,13 +114,10 @@ class TransactionServiceImplTest {
 
     @Test
     void getTransactionsByCustomerIdReturnsOrderedList() {
-        List<Transaction> transactions = List.of(
-                new Transaction(Transaction.TransactionType.DEPOSIT, BigDecimal.TEN, "Deposit", null, toAccount, customer),
-                new Transaction(Transaction.TransactionType.WITHDRAWAL, BigDecimal.ONE, "Withdrawal", fromAccount, null, customer)
-        );
+        List<TransactionView> transactions = List.of(view(2L, LocalDateTime.of(2024, 5, 3, 12, 0)), view(1L, LocalDateTime.of(2024, 5, 2, 12, 0)));
         when(transactionRepository.findByCustomerIdOrderByTimestampDesc(1L)).thenReturn(transactions);
 
-        List<Transaction> result = transactionService.getTransactionsByCustomerId(1L);
+        List<TransactionView> result = transactionService.getTransactionsByCustomerId(1L);
 
         assertThat(result).isEqualTo(transactions);
         verify(transactionRepository).findByCustomerIdOrderByTimestampDesc(1L);
@@ -115,10 +126,10 @@ class TransactionServiceImplTest {
     @Test
     void getTransactionsByCustomerIdWithPagingDelegatesToRepository() {
         PageRequest pageRequest = PageRequest.of(0, 10);
-        Page<Transaction> page = new PageImpl<>(List.of());
+        Page<TransactionView> page = new PageImpl<>(List.of());
         when(transactionRepository.findByCustomerIdOrderByTimestampDescPage(1L, pageRequest)).thenReturn(page);
 
-        Page<Transaction> result = transactionService.getTransactionsByCustomerId(1L, pageRequest);
+        Page<TransactionView> result = transactionService.getTransactionsByCustomerId(1L, pageRequest);
 
         assertThat(result).isSameAs(page);
         verify(transactionRepository).findByCustomerIdOrderByTimestampDescPage(1L, pageRequest);
@@ -126,32 +137,79 @@ class TransactionServiceImplTest {
 
     @Test
     void getAllTransactionsSupportsListAndPagedVariants() {
-        List<Transaction> allTransactions = List.of(
-                new Transaction(Transaction.TransactionType.DEPOSIT, BigDecimal.ONE, "Deposit", null, toAccount, customer)
-        );
+        List<TransactionView> allTransactions = List.of(view(5L, LocalDateTime.of(2024, 5, 3, 12, 0)));
         when(transactionRepository.findAllOrderByTimestampDesc()).thenReturn(allTransactions);
 
-        List<Transaction> listResult = transactionService.getAllTransactions();
+        List<TransactionView> listResult = transactionService.getAllTransactions();
         assertThat(listResult).isEqualTo(allTransactions);
         verify(transactionRepository).findAllOrderByTimestampDesc();
 
         PageRequest pageRequest = PageRequest.of(0, 20);
-        Page<Transaction> page = new PageImpl<>(allTransactions);
+        Page<TransactionView> page = new PageImpl<>(allTransactions);
         when(transactionRepository.findAllOrderByTimestampDesc(pageRequest)).thenReturn(page);
 
-        Page<Transaction> pageResult = transactionService.getAllTransactions(pageRequest);
+        Page<TransactionView> pageResult = transactionService.getAllTransactions(pageRequest);
         assertThat(pageResult).isSameAs(page);
         verify(transactionRepository).findAllOrderByTimestampDesc(pageRequest);
     }
 
+    @Test
+    void keysetPageFetchesOneExtraRowAndReturnsCursorOfLastRow() {
+        LocalDateTime newest = LocalDateTime.of(2024, 5, 3, 12, 0);
+        List<TransactionView> rows = List.of(
+                view(30L, newest), view(29L, newest), view(12L, newest.minusDays(1)));
+        when(transactionRepository.findFirstByCustomerIdKeyset(1L, PageRequest.ofSize(3))).thenReturn(rows);
+
+        TransactionCursorPageDTO page = transactionService.getTransactionsByCustomerId(1L, null, 2);
+
+        assertThat(page.getContent()).extracting(TransactionView::getId).containsExactly(30L, 29L);
+        assertThat(page.isHasMore()).isTrue();
+        TransactionCursor next = TransactionCursor.decode(page.getNextCursor());
+        assertThat(next.getTimestamp()).isEqualTo(newest);
+        assertThat(next.getId()).isEqualTo(29L);
+        verify(transactionRepository, never()).findByCustomerIdOrderByTimestampDescPage(anyLong(), any());
+    }
+
+    @Test
+    void keysetPageContinuesAfterCursorAndEndsWithoutNextCursor() {
+        LocalDateTime timestamp = LocalDateTime.of(2024, 5, 3, 12, 0);
+        List<TransactionView> rows = List.of(view(12L, timestamp.minusDays(1)));
+        when(transactionRepository.findAllBefore(timestamp, 29L, PageRequest.ofSize(3))).thenReturn(rows);
+
+        TransactionCursorPageDTO page = transactionService.getAllTransactions(new TransactionCursor(timestamp, 29L), 2);
+
+        assertThat(page.getContent()).extracting(TransactionView::getId).containsExactly(12L);
+        assertThat(page.isHasMore()).isFalse();
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void cursorRoundTripsAndRejectsGarbage() {
+        TransactionCursor cursor = new TransactionCursor(LocalDateTime.of(2024, 5, 3, 12, 0, 0, 123_000), 42L);
+
+        TransactionCursor decoded = TransactionCursor.decode(cursor.encode());
+
+        assertThat(decoded.getTimestamp()).isEqualTo(cursor.getTimestamp());
+        assertThat(decoded.getId()).isEqualTo(42L);
+        assertThatThrownBy(() -> TransactionCursor.decode("not a cursor")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TransactionCursor.decode("MjAyNC0wNS0wM3x4")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static TransactionView view(Long id, LocalDateTime timestamp) {
+        TransactionView view = mock(TransactionView.class);
+        lenient().when(view.getId()).thenReturn(id);
+        lenient().when(view.getTimestamp()).thenReturn(timestamp);
+        return view;
+    }
+
     @Test
     void getTransactionsByDateRangeDelegatesToRepository() {
         LocalDateTime start = LocalDateTime.now().minusDays(7);
         LocalDateTime end = LocalDateTime.now();
-        List<Transaction> expected = List.of(new Transaction(Transaction.TransactionType.DEPOSIT, BigDecimal.ONE, "Deposit", null, toAccount, customer));
+        List<TransactionView> expected = List.of(view(1L, start));
         when(transactionRepository.findByCustomerIdAndDateRange(1L, start, end)).thenReturn(expected);
 
-        List<Transaction> result = transactionService.getTransactionsByDateRange(1L, start, end);
+        List<TransactionView> result = transactionService.getTransactionsByDateRange(1L, start, end);
 
         assertThat(result).isEqualTo(expected);
         verify(transactionRepository).findByCustomerIdAndDateRange(1L, start, end);
@@ -161,10 +219,10 @@ class TransactionServiceImplTest {
     void getAllTransactionsByDateRangeDelegatesToRepository() {
         LocalDateTime start = LocalDateTime.now().minusDays(1);
         LocalDateTime end = LocalDateTime.now();
-        List<Transaction> expected = List.of(new Transaction(Transaction.TransactionType.TRANSFER, BigDecimal.TEN, "Transfer", fromAccount, toAccount, customer));
+        List<TransactionView> expected = List.of(view(2L, start));
         when(transactionRepository.findAllByDateRange(start, end)).thenReturn(expected);
 
-        List<Transaction> result = transactionService.getAllTransactionsByDateRange(start, end);
+        List<TransactionView> result = transactionService.getAllTransactionsByDateRange(start, end);
 
         assertThat(result).isEqualTo(expected);
         verify(transactionRepository).findAllByDateRange(start, end);
@@ -172,31 +230,32 @@ class TransactionServiceImplTest {
 
     @Test
     void getTransactionsByTypeAndStatusDelegateToRepository() {
-        List<Transaction> byType = List.of(new Transaction(Transaction.TransactionType.DEPOSIT, BigDecimal.ONE, "Deposit", null, toAccount, customer));
+        List<TransactionView> byType = List.of(view(3L, LocalDateTime.of(2024, 5, 1, 9, 0)));
         when(transactionRepository.findByTypeOrderByTimestampDesc(Transaction.TransactionType.DEPOSIT)).thenReturn(byType);
         assertThat(transactionService.getTransactionsByType(Transaction.TransactionType.DEPOSIT)).isEqualTo(byType);
         verify(transactionRepository).findByTypeOrderByTimestampDesc(Transaction.TransactionType.DEPOSIT);
 
-        List<Transaction> byStatus = List.of(new Transaction(Transaction.TransactionType.TRANSFER, BigDecimal.TEN, "Transfer", fromAccount, toAccount, customer));
+        List<TransactionView> byStatus = List.of(view(4L, LocalDateTime.of(2024, 5, 1, 10, 0)));
         when(transactionRepository.findByStatusOrderByTimestampDesc(Transaction.TransactionStatus.COMPLETED)).thenReturn(byStatus);
         assertThat(transactionService.getTransactionsByStatus(Transaction.TransactionStatus.COMPLETED)).isEqualTo(byStatus);
         verify(transactionRepository).findByStatusOrderByTimestampDesc(Transaction.TransactionStatus.COMPLETED);
     }
 
     @Test
-    void getTransactionByIdReturnsEntityWhenPresent() {
-        Transaction transaction = new Transaction(Transaction.TransactionType.PAYMENT, BigDecimal.TEN, "Payment", fromAccount, toAccount, customer);
-        when(transactionRepository.findById(99L)).thenReturn(Optional.of(transaction));
+    void getTransactionByIdReturnsViewWhenPresent() {
+        TransactionView transaction = view(99L, LocalDateTime.of(2024, 5, 1, 10, 0));
+        when(transactionRepository.findViewById(99L)).thenReturn(Optional.of(transaction));
 
-        Transaction result = transactionService.getTransactionById(99L);
+        TransactionView result = transactionService.getTransactionById(99L);
 
         assertThat(result).isSameAs(transaction);
-        verify(transactionRepository).findById(99L);
+        verify(transactionRepository).findViewById(99L);
+        verify(transactionRepository, never()).findById(anyLong());
     }
 
     @Test
     void getTransactionByIdThrowsWhenMissing() {
-        when(transactionRepository.findById(100L)).thenReturn(Optional.empty());
+        when(transactionRepository.findViewById(100L)).thenReturn(Optional.empty());
 
         Throwable thrown = org.assertj.core.api.Assertions.catchThrowable(() -> transactionService.getTransactionById(100L));
         assertThat(thrown)
@@ -206,8 +265,149 @@ class TransactionServiceImplTest {
 
     @Test
     void deleteTransactionDelegatesToRepository() {
+        Transaction transaction = new Transaction(Transaction.TransactionType.DEPOSIT, BigDecimal.TEN, "Deposit", null, toAccount, customer);
+        when(transactionRepository.findByIdForUpdate(55L)).thenReturn(Optional.of(transaction));
+
         transactionService.deleteTransaction(55L);
-        verify(transactionRepository).deleteById(55L);
+
+        verify(transactionRepository).delete(transaction);
+        verifyNoInteractions(expenseRollupRepository);
     }
-}
 
+    @Test
+    void deleteCategorizedExpenseSubtractsItFromRollup() {
+        Transaction payment = payment(LocalDateTime.of(2024, 5, 20, 12, 0), Transaction.ExpenseCategory.FOOD);
+        when(transactionRepository.findByIdForUpdate(56L)).thenReturn(Optional.of(payment));
+
+        transactionService.deleteTransaction(56L);
+
+        verify(expenseRollupRepository).addExpense(1L, 100L, LocalDate.of(2024, 5, 1), "FOOD", new BigDecimal("-30.00"), -1);
+        verify(transactionRepository).delete(payment);
+    }
+
+    @Test
+    void createTransactionWithoutCategoryLeavesRollupsUntouched() {
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        transactionService.createTransaction(Transaction.TransactionType.WITHDRAWAL, BigDecimal.TEN, "ATM",
+                fromAccount, null, customer);
+
+        verifyNoInteractions(expenseRollupRepository);
+    }
+
+    @Test
+    void createTransactionsAddsCategorizedExpensesToRollup() {
+        Transaction payment = payment(LocalDateTime.of(2024, 2, 29, 23, 59), Transaction.ExpenseCategory.BILLS);
+        Transaction transfer = new Transaction(Transaction.TransactionType.TRANSFER, BigDecimal.ONE, "Transfer", fromAccount, toAccount, customer);
+        when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        transactionService.createTransactions(List.of(payment, transfer));
+
+        verify(expenseRollupRepository).addExpense(1L, 100L, LocalDate.of(2024, 2, 1), "BILLS", new BigDecimal("30.00"), 1);
+        verifyNoMoreInteractions(expenseRollupRepository);
+    }
+
+    @Test
+    void updateTransactionCategoryMovesAmountBetweenRollupRows() {
+        Transaction payment = payment(LocalDateTime.of(2024, 5, 20, 12, 0), Transaction.ExpenseCategory.FOOD);
+        when(transactionRepository.findByIdForUpdate(7L)).thenReturn(Optional.of(payment));
+        when(transactionRepository.save(payment)).thenReturn(payment);
+
+        Transaction result = transactionService.updateTransactionCategory(7L, Transaction.ExpenseCategory.SHOPPING);
+
+        assertThat(result.getCategory()).isEqualTo(Transaction.ExpenseCategory.SHOPPING);
+        verify(expenseRollupRepository).addExpense(1L, 100L, LocalDate.of(2024, 5, 1), "FOOD", new BigDecimal("-30.00"), -1);
+        verify(expenseRollupRepository).addExpense(1L, 100L, LocalDate.of(2024, 5, 1), "SHOPPING", new BigDecimal("30.00"), 1);
+    }
+
+    @Test
+    void updateTransactionCategoryToSameValueOrOnNonExpenseSkipsRollup() {
+        Transaction payment = payment(LocalDateTime.of(2024, 5, 20, 12, 0), Transaction.ExpenseCategory.FOOD);
+        Transaction deposit = new Transaction(Transaction.TransactionType.DEPOSIT, BigDecimal.TEN, "Deposit", null, toAccount, customer);
+        when(transactionRepository.findByIdForUpdate(7L)).thenReturn(Optional.of(payment));
+        when(transactionRepository.findByIdForUpdate(8L)).thenReturn(Optional.of(deposit));
+
+        transactionService.updateTransactionCategory(7L, Transaction.ExpenseCategory.FOOD);
+        transactionService.updateTransactionCategory(8L, Transaction.ExpenseCategory.OTHER);
+
+        verifyNoInteractions(expenseRollupRepository);
+    }
+
+    @Test
+    void expenseStatisticsReadRollupRows() {
+        when(expenseRollupRepository.sumByCustomerAndMonth(1L, LocalDate.of(2024, 5, 1))).thenReturn(List.of(
+                new Object[]{Transaction.ExpenseCategory.FOOD, new BigDecimal("75.00")},
+                new Object[]{Transaction.ExpenseCategory.BILLS, new BigDecimal("25.00")}));
+        when(expenseRollupRepository.sumAllCustomersByMonth(LocalDate.of(2024, 5, 1))).thenReturn(List.<Object[]>of(
+                new Object[]{2L, Transaction.ExpenseCategory.OTHER, new BigDecimal("10.00")}));
+
+        ExpenseStatisticsDTO byCustomer = transactionService.getExpenseStatisticsByMonth(1L, 2024, 5);
+        Map<Long, ExpenseStatisticsDTO> allUsers = transactionService.getExpenseStatisticsForAllUsersByMonth(2024, 5);
+
+        assertThat(byCustomer.getTotalExpenses()).isEqualByComparingTo("100.00");
+        assertThat(byCustomer.getPercentagesByCategory()).containsEntry(Transaction.ExpenseCategory.FOOD, 75.0);
+        assertThat(allUsers).containsOnlyKeys(2L);
+        assertThat(allUsers.get(2L).getTotalExpenses()).isEqualByComparingTo("10.00");
+        verifyNoInteractions(transactionRepository);
+    }
+
+    private Transaction payment(LocalDateTime timestamp, Transaction.ExpenseCategory category) {
+        Transaction payment = new Transaction(Transaction.TransactionType.PAYMENT, new BigDecimal("30.00"), "Payment", fromAccount, null, customer);
+        payment.setTimestamp(timestamp);
+        payment.setCategory(category);
+        return payment;
+    }
+
+    @Test
+    void getAccountActivityMergesOutgoingAndIncomingAggregates() {
+        LocalDateTime earlier = LocalDateTime.of(2024, 3, 1, 10, 0);
+        LocalDateTime later = LocalDateTime.of(2024, 3, 5, 18, 30);
+        when(transactionRepository.sumOutgoingByCustomerAccounts(1L)).thenReturn(List.of(
+                activity(100L, 3, "150.00", later)));
+        when(transactionRepository.sumIncomingByCustomerAccounts(1L)).thenReturn(List.of(
+                activity(100L, 2, "40.00", earlier),
+                activity(200L, 1, "75.50", earlier)));
+
+        Map<Long, AccountActivityDTO> result = transactionService.getAccountActivity(1L);
+
+        assertThat(result).containsOnlyKeys(100L, 200L);
+        AccountActivityDTO first = result.get(100L);
+        assertAll(
+                () -> assertThat(first.getTransactionCount()).isEqualTo(5),
+                () -> assertThat(first.getOutgoingTotal()).isEqualByComparingTo("150.00"),
+                () -> assertThat(first.getIncomingTotal()).isEqualByComparingTo("40.00"),
+                () -> assertThat(first.getLastActivity()).isEqualTo(later)
+        );
+        AccountActivityDTO second = result.get(200L);
+        assertAll(
+                () -> assertThat(second.getTransactionCount()).isEqualTo(1),
+                () -> assertThat(second.getOutgoingTotal()).isEqualByComparingTo("0"),
+                () -> assertThat(second.getIncomingTotal()).isEqualByComparingTo("75.50"),
+                () -> assertThat(second.getLastActivity()).isEqualTo(earlier)
+        );
+    }
+
+    private static AccountActivityView activity(Long accountId, long count, String total, LocalDateTime last) {
+        return new AccountActivityView() {
+            @Override
+            public Long getAccountId() {
+                return accountId;
+            }
+
+            @Override
+            public Long getTransactionCount() {
+                return count;
+            }
+
+            @Override
+            public BigDecimal getTotal() {
+                return new BigDecimal(total);
+            }
+
+            @Override
+            public LocalDateTime getLastActivity() {
+                return last;
+            }
+        };
+    }
+}